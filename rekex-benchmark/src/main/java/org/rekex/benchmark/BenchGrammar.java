@@ -0,0 +1,153 @@
+package org.rekex.benchmark;
+
+import org.rekex.annotype.ClassType;
+import org.rekex.exmple.parser.ExampleParser_Uri;
+import org.rekex.exmple.parser.calculator.ExampleParser_Calculator1;
+import org.rekex.exmple.parser.json.ExampleParser_Json1;
+import org.rekex.exmple.parser.json.ExampleParser_Json2;
+import org.rekex.exmple.parser.json.ExampleParser_Json3;
+import org.rekex.parser.PegParser;
+import org.rekex.parser.ReferencePegParser;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+// the example grammars under benchmark, with their parsers and input generators.
+//
+// inputs are deterministic for a given size, so that numbers are comparable across runs.
+// a valid input is about `size` chars. an invalid input is a valid one with a defect near the end,
+// so that the parser does all the work before rejecting it; the result is Fail for Json and Calculator,
+// and Partial for Uri, whose parts are regex and can't fail after they have matched.
+// Uri inputs are capped at URI_MAX chars: java.util.regex recurses per repetition in the path regex,
+// and overflows the stack on multi-MB input; such URIs aren't realistic anyway.
+
+enum BenchGrammar
+{
+    Json1(ExampleParser_Json1::parser,
+        ()->ReferencePegParser.of(ClassType.of(ExampleParser_Json1.Input.class), null, null))
+    {
+        String valid(int size){ return json(size); }
+        String invalid(int size){ return jsonInvalid(size); }
+    },
+    Json2(ExampleParser_Json2::parser,
+        ()->ReferencePegParser.of(ClassType.of(ExampleParser_Json2.Input.class),
+            ExampleParser_Json2.CtorCatalog.class, new ExampleParser_Json2.CtorCatalog()))
+    {
+        String valid(int size){ return json(size); }
+        String invalid(int size){ return jsonInvalid(size); }
+    },
+    Json3(ExampleParser_Json3::parser,
+        ()->ReferencePegParser.of(ClassType.of(ExampleParser_Json3.Input.class),
+            ExampleParser_Json3.CtorCatalog.class, new ExampleParser_Json3.CtorCatalog()))
+    {
+        String valid(int size){ return json(size); }
+        String invalid(int size){ return jsonInvalid(size); }
+    },
+    Calculator(ExampleParser_Calculator1::parser,
+        ()->ReferencePegParser.of(ClassType.of(ExampleParser_Calculator1.Input.class), null, null))
+    {
+        String valid(int size){ return calculator(size); }
+        // the outermost parens are not closed
+        String invalid(int size){ return "("+calculator(size); }
+    },
+    Uri(ExampleParser_Uri::parser,
+        ()->ReferencePegParser.of(ClassType.of(ExampleParser_Uri.T_uri.class), null, null))
+    {
+        String valid(int size){ return uri(size, ""); }
+        // a bad percent-encoding in the fragment
+        String invalid(int size){ return uri(size, "%zz"); }
+    },
+    ;
+
+    static final int URI_MAX = 10_000;
+
+    final Supplier<PegParser<?>> generated;
+    final Supplier<PegParser<?>> reference;
+
+    BenchGrammar(Supplier<PegParser<?>> generated, Supplier<PegParser<?>> reference)
+    {
+        this.generated = generated;
+        this.reference = reference;
+    }
+
+    abstract String valid(int size);
+    abstract String invalid(int size);
+
+    PegParser<?> parser(boolean reference)
+    {
+        return reference ? this.reference.get() : this.generated.get();
+    }
+
+    // inputs ------------------------------------------------------------------
+
+    // an array of small objects, like messages in a log
+    static String json(int size)
+    {
+        var random = new Random(size);
+        var sb = new StringBuilder(size+200);
+        sb.append('[');
+        for(int i=0; i==0 || sb.length()<size; i++)
+        {
+            if(i>0)
+                sb.append(",\n ");
+            jsonObject(sb, i, random);
+        }
+        sb.append("]\n");
+        return sb.toString();
+    }
+
+    // the value of the last member is missing
+    static String jsonInvalid(int size)
+    {
+        String s = json(size);
+        return s.substring(0, s.length()-2) + ", {\"id\": }]\n";
+    }
+
+    static void jsonObject(StringBuilder sb, int i, Random random)
+    {
+        sb.append("{\"id\": ").append(i)
+            .append(", \"name\": \"msg-").append(random.nextInt(1000)).append("\\t\\u00e9\"")
+            .append(", \"tags\": [");
+        for(int t=random.nextInt(4); t>0; t--)
+            sb.append("\"t").append(t).append(t>1?"\", ":"\"");
+        sb.append("], \"value\": ").append(random.nextInt(100_000)).append('.').append(random.nextInt(1000))
+            .append("e-3, \"ok\": ").append(random.nextBoolean())
+            .append(", \"ref\": null}");
+    }
+
+    // a long sum of products, with shallow parens
+    static String calculator(int size)
+    {
+        var random = new Random(size);
+        var sb = new StringBuilder(size+50);
+        for(int i=0; i==0 || sb.length()<size; i++)
+        {
+            if(i>0)
+                sb.append(random.nextBoolean() ? " + " : " - ");
+            switch(random.nextInt(3))
+            {
+                case 0 -> sb.append(random.nextInt(1000));
+                case 1 -> sb.append(random.nextInt(100)).append(" * ").append(1+random.nextInt(100));
+                default -> sb.append('(').append(random.nextInt(100)).append(" - ")
+                    .append(random.nextInt(100)).append(") / ").append(1+random.nextInt(9));
+            }
+        }
+        return sb.toString();
+    }
+
+    // a long path and query
+    static String uri(int size, String fragmentSuffix)
+    {
+        size = Math.min(size, URI_MAX);
+        var random = new Random(size);
+        var sb = new StringBuilder(size+50);
+        sb.append("https://user:pw@example.com:8080");
+        for(int i=0; i==0 || sb.length()<size/2; i++)
+            sb.append("/seg-").append(random.nextInt(1000)).append("%20x");
+        sb.append('?');
+        for(int i=0; i==0 || sb.length()<size; i++)
+            sb.append(i>0 ? "&" : "").append("k").append(i).append('=').append(random.nextInt(1000));
+        sb.append("#frag").append(fragmentSuffix);
+        return sb.toString();
+    }
+}
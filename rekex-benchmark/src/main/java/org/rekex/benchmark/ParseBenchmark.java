@@ -0,0 +1,72 @@
+package org.rekex.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rekex.parser.ParseResult;
+import org.rekex.parser.PegParser;
+
+import java.util.concurrent.TimeUnit;
+
+// throughput of the example parsers, generated vs reference, on valid and invalid inputs.
+// run with the gc profiler for allocation per parse, `gc.alloc.rate.norm`; see RekexBenchmarks.
+// the result is returned to the blackhole, so the parse tree isn't optimized away.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xss16m"})
+public class ParseBenchmark
+{
+    @Param({"Json1", "Json2", "Json3", "Calculator", "Uri"})
+    public String grammar;
+
+    @Param({"generated", "reference"})
+    public String parser;
+
+    // chars of input
+    @Param({"100", "10000", "2000000"})
+    public int size;
+
+    PegParser<?> pegParser;
+    String validInput;
+    String invalidInput;
+
+    @Setup
+    public void setup()
+    {
+        var g = BenchGrammar.valueOf(grammar);
+        pegParser = g.parser(parser.equals("reference"));
+        validInput = g.valid(size);
+        invalidInput = g.invalid(size);
+
+        // inputs must be what they claim to be; otherwise the numbers mean nothing
+        if(!(pegParser.parse(validInput) instanceof ParseResult.Full<?>))
+            throw new IllegalStateException("valid input not matched: "+grammar+" "+size);
+        if(pegParser.parse(invalidInput) instanceof ParseResult.Full<?>)
+            throw new IllegalStateException("invalid input matched: "+grammar+" "+size);
+    }
+
+    @Benchmark
+    public ParseResult<?> valid()
+    {
+        return pegParser.parse(validInput);
+    }
+
+    // failure-path cost: the parse runs to the defect near the end, then builds the Fail or Partial result
+    @Benchmark
+    public ParseResult<?> invalid()
+    {
+        return pegParser.parse(invalidInput);
+    }
+}
@@ -0,0 +1,20 @@
+package org.rekex.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// main class of benchmarks.jar. same as org.openjdk.jmh.Main, with `-prof gc` added,
+// so that allocation per operation, `gc.alloc.rate.norm`, is always reported next to throughput.
+// all JMH options are accepted, e.g.
+//     java -jar benchmarks.jar ParseBenchmark -p grammar=Json1 -p size=10000 -rf json -rff result.json
+
+public class RekexBenchmarks
+{
+    public static void main(String[] args) throws Exception
+    {
+        var list = new ArrayList<>(List.of(args));
+        if(!list.contains("-prof") && !list.contains("-h") && !list.contains("-l"))
+            list.addAll(0, List.of("-prof", "gc"));
+        org.openjdk.jmh.Main.main(list.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,188 @@
+package org.rekex.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.rekex.annomacro.AnnoMacro;
+import org.rekex.grammar.Grammar;
+import org.rekex.parser.ParseResult;
+import org.rekex.parser.PegParser;
+import org.rekex.parser.PegParserBuilder;
+
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+// time-to-first-parse of PegParserBuilder, phase by phase, on synthetic grammars of 10 to 2000 rules.
+//
+// every measurement is a single shot in a fresh JVM, so classes, JIT and caches are cold,
+// as they are at application startup. a fork only measures one phase; the setup runs the phases before it,
+// so the measured phase gets the JVM state it would have in a real build.
+// timeToFirstParse is the whole of it, build() and parse() together.
+//
+// derive and codegen use the builder api. javac and class loading have no api of their own;
+// they are done here the way build() does them, with the same javac options.
+// _DatatypeList is initialized on the first failed parse, not by a successful one; it's measured separately.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark
+{
+    @Param({"10", "100", "500", "2000"})
+    public int rules;
+
+    // in order; each phase requires the ones before it, except for the first three.
+    enum Phase
+    {
+        timeToFirstParse, annoMacro, derive, codegen, javac, load, datatypeList, instantiate, firstParse
+    }
+
+    static final String PACKAGE = "rekex_startup";
+
+    SyntheticGrammar synthetic;
+    String input;
+    Path dir;
+    PegParserBuilder builder;
+    String className;
+    Path javaFile;
+    ClassLoader loader;
+    Class<?> parserClass;
+    PegParser<?> parser;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkParams params) throws Exception
+    {
+        String benchmark = params.getBenchmark();
+        var phase = Phase.valueOf(benchmark.substring(benchmark.lastIndexOf('.')+1));
+
+        synthetic = new SyntheticGrammar(rules);
+        input = synthetic.input(1000);
+        dir = Files.createTempDirectory("rekex-startup");
+        className = "Synthetic_"+rules;
+        builder = new PegParserBuilder()
+            .rootType(synthetic.rootType)
+            .packageName(PACKAGE)
+            .className(className)
+            .outDirForJava(dir.resolve("src"))
+            .outDirForClass(dir.resolve("classes"))
+            .logger(msg->{});
+
+        if(phase.compareTo(Phase.codegen)>=0)
+            derive();
+        if(phase.compareTo(Phase.javac)>=0)
+            javaFile = builder.generateJavaFile();
+        if(phase.compareTo(Phase.load)>=0)
+            javac();
+        if(phase.compareTo(Phase.datatypeList)>=0)
+            load();
+        if(phase.compareTo(Phase.firstParse)>=0)
+            instantiate();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException
+    {
+        try(var paths = Files.walk(dir))
+        {
+            for(var path : paths.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    public ParseResult<?> timeToFirstParse()
+    {
+        return builder.build().parse(input);
+    }
+
+    // macro resolution of the annotations of keywords, e.g. @Str to @Regex; part of derive.
+    @Benchmark
+    public Object annoMacro()
+    {
+        var resolver = new AnnoMacro.Resolver();
+        Object last = null;
+        for(var type : synthetic.keywordTypes)
+            for(var anno : type.annotations())
+                last = resolver.resolve(anno);
+        return last;
+    }
+
+    @Benchmark
+    public Grammar derive()
+    {
+        return builder.grammar();
+    }
+
+    @Benchmark
+    public String codegen()
+    {
+        return builder.generateJavaSource();
+    }
+
+    @Benchmark
+    public boolean javac()
+    {
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        int rc = compiler.run(null, null, null,
+            "-g",
+            "-classpath", System.getProperty("java.class.path"),
+            "-d", dir.resolve("classes").toString(),
+            javaFile.toString());
+        if(rc!=0)
+            throw new IllegalStateException("javac failed: "+rc);
+        return true;
+    }
+
+    // load the parser class; not initialized
+    @Benchmark
+    public Class<?> load() throws Exception
+    {
+        URL url = dir.resolve("classes").toUri().toURL();
+        loader = new URLClassLoader(new URL[]{url}, StartupBenchmark.class.getClassLoader());
+        parserClass = Class.forName(PACKAGE+"."+className, false, loader);
+        return parserClass;
+    }
+
+    @Benchmark
+    public Class<?> datatypeList() throws Exception
+    {
+        return Class.forName(PACKAGE+"."+className+"$_DatatypeList", true, loader);
+    }
+
+    // static init of the parser class, and its ctor
+    @Benchmark
+    public PegParser<?> instantiate() throws Exception
+    {
+        parser = (PegParser<?>)parserClass.getConstructor().newInstance();
+        return parser;
+    }
+
+    @Benchmark
+    public ParseResult<?> firstParse()
+    {
+        var result = parser.parse(input);
+        if(!(result instanceof ParseResult.Full<?>))
+            throw new IllegalStateException("not matched: "+result);
+        return result;
+    }
+}
@@ -0,0 +1,127 @@
+package org.rekex.benchmark;
+
+import org.rekex.annotype.AnnoType;
+import org.rekex.annotype.ClassType;
+import org.rekex.annotype.TypeArg;
+import org.rekex.common_util.AnnoBuilder;
+import org.rekex.helper.anno.Str;
+import org.rekex.helper.datatype.alt.Alt2;
+import org.rekex.helper.datatype.alt.Alt3;
+import org.rekex.helper.datatype.alt.Alt4;
+import org.rekex.helper.datatype.alt.Alt5;
+import org.rekex.helper.datatype.alt.Alt6;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// synthetic grammars of a given number of rules, built from helper datatypes, for startup benchmarks.
+//
+//     root  = List<node>
+//     node  = Alt2..Alt6 of nodes or keywords
+//     keyword = @Str("k<i>;")String
+//
+// every keyword is a regex rule after its @Str macro is resolved;
+// every AltN is an alt rule, plus N concat rules of its Choice records.
+// the number of keywords is the largest one for which the grammar has at most the requested rules.
+// an input is a sequence of keywords.
+
+class SyntheticGrammar
+{
+    static final List<Class<?>> ALTS = List.of(Alt2.class, Alt3.class, Alt4.class, Alt5.class, Alt6.class);
+    static final int MAX_ARITY = 6;
+
+    final int keywords;
+    final List<AnnoType> keywordTypes;
+    final AnnoType rootType;
+    final int rules;
+
+    SyntheticGrammar(int maxRules)
+    {
+        if(maxRules<2)
+            throw new IllegalArgumentException("maxRules="+maxRules);
+        int k = 1;
+        while(ruleCount(k+1)<=maxRules)
+            k++;
+        this.keywords = k;
+        this.rules = ruleCount(k);
+        this.keywordTypes = keywordTypes(k);
+        this.rootType = listOf(tree(keywordTypes));
+    }
+
+    static List<AnnoType> keywordTypes(int keywords)
+    {
+        var list = new ArrayList<AnnoType>(keywords);
+        for(int i=0; i<keywords; i++)
+        {
+            Annotation str = AnnoBuilder.build(Str.class, new String[]{keyword(i)});
+            list.add(new ClassType(Set.of(str), String.class, List.of()));
+        }
+        return list;
+    }
+
+    static String keyword(int i)
+    {
+        return "k"+i+";";
+    }
+
+    // group nodes by up to MAX_ARITY into AltN, level by level, until there's one node.
+    // a single node left in a group is passed up as is.
+    static AnnoType tree(List<AnnoType> nodes)
+    {
+        while(nodes.size()>1)
+        {
+            var parents = new ArrayList<AnnoType>();
+            for(int i=0; i<nodes.size(); i+=MAX_ARITY)
+            {
+                var group = nodes.subList(i, Math.min(nodes.size(), i+MAX_ARITY));
+                parents.add(group.size()==1 ? group.get(0) : alt(group));
+            }
+            nodes = parents;
+        }
+        return nodes.get(0);
+    }
+
+    static AnnoType alt(List<AnnoType> group)
+    {
+        var typeArgs = new ArrayList<TypeArg>();
+        for(var node : group)
+            typeArgs.add((TypeArg)node);
+        return new ClassType(Set.of(), ALTS.get(group.size()-2), typeArgs);
+    }
+
+    static AnnoType listOf(AnnoType element)
+    {
+        return new ClassType(Set.of(), List.class, List.of((TypeArg)element));
+    }
+
+    // the same grouping as tree(), counting rules
+    static int ruleCount(int keywords)
+    {
+        int rules = 1 + keywords; // List, keywords
+        int nodes = keywords;
+        while(nodes>1)
+        {
+            int parents = 0;
+            for(int i=0; i<nodes; i+=MAX_ARITY)
+            {
+                int n = Math.min(nodes-i, MAX_ARITY);
+                if(n>1)
+                    rules += 1 + n;
+                parents++;
+            }
+            nodes = parents;
+        }
+        return rules;
+    }
+
+    // keywords in a scrambled order, repeated to about `size` chars
+    String input(int size)
+    {
+        var sb = new StringBuilder(size+16);
+        for(int i=0; sb.length()<size; i++)
+            sb.append(keyword((int)((i*7919L)%keywords)));
+        return sb.toString();
+    }
+}
@@ -35,16 +35,71 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
     @Override
     public ParseResult<Exp0> parse(CharSequence chars, int start, int end)
     {
-        _State state = new _State();
+        String str = asString(chars, end);
+        return parse(str, start, end, new org.rekex.parser.InputInfo(chars, str, start, end), null);
+    }
+
+    static String asString(CharSequence chars, int end)
+    {
+        if(chars instanceof String str)
+            return str;
+        return chars.subSequence(0, end).toString();
+    }
+
+    @Override
+    public ParseResult<Exp0> parse(char[] buf, int start, int end)
+    {
+        String str = new String(buf, 0, end); // keep positions
+        return parse(str, start, end, new org.rekex.parser.InputInfo(str, str, start, end), null);
+    }
+
+    @Override
+    public org.rekex.parser.ParseSession<Exp0> newSession()
+    {
+        return new _Session();
+    }
+
+    final class _Session implements org.rekex.parser.ParseSession<Exp0>
+    {
+        final _State state = new _State();
+
+        @Override
+        public ParseResult<Exp0> parse(CharSequence chars, int start, int end)
+        {
+            state.reset(end);
+            String str = asString(chars, end);
+            return run(state, str, start, end, new org.rekex.parser.InputInfo(chars, str, start, end), null);
+        }
+    }
+
+    ParseResult<Exp0> parse(String chars, int start, int end, org.rekex.parser.InputInfo inputInfo,
+                                       org.rekex.parser.SourceMap sourceMap)
+    {
+        return run(new _State(), chars, start, end, inputInfo, sourceMap);
+    }
+
+    ParseResult<Exp0> run(_State state, String chars, int start, int end, org.rekex.parser.InputInfo inputInfo,
+                                     org.rekex.parser.SourceMap sourceMap)
+    {
+        var event = new org.rekex.parser.ParseEvent(); // JFR
+        event.begin();
         state.catalog = this.catalog;
         state.chars = chars;
-        state.start = start;
         state.end = end;
-        state.inputInfo = new org.rekex.parser.InputInfo(chars, start, end);
+        state.inputInfo = inputInfo;
+        state.sourceMap = sourceMap;
 
+        var result = parse(state, start, end);
+        event.finish(getClass(), start, end, result);
+        return result;
+    }
+
+    ParseResult<Exp0> parse(_State state, int start, int end)
+    {
+        int pos;
         try
         {
-            state = match(rootTypeRuleId, state, -1);
+            pos = match(rootTypeRuleId, state, start, -1);
         }
         catch (_FatalEx fatalEx)
         {
@@ -52,13 +107,13 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
             return new ParseResult.Fatal<>(fatalEx.position, fatalEx.cause, stack);
         }
 
-        if(!state.fail)
+        if(pos>=0)
         {
             Exp0 obj = state.pickObj();
-            if(state.start==state.end)
+            if(pos==end)
                 return new ParseResult.Full<>(obj);
             else
-                return new ParseResult.Partial<>(obj, state.start);
+                return new ParseResult.Partial<>(obj, pos);
         }
         else
         {
@@ -68,17 +123,16 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
         }
     }
 
-    final static class _State implements Cloneable
+    final static class _State
     {
         Object catalog;
-        CharSequence chars;
-        int start;
+        String chars;
         int end;
 
         org.rekex.parser.InputInfo inputInfo;
+        org.rekex.parser.StructuralIndex index; // see PegParserBuilder.structuralIndex()
+        org.rekex.parser.SourceMap sourceMap; // see PegParserBuilder.sourceMap()
 
-        boolean fail;
-        // if fail==false, match is success, obj is set (null is allowed)
         Object obj;
 
         int[] path = new int[64];
@@ -90,36 +144,24 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
         Exception maxFailEx;
         int maxFailRuleId;
 
-        public _State clone()
-        {
-            try {
-                return (_State)super.clone();
-            } catch (CloneNotSupportedException e) {
-                throw new AssertionError(e);
-            }
-        }
-
         int gStart, gEnd; // tmp data buffer for regex
+        int lastFailReason;
 
-        void pathPush(int ruleId, int subIndex)
+        int pathPush(int ruleId, int start, int subIndex)
         {
             if(pathLen+3 > path.length)
                 path = java.util.Arrays.copyOf(path, path.length+64);
             path[pathLen++] = ruleId;
-            path[pathLen++] = this.start;
+            path[pathLen++] = start;
             path[pathLen++] = subIndex;
+            return start;
         }
-        void pathPop()
+        int pathPop(int end)
         {
             pathLen -= 3;
+            return end;
         }
 
-        _State ok(Object obj)
-        {
-            this.fail = false;
-            this.obj = obj;
-            return this;
-        }
         <T> T pickObj()
         {
             T t = (T)obj;
@@ -127,8 +169,9 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
             return t;
         }
 
-        _State fail(int position, int reason, Exception ex, int ruleId, int startReset)
+        int fail(int position, int reason, Exception ex, int ruleId)
         {
+            lastFailReason = reason;
             if(position>maxFailPos)
             {
                 maxFailPos = position;
@@ -137,14 +180,85 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
                 maxFailEx = ex;
                 maxFailRuleId = ruleId;
             }
-            return fail(startReset);
+            return -1;
+        }
+
+        int[] tokens;
+        int tokenMask;
+        int tokenSlot(int ruleId, int start)
+        {
+            if(tokens==null)
+            {
+                int slots = tokenSlots(end);
+                tokens = new int[5*slots];
+                tokenMask = slots-1;
+            }
+            int h = start*0x9E3779B1 + ruleId;
+            return 5*((h^(h>>>16)) & tokenMask);
+        }
+        static int tokenSlots(int end)
+        {
+            return Math.min(1<<14, Integer.highestOneBit(Math.max(16, end))*2);
         }
-        _State fail(int startReset)
+        int tokenLookup(int ruleId, int start)
         {
-            this.fail = true;
-            this.obj = null;
-            this.start = startReset;
-            return this;
+            int i = tokenSlot(ruleId, start);
+            if(tokens[i]!=ruleId+1 || tokens[i+1]!=start)
+                return TOKEN_MISS;
+            int e = tokens[i+2];
+            if(e<0)
+                return fail(start, ~e, null, ruleId);
+            gStart = tokens[i+3];
+            gEnd = tokens[i+4];
+            return e;
+        }
+        int tokenSave(int ruleId, int start, int e)
+        {
+            int i = tokenSlot(ruleId, start);
+            tokens[i] = ruleId+1;
+            tokens[i+1] = start;
+            tokens[i+2] = e>=0 ? e : ~lastFailReason;
+            tokens[i+3] = gStart;
+            tokens[i+4] = gEnd;
+            return e;
+        }
+
+
+        // growable buffer for elements of List and arrays, shared by nested repetitions as a stack;
+        // each repetition copies its elements out once, into a value of the exact size.
+        Object[] objBuf = new Object[16];
+        int objBufLen;
+        void pushObj(Object value)
+        {
+            if(objBufLen==objBuf.length)
+                objBuf = java.util.Arrays.copyOf(objBuf, objBufLen*2);
+            objBuf[objBufLen++] = value;
+        }
+
+        // before each parse of a ParseSession. buffers are kept; so is the intern table,
+        // since Strings are immutable, and a repeated token across inputs can still be shared.
+        void reset(int end)
+        {
+            obj = null;
+            pathLen = 0;
+            maxFailPos = -1;
+            maxFailPath = null;
+            maxFailEx = null;
+            index = null;
+            sourceMap = null;
+            if(tokens!=null)
+            {
+                if(tokens.length==5*tokenSlots(end))
+                    java.util.Arrays.fill(tokens, 0);
+                else
+                    tokens = null;
+            }
+            // not to retain values of a previous input; a buffer grown by a large input is dropped
+            if(objBuf.length>256)
+                objBuf = new Object[16];
+            else
+                java.util.Arrays.fill(objBuf, null);
+            objBufLen = 0;
         }
 
     }
@@ -153,6 +267,8 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
     static final int failReason_regex = 2;
     static final int failReason_regex_group = 3;
 
+    static final int TOKEN_MISS = -2;
+
     static String failMsg(int reason, Exception ex, org.rekex.annotype.AnnoType type)
     {
         String typeStr = type.toString(false);
@@ -199,40 +315,37 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
     // rules
     // = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
 
-    static _State match(int ruleId, _State state, int subIndex) throws _FatalEx
-    {
-        state.pathPush(ruleId, subIndex);
-        state = switch(ruleId){
-            case 0 -> rule_0(state); // Exp0
-            case 1 -> rule_1(state); // SepBy1<Exp1,@Ch("+-")String>
-            case 2 -> rule_2(state); // Exp1
-            case 3 -> rule_3(state); // List<Seq2<@Ch("+-")String,Exp1>>
-            case 4 -> rule_4(state); // SepBy1<Exp2,@Ch("*/")String>
-            case 5 -> rule_5(state); // Seq2<@Ch("+-")String,Exp1>
-            case 6 -> rule_6(state); // Exp2
-            case 7 -> rule_7(state); // List<Seq2<@Ch("*/")String,Exp2>>
-            case 8 -> rule_8(state); // @Ch("+-")String
-            case 9 -> rule_9(state); // Parens
-            case 10 -> rule_10(state); // Num
-            case 11 -> rule_11(state); // Seq2<@Ch("*/")String,Exp2>
-            case 12 -> rule_12(state); // @Ch("(")Void
-            case 13 -> rule_13(state); // @Ch(")")Void
-            case 14 -> rule_14(state); // @Regex("[0-9]+")String
-            case 15 -> rule_15(state); // @Ch("*/")String
+    static int match(int ruleId, _State state, int start, int subIndex) throws _FatalEx
+    {
+        return switch(ruleId){
+            case 0 -> state.pathPop(rule_0(state, state.pathPush(0, start, subIndex))); // Exp0
+            case 1 -> state.pathPop(rule_1(state, state.pathPush(1, start, subIndex))); // SepBy1<Exp1,@Ch("+-")String>
+            case 2 -> state.pathPop(rule_2(state, state.pathPush(2, start, subIndex))); // Exp1
+            case 3 -> state.pathPop(rule_3(state, state.pathPush(3, start, subIndex))); // List<Seq2<@Ch("+-")String,Exp1>>
+            case 4 -> state.pathPop(rule_4(state, state.pathPush(4, start, subIndex))); // SepBy1<Exp2,@Ch("*/")String>
+            case 5 -> state.pathPop(rule_5(state, state.pathPush(5, start, subIndex))); // Seq2<@Ch("+-")String,Exp1>
+            case 6 -> state.pathPop(rule_6(state, state.pathPush(6, start, subIndex))); // Exp2
+            case 7 -> state.pathPop(rule_7(state, state.pathPush(7, start, subIndex))); // List<Seq2<@Ch("*/")String,Exp2>>
+            case 8 -> state.pathPop(rule_8(state, state.pathPush(8, start, subIndex))); // @Ch("+-")String
+            case 9 -> state.pathPop(rule_9(state, state.pathPush(9, start, subIndex))); // Parens
+            case 10 -> state.pathPop(rule_10(state, state.pathPush(10, start, subIndex))); // Num
+            case 11 -> state.pathPop(rule_11(state, state.pathPush(11, start, subIndex))); // Seq2<@Ch("*/")String,Exp2>
+            case 12 -> state.pathPop(rule_12(state, state.pathPush(12, start, subIndex))); // @Ch("(")Void
+            case 13 -> state.pathPop(rule_13(state, state.pathPush(13, start, subIndex))); // @Ch(")")Void
+            case 14 -> state.pathPop(rule_14(state, state.pathPush(14, start, subIndex))); // @Regex("[0-9]+")String
+            case 15 -> state.pathPop(rule_15(state, state.pathPush(15, start, subIndex))); // @Ch("*/")String
             default -> throw new AssertionError("unknown ruleId: "+ruleId);
         };
-        state.pathPop();
-        return state;
     }
 
     // concat rule for: Exp0
-    static _State rule_0(_State state) throws _FatalEx
+    static int rule_0(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(1, state, 0); // arg_0: SepBy1<Exp1,@Ch("+-")String>
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_1(state, state.pathPush(1, pos, 0))); // arg_0: SepBy1<Exp1,@Ch("+-")String>
+        if(pos<0)
+            return -1;
         SepBy1<Exp1, String> arg_0 = state.pickObj();
 
         Exp0 value;
@@ -241,22 +354,23 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: SepBy1<Exp1,@Ch("+-")String>
-    static _State rule_1(_State state) throws _FatalEx
+    static int rule_1(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(2, state, 0); // arg_0: Exp1
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_2(state, state.pathPush(2, pos, 0))); // arg_0: Exp1
+        if(pos<0)
+            return -1;
         Exp1 arg_0 = state.pickObj();
 
-        state = match(3, state, 1); // arg_1: List<Seq2<@Ch("+-")String,Exp1>>
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_3(state, state.pathPush(3, pos, 1))); // arg_1: List<Seq2<@Ch("+-")String,Exp1>>
+        if(pos<0)
+            return -1;
         List<Seq2<String, Exp1>> arg_1 = state.pickObj();
 
         SepBy1<Exp1, String> value;
@@ -265,17 +379,18 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Exp1
-    static _State rule_2(_State state) throws _FatalEx
+    static int rule_2(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(4, state, 0); // arg_0: SepBy1<Exp2,@Ch("*/")String>
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_4(state, state.pathPush(4, pos, 0))); // arg_0: SepBy1<Exp2,@Ch("*/")String>
+        if(pos<0)
+            return -1;
         SepBy1<Exp2, String> arg_0 = state.pickObj();
 
         Exp1 value;
@@ -284,33 +399,50 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // repeat rule for: List<Seq2<@Ch("+-")String,Exp1>>
-    static _State rule_3(_State state) throws _FatalEx
+    static int rule_3(_State state, int start) throws _FatalEx
     {
-        state = match_repeat(state, 3, 5, 0, Integer.MAX_VALUE);
-        if(state.fail)
-            return state;
-        java.util.ArrayList<Seq2<String, Exp1>> list = state.pickObj();
-        list.trimToSize();
-        return state.ok(list);
+        int base = state.objBufLen;
+        int pos = start;
+        for(int i=0; i<Integer.MAX_VALUE; i++)
+        {
+            int end = state.pathPop(rule_5(state, state.pathPush(5, pos, i)));
+            if(end<0)
+            {
+                if(i<0)
+                {
+                    state.objBufLen = base;
+                    return -1;
+                }
+                break; // enough elements
+            }
+            if(i>=0 && end==pos) // no progress, enough elements
+                break;
+            state.pushObj(state.pickObj());
+            pos = end;
+        }
+        state.obj = org.rekex.parser.CompactList.of(state.objBuf, base, state.objBufLen);
+        state.objBufLen = base;
+        return pos;
     }
 
     // concat rule for: SepBy1<Exp2,@Ch("*/")String>
-    static _State rule_4(_State state) throws _FatalEx
+    static int rule_4(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(6, state, 0); // arg_0: Exp2
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_6(state, state.pathPush(6, pos, 0))); // arg_0: Exp2
+        if(pos<0)
+            return -1;
         Exp2 arg_0 = state.pickObj();
 
-        state = match(7, state, 1); // arg_1: List<Seq2<@Ch("*/")String,Exp2>>
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_7(state, state.pathPush(7, pos, 1))); // arg_1: List<Seq2<@Ch("*/")String,Exp2>>
+        if(pos<0)
+            return -1;
         List<Seq2<String, Exp2>> arg_1 = state.pickObj();
 
         SepBy1<Exp2, String> value;
@@ -319,22 +451,23 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Seq2<@Ch("+-")String,Exp1>
-    static _State rule_5(_State state) throws _FatalEx
+    static int rule_5(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(8, state, 0); // arg_0: @Ch("+-")String
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_8(state, state.pathPush(8, pos, 0))); // arg_0: @Ch("+-")String
+        if(pos<0)
+            return -1;
         String arg_0 = state.pickObj();
 
-        state = match(2, state, 1); // arg_1: Exp1
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_2(state, state.pathPush(2, pos, 1))); // arg_1: Exp1
+        if(pos<0)
+            return -1;
         Exp1 arg_1 = state.pickObj();
 
         Seq2<String, Exp1> value;
@@ -343,60 +476,94 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // alt rule for: Exp2
-    static _State rule_6(_State state) throws _FatalEx
+    static int rule_6(_State state, int start) throws _FatalEx
     {
-        state = match(9, state, 0); // Parens
-        if(!state.fail)
-            return state;
+        int end;
+        end = state.pathPop(rule_9(state, state.pathPush(9, start, 0))); // Parens
+        if(end>=0)
+            return end;
 
-        state = match(10, state, 1); // Num
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_10(state, state.pathPush(10, start, 1))); // Num
+        if(end>=0)
+            return end;
 
-        return state;
+        return -1;
     }
 
 
     // repeat rule for: List<Seq2<@Ch("*/")String,Exp2>>
-    static _State rule_7(_State state) throws _FatalEx
+    static int rule_7(_State state, int start) throws _FatalEx
     {
-        state = match_repeat(state, 7, 11, 0, Integer.MAX_VALUE);
-        if(state.fail)
-            return state;
-        java.util.ArrayList<Seq2<String, Exp2>> list = state.pickObj();
-        list.trimToSize();
-        return state.ok(list);
+        int base = state.objBufLen;
+        int pos = start;
+        for(int i=0; i<Integer.MAX_VALUE; i++)
+        {
+            int end = state.pathPop(rule_11(state, state.pathPush(11, pos, i)));
+            if(end<0)
+            {
+                if(i<0)
+                {
+                    state.objBufLen = base;
+                    return -1;
+                }
+                break; // enough elements
+            }
+            if(i>=0 && end==pos) // no progress, enough elements
+                break;
+            state.pushObj(state.pickObj());
+            pos = end;
+        }
+        state.obj = org.rekex.parser.CompactList.of(state.objBuf, base, state.objBufLen);
+        state.objBufLen = base;
+        return pos;
     }
 
     // regex rule for: @Ch("+-")String
-    static _State rule_8(_State state)
+    static int rule_8(_State state, int start)
     {
-        return match_regex_str(state, 8, pattern_8, 0);
+        return match_regex_str(state, regex_8(state, start));
+    }
+    static int regex_8(_State state, int start)
+    {
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 8, pattern_8, 0);
+            if(c=='+' || c=='-')
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, 8);
     }
     static final java.util.regex.Pattern pattern_8 = java.util.regex.Pattern.compile("[\\+\\-]", 0);
 
     // concat rule for: Parens
-    static _State rule_9(_State state) throws _FatalEx
+    static int rule_9(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(12, state, 0); // arg_0: @Ch("(")Void
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_12(state, state.pathPush(12, pos, 0))); // arg_0: @Ch("(")Void
+        if(pos<0)
+            return -1;
         Void arg_0 = state.pickObj();
 
-        state = match(0, state, 1); // arg_1: Exp0
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_0(state, state.pathPush(0, pos, 1))); // arg_1: Exp0
+        if(pos<0)
+            return -1;
         Exp0 arg_1 = state.pickObj();
 
-        state = match(13, state, 2); // arg_2: @Ch(")")Void
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_13(state, state.pathPush(13, pos, 2))); // arg_2: @Ch(")")Void
+        if(pos<0)
+            return -1;
         Void arg_2 = state.pickObj();
 
         Parens value;
@@ -405,17 +572,18 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Num
-    static _State rule_10(_State state) throws _FatalEx
+    static int rule_10(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(14, state, 0); // arg_0: @Regex("[0-9]+")String
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_14(state, state.pathPush(14, pos, 0))); // arg_0: @Regex("[0-9]+")String
+        if(pos<0)
+            return -1;
         String arg_0 = state.pickObj();
 
         Num value;
@@ -424,22 +592,23 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Seq2<@Ch("*/")String,Exp2>
-    static _State rule_11(_State state) throws _FatalEx
+    static int rule_11(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(15, state, 0); // arg_0: @Ch("*/")String
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_15(state, state.pathPush(15, pos, 0))); // arg_0: @Ch("*/")String
+        if(pos<0)
+            return -1;
         String arg_0 = state.pickObj();
 
-        state = match(6, state, 1); // arg_1: Exp2
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_6(state, state.pathPush(6, pos, 1))); // arg_1: Exp2
+        if(pos<0)
+            return -1;
         Exp2 arg_1 = state.pickObj();
 
         Seq2<String, Exp2> value;
@@ -448,34 +617,106 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // regex rule for: @Ch("(")Void
-    static _State rule_12(_State state)
+    static int rule_12(_State state, int start)
     {
-        return match_regex(state, 12, pattern_12, 0);
+        state.obj = null;
+        return regex_12(state, start);
+    }
+    static int regex_12(_State state, int start)
+    {
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 12, pattern_12, 0);
+            if(c=='(')
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, 12);
     }
     static final java.util.regex.Pattern pattern_12 = java.util.regex.Pattern.compile("\\(", 0);
 
     // regex rule for: @Ch(")")Void
-    static _State rule_13(_State state)
+    static int rule_13(_State state, int start)
     {
-        return match_regex(state, 13, pattern_13, 0);
+        state.obj = null;
+        return regex_13(state, start);
+    }
+    static int regex_13(_State state, int start)
+    {
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 13, pattern_13, 0);
+            if(c==')')
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, 13);
     }
     static final java.util.regex.Pattern pattern_13 = java.util.regex.Pattern.compile("\\)", 0);
 
     // regex rule for: @Regex("[0-9]+")String
-    static _State rule_14(_State state)
+    static int rule_14(_State state, int start)
     {
-        return match_regex_str(state, 14, pattern_14, 0);
+        return match_regex_str(state, regex_14(state, start));
+    }
+    static int scan_14(String chars, int pos, int end)
+    {
+        for(; pos<end; pos++)
+        {
+            char c = chars.charAt(pos);
+            if(Character.isSurrogate(c) || !(c>='0' && c<='9')) // code points are left to the caller
+                break;
+        }
+        return pos;
+    }
+    static int regex_14(_State state, int start)
+    {
+        int pos = scan_14(state.chars, start, state.end);
+        if(pos<state.end && Character.isSurrogate(state.chars.charAt(pos))) // code points are left to java.util.regex
+            return match_regex(state, start, 14, pattern_14, 0);
+        if(pos-start<1)
+            return state.fail(start, failReason_regex, null, 14);
+        state.gStart = start;
+        state.gEnd = pos;
+        return pos;
     }
     static final java.util.regex.Pattern pattern_14 = java.util.regex.Pattern.compile("[0-9]+", 0);
 
     // regex rule for: @Ch("*/")String
-    static _State rule_15(_State state)
+    static int rule_15(_State state, int start)
     {
-        return match_regex_str(state, 15, pattern_15, 0);
+        return match_regex_str(state, regex_15(state, start));
+    }
+    static int regex_15(_State state, int start)
+    {
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 15, pattern_15, 0);
+            if(c=='*' || c=='/')
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, 15);
     }
     static final java.util.regex.Pattern pattern_15 = java.util.regex.Pattern.compile("[\\*/]", 0);
 
@@ -485,48 +726,27 @@ public class Generated_ExampleParser_Calculator0 implements PegParser<Exp0>
     //
     // = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
 
-    static _State match_repeat(_State state, int ruleId, int subRuleId, int min, int max) throws _FatalEx
-    {
-        final int start0 = state.start;
-        java.util.ArrayList<Object> list = new java.util.ArrayList<>(Math.max(min, Math.min(10, max)));
-        for(int i=0; i<max; i++)
-        {
-            final int start1 = state.start;
-            state = match(subRuleId, state, i);
-            if(i<min && state.fail)
-                return state.fail(start0);
-            if(i>=min && state.fail) // enough elements
-                break;
-            if(i>=min && start1==state.start) // no progress, enough elements
-                break;
-            list.add(state.pickObj());
-        }
-        return state.ok(list);
-    }
-
-    static _State match_regex(_State state, int ruleId, java.util.regex.Pattern pattern, int group)
+    static int match_regex(_State state, int start, int ruleId, java.util.regex.Pattern pattern, int group)
     {
         var matcher = pattern.matcher(state.chars);
-        matcher.region(state.start, state.end);
+        matcher.region(start, state.end);
         boolean matched = matcher.lookingAt();
         if(!matched)
-            return state.fail(state.start, failReason_regex, null, ruleId, state.start);
+            return state.fail(start, failReason_regex, null, ruleId);
 
         state.gStart = matcher.start(group);
         state.gEnd = matcher.end(group);
         if(state.gStart==-1)
-            return state.fail(state.start, failReason_regex_group, null, ruleId, state.start);
+            return state.fail(start, failReason_regex_group, null, ruleId);
 
-        state.start = matcher.end(0); // consume group 0
-        return state.ok(null);
+        return matcher.end(0); // consume group 0
     }
-    static _State match_regex_str(_State state, int ruleId, java.util.regex.Pattern pattern, int group)
+    static int match_regex_str(_State state, int end)
     {
-        state = match_regex(state, ruleId, pattern, group);
-        if(state.fail)
-            return state;
-        String str = state.chars.subSequence(state.gStart, state.gEnd).toString();
-        return state.ok(str);
+        if(end<0)
+            return -1;
+        state.obj = state.chars.substring(state.gStart, state.gEnd);
+        return end;
     }
     static class _DatatypeList
     {
@@ -0,0 +1,137 @@
+package org.rekex.exmple.parser.json;
+
+import org.rekex.parser.ParseResult;
+import org.rekex.parser.PegParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+
+// a rough benchmark of PegParser.parseAll() and PegParser.processor(), with the Json parsers,
+// on many small messages, with 1, 2, 4, ... threads up to the number of processors.
+// run with args: [messages] [rounds]
+
+public class ExampleParser_JsonBatch
+{
+    public static void main(String[] args) throws Exception
+    {
+        int messages = args.length>0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length>1 ? Integer.parseInt(args[1]) : 5;
+        var inputs = messages(messages, new Random(1));
+
+        bench("Json1", new Generated_ExampleParser_Json1(), inputs, rounds);
+        bench("Json3", ExampleParser_Json3.parser(), inputs, rounds);
+    }
+
+    static List<String> messages(int count, Random random)
+    {
+        var list = new ArrayList<String>(count);
+        for(int i=0; i<count; i++)
+        {
+            var sb = new StringBuilder();
+            sb.append("{\"id\": ").append(i)
+                .append(", \"name\": \"msg-").append(random.nextInt(1000)).append('"')
+                .append(", \"tags\": [");
+            for(int t=random.nextInt(4); t>0; t--)
+                sb.append("\"t").append(t).append(t>1?"\", ":"\"");
+            sb.append("], \"value\": ").append(random.nextDouble())
+                .append(", \"ok\": ").append(random.nextBoolean()).append('}');
+            list.add(sb.toString());
+        }
+        return list;
+    }
+
+    static void bench(String name, PegParser<?> parser, List<String> inputs, int rounds) throws Exception
+    {
+        System.out.printf("## %s, %d messages%n", name, inputs.size());
+        report("sequential", inputs.size(), rounds, ()->{
+            for(var input : inputs)
+                check(parser.parse(input));
+        });
+
+        int cpus = Runtime.getRuntime().availableProcessors();
+        for(int threads=1; ; threads=Math.min(threads*2, cpus))
+        {
+            ExecutorService pool = new ForkJoinPool(threads);
+            try
+            {
+                report("parseAll  threads=%d".formatted(threads), inputs.size(), rounds, ()->{
+                    for(var result : parser.parseAll(inputs, pool))
+                        check(result);
+                });
+                report("processor threads=%d".formatted(threads), inputs.size(), rounds, ()->
+                    process(parser, inputs, pool));
+            }
+            finally
+            {
+                pool.shutdown();
+            }
+            if(threads==cpus)
+                break;
+        }
+    }
+
+    static void process(PegParser<?> parser, List<String> inputs, ExecutorService pool) throws Exception
+    {
+        var processor = parser.processor(pool, 1024);
+        var done = new CompletableFuture<Void>();
+        processor.subscribe(new Flow.Subscriber<ParseResult<?>>()
+        {
+            Flow.Subscription subscription;
+            public void onSubscribe(Flow.Subscription subscription)
+            {
+                this.subscription = subscription;
+                subscription.request(Long.MAX_VALUE);
+            }
+            public void onNext(ParseResult<?> item)
+            {
+                check(item);
+            }
+            public void onError(Throwable throwable)
+            {
+                done.completeExceptionally(throwable);
+            }
+            public void onComplete()
+            {
+                done.complete(null);
+            }
+        });
+        try(var upstream = new SubmissionPublisher<CharSequence>(pool, 1024))
+        {
+            upstream.subscribe(processor);
+            for(var input : inputs)
+                upstream.submit(input);
+        }
+        done.get();
+    }
+
+    static void check(ParseResult<?> result)
+    {
+        if(!(result instanceof ParseResult.Full<?>))
+            throw new AssertionError("unexpected result: "+result);
+    }
+
+    interface Task
+    {
+        void run() throws Exception;
+    }
+
+    // the best of `rounds`, after a warmup round
+    static void report(String desc, int messages, int rounds, Task task) throws Exception
+    {
+        task.run();
+        long best = Long.MAX_VALUE;
+        for(int r=0; r<rounds; r++)
+        {
+            long t0 = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime()-t0);
+        }
+        System.out.printf("  %-22s %8.1f ms  %10.0f msg/s%n", desc, best/1e6, messages/(best/1e9));
+    }
+}
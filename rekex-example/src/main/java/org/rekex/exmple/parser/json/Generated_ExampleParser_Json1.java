@@ -58,16 +58,71 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
     @Override
     public ParseResult<Input> parse(CharSequence chars, int start, int end)
     {
-        _State state = new _State();
+        String str = asString(chars, end);
+        return parse(str, start, end, new org.rekex.parser.InputInfo(chars, str, start, end), null);
+    }
+
+    static String asString(CharSequence chars, int end)
+    {
+        if(chars instanceof String str)
+            return str;
+        return chars.subSequence(0, end).toString();
+    }
+
+    @Override
+    public ParseResult<Input> parse(char[] buf, int start, int end)
+    {
+        String str = new String(buf, 0, end); // keep positions
+        return parse(str, start, end, new org.rekex.parser.InputInfo(str, str, start, end), null);
+    }
+
+    @Override
+    public org.rekex.parser.ParseSession<Input> newSession()
+    {
+        return new _Session();
+    }
+
+    final class _Session implements org.rekex.parser.ParseSession<Input>
+    {
+        final _State state = new _State();
+
+        @Override
+        public ParseResult<Input> parse(CharSequence chars, int start, int end)
+        {
+            state.reset(end);
+            String str = asString(chars, end);
+            return run(state, str, start, end, new org.rekex.parser.InputInfo(chars, str, start, end), null);
+        }
+    }
+
+    ParseResult<Input> parse(String chars, int start, int end, org.rekex.parser.InputInfo inputInfo,
+                                       org.rekex.parser.SourceMap sourceMap)
+    {
+        return run(new _State(), chars, start, end, inputInfo, sourceMap);
+    }
+
+    ParseResult<Input> run(_State state, String chars, int start, int end, org.rekex.parser.InputInfo inputInfo,
+                                     org.rekex.parser.SourceMap sourceMap)
+    {
+        var event = new org.rekex.parser.ParseEvent(); // JFR
+        event.begin();
         state.catalog = this.catalog;
         state.chars = chars;
-        state.start = start;
         state.end = end;
-        state.inputInfo = new org.rekex.parser.InputInfo(chars, start, end);
+        state.inputInfo = inputInfo;
+        state.sourceMap = sourceMap;
+
+        var result = parse(state, start, end);
+        event.finish(getClass(), start, end, result);
+        return result;
+    }
 
+    ParseResult<Input> parse(_State state, int start, int end)
+    {
+        int pos;
         try
         {
-            state = match(rootTypeRuleId, state, -1);
+            pos = match(rootTypeRuleId, state, start, -1);
         }
         catch (_FatalEx fatalEx)
         {
@@ -75,13 +130,13 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
             return new ParseResult.Fatal<>(fatalEx.position, fatalEx.cause, stack);
         }
 
-        if(!state.fail)
+        if(pos>=0)
         {
             Input obj = state.pickObj();
-            if(state.start==state.end)
+            if(pos==end)
                 return new ParseResult.Full<>(obj);
             else
-                return new ParseResult.Partial<>(obj, state.start);
+                return new ParseResult.Partial<>(obj, pos);
         }
         else
         {
@@ -91,17 +146,16 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }
     }
 
-    final static class _State implements Cloneable
+    final static class _State
     {
         Object catalog;
-        CharSequence chars;
-        int start;
+        String chars;
         int end;
 
         org.rekex.parser.InputInfo inputInfo;
+        org.rekex.parser.StructuralIndex index; // see PegParserBuilder.structuralIndex()
+        org.rekex.parser.SourceMap sourceMap; // see PegParserBuilder.sourceMap()
 
-        boolean fail;
-        // if fail==false, match is success, obj is set (null is allowed)
         Object obj;
 
         int[] path = new int[64];
@@ -113,36 +167,24 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         Exception maxFailEx;
         int maxFailRuleId;
 
-        public _State clone()
-        {
-            try {
-                return (_State)super.clone();
-            } catch (CloneNotSupportedException e) {
-                throw new AssertionError(e);
-            }
-        }
-
         int gStart, gEnd; // tmp data buffer for regex
+        int lastFailReason;
 
-        void pathPush(int ruleId, int subIndex)
+        int pathPush(int ruleId, int start, int subIndex)
         {
             if(pathLen+3 > path.length)
                 path = java.util.Arrays.copyOf(path, path.length+64);
             path[pathLen++] = ruleId;
-            path[pathLen++] = this.start;
+            path[pathLen++] = start;
             path[pathLen++] = subIndex;
+            return start;
         }
-        void pathPop()
+        int pathPop(int end)
         {
             pathLen -= 3;
+            return end;
         }
 
-        _State ok(Object obj)
-        {
-            this.fail = false;
-            this.obj = obj;
-            return this;
-        }
         <T> T pickObj()
         {
             T t = (T)obj;
@@ -150,8 +192,9 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
             return t;
         }
 
-        _State fail(int position, int reason, Exception ex, int ruleId, int startReset)
+        int fail(int position, int reason, Exception ex, int ruleId)
         {
+            lastFailReason = reason;
             if(position>maxFailPos)
             {
                 maxFailPos = position;
@@ -160,14 +203,104 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
                 maxFailEx = ex;
                 maxFailRuleId = ruleId;
             }
-            return fail(startReset);
+            return -1;
+        }
+
+        int[] tokens;
+        int tokenMask;
+        int tokenSlot(int ruleId, int start)
+        {
+            if(tokens==null)
+            {
+                int slots = tokenSlots(end);
+                tokens = new int[5*slots];
+                tokenMask = slots-1;
+            }
+            int h = start*0x9E3779B1 + ruleId;
+            return 5*((h^(h>>>16)) & tokenMask);
+        }
+        static int tokenSlots(int end)
+        {
+            return Math.min(1<<14, Integer.highestOneBit(Math.max(16, end))*2);
+        }
+        int tokenLookup(int ruleId, int start)
+        {
+            int i = tokenSlot(ruleId, start);
+            if(tokens[i]!=ruleId+1 || tokens[i+1]!=start)
+                return TOKEN_MISS;
+            int e = tokens[i+2];
+            if(e<0)
+                return fail(start, ~e, null, ruleId);
+            gStart = tokens[i+3];
+            gEnd = tokens[i+4];
+            return e;
+        }
+        int tokenSave(int ruleId, int start, int e)
+        {
+            int i = tokenSlot(ruleId, start);
+            tokens[i] = ruleId+1;
+            tokens[i+1] = start;
+            tokens[i+2] = e>=0 ? e : ~lastFailReason;
+            tokens[i+3] = gStart;
+            tokens[i+4] = gEnd;
+            return e;
         }
-        _State fail(int startReset)
+
+        char val_char;
+        int val_int;
+
+        // growable buffer for char[], shared by nested repetitions as a stack
+        char[] buf_char = new char[16];
+        int bufLen_char;
+        void push_char(char value)
+        {
+            if(bufLen_char==buf_char.length)
+                buf_char = java.util.Arrays.copyOf(buf_char, bufLen_char*2);
+            buf_char[bufLen_char++] = value;
+        }
+        char[] pop_char(int base)
+        {
+            char[] array = java.util.Arrays.copyOfRange(buf_char, base, bufLen_char);
+            bufLen_char = base;
+            return array;
+        }
+
+        // growable buffer for elements of List and arrays, shared by nested repetitions as a stack;
+        // each repetition copies its elements out once, into a value of the exact size.
+        Object[] objBuf = new Object[16];
+        int objBufLen;
+        void pushObj(Object value)
         {
-            this.fail = true;
-            this.obj = null;
-            this.start = startReset;
-            return this;
+            if(objBufLen==objBuf.length)
+                objBuf = java.util.Arrays.copyOf(objBuf, objBufLen*2);
+            objBuf[objBufLen++] = value;
+        }
+
+        // before each parse of a ParseSession. buffers are kept; so is the intern table,
+        // since Strings are immutable, and a repeated token across inputs can still be shared.
+        void reset(int end)
+        {
+            obj = null;
+            pathLen = 0;
+            maxFailPos = -1;
+            maxFailPath = null;
+            maxFailEx = null;
+            index = null;
+            sourceMap = null;
+            if(tokens!=null)
+            {
+                if(tokens.length==5*tokenSlots(end))
+                    java.util.Arrays.fill(tokens, 0);
+                else
+                    tokens = null;
+            }
+            bufLen_char = 0;
+            // not to retain values of a previous input; a buffer grown by a large input is dropped
+            if(objBuf.length>256)
+                objBuf = new Object[16];
+            else
+                java.util.Arrays.fill(objBuf, null);
+            objBufLen = 0;
         }
 
     }
@@ -176,6 +309,8 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
     static final int failReason_regex = 2;
     static final int failReason_regex_group = 3;
 
+    static final int TOKEN_MISS = -2;
+
     static String failMsg(int reason, Exception ex, org.rekex.annotype.AnnoType type)
     {
         String typeStr = type.toString(false);
@@ -222,101 +357,98 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
     // rules
     // = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
 
-    static _State match(int ruleId, _State state, int subIndex) throws _FatalEx
-    {
-        state.pathPush(ruleId, subIndex);
-        state = switch(ruleId){
-            case 0 -> rule_0(state); // Input
-            case 1 -> rule_1(state); // OptWs
-            case 2 -> rule_2(state); // JsonValue
-            case 3 -> rule_3(state); // JsonObject
-            case 4 -> rule_4(state); // JsonArray
-            case 5 -> rule_5(state); // JsonBoolean
-            case 6 -> rule_6(state); // JsonNull
-            case 7 -> rule_7(state); // JsonString
-            case 8 -> rule_8(state); // JsonNumber
-            case 9 -> rule_9(state); // @Word("{")Void
-            case 10 -> rule_10(state); // SepBy<Member,Comma>
-            case 11 -> rule_11(state); // @Word("}")Void
-            case 12 -> rule_12(state); // @Word("[")Void
-            case 13 -> rule_13(state); // SepBy<JsonValue,Comma>
-            case 14 -> rule_14(state); // @Word("]")Void
-            case 15 -> rule_15(state); // @Word("true")JsonBoolean
-            case 16 -> rule_16(state); // @Word("false")JsonBoolean
-            case 17 -> rule_17(state); // @Ch("\"")Void
-            case 18 -> rule_18(state); // Either<Char1,BsEsc>[]
-            case 19 -> rule_19(state); // Opt<@Ch("-")Character>
-            case 20 -> rule_20(state); // Either<DigitsNZ,Digit>
-            case 21 -> rule_21(state); // Opt<Fraction>
-            case 22 -> rule_22(state); // Opt<Exponent>
-            case 23 -> rule_23(state); // SepBy1<Member,Comma>
-            case 24 -> rule_24(state); // Empty<Member,Comma>
-            case 25 -> rule_25(state); // SepBy1<JsonValue,Comma>
-            case 26 -> rule_26(state); // Empty<JsonValue,Comma>
-            case 27 -> rule_27(state); // Either<Char1,BsEsc>
-            case 28 -> rule_28(state); // Some<@Ch("-")Character>
-            case 29 -> rule_29(state); // None<@Ch("-")Character>
-            case 30 -> rule_30(state); // Left<DigitsNZ,Digit>
-            case 31 -> rule_31(state); // Right<DigitsNZ,Digit>
-            case 32 -> rule_32(state); // Some<Fraction>
-            case 33 -> rule_33(state); // None<Fraction>
-            case 34 -> rule_34(state); // Some<Exponent>
-            case 35 -> rule_35(state); // None<Exponent>
-            case 36 -> rule_36(state); // Member
-            case 37 -> rule_37(state); // List<Seq2<Comma,Member>>
-            case 38 -> rule_38(state); // List<Seq2<Comma,JsonValue>>
-            case 39 -> rule_39(state); // Left<Char1,BsEsc>
-            case 40 -> rule_40(state); // Right<Char1,BsEsc>
-            case 41 -> rule_41(state); // @Ch("-")Character
-            case 42 -> rule_42(state); // DigitsNZ
-            case 43 -> rule_43(state); // Digit
-            case 44 -> rule_44(state); // Fraction
-            case 45 -> rule_45(state); // Exponent
-            case 46 -> rule_46(state); // @Word(":")Void
-            case 47 -> rule_47(state); // Seq2<Comma,Member>
-            case 48 -> rule_48(state); // Seq2<Comma,JsonValue>
-            case 49 -> rule_49(state); // Char1
-            case 50 -> rule_50(state); // BsEsc
-            case 51 -> rule_51(state); // @Regex("[1-9]")char
-            case 52 -> rule_52(state); // Digits
-            case 53 -> rule_53(state); // @Regex("[0-9]")char
-            case 54 -> rule_54(state); // @Ch(".")char
-            case 55 -> rule_55(state); // @Ch("Ee")char
-            case 56 -> rule_56(state); // Opt<@Ch("+-")Character>
-            case 57 -> rule_57(state); // Comma
-            case 58 -> rule_58(state); // @Ch(except="\\\"",range={32,1114111})int
-            case 59 -> rule_59(state); // @Ch("\\")Void
-            case 60 -> rule_60(state); // Either<EscChar,EscUhhhh>
-            case 61 -> rule_61(state); // @Regex("[0-9]")char@AtLeast(1)[]
-            case 62 -> rule_62(state); // Some<@Ch("+-")Character>
-            case 63 -> rule_63(state); // None<@Ch("+-")Character>
-            case 64 -> rule_64(state); // Left<EscChar,EscUhhhh>
-            case 65 -> rule_65(state); // Right<EscChar,EscUhhhh>
-            case 66 -> rule_66(state); // @Ch("+-")Character
-            case 67 -> rule_67(state); // EscChar
-            case 68 -> rule_68(state); // EscUhhhh
-            case 69 -> rule_69(state); // @Ch("\\\"/bfnrt")char
-            case 70 -> rule_70(state); // @Ch("u")Void
-            case 71 -> rule_71(state); // @Regex("[0-9A-Fa-f]{4}")String
+    static int match(int ruleId, _State state, int start, int subIndex) throws _FatalEx
+    {
+        return switch(ruleId){
+            case 0 -> state.pathPop(rule_0(state, state.pathPush(0, start, subIndex))); // Input
+            case 1 -> state.pathPop(rule_1(state, state.pathPush(1, start, subIndex))); // OptWs
+            case 2 -> state.pathPop(rule_2(state, state.pathPush(2, start, subIndex))); // JsonValue
+            case 3 -> state.pathPop(rule_3(state, state.pathPush(3, start, subIndex))); // JsonObject
+            case 4 -> state.pathPop(rule_4(state, state.pathPush(4, start, subIndex))); // JsonArray
+            case 5 -> state.pathPop(rule_5(state, state.pathPush(5, start, subIndex))); // JsonBoolean
+            case 6 -> state.pathPop(rule_6(state, state.pathPush(6, start, subIndex))); // JsonNull
+            case 7 -> state.pathPop(rule_7(state, state.pathPush(7, start, subIndex))); // JsonString
+            case 8 -> state.pathPop(rule_8(state, state.pathPush(8, start, subIndex))); // JsonNumber
+            case 9 -> state.pathPop(rule_9(state, state.pathPush(9, start, subIndex))); // @Word("{")Void
+            case 10 -> state.pathPop(rule_10(state, state.pathPush(10, start, subIndex))); // SepBy<Member,Comma>
+            case 11 -> state.pathPop(rule_11(state, state.pathPush(11, start, subIndex))); // @Word("}")Void
+            case 12 -> state.pathPop(rule_12(state, state.pathPush(12, start, subIndex))); // @Word("[")Void
+            case 13 -> state.pathPop(rule_13(state, state.pathPush(13, start, subIndex))); // SepBy<JsonValue,Comma>
+            case 14 -> state.pathPop(rule_14(state, state.pathPush(14, start, subIndex))); // @Word("]")Void
+            case 15 -> state.pathPop(rule_15(state, state.pathPush(15, start, subIndex))); // @Word("true")JsonBoolean
+            case 16 -> state.pathPop(rule_16(state, state.pathPush(16, start, subIndex))); // @Word("false")JsonBoolean
+            case 17 -> state.pathPop(rule_17(state, state.pathPush(17, start, subIndex))); // @Ch("\"")Void
+            case 18 -> state.pathPop(rule_18(state, state.pathPush(18, start, subIndex))); // Either<Char1,BsEsc>[]
+            case 19 -> state.pathPop(rule_19(state, state.pathPush(19, start, subIndex))); // Opt<@Ch("-")Character>
+            case 20 -> state.pathPop(rule_20(state, state.pathPush(20, start, subIndex))); // Either<DigitsNZ,Digit>
+            case 21 -> state.pathPop(rule_21(state, state.pathPush(21, start, subIndex))); // Opt<Fraction>
+            case 22 -> state.pathPop(rule_22(state, state.pathPush(22, start, subIndex))); // Opt<Exponent>
+            case 23 -> state.pathPop(rule_23(state, state.pathPush(23, start, subIndex))); // SepBy1<Member,Comma>
+            case 24 -> state.pathPop(rule_24(state, state.pathPush(24, start, subIndex))); // Empty<Member,Comma>
+            case 25 -> state.pathPop(rule_25(state, state.pathPush(25, start, subIndex))); // SepBy1<JsonValue,Comma>
+            case 26 -> state.pathPop(rule_26(state, state.pathPush(26, start, subIndex))); // Empty<JsonValue,Comma>
+            case 27 -> state.pathPop(rule_27(state, state.pathPush(27, start, subIndex))); // Either<Char1,BsEsc>
+            case 28 -> state.pathPop(rule_28(state, state.pathPush(28, start, subIndex))); // Some<@Ch("-")Character>
+            case 29 -> state.pathPop(rule_29(state, state.pathPush(29, start, subIndex))); // None<@Ch("-")Character>
+            case 30 -> state.pathPop(rule_30(state, state.pathPush(30, start, subIndex))); // Left<DigitsNZ,Digit>
+            case 31 -> state.pathPop(rule_31(state, state.pathPush(31, start, subIndex))); // Right<DigitsNZ,Digit>
+            case 32 -> state.pathPop(rule_32(state, state.pathPush(32, start, subIndex))); // Some<Fraction>
+            case 33 -> state.pathPop(rule_33(state, state.pathPush(33, start, subIndex))); // None<Fraction>
+            case 34 -> state.pathPop(rule_34(state, state.pathPush(34, start, subIndex))); // Some<Exponent>
+            case 35 -> state.pathPop(rule_35(state, state.pathPush(35, start, subIndex))); // None<Exponent>
+            case 36 -> state.pathPop(rule_36(state, state.pathPush(36, start, subIndex))); // Member
+            case 37 -> state.pathPop(rule_37(state, state.pathPush(37, start, subIndex))); // List<Seq2<Comma,Member>>
+            case 38 -> state.pathPop(rule_38(state, state.pathPush(38, start, subIndex))); // List<Seq2<Comma,JsonValue>>
+            case 39 -> state.pathPop(rule_39(state, state.pathPush(39, start, subIndex))); // Left<Char1,BsEsc>
+            case 40 -> state.pathPop(rule_40(state, state.pathPush(40, start, subIndex))); // Right<Char1,BsEsc>
+            case 41 -> state.pathPop(rule_41(state, state.pathPush(41, start, subIndex))); // @Ch("-")Character
+            case 42 -> state.pathPop(rule_42(state, state.pathPush(42, start, subIndex))); // DigitsNZ
+            case 43 -> state.pathPop(rule_43(state, state.pathPush(43, start, subIndex))); // Digit
+            case 44 -> state.pathPop(rule_44(state, state.pathPush(44, start, subIndex))); // Fraction
+            case 45 -> state.pathPop(rule_45(state, state.pathPush(45, start, subIndex))); // Exponent
+            case 46 -> state.pathPop(rule_46(state, state.pathPush(46, start, subIndex))); // @Word(":")Void
+            case 47 -> state.pathPop(rule_47(state, state.pathPush(47, start, subIndex))); // Seq2<Comma,Member>
+            case 48 -> state.pathPop(rule_48(state, state.pathPush(48, start, subIndex))); // Seq2<Comma,JsonValue>
+            case 49 -> state.pathPop(rule_49(state, state.pathPush(49, start, subIndex))); // Char1
+            case 50 -> state.pathPop(rule_50(state, state.pathPush(50, start, subIndex))); // BsEsc
+            case 51 -> state.pathPop(rule_51(state, state.pathPush(51, start, subIndex))); // @Regex("[1-9]")char
+            case 52 -> state.pathPop(rule_52(state, state.pathPush(52, start, subIndex))); // Digits
+            case 53 -> state.pathPop(rule_53(state, state.pathPush(53, start, subIndex))); // @Regex("[0-9]")char
+            case 54 -> state.pathPop(rule_54(state, state.pathPush(54, start, subIndex))); // @Ch(".")char
+            case 55 -> state.pathPop(rule_55(state, state.pathPush(55, start, subIndex))); // @Ch("Ee")char
+            case 56 -> state.pathPop(rule_56(state, state.pathPush(56, start, subIndex))); // Opt<@Ch("+-")Character>
+            case 57 -> state.pathPop(rule_57(state, state.pathPush(57, start, subIndex))); // Comma
+            case 58 -> state.pathPop(rule_58(state, state.pathPush(58, start, subIndex))); // @Ch(except="\\\"",range={32,1114111})int
+            case 59 -> state.pathPop(rule_59(state, state.pathPush(59, start, subIndex))); // @Ch("\\")Void
+            case 60 -> state.pathPop(rule_60(state, state.pathPush(60, start, subIndex))); // Either<EscChar,EscUhhhh>
+            case 61 -> state.pathPop(rule_61(state, state.pathPush(61, start, subIndex))); // @Regex("[0-9]")char@AtLeast(1)[]
+            case 62 -> state.pathPop(rule_62(state, state.pathPush(62, start, subIndex))); // Some<@Ch("+-")Character>
+            case 63 -> state.pathPop(rule_63(state, state.pathPush(63, start, subIndex))); // None<@Ch("+-")Character>
+            case 64 -> state.pathPop(rule_64(state, state.pathPush(64, start, subIndex))); // Left<EscChar,EscUhhhh>
+            case 65 -> state.pathPop(rule_65(state, state.pathPush(65, start, subIndex))); // Right<EscChar,EscUhhhh>
+            case 66 -> state.pathPop(rule_66(state, state.pathPush(66, start, subIndex))); // @Ch("+-")Character
+            case 67 -> state.pathPop(rule_67(state, state.pathPush(67, start, subIndex))); // EscChar
+            case 68 -> state.pathPop(rule_68(state, state.pathPush(68, start, subIndex))); // EscUhhhh
+            case 69 -> state.pathPop(rule_69(state, state.pathPush(69, start, subIndex))); // @Ch("\\\"/bfnrt")char
+            case 70 -> state.pathPop(rule_70(state, state.pathPush(70, start, subIndex))); // @Ch("u")Void
+            case 71 -> state.pathPop(rule_71(state, state.pathPush(71, start, subIndex))); // @Regex("[0-9A-Fa-f]{4}")String
             default -> throw new AssertionError("unknown ruleId: "+ruleId);
         };
-        state.pathPop();
-        return state;
     }
 
     // concat rule for: Input
-    static _State rule_0(_State state) throws _FatalEx
+    static int rule_0(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(1, state, 0); // arg_0: OptWs
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_1(state, state.pathPush(1, pos, 0))); // arg_0: OptWs
+        if(pos<0)
+            return -1;
         OptWs arg_0 = state.pickObj();
 
-        state = match(2, state, 1); // arg_1: JsonValue
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_2(state, state.pathPush(2, pos, 1))); // arg_1: JsonValue
+        if(pos<0)
+            return -1;
         JsonValue arg_1 = state.pickObj();
 
         Input value;
@@ -325,65 +457,86 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // regex rule for: OptWs
-    static _State rule_1(_State state)
+    static int rule_1(_State state, int start)
     {
-        return match_regex_obj(state, 1, pattern_1, 1, OptWs.I);
+        return match_regex_obj(state, regex_1(state, start), OptWs.I);
+    }
+    static int regex_1(_State state, int start)
+    {
+        int pos = -1;
+        if(pos<0 && state.end-start>=0 && state.chars.startsWith("", start))
+            pos = start+0;
+        if(pos<0)
+            return state.fail(start, failReason_regex, null, 1);
+        state.gStart = start;
+        state.gEnd = pos;
+        for(; pos<state.end; pos++)
+        {
+            char c = state.chars.charAt(pos);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 1, pattern_1, 1);
+            if(!(c==' ' || c==0x0009 || c==0x000A || c==0x000D))
+                break;
+        }
+        return pos;
     }
     static final java.util.regex.Pattern pattern_1 = java.util.regex.Pattern.compile("()[\\ \\t\\n\\r]*", 0);
 
     // alt rule for: JsonValue
-    static _State rule_2(_State state) throws _FatalEx
+    static int rule_2(_State state, int start) throws _FatalEx
     {
-        state = match(3, state, 0); // JsonObject
-        if(!state.fail)
-            return state;
+        int end;
+        end = state.pathPop(rule_3(state, state.pathPush(3, start, 0))); // JsonObject
+        if(end>=0)
+            return end;
 
-        state = match(4, state, 1); // JsonArray
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_4(state, state.pathPush(4, start, 1))); // JsonArray
+        if(end>=0)
+            return end;
 
-        state = match(5, state, 2); // JsonBoolean
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_5(state, state.pathPush(5, start, 2))); // JsonBoolean
+        if(end>=0)
+            return end;
 
-        state = match(6, state, 3); // JsonNull
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_6(state, state.pathPush(6, start, 3))); // JsonNull
+        if(end>=0)
+            return end;
 
-        state = match(7, state, 4); // JsonString
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_7(state, state.pathPush(7, start, 4))); // JsonString
+        if(end>=0)
+            return end;
 
-        state = match(8, state, 5); // JsonNumber
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_8(state, state.pathPush(8, start, 5))); // JsonNumber
+        if(end>=0)
+            return end;
 
-        return state;
+        return -1;
     }
 
 
     // concat rule for: JsonObject
-    static _State rule_3(_State state) throws _FatalEx
+    static int rule_3(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(9, state, 0); // arg_0: @Word("{")Void
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_9(state, state.pathPush(9, pos, 0))); // arg_0: @Word("{")Void
+        if(pos<0)
+            return -1;
         Void arg_0 = state.pickObj();
 
-        state = match(10, state, 1); // arg_1: SepBy<Member,Comma>
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_10(state, state.pathPush(10, pos, 1))); // arg_1: SepBy<Member,Comma>
+        if(pos<0)
+            return -1;
         SepBy<Member, Comma> arg_1 = state.pickObj();
 
-        state = match(11, state, 2); // arg_2: @Word("}")Void
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_11(state, state.pathPush(11, pos, 2))); // arg_2: @Word("}")Void
+        if(pos<0)
+            return -1;
         Void arg_2 = state.pickObj();
 
         JsonObject value;
@@ -392,27 +545,28 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: JsonArray
-    static _State rule_4(_State state) throws _FatalEx
+    static int rule_4(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(12, state, 0); // arg_0: @Word("[")Void
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_12(state, state.pathPush(12, pos, 0))); // arg_0: @Word("[")Void
+        if(pos<0)
+            return -1;
         Void arg_0 = state.pickObj();
 
-        state = match(13, state, 1); // arg_1: SepBy<JsonValue,Comma>
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_13(state, state.pathPush(13, pos, 1))); // arg_1: SepBy<JsonValue,Comma>
+        if(pos<0)
+            return -1;
         SepBy<JsonValue, Comma> arg_1 = state.pickObj();
 
-        state = match(14, state, 2); // arg_2: @Word("]")Void
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_14(state, state.pathPush(14, pos, 2))); // arg_2: @Word("]")Void
+        if(pos<0)
+            return -1;
         Void arg_2 = state.pickObj();
 
         JsonArray value;
@@ -421,54 +575,75 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // alt rule for: JsonBoolean
-    static _State rule_5(_State state) throws _FatalEx
+    static int rule_5(_State state, int start) throws _FatalEx
     {
-        state = match(15, state, 0); // @Word("true")JsonBoolean
-        if(!state.fail)
-            return state;
+        int end;
+        end = state.pathPop(rule_15(state, state.pathPush(15, start, 0))); // @Word("true")JsonBoolean
+        if(end>=0)
+            return end;
 
-        state = match(16, state, 1); // @Word("false")JsonBoolean
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_16(state, state.pathPush(16, start, 1))); // @Word("false")JsonBoolean
+        if(end>=0)
+            return end;
 
-        return state;
+        return -1;
     }
 
 
     // regex rule for: JsonNull
-    static _State rule_6(_State state)
+    static int rule_6(_State state, int start)
     {
-        return match_regex_obj(state, 6, pattern_6, 1, JsonNull.NULL);
+        return match_regex_obj(state, regex_6(state, start), JsonNull.NULL);
+    }
+    static int regex_6(_State state, int start)
+    {
+        int pos = -1;
+        if(pos<0 && state.end-start>=4 && state.chars.startsWith("null", start))
+            pos = start+4;
+        if(pos<0)
+            return state.fail(start, failReason_regex, null, 6);
+        state.gStart = start;
+        state.gEnd = pos;
+        for(; pos<state.end; pos++)
+        {
+            char c = state.chars.charAt(pos);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 6, pattern_6, 1);
+            if(!(c==' ' || c==0x0009 || c==0x000A || c==0x000D))
+                break;
+        }
+        return pos;
     }
     static final java.util.regex.Pattern pattern_6 = java.util.regex.Pattern.compile("(null)[\\ \\t\\n\\r]*", 0);
 
     // concat rule for: JsonString
-    static _State rule_7(_State state) throws _FatalEx
+    static int rule_7(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(17, state, 0); // arg_0: @Ch("\"")Void
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_17(state, state.pathPush(17, pos, 0))); // arg_0: @Ch("\"")Void
+        if(pos<0)
+            return -1;
         Void arg_0 = state.pickObj();
 
-        state = match(18, state, 1); // arg_1: Either<Char1,BsEsc>[]
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_18(state, state.pathPush(18, pos, 1))); // arg_1: Either<Char1,BsEsc>[]
+        if(pos<0)
+            return -1;
         Either<Char1, BsEsc>[] arg_1 = state.pickObj();
 
-        state = match(17, state, 2); // arg_2: @Ch("\"")Void
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_17(state, state.pathPush(17, pos, 2))); // arg_2: @Ch("\"")Void
+        if(pos<0)
+            return -1;
         Void arg_2 = state.pickObj();
 
-        state = match(1, state, 3); // arg_3: OptWs
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_1(state, state.pathPush(1, pos, 3))); // arg_3: OptWs
+        if(pos<0)
+            return -1;
         OptWs arg_3 = state.pickObj();
 
         JsonString value;
@@ -477,37 +652,38 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: JsonNumber
-    static _State rule_8(_State state) throws _FatalEx
+    static int rule_8(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(19, state, 0); // arg_0: Opt<@Ch("-")Character>
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_19(state, state.pathPush(19, pos, 0))); // arg_0: Opt<@Ch("-")Character>
+        if(pos<0)
+            return -1;
         Opt<Character> arg_0 = state.pickObj();
 
-        state = match(20, state, 1); // arg_1: Either<DigitsNZ,Digit>
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_20(state, state.pathPush(20, pos, 1))); // arg_1: Either<DigitsNZ,Digit>
+        if(pos<0)
+            return -1;
         Either<DigitsNZ, Digit> arg_1 = state.pickObj();
 
-        state = match(21, state, 2); // arg_2: Opt<Fraction>
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_21(state, state.pathPush(21, pos, 2))); // arg_2: Opt<Fraction>
+        if(pos<0)
+            return -1;
         Opt<Fraction> arg_2 = state.pickObj();
 
-        state = match(22, state, 3); // arg_3: Opt<Exponent>
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_22(state, state.pathPush(22, pos, 3))); // arg_3: Opt<Exponent>
+        if(pos<0)
+            return -1;
         Opt<Exponent> arg_3 = state.pickObj();
 
-        state = match(1, state, 4); // arg_4: OptWs
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_1(state, state.pathPush(1, pos, 4))); // arg_4: OptWs
+        if(pos<0)
+            return -1;
         OptWs arg_4 = state.pickObj();
 
         JsonNumber value;
@@ -516,172 +692,332 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // regex rule for: @Word("{")Void
-    static _State rule_9(_State state)
+    static int rule_9(_State state, int start)
+    {
+        state.obj = null;
+        return regex_9(state, start);
+    }
+    static int regex_9(_State state, int start)
     {
-        return match_regex(state, 9, pattern_9, 1);
+        int pos = -1;
+        if(pos<0 && state.end-start>=1 && state.chars.startsWith("{", start))
+            pos = start+1;
+        if(pos<0)
+            return state.fail(start, failReason_regex, null, 9);
+        state.gStart = start;
+        state.gEnd = pos;
+        for(; pos<state.end; pos++)
+        {
+            char c = state.chars.charAt(pos);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 9, pattern_9, 1);
+            if(!(c==' ' || c==0x0009 || c==0x000A || c==0x000D))
+                break;
+        }
+        return pos;
     }
     static final java.util.regex.Pattern pattern_9 = java.util.regex.Pattern.compile("(\\{)[\\ \\t\\n\\r]*", 0);
 
     // alt rule for: SepBy<Member,Comma>
-    static _State rule_10(_State state) throws _FatalEx
+    static int rule_10(_State state, int start) throws _FatalEx
     {
-        state = match(23, state, 0); // SepBy1<Member,Comma>
-        if(!state.fail)
-            return state;
+        int end;
+        end = state.pathPop(rule_23(state, state.pathPush(23, start, 0))); // SepBy1<Member,Comma>
+        if(end>=0)
+            return end;
 
-        state = match(24, state, 1); // Empty<Member,Comma>
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_24(state, state.pathPush(24, start, 1))); // Empty<Member,Comma>
+        if(end>=0)
+            return end;
 
-        return state;
+        return -1;
     }
 
 
     // regex rule for: @Word("}")Void
-    static _State rule_11(_State state)
+    static int rule_11(_State state, int start)
+    {
+        state.obj = null;
+        return regex_11(state, start);
+    }
+    static int regex_11(_State state, int start)
     {
-        return match_regex(state, 11, pattern_11, 1);
+        int pos = -1;
+        if(pos<0 && state.end-start>=1 && state.chars.startsWith("}", start))
+            pos = start+1;
+        if(pos<0)
+            return state.fail(start, failReason_regex, null, 11);
+        state.gStart = start;
+        state.gEnd = pos;
+        for(; pos<state.end; pos++)
+        {
+            char c = state.chars.charAt(pos);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 11, pattern_11, 1);
+            if(!(c==' ' || c==0x0009 || c==0x000A || c==0x000D))
+                break;
+        }
+        return pos;
     }
     static final java.util.regex.Pattern pattern_11 = java.util.regex.Pattern.compile("(\\})[\\ \\t\\n\\r]*", 0);
 
     // regex rule for: @Word("[")Void
-    static _State rule_12(_State state)
+    static int rule_12(_State state, int start)
     {
-        return match_regex(state, 12, pattern_12, 1);
+        state.obj = null;
+        return regex_12(state, start);
+    }
+    static int regex_12(_State state, int start)
+    {
+        int pos = -1;
+        if(pos<0 && state.end-start>=1 && state.chars.startsWith("[", start))
+            pos = start+1;
+        if(pos<0)
+            return state.fail(start, failReason_regex, null, 12);
+        state.gStart = start;
+        state.gEnd = pos;
+        for(; pos<state.end; pos++)
+        {
+            char c = state.chars.charAt(pos);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 12, pattern_12, 1);
+            if(!(c==' ' || c==0x0009 || c==0x000A || c==0x000D))
+                break;
+        }
+        return pos;
     }
     static final java.util.regex.Pattern pattern_12 = java.util.regex.Pattern.compile("(\\[)[\\ \\t\\n\\r]*", 0);
 
     // alt rule for: SepBy<JsonValue,Comma>
-    static _State rule_13(_State state) throws _FatalEx
+    static int rule_13(_State state, int start) throws _FatalEx
     {
-        state = match(25, state, 0); // SepBy1<JsonValue,Comma>
-        if(!state.fail)
-            return state;
+        int end;
+        end = state.pathPop(rule_25(state, state.pathPush(25, start, 0))); // SepBy1<JsonValue,Comma>
+        if(end>=0)
+            return end;
 
-        state = match(26, state, 1); // Empty<JsonValue,Comma>
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_26(state, state.pathPush(26, start, 1))); // Empty<JsonValue,Comma>
+        if(end>=0)
+            return end;
 
-        return state;
+        return -1;
     }
 
 
     // regex rule for: @Word("]")Void
-    static _State rule_14(_State state)
+    static int rule_14(_State state, int start)
+    {
+        state.obj = null;
+        return regex_14(state, start);
+    }
+    static int regex_14(_State state, int start)
     {
-        return match_regex(state, 14, pattern_14, 1);
+        int pos = -1;
+        if(pos<0 && state.end-start>=1 && state.chars.startsWith("]", start))
+            pos = start+1;
+        if(pos<0)
+            return state.fail(start, failReason_regex, null, 14);
+        state.gStart = start;
+        state.gEnd = pos;
+        for(; pos<state.end; pos++)
+        {
+            char c = state.chars.charAt(pos);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 14, pattern_14, 1);
+            if(!(c==' ' || c==0x0009 || c==0x000A || c==0x000D))
+                break;
+        }
+        return pos;
     }
     static final java.util.regex.Pattern pattern_14 = java.util.regex.Pattern.compile("(\\])[\\ \\t\\n\\r]*", 0);
 
     // regex rule for: @Word("true")JsonBoolean
-    static _State rule_15(_State state)
+    static int rule_15(_State state, int start)
     {
-        return match_regex_obj(state, 15, pattern_15, 1, JsonBoolean.TRUE);
+        return match_regex_obj(state, regex_15(state, start), JsonBoolean.TRUE);
+    }
+    static int regex_15(_State state, int start)
+    {
+        int pos = -1;
+        if(pos<0 && state.end-start>=4 && state.chars.startsWith("true", start))
+            pos = start+4;
+        if(pos<0)
+            return state.fail(start, failReason_regex, null, 15);
+        state.gStart = start;
+        state.gEnd = pos;
+        for(; pos<state.end; pos++)
+        {
+            char c = state.chars.charAt(pos);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 15, pattern_15, 1);
+            if(!(c==' ' || c==0x0009 || c==0x000A || c==0x000D))
+                break;
+        }
+        return pos;
     }
     static final java.util.regex.Pattern pattern_15 = java.util.regex.Pattern.compile("(true)[\\ \\t\\n\\r]*", 0);
 
     // regex rule for: @Word("false")JsonBoolean
-    static _State rule_16(_State state)
+    static int rule_16(_State state, int start)
+    {
+        return match_regex_obj(state, regex_16(state, start), JsonBoolean.FALSE);
+    }
+    static int regex_16(_State state, int start)
     {
-        return match_regex_obj(state, 16, pattern_16, 1, JsonBoolean.FALSE);
+        int pos = -1;
+        if(pos<0 && state.end-start>=5 && state.chars.startsWith("false", start))
+            pos = start+5;
+        if(pos<0)
+            return state.fail(start, failReason_regex, null, 16);
+        state.gStart = start;
+        state.gEnd = pos;
+        for(; pos<state.end; pos++)
+        {
+            char c = state.chars.charAt(pos);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 16, pattern_16, 1);
+            if(!(c==' ' || c==0x0009 || c==0x000A || c==0x000D))
+                break;
+        }
+        return pos;
     }
     static final java.util.regex.Pattern pattern_16 = java.util.regex.Pattern.compile("(false)[\\ \\t\\n\\r]*", 0);
 
     // regex rule for: @Ch("\"")Void
-    static _State rule_17(_State state)
+    static int rule_17(_State state, int start)
     {
-        return match_regex(state, 17, pattern_17, 0);
+        state.obj = null;
+        return regex_17(state, start);
+    }
+    static int regex_17(_State state, int start)
+    {
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 17, pattern_17, 0);
+            if(c=='"')
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, 17);
     }
     static final java.util.regex.Pattern pattern_17 = java.util.regex.Pattern.compile("\"", 0);
 
     // repeat rule for: Either<Char1,BsEsc>[]
-    static _State rule_18(_State state) throws _FatalEx
+    static int rule_18(_State state, int start) throws _FatalEx
     {
-        state = match_repeat(state, 18, 27, 0, Integer.MAX_VALUE);
-        if(state.fail)
-            return state;
-        java.util.ArrayList<Either<Char1, BsEsc>> list = state.pickObj();
-        Either<Char1, BsEsc>[] array = list.toArray(generic_array());
-        return state.ok(array);
+        int base = state.objBufLen;
+        int pos = start;
+        for(int i=0; i<Integer.MAX_VALUE; i++)
+        {
+            int end = state.pathPop(rule_27(state, state.pathPush(27, pos, i)));
+            if(end<0)
+            {
+                if(i<0)
+                {
+                    state.objBufLen = base;
+                    return -1;
+                }
+                break; // enough elements
+            }
+            if(i>=0 && end==pos) // no progress, enough elements
+                break;
+            state.pushObj(state.pickObj());
+            pos = end;
+        }
+        Either<Char1, BsEsc>[] array = java.util.Arrays.copyOf(generic_array(), state.objBufLen-base);
+        System.arraycopy(state.objBuf, base, array, 0, array.length);
+        state.obj = array;
+        state.objBufLen = base;
+        return pos;
     }
 
     // alt rule for: Opt<@Ch("-")Character>
-    static _State rule_19(_State state) throws _FatalEx
+    static int rule_19(_State state, int start) throws _FatalEx
     {
-        state = match(28, state, 0); // Some<@Ch("-")Character>
-        if(!state.fail)
-            return state;
+        int end;
+        end = state.pathPop(rule_28(state, state.pathPush(28, start, 0))); // Some<@Ch("-")Character>
+        if(end>=0)
+            return end;
 
-        state = match(29, state, 1); // None<@Ch("-")Character>
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_29(state, state.pathPush(29, start, 1))); // None<@Ch("-")Character>
+        if(end>=0)
+            return end;
 
-        return state;
+        return -1;
     }
 
 
     // alt rule for: Either<DigitsNZ,Digit>
-    static _State rule_20(_State state) throws _FatalEx
+    static int rule_20(_State state, int start) throws _FatalEx
     {
-        state = match(30, state, 0); // Left<DigitsNZ,Digit>
-        if(!state.fail)
-            return state;
+        int end;
+        end = state.pathPop(rule_30(state, state.pathPush(30, start, 0))); // Left<DigitsNZ,Digit>
+        if(end>=0)
+            return end;
 
-        state = match(31, state, 1); // Right<DigitsNZ,Digit>
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_31(state, state.pathPush(31, start, 1))); // Right<DigitsNZ,Digit>
+        if(end>=0)
+            return end;
 
-        return state;
+        return -1;
     }
 
 
     // alt rule for: Opt<Fraction>
-    static _State rule_21(_State state) throws _FatalEx
+    static int rule_21(_State state, int start) throws _FatalEx
     {
-        state = match(32, state, 0); // Some<Fraction>
-        if(!state.fail)
-            return state;
+        int end;
+        end = state.pathPop(rule_32(state, state.pathPush(32, start, 0))); // Some<Fraction>
+        if(end>=0)
+            return end;
 
-        state = match(33, state, 1); // None<Fraction>
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_33(state, state.pathPush(33, start, 1))); // None<Fraction>
+        if(end>=0)
+            return end;
 
-        return state;
+        return -1;
     }
 
 
     // alt rule for: Opt<Exponent>
-    static _State rule_22(_State state) throws _FatalEx
+    static int rule_22(_State state, int start) throws _FatalEx
     {
-        state = match(34, state, 0); // Some<Exponent>
-        if(!state.fail)
-            return state;
+        int end;
+        end = state.pathPop(rule_34(state, state.pathPush(34, start, 0))); // Some<Exponent>
+        if(end>=0)
+            return end;
 
-        state = match(35, state, 1); // None<Exponent>
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_35(state, state.pathPush(35, start, 1))); // None<Exponent>
+        if(end>=0)
+            return end;
 
-        return state;
+        return -1;
     }
 
 
     // concat rule for: SepBy1<Member,Comma>
-    static _State rule_23(_State state) throws _FatalEx
+    static int rule_23(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(36, state, 0); // arg_0: Member
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_36(state, state.pathPush(36, pos, 0))); // arg_0: Member
+        if(pos<0)
+            return -1;
         Member arg_0 = state.pickObj();
 
-        state = match(37, state, 1); // arg_1: List<Seq2<Comma,Member>>
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_37(state, state.pathPush(37, pos, 1))); // arg_1: List<Seq2<Comma,Member>>
+        if(pos<0)
+            return -1;
         List<Seq2<Comma, Member>> arg_1 = state.pickObj();
 
         SepBy1<Member, Comma> value;
@@ -690,13 +1026,14 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Empty<Member,Comma>
-    static _State rule_24(_State state) throws _FatalEx
+    static int rule_24(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
         Empty<Member, Comma> value;
         try{
@@ -704,22 +1041,23 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: SepBy1<JsonValue,Comma>
-    static _State rule_25(_State state) throws _FatalEx
+    static int rule_25(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(2, state, 0); // arg_0: JsonValue
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_2(state, state.pathPush(2, pos, 0))); // arg_0: JsonValue
+        if(pos<0)
+            return -1;
         JsonValue arg_0 = state.pickObj();
 
-        state = match(38, state, 1); // arg_1: List<Seq2<Comma,JsonValue>>
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_38(state, state.pathPush(38, pos, 1))); // arg_1: List<Seq2<Comma,JsonValue>>
+        if(pos<0)
+            return -1;
         List<Seq2<Comma, JsonValue>> arg_1 = state.pickObj();
 
         SepBy1<JsonValue, Comma> value;
@@ -728,13 +1066,14 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Empty<JsonValue,Comma>
-    static _State rule_26(_State state) throws _FatalEx
+    static int rule_26(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
         Empty<JsonValue, Comma> value;
         try{
@@ -742,32 +1081,34 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // alt rule for: Either<Char1,BsEsc>
-    static _State rule_27(_State state) throws _FatalEx
+    static int rule_27(_State state, int start) throws _FatalEx
     {
-        state = match(39, state, 0); // Left<Char1,BsEsc>
-        if(!state.fail)
-            return state;
+        int end;
+        end = state.pathPop(rule_39(state, state.pathPush(39, start, 0))); // Left<Char1,BsEsc>
+        if(end>=0)
+            return end;
 
-        state = match(40, state, 1); // Right<Char1,BsEsc>
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_40(state, state.pathPush(40, start, 1))); // Right<Char1,BsEsc>
+        if(end>=0)
+            return end;
 
-        return state;
+        return -1;
     }
 
 
     // concat rule for: Some<@Ch("-")Character>
-    static _State rule_28(_State state) throws _FatalEx
+    static int rule_28(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(41, state, 0); // arg_0: @Ch("-")Character
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_41(state, state.pathPush(41, pos, 0))); // arg_0: @Ch("-")Character
+        if(pos<0)
+            return -1;
         Character arg_0 = state.pickObj();
 
         Some<Character> value;
@@ -776,13 +1117,14 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: None<@Ch("-")Character>
-    static _State rule_29(_State state) throws _FatalEx
+    static int rule_29(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
         None<Character> value;
         try{
@@ -790,17 +1132,18 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Left<DigitsNZ,Digit>
-    static _State rule_30(_State state) throws _FatalEx
+    static int rule_30(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(42, state, 0); // arg_0: DigitsNZ
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_42(state, state.pathPush(42, pos, 0))); // arg_0: DigitsNZ
+        if(pos<0)
+            return -1;
         DigitsNZ arg_0 = state.pickObj();
 
         Left<DigitsNZ, Digit> value;
@@ -809,17 +1152,18 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Right<DigitsNZ,Digit>
-    static _State rule_31(_State state) throws _FatalEx
+    static int rule_31(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(43, state, 0); // arg_0: Digit
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_43(state, state.pathPush(43, pos, 0))); // arg_0: Digit
+        if(pos<0)
+            return -1;
         Digit arg_0 = state.pickObj();
 
         Right<DigitsNZ, Digit> value;
@@ -828,17 +1172,18 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Some<Fraction>
-    static _State rule_32(_State state) throws _FatalEx
+    static int rule_32(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(44, state, 0); // arg_0: Fraction
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_44(state, state.pathPush(44, pos, 0))); // arg_0: Fraction
+        if(pos<0)
+            return -1;
         Fraction arg_0 = state.pickObj();
 
         Some<Fraction> value;
@@ -847,13 +1192,14 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: None<Fraction>
-    static _State rule_33(_State state) throws _FatalEx
+    static int rule_33(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
         None<Fraction> value;
         try{
@@ -861,17 +1207,18 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Some<Exponent>
-    static _State rule_34(_State state) throws _FatalEx
+    static int rule_34(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(45, state, 0); // arg_0: Exponent
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_45(state, state.pathPush(45, pos, 0))); // arg_0: Exponent
+        if(pos<0)
+            return -1;
         Exponent arg_0 = state.pickObj();
 
         Some<Exponent> value;
@@ -880,13 +1227,14 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: None<Exponent>
-    static _State rule_35(_State state) throws _FatalEx
+    static int rule_35(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
         None<Exponent> value;
         try{
@@ -894,27 +1242,28 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Member
-    static _State rule_36(_State state) throws _FatalEx
+    static int rule_36(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(7, state, 0); // arg_0: JsonString
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_7(state, state.pathPush(7, pos, 0))); // arg_0: JsonString
+        if(pos<0)
+            return -1;
         JsonString arg_0 = state.pickObj();
 
-        state = match(46, state, 1); // arg_1: @Word(":")Void
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_46(state, state.pathPush(46, pos, 1))); // arg_1: @Word(":")Void
+        if(pos<0)
+            return -1;
         Void arg_1 = state.pickObj();
 
-        state = match(2, state, 2); // arg_2: JsonValue
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_2(state, state.pathPush(2, pos, 2))); // arg_2: JsonValue
+        if(pos<0)
+            return -1;
         JsonValue arg_2 = state.pickObj();
 
         Member value;
@@ -923,39 +1272,72 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // repeat rule for: List<Seq2<Comma,Member>>
-    static _State rule_37(_State state) throws _FatalEx
+    static int rule_37(_State state, int start) throws _FatalEx
     {
-        state = match_repeat(state, 37, 47, 0, Integer.MAX_VALUE);
-        if(state.fail)
-            return state;
-        java.util.ArrayList<Seq2<Comma, Member>> list = state.pickObj();
-        list.trimToSize();
-        return state.ok(list);
+        int base = state.objBufLen;
+        int pos = start;
+        for(int i=0; i<Integer.MAX_VALUE; i++)
+        {
+            int end = state.pathPop(rule_47(state, state.pathPush(47, pos, i)));
+            if(end<0)
+            {
+                if(i<0)
+                {
+                    state.objBufLen = base;
+                    return -1;
+                }
+                break; // enough elements
+            }
+            if(i>=0 && end==pos) // no progress, enough elements
+                break;
+            state.pushObj(state.pickObj());
+            pos = end;
+        }
+        state.obj = org.rekex.parser.CompactList.of(state.objBuf, base, state.objBufLen);
+        state.objBufLen = base;
+        return pos;
     }
 
     // repeat rule for: List<Seq2<Comma,JsonValue>>
-    static _State rule_38(_State state) throws _FatalEx
+    static int rule_38(_State state, int start) throws _FatalEx
     {
-        state = match_repeat(state, 38, 48, 0, Integer.MAX_VALUE);
-        if(state.fail)
-            return state;
-        java.util.ArrayList<Seq2<Comma, JsonValue>> list = state.pickObj();
-        list.trimToSize();
-        return state.ok(list);
+        int base = state.objBufLen;
+        int pos = start;
+        for(int i=0; i<Integer.MAX_VALUE; i++)
+        {
+            int end = state.pathPop(rule_48(state, state.pathPush(48, pos, i)));
+            if(end<0)
+            {
+                if(i<0)
+                {
+                    state.objBufLen = base;
+                    return -1;
+                }
+                break; // enough elements
+            }
+            if(i>=0 && end==pos) // no progress, enough elements
+                break;
+            state.pushObj(state.pickObj());
+            pos = end;
+        }
+        state.obj = org.rekex.parser.CompactList.of(state.objBuf, base, state.objBufLen);
+        state.objBufLen = base;
+        return pos;
     }
 
     // concat rule for: Left<Char1,BsEsc>
-    static _State rule_39(_State state) throws _FatalEx
+    static int rule_39(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(49, state, 0); // arg_0: Char1
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_49(state, state.pathPush(49, pos, 0))); // arg_0: Char1
+        if(pos<0)
+            return -1;
         Char1 arg_0 = state.pickObj();
 
         Left<Char1, BsEsc> value;
@@ -964,17 +1346,18 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Right<Char1,BsEsc>
-    static _State rule_40(_State state) throws _FatalEx
+    static int rule_40(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(50, state, 0); // arg_0: BsEsc
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_50(state, state.pathPush(50, pos, 0))); // arg_0: BsEsc
+        if(pos<0)
+            return -1;
         BsEsc arg_0 = state.pickObj();
 
         Right<Char1, BsEsc> value;
@@ -983,29 +1366,49 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // regex rule for: @Ch("-")Character
-    static _State rule_41(_State state) throws _FatalEx
+    static int rule_41(_State state, int start) throws _FatalEx
+    {
+        int end = match_regex_char(state, regex_41(state, start), 41);
+        if(end>=0)
+            state.obj = state.val_char;
+        return end;
+    }
+    static int regex_41(_State state, int start)
     {
-        return match_regex_char(state, 41, pattern_41, 0);
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 41, pattern_41, 0);
+            if(c=='-')
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, 41);
     }
     static final java.util.regex.Pattern pattern_41 = java.util.regex.Pattern.compile("\\-", 0);
 
     // concat rule for: DigitsNZ
-    static _State rule_42(_State state) throws _FatalEx
+    static int rule_42(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(51, state, 0); // arg_0: @Regex("[1-9]")char
-        if(state.fail)
-            return state.fail(start0);
-        char arg_0 = state.pickObj();
+        pos = state.pathPop(rule_51(state, state.pathPush(51, pos, 0))); // arg_0: @Regex("[1-9]")char
+        if(pos<0)
+            return -1;
+        char arg_0 = state.val_char;
 
-        state = match(52, state, 1); // arg_1: Digits
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_52(state, state.pathPush(52, pos, 1))); // arg_1: Digits
+        if(pos<0)
+            return -1;
         Digits arg_1 = state.pickObj();
 
         DigitsNZ value;
@@ -1014,18 +1417,19 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Digit
-    static _State rule_43(_State state) throws _FatalEx
+    static int rule_43(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(53, state, 0); // arg_0: @Regex("[0-9]")char
-        if(state.fail)
-            return state.fail(start0);
-        char arg_0 = state.pickObj();
+        pos = state.pathPop(rule_53(state, state.pathPush(53, pos, 0))); // arg_0: @Regex("[0-9]")char
+        if(pos<0)
+            return -1;
+        char arg_0 = state.val_char;
 
         Digit value;
         try{
@@ -1033,22 +1437,23 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Fraction
-    static _State rule_44(_State state) throws _FatalEx
+    static int rule_44(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(54, state, 0); // arg_0: @Ch(".")char
-        if(state.fail)
-            return state.fail(start0);
-        char arg_0 = state.pickObj();
+        pos = state.pathPop(rule_54(state, state.pathPush(54, pos, 0))); // arg_0: @Ch(".")char
+        if(pos<0)
+            return -1;
+        char arg_0 = state.val_char;
 
-        state = match(52, state, 1); // arg_1: Digits
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_52(state, state.pathPush(52, pos, 1))); // arg_1: Digits
+        if(pos<0)
+            return -1;
         Digits arg_1 = state.pickObj();
 
         Fraction value;
@@ -1057,27 +1462,28 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Exponent
-    static _State rule_45(_State state) throws _FatalEx
+    static int rule_45(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(55, state, 0); // arg_0: @Ch("Ee")char
-        if(state.fail)
-            return state.fail(start0);
-        char arg_0 = state.pickObj();
+        pos = state.pathPop(rule_55(state, state.pathPush(55, pos, 0))); // arg_0: @Ch("Ee")char
+        if(pos<0)
+            return -1;
+        char arg_0 = state.val_char;
 
-        state = match(56, state, 1); // arg_1: Opt<@Ch("+-")Character>
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_56(state, state.pathPush(56, pos, 1))); // arg_1: Opt<@Ch("+-")Character>
+        if(pos<0)
+            return -1;
         Opt<Character> arg_1 = state.pickObj();
 
-        state = match(52, state, 2); // arg_2: Digits
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_52(state, state.pathPush(52, pos, 2))); // arg_2: Digits
+        if(pos<0)
+            return -1;
         Digits arg_2 = state.pickObj();
 
         Exponent value;
@@ -1086,29 +1492,50 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // regex rule for: @Word(":")Void
-    static _State rule_46(_State state)
+    static int rule_46(_State state, int start)
     {
-        return match_regex(state, 46, pattern_46, 1);
+        state.obj = null;
+        return regex_46(state, start);
+    }
+    static int regex_46(_State state, int start)
+    {
+        int pos = -1;
+        if(pos<0 && state.end-start>=1 && state.chars.startsWith(":", start))
+            pos = start+1;
+        if(pos<0)
+            return state.fail(start, failReason_regex, null, 46);
+        state.gStart = start;
+        state.gEnd = pos;
+        for(; pos<state.end; pos++)
+        {
+            char c = state.chars.charAt(pos);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 46, pattern_46, 1);
+            if(!(c==' ' || c==0x0009 || c==0x000A || c==0x000D))
+                break;
+        }
+        return pos;
     }
     static final java.util.regex.Pattern pattern_46 = java.util.regex.Pattern.compile("(:)[\\ \\t\\n\\r]*", 0);
 
     // concat rule for: Seq2<Comma,Member>
-    static _State rule_47(_State state) throws _FatalEx
+    static int rule_47(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(57, state, 0); // arg_0: Comma
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_57(state, state.pathPush(57, pos, 0))); // arg_0: Comma
+        if(pos<0)
+            return -1;
         Comma arg_0 = state.pickObj();
 
-        state = match(36, state, 1); // arg_1: Member
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_36(state, state.pathPush(36, pos, 1))); // arg_1: Member
+        if(pos<0)
+            return -1;
         Member arg_1 = state.pickObj();
 
         Seq2<Comma, Member> value;
@@ -1117,22 +1544,23 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Seq2<Comma,JsonValue>
-    static _State rule_48(_State state) throws _FatalEx
+    static int rule_48(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(57, state, 0); // arg_0: Comma
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_57(state, state.pathPush(57, pos, 0))); // arg_0: Comma
+        if(pos<0)
+            return -1;
         Comma arg_0 = state.pickObj();
 
-        state = match(2, state, 1); // arg_1: JsonValue
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_2(state, state.pathPush(2, pos, 1))); // arg_1: JsonValue
+        if(pos<0)
+            return -1;
         JsonValue arg_1 = state.pickObj();
 
         Seq2<Comma, JsonValue> value;
@@ -1141,18 +1569,19 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Char1
-    static _State rule_49(_State state) throws _FatalEx
+    static int rule_49(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(58, state, 0); // arg_0: @Ch(except="\\\"",range={32,1114111})int
-        if(state.fail)
-            return state.fail(start0);
-        int arg_0 = state.pickObj();
+        pos = state.pathPop(rule_58(state, state.pathPush(58, pos, 0))); // arg_0: @Ch(except="\\\"",range={32,1114111})int
+        if(pos<0)
+            return -1;
+        int arg_0 = state.val_int;
 
         Char1 value;
         try{
@@ -1160,22 +1589,23 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: BsEsc
-    static _State rule_50(_State state) throws _FatalEx
+    static int rule_50(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(59, state, 0); // arg_0: @Ch("\\")Void
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_59(state, state.pathPush(59, pos, 0))); // arg_0: @Ch("\\")Void
+        if(pos<0)
+            return -1;
         Void arg_0 = state.pickObj();
 
-        state = match(60, state, 1); // arg_1: Either<EscChar,EscUhhhh>
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_60(state, state.pathPush(60, pos, 1))); // arg_1: Either<EscChar,EscUhhhh>
+        if(pos<0)
+            return -1;
         Either<EscChar, EscUhhhh> arg_1 = state.pickObj();
 
         BsEsc value;
@@ -1184,24 +1614,41 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // regex rule for: @Regex("[1-9]")char
-    static _State rule_51(_State state) throws _FatalEx
+    static int rule_51(_State state, int start) throws _FatalEx
+    {
+        return match_regex_char(state, regex_51(state, start), 51);
+    }
+    static int regex_51(_State state, int start)
     {
-        return match_regex_char(state, 51, pattern_51, 0);
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 51, pattern_51, 0);
+            if(c>='1' && c<='9')
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, 51);
     }
     static final java.util.regex.Pattern pattern_51 = java.util.regex.Pattern.compile("[1-9]", 0);
 
     // concat rule for: Digits
-    static _State rule_52(_State state) throws _FatalEx
+    static int rule_52(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(61, state, 0); // arg_0: @Regex("[0-9]")char@AtLeast(1)[]
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_61(state, state.pathPush(61, pos, 0))); // arg_0: @Regex("[0-9]")char@AtLeast(1)[]
+        if(pos<0)
+            return -1;
         char[] arg_0 = state.pickObj();
 
         Digits value;
@@ -1210,102 +1657,234 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // regex rule for: @Regex("[0-9]")char
-    static _State rule_53(_State state) throws _FatalEx
+    static int rule_53(_State state, int start) throws _FatalEx
+    {
+        return match_regex_char(state, regex_53(state, start), 53);
+    }
+    static int regex_53(_State state, int start)
+    {
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 53, pattern_53, 0);
+            if(c>='0' && c<='9')
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, 53);
+    }
+    static int scan_53(String chars, int pos, int end)
     {
-        return match_regex_char(state, 53, pattern_53, 0);
+        for(; pos<end; pos++)
+        {
+            char c = chars.charAt(pos);
+            if(Character.isSurrogate(c) || !(c>='0' && c<='9')) // code points are left to the caller
+                break;
+        }
+        return pos;
     }
     static final java.util.regex.Pattern pattern_53 = java.util.regex.Pattern.compile("[0-9]", 0);
 
     // regex rule for: @Ch(".")char
-    static _State rule_54(_State state) throws _FatalEx
+    static int rule_54(_State state, int start) throws _FatalEx
+    {
+        return match_regex_char(state, regex_54(state, start), 54);
+    }
+    static int regex_54(_State state, int start)
     {
-        return match_regex_char(state, 54, pattern_54, 0);
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 54, pattern_54, 0);
+            if(c=='.')
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, 54);
     }
     static final java.util.regex.Pattern pattern_54 = java.util.regex.Pattern.compile("\\.", 0);
 
     // regex rule for: @Ch("Ee")char
-    static _State rule_55(_State state) throws _FatalEx
+    static int rule_55(_State state, int start) throws _FatalEx
     {
-        return match_regex_char(state, 55, pattern_55, 0);
+        return match_regex_char(state, regex_55(state, start), 55);
+    }
+    static int regex_55(_State state, int start)
+    {
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 55, pattern_55, 0);
+            if(c=='E' || c=='e')
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, 55);
     }
     static final java.util.regex.Pattern pattern_55 = java.util.regex.Pattern.compile("[Ee]", 0);
 
     // alt rule for: Opt<@Ch("+-")Character>
-    static _State rule_56(_State state) throws _FatalEx
+    static int rule_56(_State state, int start) throws _FatalEx
     {
-        state = match(62, state, 0); // Some<@Ch("+-")Character>
-        if(!state.fail)
-            return state;
+        int end;
+        end = state.pathPop(rule_62(state, state.pathPush(62, start, 0))); // Some<@Ch("+-")Character>
+        if(end>=0)
+            return end;
 
-        state = match(63, state, 1); // None<@Ch("+-")Character>
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_63(state, state.pathPush(63, start, 1))); // None<@Ch("+-")Character>
+        if(end>=0)
+            return end;
 
-        return state;
+        return -1;
     }
 
 
     // regex rule for: Comma
-    static _State rule_57(_State state)
+    static int rule_57(_State state, int start)
     {
-        return match_regex_obj(state, 57, pattern_57, 1, Comma.COMMA);
+        return match_regex_obj(state, regex_57(state, start), Comma.COMMA);
+    }
+    static int regex_57(_State state, int start)
+    {
+        int pos = -1;
+        if(pos<0 && state.end-start>=1 && state.chars.startsWith(",", start))
+            pos = start+1;
+        if(pos<0)
+            return state.fail(start, failReason_regex, null, 57);
+        state.gStart = start;
+        state.gEnd = pos;
+        for(; pos<state.end; pos++)
+        {
+            char c = state.chars.charAt(pos);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 57, pattern_57, 1);
+            if(!(c==' ' || c==0x0009 || c==0x000A || c==0x000D))
+                break;
+        }
+        return pos;
     }
     static final java.util.regex.Pattern pattern_57 = java.util.regex.Pattern.compile("(,)[\\ \\t\\n\\r]*", 0);
 
     // regex rule for: @Ch(except="\\\"",range={32,1114111})int
-    static _State rule_58(_State state) throws _FatalEx
+    static int rule_58(_State state, int start) throws _FatalEx
+    {
+        return match_regex_int(state, regex_58(state, start), 58);
+    }
+    static int regex_58(_State state, int start)
     {
-        return match_regex_int(state, 58, pattern_58, 0);
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 58, pattern_58, 0);
+            if(c>=' ' && !(c==0x005C || c=='"'))
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, 58);
     }
     static final java.util.regex.Pattern pattern_58 = java.util.regex.Pattern.compile("[\\ -\\x{10FFFF}&&[^\\\\\"]]", 0);
 
     // regex rule for: @Ch("\\")Void
-    static _State rule_59(_State state)
+    static int rule_59(_State state, int start)
     {
-        return match_regex(state, 59, pattern_59, 0);
+        state.obj = null;
+        return regex_59(state, start);
+    }
+    static int regex_59(_State state, int start)
+    {
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 59, pattern_59, 0);
+            if(c==0x005C)
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, 59);
     }
     static final java.util.regex.Pattern pattern_59 = java.util.regex.Pattern.compile("\\\\", 0);
 
     // alt rule for: Either<EscChar,EscUhhhh>
-    static _State rule_60(_State state) throws _FatalEx
+    static int rule_60(_State state, int start) throws _FatalEx
     {
-        state = match(64, state, 0); // Left<EscChar,EscUhhhh>
-        if(!state.fail)
-            return state;
+        int end;
+        end = state.pathPop(rule_64(state, state.pathPush(64, start, 0))); // Left<EscChar,EscUhhhh>
+        if(end>=0)
+            return end;
 
-        state = match(65, state, 1); // Right<EscChar,EscUhhhh>
-        if(!state.fail)
-            return state;
+        end = state.pathPop(rule_65(state, state.pathPush(65, start, 1))); // Right<EscChar,EscUhhhh>
+        if(end>=0)
+            return end;
 
-        return state;
+        return -1;
     }
 
 
     // repeat rule for: @Regex("[0-9]")char@AtLeast(1)[]
-    static _State rule_61(_State state) throws _FatalEx
-    {
-        state = match_repeat(state, 61, 53, 1, Integer.MAX_VALUE);
-        if(state.fail)
-            return state;
-        java.util.ArrayList<Character> list = state.pickObj();
-        char[] array = new char[list.size()];
-        for(int i=0; i<list.size(); i++)
-            array[i] = list.get(i);
-        return state.ok(array);
+    static int rule_61(_State state, int start) throws _FatalEx
+    {
+        final int base = state.bufLen_char;
+        int pos = start;
+        int i = 0;
+        int stop = scan_53(state.chars, pos, (int)Math.min(state.end, (long)pos+Integer.MAX_VALUE));
+        for(int p=pos; p<stop; p++)
+            state.push_char(state.chars.charAt(p));
+        i = stop-pos;
+        pos = stop;
+        for(; i<Integer.MAX_VALUE; i++)
+        {
+            int end = state.pathPop(rule_53(state, state.pathPush(53, pos, i)));
+            if(end<0)
+            {
+                if(i<1)
+                {
+                    state.bufLen_char = base;
+                    return -1;
+                }
+                break; // enough elements
+            }
+            if(i>=1 && end==pos) // no progress, enough elements
+                break;
+            state.push_char(state.val_char);
+            pos = end;
+        }
+        state.obj = state.pop_char(base);
+        return pos;
     }
 
     // concat rule for: Some<@Ch("+-")Character>
-    static _State rule_62(_State state) throws _FatalEx
+    static int rule_62(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(66, state, 0); // arg_0: @Ch("+-")Character
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_66(state, state.pathPush(66, pos, 0))); // arg_0: @Ch("+-")Character
+        if(pos<0)
+            return -1;
         Character arg_0 = state.pickObj();
 
         Some<Character> value;
@@ -1314,13 +1893,14 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: None<@Ch("+-")Character>
-    static _State rule_63(_State state) throws _FatalEx
+    static int rule_63(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
         None<Character> value;
         try{
@@ -1328,17 +1908,18 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Left<EscChar,EscUhhhh>
-    static _State rule_64(_State state) throws _FatalEx
+    static int rule_64(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(67, state, 0); // arg_0: EscChar
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_67(state, state.pathPush(67, pos, 0))); // arg_0: EscChar
+        if(pos<0)
+            return -1;
         EscChar arg_0 = state.pickObj();
 
         Left<EscChar, EscUhhhh> value;
@@ -1347,17 +1928,18 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: Right<EscChar,EscUhhhh>
-    static _State rule_65(_State state) throws _FatalEx
+    static int rule_65(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(68, state, 0); // arg_0: EscUhhhh
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_68(state, state.pathPush(68, pos, 0))); // arg_0: EscUhhhh
+        if(pos<0)
+            return -1;
         EscUhhhh arg_0 = state.pickObj();
 
         Right<EscChar, EscUhhhh> value;
@@ -1366,25 +1948,45 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // regex rule for: @Ch("+-")Character
-    static _State rule_66(_State state) throws _FatalEx
+    static int rule_66(_State state, int start) throws _FatalEx
     {
-        return match_regex_char(state, 66, pattern_66, 0);
+        int end = match_regex_char(state, regex_66(state, start), 66);
+        if(end>=0)
+            state.obj = state.val_char;
+        return end;
+    }
+    static int regex_66(_State state, int start)
+    {
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 66, pattern_66, 0);
+            if(c=='+' || c=='-')
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, 66);
     }
     static final java.util.regex.Pattern pattern_66 = java.util.regex.Pattern.compile("[\\+\\-]", 0);
 
     // concat rule for: EscChar
-    static _State rule_67(_State state) throws _FatalEx
+    static int rule_67(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(69, state, 0); // arg_0: @Ch("\\\"/bfnrt")char
-        if(state.fail)
-            return state.fail(start0);
-        char arg_0 = state.pickObj();
+        pos = state.pathPop(rule_69(state, state.pathPush(69, pos, 0))); // arg_0: @Ch("\\\"/bfnrt")char
+        if(pos<0)
+            return -1;
+        char arg_0 = state.val_char;
 
         EscChar value;
         try{
@@ -1392,22 +1994,23 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // concat rule for: EscUhhhh
-    static _State rule_68(_State state) throws _FatalEx
+    static int rule_68(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
 
-        state = match(70, state, 0); // arg_0: @Ch("u")Void
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_70(state, state.pathPush(70, pos, 0))); // arg_0: @Ch("u")Void
+        if(pos<0)
+            return -1;
         Void arg_0 = state.pickObj();
 
-        state = match(71, state, 1); // arg_1: @Regex("[0-9A-Fa-f]{4}")String
-        if(state.fail)
-            return state.fail(start0);
+        pos = state.pathPop(rule_71(state, state.pathPush(71, pos, 1))); // arg_1: @Regex("[0-9A-Fa-f]{4}")String
+        if(pos<0)
+            return -1;
         String arg_1 = state.pickObj();
 
         EscUhhhh value;
@@ -1416,27 +2019,65 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
         }
-        return state.ok(value);
+        state.obj = value;
+        return pos;
     }
 
     // regex rule for: @Ch("\\\"/bfnrt")char
-    static _State rule_69(_State state) throws _FatalEx
+    static int rule_69(_State state, int start) throws _FatalEx
+    {
+        return match_regex_char(state, regex_69(state, start), 69);
+    }
+    static int regex_69(_State state, int start)
     {
-        return match_regex_char(state, 69, pattern_69, 0);
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 69, pattern_69, 0);
+            if(c==0x005C || c=='"' || c=='/' || c=='b' || c=='f' || c=='n' || c=='r' || c=='t')
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, 69);
     }
     static final java.util.regex.Pattern pattern_69 = java.util.regex.Pattern.compile("[\\\\\"/bfnrt]", 0);
 
     // regex rule for: @Ch("u")Void
-    static _State rule_70(_State state)
+    static int rule_70(_State state, int start)
+    {
+        state.obj = null;
+        return regex_70(state, start);
+    }
+    static int regex_70(_State state, int start)
     {
-        return match_regex(state, 70, pattern_70, 0);
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, 70, pattern_70, 0);
+            if(c=='u')
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, 70);
     }
     static final java.util.regex.Pattern pattern_70 = java.util.regex.Pattern.compile("u", 0);
 
     // regex rule for: @Regex("[0-9A-Fa-f]{4}")String
-    static _State rule_71(_State state)
+    static int rule_71(_State state, int start)
     {
-        return match_regex_str(state, 71, pattern_71, 0);
+        return match_regex_str(state, regex_71(state, start));
+    }
+    static int regex_71(_State state, int start)
+    {
+        return match_regex(state, start, 71, pattern_71, 0);
     }
     static final java.util.regex.Pattern pattern_71 = java.util.regex.Pattern.compile("[0-9A-Fa-f]{4}", 0);
 
@@ -1451,88 +2092,78 @@ public class Generated_ExampleParser_Json1 implements PegParser<Input>
         return array;
     }
 
-    static _State match_repeat(_State state, int ruleId, int subRuleId, int min, int max) throws _FatalEx
-    {
-        final int start0 = state.start;
-        java.util.ArrayList<Object> list = new java.util.ArrayList<>(Math.max(min, Math.min(10, max)));
-        for(int i=0; i<max; i++)
-        {
-            final int start1 = state.start;
-            state = match(subRuleId, state, i);
-            if(i<min && state.fail)
-                return state.fail(start0);
-            if(i>=min && state.fail) // enough elements
-                break;
-            if(i>=min && start1==state.start) // no progress, enough elements
-                break;
-            list.add(state.pickObj());
-        }
-        return state.ok(list);
-    }
-
-    static _State match_regex(_State state, int ruleId, java.util.regex.Pattern pattern, int group)
+    static int match_regex(_State state, int start, int ruleId, java.util.regex.Pattern pattern, int group)
     {
         var matcher = pattern.matcher(state.chars);
-        matcher.region(state.start, state.end);
+        matcher.region(start, state.end);
         boolean matched = matcher.lookingAt();
         if(!matched)
-            return state.fail(state.start, failReason_regex, null, ruleId, state.start);
+            return state.fail(start, failReason_regex, null, ruleId);
 
         state.gStart = matcher.start(group);
         state.gEnd = matcher.end(group);
         if(state.gStart==-1)
-            return state.fail(state.start, failReason_regex_group, null, ruleId, state.start);
+            return state.fail(start, failReason_regex_group, null, ruleId);
 
-        state.start = matcher.end(0); // consume group 0
-        return state.ok(null);
+        return matcher.end(0); // consume group 0
     }
-    static _State match_regex_char(_State state, int ruleId, java.util.regex.Pattern pattern, int group) throws _FatalEx
+    static int match_regex_char(_State state, int end, int ruleId) throws _FatalEx
     {
-        state = match_regex_int(state, ruleId, pattern, group);
-        if(state.fail)
-            return state;
-        Integer x = state.pickObj();
+        end = match_regex_int(state, end, ruleId);
+        if(end<0)
+            return -1;
+        int x = state.val_int;
         if(x>0xFFFF)
         {
             // programming mistake in the regex, or an unexpected input
-            String msg = "expected to match exactly 1 char; matched=%s, start=%s, end=%s, regex=%s"
-                .formatted(Integer.toHexString(x), state.gStart, state.gEnd, pattern.pattern());
+            String msg = "expected to match exactly 1 char; matched=%s, start=%s, end=%s, rule=%s"
+                .formatted(Integer.toHexString(x), state.gStart, state.gEnd, _DatatypeList.list.get(ruleId));
             throw new _FatalEx(state.gStart, new Exception(msg));
         }
-        return state.ok(Character.valueOf((char)x.intValue()));
+        state.val_char = (char)x;
+        return end;
     }
-    static _State match_regex_int(_State state, int ruleId, java.util.regex.Pattern pattern, int group) throws _FatalEx
+    static int match_regex_int(_State state, int end, int ruleId) throws _FatalEx
     {
-        state = match_regex(state, ruleId, pattern, group);
-        if(state.fail)
-            return state;
-        int count = Character.codePointCount(state.chars, state.gStart, state.gEnd);
+        if(end<0)
+            return -1;
+        String chars = state.chars;
+        int gStart = state.gStart, gEnd = state.gEnd;
+        if(gEnd-gStart==1 && !Character.isSurrogate(chars.charAt(gStart))) // common case
+        {
+            state.val_int = chars.charAt(gStart);
+            return end;
+        }
+        int count = chars.codePointCount(gStart, gEnd);
         if(count==1)
         {
-            int code = Character.codePointAt(state.chars, state.gStart);
-            if(Character.charCount(code)==state.gEnd-state.gStart) // could it fail?
-                return state.ok(code);
+            int code = chars.codePointAt(gStart);
+            if(Character.charCount(code)==gEnd-gStart) // could it fail?
+            {
+                state.val_int = code;
+                return end;
+            }
         }
         // programming mistake in the regex, or an unexpected input
-        String msg = "expected to match exactly 1 code point; start=%s, end=%s, regex=%s"
-            .formatted(state.gStart, state.gEnd, pattern.pattern());
-        throw new _FatalEx(state.gStart, new Exception(msg));
+        String msg = "expected to match exactly 1 code point; start=%s, end=%s, rule=%s"
+            .formatted(gStart, gEnd, _DatatypeList.list.get(ruleId));
+        throw new _FatalEx(gStart, new Exception(msg));
     }
-    static _State match_regex_str(_State state, int ruleId, java.util.regex.Pattern pattern, int group)
+    static int match_regex_str(_State state, int end)
     {
-        state = match_regex(state, ruleId, pattern, group);
-        if(state.fail)
-            return state;
-        String str = state.chars.subSequence(state.gStart, state.gEnd).toString();
-        return state.ok(str);
+        if(end<0)
+            return -1;
+        state.obj = state.chars.substring(state.gStart, state.gEnd);
+        return end;
     }
-    static _State match_regex_obj(_State state, int ruleId, java.util.regex.Pattern pattern, int group, Object obj)
+    static int match_regex_obj(_State state, int end, Object obj)
     {
-        state = match_regex(state, ruleId, pattern, group);
-        if(state.fail)
-            return state;
-        return state.ok(obj);
+        if(end<0)
+            return -1;
+        state.obj = obj;
+        return end;
     }
+
     static class _DatatypeList
     {
         // [0] Input
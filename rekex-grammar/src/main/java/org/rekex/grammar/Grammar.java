@@ -131,6 +131,7 @@ public record Grammar(
             .on(RepeatRule.class, r->List.of(r.subRuleId()))
             .on(PeekRule.class, r->List.of(r.subRuleId()))
             .on(NegRule.class, r->List.of(r.subRuleId()))
+            .on(LazyRule.class, r->List.of(r.subRuleId()))
             .on(RegexRule.class, r->List.of())
             .complete(GrammarRule.class);
 
@@ -151,6 +152,9 @@ public record Grammar(
             .on(NegRule.class, r -> m -> new NegRule(
                 m[r.id()], r.datatype(), m[r.subRuleId()])
             )
+            .on(LazyRule.class, r -> m -> new LazyRule(
+                m[r.id()], r.datatype(), m[r.subRuleId()])
+            )
             .on(RegexRule.class, r -> m -> new RegexRule(
                 m[r.id()], r.datatype(), r.regex(), r.instantiator())
             )
@@ -7,6 +7,7 @@ import org.rekex.spec.*;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.*;
+import java.math.BigDecimal;
 import java.util.*;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -88,7 +89,7 @@ class GrammarBuilder
         if(type instanceof PrimitiveType primitiveType)
         {
             Class<?> clazz = primitiveType.clazz();
-            if(clazz==char.class || clazz==int.class)
+            if(clazz==char.class || clazz==int.class || clazz==long.class || clazz==double.class)
                 return deriveRegexStr(id, primitiveType);
 
             throw new Exception("no predefined rule for primitive: "+str(type));
@@ -98,12 +99,20 @@ class GrammarBuilder
             Class<?> clazz = classType.clazz();
             if(clazz==Character.class || clazz==Integer.class || clazz==String.class || clazz==Void.class)
                 return deriveRegexStr(id, classType);
+            if(clazz==TextSlice.class)
+                return deriveRegexStr(id, classType);
+            if(clazz==Long.class || clazz==Double.class || clazz==BigDecimal.class)
+                return deriveRegexStr(id, classType);
             if(clazz==List.class)
                 return deriveList(id, classType);
+            if(clazz==Text.class)
+                return deriveText(id, classType);
             if(clazz==Peek.class)
                 return derivePeek(id, classType);
             if(clazz==Not.class)
                 return deriveNot(id, classType);
+            if(clazz==Lazy.class)
+                return deriveLazy(id, classType);
 
             return deriveClassType(id, classType);
         }
@@ -118,7 +127,9 @@ class GrammarBuilder
     }
 
 
-    // String, char, Character,
+    // String, char, Character, int, Integer, Void
+    // TextSlice: a view of the matched text
+    // long, Long, double, Double, BigDecimal: parsed from the matched text
     GrammarRule deriveRegexStr(Integer id, AnnoType type) throws Exception
     {
         var listRegex = getRegex(type.annotations());
@@ -164,6 +175,14 @@ class GrammarBuilder
         var componentType = classType.typeArgs().get(0).asRefType();
         return deriveRepeatRule(id, classType, componentType);
     }
+    RepeatRule deriveText(Integer id, ClassType classType) throws Exception
+    {
+        var componentType = classType.typeArgs().get(0).asRefType();
+        if(!(componentType instanceof ClassType ct
+            && (ct.clazz()==Character.class || ct.clazz()==Integer.class || CharSequence.class.isAssignableFrom(ct.clazz()))))
+            throw new Exception("element type of Text must be Character, Integer, or a subtype of CharSequence: "+str(componentType));
+        return deriveRepeatRule(id, classType, componentType);
+    }
     RepeatRule deriveArray(Integer id, ArrayType arrayType) throws Exception
     {
         // note that, in the following code
@@ -212,6 +231,12 @@ class GrammarBuilder
         Integer subRuleId = findOrDerive(compoType);
         return new NegRule(id, classType, subRuleId);
     }
+    LazyRule deriveLazy(Integer id, ClassType classType) throws Exception
+    {
+        var compoType = classType.typeArgs().get(0).asRefType();
+        Integer subRuleId = findOrDerive(compoType);
+        return new LazyRule(id, classType, subRuleId);
+    }
 
 
     void checkClassAccessible(Class<?> clazz) throws Exception
@@ -8,6 +8,7 @@ public sealed interface GrammarRule permits
     RepeatRule,
     PeekRule,
     NegRule,
+    LazyRule,
     RegexRule
 {
     Integer id();
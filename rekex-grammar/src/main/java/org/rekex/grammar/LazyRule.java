@@ -0,0 +1,13 @@
+package org.rekex.grammar;
+
+import org.rekex.annotype.AnnoType;
+
+public record LazyRule(
+    Integer id,
+    AnnoType datatype,
+    Integer subRuleId
+)
+    implements GrammarRule
+{
+
+}
@@ -66,6 +66,9 @@ class ToDumpRules
             .on(NegRule.class, r->List.of(
                 "neg["+r.subRuleId()+"]"
             ))
+            .on(LazyRule.class, r->List.of(
+                "lazy["+r.subRuleId()+"]"
+            ))
             .on(RegexRule.class, r->List.of(
                 r.instantiator()==null ? "" : toStr(r.instantiator()),
                 "regex: "+ escRegex(r.regex()),
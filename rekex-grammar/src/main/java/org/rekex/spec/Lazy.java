@@ -0,0 +1,91 @@
+package org.rekex.spec;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+// Lazy<T> matches the same input as T. the generated parser only recognizes the extent of T,
+//   without creating values; get() parses T from that region on the first call.
+// recognition doesn't invoke ctors, so semantic predicates in T are not tested.
+//   if T depends on them to decide what to match, get() may fail, or match a different extent,
+//   in which case it throws.
+
+/**
+ * Datatype to represent `T` that is parsed on demand.
+ * <p>
+ *     The value of `T` is created on the first call of {@link #get()},
+ *     and memoized; it's safe to call `get()` from multiple threads.
+ *     Two Lazy values are equal if their `get()` values are equal.
+ * </p>
+ */
+public final class Lazy<T> implements Supplier<T>
+{
+    private Supplier<? extends T> supplier; // null once the value is created
+    private T value;
+    private volatile boolean done;
+
+    /**
+     * A Lazy value to be created by `supplier` on the first `get()`.
+     */
+    public Lazy(Supplier<? extends T> supplier)
+    {
+        this.supplier = Objects.requireNonNull(supplier);
+    }
+
+    /**
+     * A Lazy value that is already created.
+     */
+    public static <T> Lazy<T> of(T value)
+    {
+        var lazy = new Lazy<T>(()->value);
+        lazy.get();
+        return lazy;
+    }
+
+    /**
+     * The value, created on the first call.
+     * If creation fails, the exception is thrown, and the next call will try again.
+     */
+    @Override
+    public T get()
+    {
+        if(!done)
+        {
+            synchronized (this)
+            {
+                if(!done)
+                {
+                    value = supplier.get();
+                    supplier = null;
+                    done = true;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Whether the value has been created.
+     */
+    public boolean isDone()
+    {
+        return done;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        return obj instanceof Lazy<?> that && Objects.equals(this.get(), that.get());
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hashCode(get());
+    }
+
+    @Override
+    public String toString()
+    {
+        return done ? "Lazy[" + value + "]" : "Lazy[?]";
+    }
+}
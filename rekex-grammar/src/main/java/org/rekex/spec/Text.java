@@ -0,0 +1,39 @@
+package org.rekex.spec;
+
+// the parser appends elements to a buffer as they are matched,
+//   without creating a List or an array, and without boxing for char rules.
+
+/**
+ * Datatype to represent a repetition of `T`, as text concatenated from the elements.
+ * `T` must be `Character`, `Integer` (as a code point), or a subtype of `CharSequence`.
+ * <p>
+ *     Like `List&lt;T&gt;`, the size can be limited by
+ *     {@link SizeLimit @SizeLimit} and equivalent annotations.
+ * </p>
+ */
+public record Text<T>(String string) implements CharSequence
+{
+    @Override
+    public int length()
+    {
+        return string.length();
+    }
+
+    @Override
+    public char charAt(int index)
+    {
+        return string.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end)
+    {
+        return string.subSequence(start, end);
+    }
+
+    @Override
+    public String toString()
+    {
+        return string;
+    }
+}
@@ -0,0 +1,155 @@
+package org.rekex.spec;
+
+// a regex rule of this datatype creates a view of the input, without copying the chars.
+// the view keeps the whole input reachable; call toString() to keep only the text.
+
+/**
+ * An immutable view of a range of the input, as a `CharSequence`.
+ * <p>
+ *     It can be used in place of `String` as the datatype of a regex rule,
+ *     so that a match creates no copy of the chars.
+ *     Two slices are equal if they contain the same chars;
+ *     the hash code is the same as `toString().hashCode()`.
+ *     The input must not be mutated while the slice is in use.
+ * </p>
+ */
+public final class TextSlice implements CharSequence, Comparable<TextSlice>
+{
+    final CharSequence input;
+    final int start;
+    final int end;
+
+    int hash;
+    boolean hashIsZero;
+    String string;
+
+    public TextSlice(CharSequence input, int start, int end)
+    {
+        if(start<0 || start>end || end>input.length())
+            throw new IndexOutOfBoundsException("start=%d, end=%d, length=%d"
+                .formatted(start, end, input.length()));
+        this.input = input;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * The input that this slice is a view of.
+     */
+    public CharSequence input()
+    {
+        return input;
+    }
+
+    /**
+     * The start position in the input.
+     */
+    public int start()
+    {
+        return start;
+    }
+
+    /**
+     * The end position in the input.
+     */
+    public int end()
+    {
+        return end;
+    }
+
+    @Override
+    public int length()
+    {
+        return end-start;
+    }
+
+    @Override
+    public char charAt(int index)
+    {
+        if(index<0 || index>=end-start)
+            throw new IndexOutOfBoundsException("index=%d, length=%d".formatted(index, end-start));
+        return input.charAt(start+index);
+    }
+
+    @Override
+    public TextSlice subSequence(int start, int end)
+    {
+        if(start<0 || start>end || end>this.end-this.start)
+            throw new IndexOutOfBoundsException("start=%d, end=%d, length=%d"
+                .formatted(start, end, this.end-this.start));
+        return new TextSlice(input, this.start+start, this.start+end);
+    }
+
+    /**
+     * Whether the chars are the same as `cs`.
+     */
+    public boolean contentEquals(CharSequence cs)
+    {
+        int length = end-start;
+        if(cs.length()!=length)
+            return false;
+        if(input instanceof String s1 && cs instanceof String s2)
+            return s1.regionMatches(start, s2, 0, length);
+        for(int i=0; i<length; i++)
+            if(input.charAt(start+i)!=cs.charAt(i))
+                return false;
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if(obj==this)
+            return true;
+        if(!(obj instanceof TextSlice that))
+            return false;
+        if(this.length()!=that.length() || this.hashCode()!=that.hashCode())
+            return false;
+        if(that.string!=null)
+            return contentEquals(that.string);
+        return contentEquals(that);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int h = hash;
+        if(h==0 && !hashIsZero)
+        {
+            for(int i=start; i<end; i++)
+                h = 31*h + input.charAt(i);
+            if(h==0)
+                hashIsZero = true;
+            else
+                hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public int compareTo(TextSlice that)
+    {
+        // not CharSequence.compare(), which calls back compareTo()
+        int length = Math.min(this.length(), that.length());
+        for(int i=0; i<length; i++)
+        {
+            char c1 = this.input.charAt(this.start+i);
+            char c2 = that.input.charAt(that.start+i);
+            if(c1!=c2)
+                return c1-c2;
+        }
+        return this.length()-that.length();
+    }
+
+    /**
+     * The text as a String, created on the first call.
+     */
+    @Override
+    public String toString()
+    {
+        String s = string;
+        if(s==null)
+            string = s = input.subSequence(start, end).toString();
+        return s;
+    }
+}
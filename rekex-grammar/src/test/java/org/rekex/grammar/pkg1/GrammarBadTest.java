@@ -27,7 +27,7 @@ public class GrammarBadTest extends GrammarTestBase
 
     public static class EmptyCatalog{}
 
-    public record NoRuleForPrimitive(@Regex("\\d+")double x){}
+    public record NoRuleForPrimitive(@Regex("\\d+")float x){}
 
     public record ZeroRegex(@A()char x){}
     public record TwoRegex(@Ch("")@Str("")char x){}
@@ -2,6 +2,7 @@ open module org.rekex.parser
 {
     requires transitive org.rekex.grammar;
     requires java.compiler;
+    requires transitive jdk.jfr; // ParseEvent, used by generated parsers
 
     exports org.rekex.parser;
 
@@ -0,0 +1,36 @@
+package org.rekex.parser;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// a JFR event for each phase of PegParserBuilder: grammar derivation, code generation,
+// javac, and loading and instantiating the parser class. see PegParserBuilder.beginPhase()
+
+@Name("org.rekex.BuildPhase")
+@Label("Rekex Parser Build Phase")
+@Category("Rekex")
+@Description("A phase of building a parser by PegParserBuilder")
+class BuildEvent extends Event
+{
+    static final String DERIVE = "derive";
+    static final String CODEGEN = "codegen";
+    static final String COMPILE = "compile";
+    static final String LOAD = "load";
+
+    @Label("Phase")
+    @Description("derive, codegen, compile, or load")
+    String phase;
+
+    @Label("Root Type")
+    String rootType;
+
+    @Label("Grammar Fingerprint")
+    @Description("MD5 of the grammar in textual form")
+    String fingerprint;
+
+    @Label("Rules")
+    int rules;
+}
@@ -0,0 +1,135 @@
+package org.rekex.parser;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+// used by generated parsers for List values of repetitions; not meant for application code.
+// the elements are collected in a buffer shared by the parse, then copied once
+// into an instance of the exact size. lists of 0, 1 and 2 elements have their own forms.
+// unlike List.of(), null elements are allowed, e.g. List<Void>.
+
+/**
+ * Immutable list created by generated parsers for repetitions.
+ */
+public abstract sealed class CompactList<E> extends AbstractList<E> implements RandomAccess
+{
+    /**
+     * An immutable list of `buf[from, to)`.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> List<E> of(Object[] buf, int from, int to)
+    {
+        return switch(to-from)
+        {
+            case 0 -> (List<E>)List0.EMPTY;
+            case 1 -> new List1<>((E)buf[from]);
+            case 2 -> new List2<>((E)buf[from], (E)buf[from+1]);
+            default -> new ListN<>(Arrays.copyOfRange(buf, from, to));
+        };
+    }
+
+    static IndexOutOfBoundsException outOfBounds(int index, int size)
+    {
+        return new IndexOutOfBoundsException("index=%d, size=%d".formatted(index, size));
+    }
+
+    static final class List0<E> extends CompactList<E>
+    {
+        static final List0<?> EMPTY = new List0<>();
+
+        @Override
+        public E get(int index)
+        {
+            throw outOfBounds(index, 0);
+        }
+
+        @Override
+        public int size()
+        {
+            return 0;
+        }
+    }
+
+    static final class List1<E> extends CompactList<E>
+    {
+        final E e0;
+
+        List1(E e0)
+        {
+            this.e0 = e0;
+        }
+
+        @Override
+        public E get(int index)
+        {
+            if(index!=0)
+                throw outOfBounds(index, 1);
+            return e0;
+        }
+
+        @Override
+        public int size()
+        {
+            return 1;
+        }
+    }
+
+    static final class List2<E> extends CompactList<E>
+    {
+        final E e0, e1;
+
+        List2(E e0, E e1)
+        {
+            this.e0 = e0;
+            this.e1 = e1;
+        }
+
+        @Override
+        public E get(int index)
+        {
+            return switch(index)
+            {
+                case 0 -> e0;
+                case 1 -> e1;
+                default -> throw outOfBounds(index, 2);
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return 2;
+        }
+    }
+
+    static final class ListN<E> extends CompactList<E>
+    {
+        final Object[] array;
+
+        ListN(Object[] array)
+        {
+            this.array = array;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public E get(int index)
+        {
+            return (E)array[index];
+        }
+
+        @Override
+        public int size()
+        {
+            return array.length;
+        }
+
+        @Override
+        public Object[] toArray()
+        {
+            return array.clone();
+        }
+    }
+}
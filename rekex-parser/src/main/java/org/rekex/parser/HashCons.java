@@ -0,0 +1,130 @@
+package org.rekex.parser;
+
+import java.util.List;
+
+// used by generated parsers with PegParserBuilder.hashCons(true); not meant for application code.
+// a rule of a record datatype hashes the args of its canonical ctor, and reuses an existing
+// instance with the same components, instead of creating a new one.
+// sub values are canonicalized before their parent, so records can be compared by identity;
+// Strings, numbers, enums etc. are compared by equals(); lists element-wise.
+// records with array components are not hash-consed; arrays are mutable, and must not be shared.
+// direct-mapped with a bounded size; a colliding entry is replaced.
+
+/**
+ * Hash-consing table for a parse; see {@link PegParserBuilder#hashCons(boolean)}.
+ */
+public final class HashCons
+{
+    final int[] hashes;
+    final Object[] values;
+    final int mask;
+
+    int lookups;
+    int hits;
+
+    /**
+     * Create a table sized for an input of `inputLength` chars.
+     */
+    public HashCons(int inputLength)
+    {
+        int slots = Math.min(1<<16, Integer.highestOneBit(Math.max(256, inputLength/4)));
+        hashes = new int[slots];
+        values = new Object[slots];
+        mask = slots-1;
+    }
+
+    public int slot(int hash)
+    {
+        lookups++;
+        int x = hash*0x9E3779B1;
+        return (x^(x>>>16)) & mask;
+    }
+
+    public Object get(int slot, int hash)
+    {
+        return hashes[slot]==hash ? values[slot] : null;
+    }
+
+    public <T> T put(int slot, int hash, T value)
+    {
+        hashes[slot] = hash;
+        values[slot] = value;
+        return value;
+    }
+
+    public <T> T hit(T value)
+    {
+        hits++;
+        return value;
+    }
+
+    public int lookups()
+    {
+        return lookups;
+    }
+
+    public int hits()
+    {
+        return hits;
+    }
+
+    // ---------------------------------------------------------------------
+
+    public static int hash(int x){ return x; }
+    public static int hash(long x){ return Long.hashCode(x); }
+    public static int hash(double x){ return Double.hashCode(x); }
+    public static int hash(boolean x){ return Boolean.hashCode(x); }
+
+    public static int hash(Object x)
+    {
+        if(x==null)
+            return 0;
+        if(isValue(x))
+            return x.hashCode();
+        if(x instanceof List<?> list)
+        {
+            int h = 1;
+            for(var e : list)
+                h = 31*h + hash(e);
+            return h;
+        }
+        return System.identityHashCode(x);
+    }
+
+    public static boolean same(int x, int y){ return x==y; }
+    public static boolean same(long x, long y){ return x==y; }
+    public static boolean same(double x, double y){ return Double.compare(x, y)==0; }
+    public static boolean same(boolean x, boolean y){ return x==y; }
+
+    public static boolean same(Object x, Object y)
+    {
+        if(x==y)
+            return true;
+        if(x==null || y==null || x.getClass()!=y.getClass())
+            return false;
+        if(isValue(x))
+            return x.equals(y);
+        if(x instanceof List<?> list1)
+        {
+            var list2 = (List<?>)y;
+            if(list1.size()!=list2.size())
+                return false;
+            var iter2 = list2.iterator();
+            for(var e : list1)
+                if(!same(e, iter2.next()))
+                    return false;
+            return true;
+        }
+        return false; // by identity
+    }
+
+    // immutable datatypes with value-based equals() that is cheap to compute
+    static boolean isValue(Object x)
+    {
+        return x instanceof CharSequence
+            || x instanceof Number
+            || x instanceof Character
+            || x instanceof Boolean
+            || x instanceof Enum<?>;
+    }
+}
@@ -3,12 +3,26 @@ package org.rekex.parser;
 public class InputInfo
 {
     final CharSequence chars;
+    private volatile String text; // what is parsed; a copy of `chars`, unless it is a String; see text()
     final int start;
     final int end;
 
+    /**
+     * Info of `chars`; if it is not a String, it's copied on the first demand of
+     * its text, e.g. by {@link ParseInfo#text()}, and must not be modified before that.
+     */
     public InputInfo(CharSequence chars, int start, int end)
+    {
+        this(chars, chars instanceof String str ? str : null, start, end);
+    }
+
+    /**
+     * Info of `chars`, of which `text` is the String that is parsed.
+     */
+    public InputInfo(CharSequence chars, String text, int start, int end)
     {
         this.chars = chars;
+        this.text = text;
         this.start = start;
         this.end = end;
     }
@@ -18,6 +32,16 @@ public class InputInfo
         return chars;
     }
 
+    // copied up to `end`, positions after it are not needed.
+    // racing threads may copy more than once, but to equal Strings.
+    String text()
+    {
+        var v = text;
+        if(v==null)
+            text = v = chars.subSequence(0, end).toString();
+        return v;
+    }
+
     public int start()
     {
         return start;
@@ -28,15 +52,17 @@ public class InputInfo
         return end;
     }
 
-    private LineCounter lineCounter = null;
+    private volatile LineCounter lineCounter = null;
     // the default linebreak is used;
     // if needed, we can make it an option in ParserBuilder.
+    // volatile, so that the counter can be shared by threads; racing threads may
+    // create more than one, which is cheap since the index is built on demand.
 
     public LineCounter lineCounter()
     {
         var v = lineCounter;
         if(v==null)
-            lineCounter = v = new LineCounter(LineCounter.defaultLinebreak(), chars, start, end);
+            lineCounter = v = new LineCounter(null, text(), start, end);
         return v;
     }
 
@@ -1,6 +1,5 @@
 package org.rekex.parser;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.regex.Pattern;
 
@@ -11,20 +10,49 @@ import java.util.regex.Pattern;
 // note that there is at least one line, even for empty text.
 // lines and columns are 0-based; position 0 = line 0 col 0
 // position at <EOF> is valid, considered at the last line.
+//
+// the index is built lazily, in chunks, only as far as the positions and lines requested.
+// the default linebreak is found without regex; for a String, by String.indexOf(),
+// which is a fast intrinsic; the next CR and LF are remembered, so each is searched once.
+// a custom linebreak regex is matched over the whole text on first use.
+//
+// the index is extended under the lock, and published as an immutable snapshot
+// through a volatile field; readers don't lock once the index covers their positions.
+// arrays are shared by snapshots; an extension only writes beyond the counts of older snapshots.
 
 /**
  * To convert a position to line and column number.
+ * <p>
+ *     The line index is built on demand, up to the highest position requested.
+ *     It's thread-safe.
+ * </p>
  */
 public class LineCounter
 {
+    static final int CHUNK = 1<<16;
+
+    final CharSequence chars;
     final int start;
     final int end;
-    final int[] lineStarts;
-    final int[] lineEnds; // does not include the linebreak
+    final Pattern linebreak; // null for the default
+
+    record Snapshot(int[] lineStarts, int[] lineEnds, int lines, int scanned)
+    {
+        // lineEnds[i] is known for i<lines-1; the last line is open until scanned==end.
+    }
+    volatile Snapshot snapshot;
+
+    // guarded by `this`
+    int[] lineStarts;
+    int[] lineEnds; // does not include the linebreak
+    int lines;
+    int scanned;
+    int nextCr = -1;
+    int nextLf = -1;
 
     public LineCounter(CharSequence chars)
     {
-        this(defaultLinebreak(), chars, 0, chars.length());
+        this(null, chars, 0, chars.length());
     }
 
     /**
@@ -35,25 +63,107 @@ public class LineCounter
         return Pattern.compile("\\r\\n|\\r|\\n");  // user may want "\\R" instead
     }
 
+    /**
+     * A line counter of `chars[start, end)`, with the `linebreak` regex;
+     * if null, the default line break, which is matched without regex.
+     */
     public LineCounter(Pattern linebreak, CharSequence chars, int start, int end)
     {
-        ArrayList<Integer> starts = new ArrayList<>();
-        ArrayList<Integer> ends = new ArrayList<>();
+        this.chars = chars;
+        this.start = start;
+        this.end = end;
+        this.linebreak = linebreak;
+
+        lineStarts = new int[16];
+        lineEnds = new int[16];
+        lineStarts[0] = start;
+        lines = 1;
+        scanned = start;
+        snapshot = new Snapshot(lineStarts, lineEnds, lines, scanned);
+    }
+
+    // a snapshot that has scanned beyond `pos`, or to the end
+    Snapshot scannedBeyond(int pos)
+    {
+        var s = snapshot;
+        if(s.scanned>pos || s.scanned==end)
+            return s;
+        return extend(pos);
+    }
 
-        var matcher = linebreak.matcher(chars).region(start, end);
+    // a snapshot in which `line` is complete, or that has scanned to the end
+    Snapshot lineKnown(int line)
+    {
+        var s = snapshot;
+        while(s.lines<=line+1 && s.scanned<end)
+            s = extend(s.scanned);
+        return s;
+    }
 
-        starts.add(start);
-        while(matcher.find())
+    synchronized Snapshot extend(int pos)
+    {
+        if(scanned>pos || scanned==end)
+            return snapshot;
+        if(linebreak!=null)
+            scanRegex();
+        else
+            scan((int)Math.min(end, Math.max(pos+1L, (long)scanned+CHUNK)));
+        return snapshot = new Snapshot(lineStarts, lineEnds, lines, scanned);
+    }
+
+    void scan(int limit)
+    {
+        int p = scanned;
+        while(true)
         {
-            ends.add(matcher.start());
-            starts.add(matcher.end());
+            if(nextLf<p)
+                nextLf = next('\n', p);
+            if(nextCr<p)
+                nextCr = next('\r', p);
+            int b = Math.min(nextLf, nextCr);
+            if(b>=limit)
+                break;
+            int after = b+1;
+            if(b==nextCr && after<end && chars.charAt(after)=='\n')
+                after++;
+            add(b, after);
+            p = after;
         }
-        ends.add(end);
+        scanned = Math.max(p, limit);
+    }
 
-        this.start = start;
-        this.end = end;
-        this.lineStarts = starts.stream().mapToInt(Integer::intValue).toArray();
-        this.lineEnds = ends.stream().mapToInt(Integer::intValue).toArray();
+    // position of the next `c` at or after `p`; or `end` if none.
+    int next(char c, int p)
+    {
+        if(chars instanceof String s)
+        {
+            int i = s.indexOf(c, p);
+            return i<0 || i>=end ? end : i;
+        }
+        for(; p<end; p++)
+            if(chars.charAt(p)==c)
+                return p;
+        return end;
+    }
+
+    void scanRegex()
+    {
+        var matcher = linebreak.matcher(chars).region(start, end);
+        while(matcher.find())
+            add(matcher.start(), matcher.end());
+        scanned = end;
+    }
+
+    // a linebreak [b, after)
+    void add(int b, int after)
+    {
+        if(lines==lineStarts.length)
+        {
+            lineStarts = Arrays.copyOf(lineStarts, lines*2);
+            lineEnds = Arrays.copyOf(lineEnds, lines*2);
+        }
+        lineEnds[lines-1] = b;
+        lineStarts[lines++] = after;
     }
 
     /**
@@ -64,9 +174,10 @@ public class LineCounter
     {
         if(!(start<=pos && pos<=end)) // allow pos at EOF
             throw new IllegalArgumentException("pos %d not in range[%d,%d]".formatted(pos, start, end));
-        int x = Arrays.binarySearch(lineStarts, pos);
+        var s = scannedBeyond(pos);
+        int x = Arrays.binarySearch(s.lineStarts, 0, s.lines, pos);
         if(x<0) x = -x-2;
-        assert 0<=x && x<lineStarts.length;
+        assert 0<=x && x<s.lines;
         return x;
     }
 
@@ -77,15 +188,16 @@ public class LineCounter
     public int column(int pos)
     {
         int x = line(pos);
-        return pos-lineStarts[x];
+        return pos-snapshot.lineStarts[x];
     }
 
     /**
      * Total number of lines.
+     * This requires the whole text to be scanned.
      */
     public int lines()
     {
-        return lineStarts.length;
+        return lineKnown(Integer.MAX_VALUE-1).lines;
     }
 
     /**
@@ -93,14 +205,20 @@ public class LineCounter
      */
     public int lineStart(int line)
     {
-        return lineStarts[line];
+        var s = lineKnown(line-1);
+        if(line<0 || line>=s.lines)
+            throw new IndexOutOfBoundsException("line=%d, lines=%d".formatted(line, s.lines));
+        return s.lineStarts[line];
     }
     /**
      * The end position of a line.
      */
     public int lineEnd(int line)
     {
-        return lineEnds[line];
+        var s = lineKnown(line);
+        if(line<0 || line>=s.lines)
+            throw new IndexOutOfBoundsException("line=%d, lines=%d".formatted(line, s.lines));
+        return line==s.lines-1 ? end : s.lineEnds[line];
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,224 @@
+package org.rekex.parser;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+
+// parsing many independent inputs on an executor; see PegParser.parseAll() and PegParser.processor().
+//
+// parseAll: the list is split into a bounded number of contiguous slices, one task per slice,
+// instead of one task per input; each task parses its slice sequentially with one session.
+// results are written to their input indices, so the order is kept.
+// every input is parsed whole, so a non-String input is copied once by a generated parser;
+// the cost is linear in the total length, unlike parsing regions of one big non-String buffer.
+//
+// processor: at most `window` inputs are requested from upstream and not yet published downstream.
+// results are published in input order: a finished parse waits for the ones before it.
+// downstream backpressure is applied by SubmissionPublisher.submit(), which blocks when
+// a subscriber's buffer is full; we don't request more from upstream until then.
+// onError() closes downstream exceptionally at once, dropping pending results.
+
+class ParseBatch
+{
+    // tasks per available processor for parseAll; a few, to balance uneven inputs.
+    static final int TASKS_PER_CPU = 4;
+
+    static <T> List<ParseResult<T>> parseAll(PegParser<T> parser, List<? extends CharSequence> inputs, Executor executor)
+    {
+        int n = inputs.size();
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ParseResult<T>[] results = new ParseResult[n];
+        int tasks = Math.min(n, TASKS_PER_CPU*Runtime.getRuntime().availableProcessors());
+        var futures = new CompletableFuture<?>[tasks];
+        for(int t=0; t<tasks; t++)
+        {
+            int from = (int)((long)n*t/tasks);
+            int to = (int)((long)n*(t+1)/tasks);
+            futures[t] = CompletableFuture.runAsync(()->{
+                var session = parser.newSession();
+                for(int i=from; i<to; i++)
+                    results[i] = session.parse(inputs.get(i));
+            }, executor);
+        }
+        try
+        {
+            CompletableFuture.allOf(futures).join();
+        }
+        catch(CompletionException e)
+        {
+            // not a parse failure, which is a result; e.g. StackOverflowError, RejectedExecutionException
+            if(e.getCause() instanceof RuntimeException x)
+                throw x;
+            if(e.getCause() instanceof Error x)
+                throw x;
+            throw e;
+        }
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    static class Processor<T> implements Flow.Processor<CharSequence, ParseResult<T>>
+    {
+        final ParseSession<T> sessions;
+        final Executor executor;
+        final int window;
+        final SubmissionPublisher<ParseResult<T>> publisher;
+
+        // guarded by `pending`
+        final ArrayDeque<CompletableFuture<ParseResult<T>>> pending = new ArrayDeque<>();
+        Flow.Subscription upstream;
+        boolean completed;
+        boolean closed;
+        boolean draining;
+
+        Processor(PegParser<T> parser, Executor executor, int window)
+        {
+            if(window<1)
+                throw new IllegalArgumentException("window="+window);
+            this.sessions = ParseSession.pooled(parser);
+            this.executor = executor;
+            this.window = window;
+            // subscribers are signalled by the common pool, not by `executor`;
+            // a saturated subscriber must not wait for a thread that is blocked on it.
+            this.publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(), window);
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ParseResult<T>> subscriber)
+        {
+            publisher.subscribe(subscriber);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription)
+        {
+            synchronized (pending)
+            {
+                if(upstream!=null)
+                {
+                    subscription.cancel();
+                    return;
+                }
+                upstream = subscription;
+            }
+            subscription.request(window);
+        }
+
+        @Override
+        public void onNext(CharSequence item)
+        {
+            var future = new CompletableFuture<ParseResult<T>>();
+            synchronized (pending)
+            {
+                pending.add(future);
+            }
+            try
+            {
+                executor.execute(()->{
+                    try
+                    {
+                        future.complete(sessions.parse(item));
+                    }
+                    catch(Throwable t)
+                    {
+                        future.completeExceptionally(t);
+                    }
+                });
+            }
+            catch(RuntimeException e) // e.g. RejectedExecutionException
+            {
+                future.completeExceptionally(e);
+            }
+            future.whenComplete((r,e)->drain());
+        }
+
+        @Override
+        public void onError(Throwable throwable)
+        {
+            synchronized (pending)
+            {
+                close(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete()
+        {
+            synchronized (pending)
+            {
+                completed = true;
+            }
+            drain();
+        }
+
+        // publish finished results at the head, in order, by one thread at a time;
+        // others return immediately, so that parse workers are not blocked.
+        void drain()
+        {
+            synchronized (pending)
+            {
+                if(draining)
+                    return;
+                draining = true;
+            }
+            while(true)
+            {
+                ParseResult<T> result;
+                synchronized (pending)
+                {
+                    var head = pending.peek();
+                    if(closed || head==null || !head.isDone())
+                    {
+                        if(!closed && head==null && completed)
+                        {
+                            closed = true;
+                            publisher.close();
+                        }
+                        draining = false;
+                        return;
+                    }
+                    pending.poll();
+                    try
+                    {
+                        result = head.join();
+                    }
+                    catch(CompletionException e)
+                    {
+                        upstream.cancel();
+                        close(e.getCause());
+                        draining = false;
+                        return;
+                    }
+                }
+                try
+                {
+                    publisher.submit(result); // blocks while a subscriber's buffer is full
+                }
+                catch(IllegalStateException e) // closed by onError() meanwhile
+                {
+                    synchronized (pending)
+                    {
+                        draining = false;
+                    }
+                    return;
+                }
+                upstream.request(1);
+            }
+        }
+
+        void close(Throwable error)
+        {
+            if(closed)
+                return;
+            closed = true;
+            pending.clear();
+            publisher.closeExceptionally(error);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.rekex.parser;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+// emitted by generated parsers in each parse; not meant for application code.
+// when JFR is not recording, begin(), end() and shouldCommit() are cheap, and the instance
+// is usually scalar-replaced by the JIT.
+
+/**
+ * A JFR event of a parse by a generated parser, if the parse takes longer than the threshold.
+ * <p>
+ *     The default threshold is 20 ms; it can be configured like other JFR events,
+ *     e.g. `jfr configure org.rekex.Parse#threshold=1ms`, or in a .jfc file.
+ * </p>
+ */
+@Name("org.rekex.Parse")
+@Label("Rekex Parse")
+@Category("Rekex")
+@Description("A parse by a generated Rekex parser")
+@Threshold("20 ms")
+@StackTrace(false)
+public final class ParseEvent extends Event
+{
+    @Label("Parser")
+    Class<?> parser;
+
+    @Label("Input Length")
+    int inputLength;
+
+    @Label("Result")
+    @Description("Full, Partial, Fail or Fatal")
+    String result;
+
+    @Label("Position")
+    @Description("Position where the match ended, or the parse failed")
+    int position;
+
+    public ParseEvent()
+    {
+    }
+
+    /**
+     * End the event with the result of the parse of the input from `start` to `end`,
+     * and commit it if it's enabled and over the threshold.
+     */
+    public void finish(Class<?> parser, int start, int end, ParseResult<?> result)
+    {
+        end();
+        if(!shouldCommit())
+            return;
+        this.parser = parser;
+        this.inputLength = end-start;
+        if(result instanceof ParseResult.Full<?>)
+        {
+            this.result = "Full";
+            this.position = end;
+        }
+        else if(result instanceof ParseResult.Partial<?> partial)
+        {
+            this.result = "Partial";
+            this.position = partial.position();
+        }
+        else if(result instanceof ParseResult.Fail<?> fail)
+        {
+            this.result = "Fail";
+            this.position = fail.position();
+        }
+        else if(result instanceof ParseResult.Fatal<?> fatal)
+        {
+            this.result = "Fatal";
+            this.position = fatal.position();
+        }
+        commit();
+    }
+}
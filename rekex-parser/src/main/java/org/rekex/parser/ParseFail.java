@@ -0,0 +1,68 @@
+package org.rekex.parser;
+
+/**
+ * A cheap exception for semantic predicate failures.
+ * <p>
+ *     A ctor with a semantic predicate fails the predicate by throwing
+ *     an exception declared in its `throws` clause. The parser may try many
+ *     alternatives, each failing a predicate, while at most one of the failures
+ *     is reported in {@link ParseResult.Fail}. An ordinary exception pays for
+ *     `fillInStackTrace()` every time; this one has no stack trace,
+ *     and its message is only formatted if it's reported.
+ * </p>
+ * <pre>
+ *     public Ident(Word word) throws ParseFail
+ *     {
+ *         if(keywords.contains(word.text()))
+ *             throw ParseFail.reject("keyword %s cannot be used as identifier", word.text());
+ *         ...
+ *     }
+ * </pre>
+ */
+public final class ParseFail extends RuntimeException
+{
+    static final ParseFail REJECT = new ParseFail("semantic predicate failed", null);
+
+    final String format;
+    final Object[] args;
+
+    private ParseFail(String format, Object[] args)
+    {
+        super(null, null, false, false); // no stack trace, no suppression
+        this.format = format;
+        this.args = args;
+    }
+
+    /**
+     * A shared instance without a specific message.
+     */
+    public static ParseFail reject()
+    {
+        return REJECT;
+    }
+
+    /**
+     * A failure with the message.
+     */
+    public static ParseFail reject(String message)
+    {
+        return new ParseFail(message, null);
+    }
+
+    /**
+     * A failure with the message `String.format(format, args)`,
+     * which is formatted only when requested.
+     */
+    public static ParseFail reject(String format, Object... args)
+    {
+        return new ParseFail(format, args);
+    }
+
+    @Override
+    public String getMessage()
+    {
+        if(args==null)
+            return format;
+        return String.format(format, args);
+    }
+}
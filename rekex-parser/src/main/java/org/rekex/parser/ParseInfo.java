@@ -1,6 +1,7 @@
 package org.rekex.parser;
 
 import org.rekex.spec.Ctor;
+import org.rekex.spec.TextSlice;
 
 import java.util.Arrays;
 
@@ -109,10 +110,14 @@ public class ParseInfo
 
     /**
      * The text for which the rule is matched.
+     * <p>
+     *     It is a {@link TextSlice} of the String that is parsed, which is a copy of the input
+     *     unless the input is a String; it doesn't change if the input is modified after parsing.
+     * </p>
      */
     public CharSequence text()
     {
-        return input.chars.subSequence(start(), end());
+        return new TextSlice(input.text(), start(), end());
     }
 
     /**
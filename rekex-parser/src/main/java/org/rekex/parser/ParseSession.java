@@ -0,0 +1,41 @@
+package org.rekex.parser;
+
+/**
+ * A session for parses by a parser on one thread; see {@link PegParser#newSession()}.
+ * <p>
+ *     A session of a generated parser keeps its parse state, e.g. the parse stack and buffers,
+ *     and resets it before each parse, instead of allocating it anew.
+ *     For many small inputs, that can cost as much as the parses.
+ * </p>
+ * <p>
+ *     A session is not thread-safe. It may be kept in a ThreadLocal,
+ *     or one session may be used by a worker for a batch of inputs.
+ *     With many short-lived threads, e.g. virtual threads, use {@link #pooled(PegParser)} instead.
+ * </p>
+ */
+public interface ParseSession<T>
+{
+    /**
+     * Equivalent to `parse(chars, 0. chars.length())`
+     */
+    default ParseResult<T> parse(CharSequence chars)
+    {
+        return parse(chars, 0, chars.length());
+    }
+
+    /**
+     * Parse the input `chars` from `start` to `end` (exclusive);
+     * same as {@link PegParser#parse(CharSequence, int, int)}.
+     */
+    ParseResult<T> parse(CharSequence chars, int start, int end);
+
+    /**
+     * A thread-safe session that borrows a session of the parser
+     * from a small pool for each parse, and returns it after.
+     * A new session is created if none is available.
+     */
+    static <T> ParseSession<T> pooled(PegParser<T> parser)
+    {
+        return new ParseSessionPool<>(parser);
+    }
+}
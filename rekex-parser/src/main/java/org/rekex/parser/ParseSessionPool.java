@@ -0,0 +1,43 @@
+package org.rekex.parser;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// see ParseSession.pooled().
+// a fixed number of slots, each holding an idle session or null; taken and put back by CAS.
+// a thread starts probing at a slot by its id, so that threads tend to keep to different slots.
+// if all slots are full when a session is returned, it's dropped.
+
+class ParseSessionPool<T> implements ParseSession<T>
+{
+    final PegParser<T> parser;
+    final AtomicReferenceArray<ParseSession<T>> slots;
+
+    ParseSessionPool(PegParser<T> parser)
+    {
+        this.parser = parser;
+        this.slots = new AtomicReferenceArray<>(2*Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public ParseResult<T> parse(CharSequence chars, int start, int end)
+    {
+        int n = slots.length();
+        int home = (int)(Thread.currentThread().getId() % n);
+        ParseSession<T> session = null;
+        for(int i=0; i<n && session==null; i++)
+        {
+            int slot = (home+i)%n;
+            if(slots.get(slot)!=null)
+                session = slots.getAndSet(slot, null);
+        }
+        if(session==null)
+            session = parser.newSession();
+
+        var result = session.parse(chars, start, end);
+
+        for(int i=0; i<n; i++)
+            if(slots.compareAndSet((home+i)%n, null, session))
+                break;
+        return result;
+    }
+}
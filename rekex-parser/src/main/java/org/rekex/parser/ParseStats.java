@@ -0,0 +1,77 @@
+package org.rekex.parser;
+
+import org.rekex.annotype.AnnoType;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistics of the parses by a parser since it was created; see {@link PegParser#stats()}.
+ * They are only collected by generated parsers with the relevant options.
+ *
+ * @param hashConsLookups number of values looked up in hash-consing tables,
+ *                        see {@link PegParserBuilder#hashCons(boolean)}
+ * @param hashConsHits number of lookups that found an existing instance
+ * @param rules statistics of each rule, by rule id, see {@link PegParserBuilder#ruleStats(boolean)};
+ *              empty if not collected
+ */
+public record ParseStats(long hashConsLookups, long hashConsHits, List<RuleStats> rules)
+{
+    public ParseStats(long hashConsLookups, long hashConsHits)
+    {
+        this(hashConsLookups, hashConsHits, List.of());
+    }
+
+    /**
+     * The fraction of hash-consing lookups that reused an existing instance;
+     * 0 if there were no lookups.
+     */
+    public double dedupRatio()
+    {
+        return hashConsLookups==0 ? 0 : (double)hashConsHits/hashConsLookups;
+    }
+
+    /**
+     * Statistics of rules, keyed by datatype.
+     * If several rules have the same datatype, e.g. a datatype with several ctors,
+     * the one for the datatype itself is included, i.e. the first one.
+     */
+    public Map<AnnoType, RuleStats> byDatatype()
+    {
+        var map = new LinkedHashMap<AnnoType, RuleStats>();
+        for(var rule : rules)
+            map.putIfAbsent(rule.datatype(), rule);
+        return map;
+    }
+
+    // same layout as Grammar.toText(), so that the two can be read side by side;
+    // [id] for the rule of a datatype, (id) for other rules of the same datatype.
+
+    /**
+     * Statistics of the invoked rules in textual form, in the same format as `Grammar.toText()`.
+     */
+    public String toText()
+    {
+        final String NL = System.lineSeparator();
+        var sb = new StringBuilder();
+        var firsts = byDatatype();
+        for(var rule : rules)
+        {
+            if(rule.invocations()==0)
+                continue;
+            String idStr = firsts.get(rule.datatype())==rule
+                ? "[%d] ".formatted(rule.ruleId())
+                : "(%d) ".formatted(rule.ruleId());
+            sb.append(idStr).append(rule.datatype().toString(false));
+            String indent = NL + " ".repeat(2+idStr.length());
+            sb.append(indent).append("invocations: %d, successes: %d, failures: %d, reinvocations: %d".formatted(
+                rule.invocations(), rule.successes(), rule.failures(), rule.reinvocations()));
+            sb.append(indent).append("chars: "+rule.charsConsumed());
+            if(rule.nanos()>0)
+                sb.append(indent).append("time: %.3f ms, self: %.3f ms".formatted(rule.nanos()/1e6, rule.selfNanos()/1e6));
+            sb.append(NL).append(NL);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,319 @@
+package org.rekex.parser;
+
+import org.rekex.annotype.AnnoType;
+import org.rekex.annotype.ClassType;
+import org.rekex.annotype.PrimitiveType;
+import org.rekex.spec.TextSlice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// the tape is written by recognizers of a generated parser with PegParserBuilder.tape(true).
+// a node is opened before its rule is tried, and removed if the rule fails;
+// so nodes are in pre-order, and a node's descendants immediately follow it.
+// while a node is open, its `end` slot holds the index of its parent node.
+
+/**
+ * A parse tree as a flat tape of nodes, without objects of the datatypes;
+ * see {@link PegParser#parseTape(CharSequence, int, int)}.
+ * <p>
+ *     Each node is 5 ints `(ruleId, start, end, childCount, next)`, in pre-order,
+ *     where `next` is the node after the subtree of the node.
+ *     There is a node for every rule matched, including the subrules of choice rules,
+ *     and tokens of regex rules; except lookaheads and `ParseInfo`.
+ *     The values of tokens are read from the input on demand, e.g. by {@link Cursor#asLong()}.
+ *     Any node can be turned into its datatype value by {@link Cursor#materialize()}.
+ * </p>
+ * <p>
+ *     The int array of {@link #nodes()} is self-contained; it can be stored as is,
+ *     e.g. off-heap, and interpreted with the input and {@link #datatypes()}.
+ * </p>
+ */
+public final class ParseTape
+{
+    /**
+     * Parse the region of a node into its datatype value; provided by the generated parser.
+     */
+    @FunctionalInterface
+    public interface RegionParser
+    {
+        Object parse(int ruleId, int start, int end);
+    }
+
+    /**
+     * Ints per node.
+     */
+    public static final int NODE_SIZE = 5;
+
+    final CharSequence input;
+    final int[] nodes;
+    final List<AnnoType> datatypes;
+    final RegionParser regionParser;
+
+    public ParseTape(CharSequence input, int[] nodes, List<AnnoType> datatypes, RegionParser regionParser)
+    {
+        this.input = input;
+        this.nodes = nodes;
+        this.datatypes = datatypes;
+        this.regionParser = regionParser;
+    }
+
+    /**
+     * The input that was parsed.
+     */
+    public CharSequence input()
+    {
+        return input;
+    }
+
+    /**
+     * The nodes; not to be modified.
+     */
+    public int[] nodes()
+    {
+        return nodes;
+    }
+
+    /**
+     * Datatypes of the rules, indexed by rule IDs.
+     */
+    public List<AnnoType> datatypes()
+    {
+        return datatypes;
+    }
+
+    /**
+     * Number of nodes.
+     */
+    public int size()
+    {
+        return nodes.length/NODE_SIZE;
+    }
+
+    /**
+     * Cursor at the root node; null if the tape is empty, e.g. the root is a lookahead.
+     */
+    public Cursor root()
+    {
+        return nodes.length==0 ? null : new Cursor(0, nodes.length);
+    }
+
+    /**
+     * A node of the tape, with navigation to its children and siblings.
+     * A cursor is a lightweight view; it's not updated in place.
+     */
+    public final class Cursor
+    {
+        final int node;  // index in `nodes`
+        final int limit; // `next` of the parent
+
+        Cursor(int node, int limit)
+        {
+            this.node = node;
+            this.limit = limit;
+        }
+
+        /**
+         * Index of the node in the tape, i.e. in pre-order.
+         */
+        public int index()
+        {
+            return node/NODE_SIZE;
+        }
+
+        public int ruleId()
+        {
+            return nodes[node];
+        }
+
+        public AnnoType datatype()
+        {
+            return datatypes.get(nodes[node]);
+        }
+
+        /**
+         * Whether the datatype is `clazz`, ignoring annotations and type arguments.
+         */
+        public boolean is(Class<?> clazz)
+        {
+            var datatype = datatype();
+            if(datatype instanceof ClassType ct)
+                return ct.clazz()==clazz;
+            if(datatype instanceof PrimitiveType pt)
+                return pt.clazz()==clazz;
+            return false;
+        }
+
+        public int start()
+        {
+            return nodes[node+1];
+        }
+
+        public int end()
+        {
+            return nodes[node+2];
+        }
+
+        /**
+         * The matched region of the input, without copying.
+         */
+        public TextSlice text()
+        {
+            return new TextSlice(input, start(), end());
+        }
+
+        public int childCount()
+        {
+            return nodes[node+3];
+        }
+
+        /**
+         * The first child, or null if none.
+         */
+        public Cursor firstChild()
+        {
+            return childCount()==0 ? null : new Cursor(node+NODE_SIZE, nodes[node+4]);
+        }
+
+        /**
+         * The next sibling, or null if none.
+         */
+        public Cursor nextSibling()
+        {
+            int next = nodes[node+4];
+            return next<limit ? new Cursor(next, limit) : null;
+        }
+
+        /**
+         * The i-th child; O(i) time.
+         */
+        public Cursor child(int i)
+        {
+            if(i<0 || i>=childCount())
+                throw new IndexOutOfBoundsException("index=%d, childCount=%d".formatted(i, childCount()));
+            Cursor c = firstChild();
+            while(i-->0)
+                c = c.nextSibling();
+            return c;
+        }
+
+        /**
+         * The first child of the datatype `clazz`, see {@link #is(Class)}; or null if none.
+         */
+        public Cursor child(Class<?> clazz)
+        {
+            for(Cursor c=firstChild(); c!=null; c=c.nextSibling())
+                if(c.is(clazz))
+                    return c;
+            return null;
+        }
+
+        public List<Cursor> children()
+        {
+            var list = new ArrayList<Cursor>(childCount());
+            for(Cursor c=firstChild(); c!=null; c=c.nextSibling())
+                list.add(c);
+            return list;
+        }
+
+        /**
+         * The descendant through the only child at each level, until a node with
+         * a different number of children; e.g. from a choice to the chosen subtype.
+         */
+        public Cursor unwrap()
+        {
+            Cursor c = this;
+            while(c.childCount()==1)
+                c = c.firstChild();
+            return c;
+        }
+
+        /**
+         * The text as a `long`, as by {@link Long#parseLong(String)}.
+         */
+        public long asLong()
+        {
+            return Long.parseLong(input, start(), end(), 10);
+        }
+
+        /**
+         * The text as an `int`, as by {@link Integer#parseInt(String)}.
+         */
+        public int asInt()
+        {
+            return Integer.parseInt(input, start(), end(), 10);
+        }
+
+        /**
+         * The text as a `double`, as by {@link Double#parseDouble(String)}.
+         */
+        public double asDouble()
+        {
+            return Double.parseDouble(text().toString());
+        }
+
+        /**
+         * The text as a `char`; the text must be a single char.
+         */
+        public char asChar()
+        {
+            if(end()-start()!=1)
+                throw new IllegalStateException("not a single char: "+text());
+            return input.charAt(start());
+        }
+
+        /**
+         * Parse the region of this node into a value of its datatype.
+         * Semantic predicates and ctors are invoked as in a normal parse.
+         * Not supported for primitive datatypes; use {@link #asLong()} etc. instead.
+         */
+        public Object materialize()
+        {
+            if(datatype() instanceof PrimitiveType)
+                throw new UnsupportedOperationException("primitive datatype: "+datatype());
+            return regionParser.parse(ruleId(), start(), end());
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            return obj instanceof Cursor that && that.tape()==ParseTape.this && that.node==this.node;
+        }
+        ParseTape tape()
+        {
+            return ParseTape.this;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return node;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "#%d %s [%d,%d)".formatted(index(), datatype().toString(false), start(), end());
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        // one node per line, indented by depth
+        var sb = new StringBuilder();
+        int[] nexts = new int[16];
+        int depth = 0;
+        for(int node=0; node<nodes.length; node+=NODE_SIZE)
+        {
+            while(depth>0 && node>=nexts[depth-1])
+                depth--;
+            sb.append("  ".repeat(depth)).append(new Cursor(node, nodes.length)).append('\n');
+            if(depth==nexts.length)
+                nexts = Arrays.copyOf(nexts, depth*2);
+            nexts[depth++] = nodes[node+4];
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,197 @@
+package org.rekex.parser;
+
+import org.rekex.annotype.AnnoType;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+// events are kept in a ring buffer of two int arrays:
+//   enter: rules[i] = ruleId,  positions[i] = start
+//   exit:  rules[i] = ~ruleId, positions[i] = end, or -1 for failure
+// the rule of an exit comes from a stack of open invocations, which is not bounded by the ring.
+//
+// the time axis of the exports is the event sequence number, not the input position:
+// alternatives tried at the same position would overlap on a position axis,
+// while in event order, invocations nest properly, and a failed subtree is as wide as the work in it.
+// if old events are dropped, exits may have no enter; they are skipped in collapsed stacks.
+
+/**
+ * A trace of rule invocations of a parse; see {@link PegParser#parse(CharSequence, int, int, ParseTrace)}.
+ * <p>
+ *     Every rule invocation is recorded with its start position, its end position or failure.
+ *     Only the last `capacity` events are kept.
+ *     The trace can be exported in Chrome's Trace Event format, for chrome://tracing or Perfetto,
+ *     or as collapsed stacks for flame graph tools.
+ *     Frames are named by rule datatypes.
+ * </p>
+ * <p>
+ *     A ParseTrace can be reused for several parses; each parse clears it first.
+ *     It is not thread-safe.
+ * </p>
+ */
+public final class ParseTrace
+{
+    final int[] rules;
+    final int[] positions;
+    long count;
+
+    int[] stack = new int[64];
+    int depth;
+
+    List<AnnoType> datatypes = List.of();
+
+    /**
+     * A trace that keeps the last `capacity` events; each invocation is two events.
+     */
+    public ParseTrace(int capacity)
+    {
+        if(capacity<2)
+            throw new IllegalArgumentException("capacity="+capacity);
+        rules = new int[capacity];
+        positions = new int[capacity];
+    }
+
+    /**
+     * Clear the trace for a parse with the rule datatypes; used by generated parsers.
+     */
+    public void reset(List<AnnoType> datatypes)
+    {
+        this.datatypes = datatypes;
+        count = 0;
+        depth = 0;
+    }
+
+    /**
+     * Record the invocation of a rule at `start`; used by generated parsers.
+     */
+    public void enter(int ruleId, int start)
+    {
+        if(depth==stack.length)
+            stack = Arrays.copyOf(stack, depth*2);
+        stack[depth++] = ruleId;
+        add(ruleId, start);
+    }
+
+    /**
+     * Record the return of the last invoked rule, with `end`, or -1 for failure; used by generated parsers.
+     */
+    public void exit(int end)
+    {
+        add(~stack[--depth], end);
+    }
+
+    void add(int rule, int position)
+    {
+        int i = (int)(count%rules.length);
+        rules[i] = rule;
+        positions[i] = position;
+        count++;
+    }
+
+    /**
+     * Total number of events recorded in the parse.
+     */
+    public long events()
+    {
+        return count;
+    }
+
+    /**
+     * Number of events dropped because the capacity was exceeded.
+     */
+    public long dropped()
+    {
+        return Math.max(0, count-rules.length);
+    }
+
+    String frameName(int ruleId)
+    {
+        return ruleId<datatypes.size() ? datatypes.get(ruleId).toString(false) : "rule#"+ruleId;
+    }
+
+    /**
+     * The trace in Chrome's Trace Event format (JSON).
+     * Each invocation is a pair of "B" and "E" events, named by the rule datatype;
+     * the timestamp is the sequence number of the event.
+     * The start position is in the args of "B"; the end position and the outcome in the args of "E".
+     */
+    public String toChromeTrace()
+    {
+        var sb = new StringBuilder();
+        sb.append("{\"displayTimeUnit\":\"ns\",\"traceEvents\":[");
+        String sep = "\n";
+        for(long seq=dropped(); seq<count; seq++)
+        {
+            int i = (int)(seq%rules.length);
+            int rule = rules[i];
+            boolean enter = rule>=0;
+            sb.append(sep);
+            sep = ",\n";
+            sb.append("{\"name\":");
+            jsonString(sb, frameName(enter ? rule : ~rule));
+            sb.append(",\"ph\":\"").append(enter ? 'B' : 'E').append('"');
+            sb.append(",\"ts\":").append(seq).append(",\"pid\":1,\"tid\":1,\"args\":{");
+            if(enter)
+                sb.append("\"start\":").append(positions[i]);
+            else if(positions[i]>=0)
+                sb.append("\"end\":").append(positions[i]).append(",\"outcome\":\"match\"");
+            else
+                sb.append("\"outcome\":\"fail\"");
+            sb.append("}}");
+        }
+        sb.append("\n]}\n");
+        return sb.toString();
+    }
+
+    static void jsonString(StringBuilder sb, String s)
+    {
+        sb.append('"');
+        for(int i=0; i<s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if(c=='"' || c=='\\')
+                sb.append('\\').append(c);
+            else if(c<0x20)
+                sb.append("\\u%04x".formatted((int)c));
+            else
+                sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    /**
+     * The trace as collapsed stacks, one line per distinct stack: frames separated by `;`,
+     * followed by the number of invocations with that stack.
+     * The frame of a failed invocation is suffixed with ` (fail)`.
+     * This is the input format of flamegraph.pl, speedscope etc.
+     */
+    public String toCollapsedStacks()
+    {
+        var counts = new LinkedHashMap<String, Long>();
+        var prefixes = new String[depth+64];
+        int top = 0;
+        for(long seq=dropped(); seq<count; seq++)
+        {
+            int i = (int)(seq%rules.length);
+            int rule = rules[i];
+            if(rule>=0)
+            {
+                String name = frameName(rule).replace(';', ',');
+                if(top==prefixes.length)
+                    prefixes = Arrays.copyOf(prefixes, top*2);
+                prefixes[top] = top==0 ? name : prefixes[top-1]+";"+name;
+                top++;
+            }
+            else if(top>0) // otherwise, the enter was dropped
+            {
+                top--;
+                String path = positions[i]>=0 ? prefixes[top] : prefixes[top]+" (fail)";
+                counts.merge(path, 1L, Long::sum);
+            }
+        }
+        var sb = new StringBuilder();
+        counts.forEach((path, n)->sb.append(path).append(' ').append(n).append('\n'));
+        return sb.toString();
+    }
+}
@@ -1,5 +1,9 @@
 package org.rekex.parser;
 
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
 /**
  * A PEG parser for root type `T`.
  * <p>
@@ -44,9 +48,125 @@ public interface PegParser<T>
 
     /**
      * Parse the input `chars` from `start` to `end` (exclusive).
+     * <p>
+     *     Generated parsers read the input as a String. A String is used as is;
+     *     other CharSequences are copied from 0 to `end`, so that positions are kept,
+     *     which costs O(end) for each parse. To parse many regions of a big input,
+     *     e.g. split by {@link StructuralIndex#separators(int, char)}, pass it as a String.
+     * </p>
      */
     ParseResult<T> parse(CharSequence chars, int start, int end);
 
+    /**
+     * Parse the input `buf` from `start` to `end` (exclusive).
+     * Equivalent to `parse(CharBuffer.wrap(buf), start, end)`.
+     * <p>
+     *     Generated parsers read any input as a String,
+     *     so that the hot code sees a single CharSequence class.
+     *     `buf` is copied into a String once, directly, from 0 to `end`.
+     *     To parse many regions of a big buffer, convert it to a String once instead.
+     * </p>
+     */
+    default ParseResult<T> parse(char[] buf, int start, int end)
+    {
+        return parse(java.nio.CharBuffer.wrap(buf), start, end);
+    }
+
+    /**
+     * A new session for parses on one thread, reusing parse state across parses;
+     * see {@link ParseSession}.
+     * Generated parsers return a session that keeps its state;
+     * other parsers return a session that simply invokes `parse()`.
+     */
+    default ParseSession<T> newSession()
+    {
+        return (chars, start, end)->parse(chars, start, end);
+    }
+
+    /**
+     * Parse each of the `inputs` entirely, in tasks executed by `executor`;
+     * the results are in the same order as the inputs.
+     * <p>
+     *     The inputs are split into a few contiguous slices per available processor,
+     *     each parsed sequentially by one task with one {@link ParseSession},
+     *     so that the executor is not flooded with one task per input.
+     *     This method blocks until all inputs are parsed.
+     * </p>
+     */
+    default List<ParseResult<T>> parseAll(List<? extends CharSequence> inputs, Executor executor)
+    {
+        return ParseBatch.parseAll(this, inputs, executor);
+    }
+
+    /**
+     * A processor that parses each input it receives, in tasks executed by `executor`,
+     * and publishes the results in the same order as the inputs.
+     * <p>
+     *     At most `window` inputs are requested from upstream that are not yet published downstream;
+     *     a subscriber that requests slowly holds back upstream.
+     *     Subscribers are signalled in the {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+     * </p>
+     */
+    default Flow.Processor<CharSequence, ParseResult<T>> processor(Executor executor, int window)
+    {
+        return new ParseBatch.Processor<>(this, executor, window);
+    }
+
+    /**
+     * Parse the input `chars` from `start` to `end` (exclusive),
+     * recording the positions of the values in `sourceMap`, see {@link SourceMap}.
+     * `sourceMap` is cleared first; it is also cleared if the parse fails.
+     * Only supported by generated parsers with {@link PegParserBuilder#sourceMap(boolean)}.
+     */
+    default ParseResult<T> parse(CharSequence chars, int start, int end, SourceMap sourceMap)
+    {
+        throw new UnsupportedOperationException("parser is not built with sourceMap(true)");
+    }
+
+    /**
+     * Parse the input `chars` from `start` to `end` (exclusive),
+     * recording every rule invocation in `trace`, see {@link ParseTrace}.
+     * `trace` is cleared first.
+     * Only supported by generated parsers with {@link PegParserBuilder#trace(boolean)}.
+     */
+    default ParseResult<T> parse(CharSequence chars, int start, int end, ParseTrace trace)
+    {
+        throw new UnsupportedOperationException("parser is not built with trace(true)");
+    }
+
+    /**
+     * Parse the input `chars` into a {@link ParseTape}, without creating datatype values.
+     * Equivalent to `parseTape(chars, 0, chars.length())`.
+     */
+    default ParseResult<ParseTape> parseTape(CharSequence chars)
+    {
+        return parseTape(chars, 0, chars.length());
+    }
+
+    /**
+     * Parse the input `chars` from `start` to `end` (exclusive) into a {@link ParseTape},
+     * without creating datatype values.
+     * Only supported by generated parsers with {@link PegParserBuilder#tape(boolean)}.
+     * <p>
+     *     Ctors are not invoked, therefore semantic predicates are not tested,
+     *     until a node is materialized.
+     * </p>
+     */
+    default ParseResult<ParseTape> parseTape(CharSequence chars, int start, int end)
+    {
+        throw new UnsupportedOperationException("parser is not built with tape(true)");
+    }
+
+    /**
+     * Statistics accumulated over all parses by this parser.
+     * Only generated parsers with the relevant options in {@link PegParserBuilder}
+     * collect statistics; otherwise all numbers are 0.
+     */
+    default ParseStats stats()
+    {
+        return new ParseStats(0, 0);
+    }
+
     /**
      * Parse the input; if the result is {@link ParseResult.Full},
      * return the value of `T`; otherwise throw an exception.
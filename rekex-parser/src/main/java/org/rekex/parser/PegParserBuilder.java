@@ -9,6 +9,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.security.MessageDigest;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -26,10 +27,23 @@ public class PegParserBuilder
     List<String> javacOptions;
     ClassLoader parentClassLoader;
     Consumer<CharSequence> logger;
+    Boolean parseStack;
+    boolean tokenCache;
+    boolean internStrings;
+    boolean hashCons;
+    StructuralIndex.Syntax structuralSyntax;
+    boolean tape;
+    boolean sourceMap;
+    boolean ruleStats;
+    boolean ruleTiming;
+    boolean trace;
+    int methodSizeLimit = PegParserCodeGen.HUGE_METHOD_LIMIT;
+    int classSizeLimit = PegParserCodeGen.CLASS_SIZE_LIMIT;
 
     // derivative
     Grammar grammar;
     String grammarMd5;
+    String grammarFingerprint;
 
     /**
      * Create a builder.
@@ -47,6 +61,7 @@ public class PegParserBuilder
         this.catalogClass = catalogClass;
         this.grammar=null;
         this.grammarMd5=null;
+        this.grammarFingerprint=null;
         return this;
     }
     Class<?> catalogClass()
@@ -62,6 +77,7 @@ public class PegParserBuilder
         this.rootType = rootType;
         this.grammar=null;
         this.grammarMd5=null;
+        this.grammarFingerprint=null;
         return this;
     }
     /**
@@ -192,6 +208,202 @@ public class PegParserBuilder
         return logger;
     }
 
+    /**
+     * Whether the generated parser tracks the rule stack during parsing.
+     * Default to true.
+     * <p>
+     *     If disabled, the stacks in {@link ParseResult.Fail} and {@link ParseResult.Fatal}
+     *     will be empty; in exchange, rule methods call each other directly
+     *     without bookkeeping, which makes parsing faster.
+     * </p>
+     */
+    public PegParserBuilder parseStack(boolean parseStack)
+    {
+        this.parseStack = parseStack;
+        return this;
+    }
+    boolean parseStack()
+    {
+        if(parseStack==null)
+            parseStack = Boolean.TRUE;
+        return parseStack;
+    }
+
+    /**
+     * Whether the generated parser caches results of terminal rules.
+     * Default to false.
+     * <p>
+     *     Terminal rules, i.e. regex rules that are not a single char or a plain literal,
+     *     e.g. a token followed by whitespaces from `@StrWs`, are otherwise matched again
+     *     every time an alternative backtracks over the same input.
+     *     With this option, each (rule, position) is matched once; the result
+     *     is kept in a compact int table and replayed on later attempts.
+     *     This helps token-based grammars with a lot of backtracking;
+     *     for grammars that rarely backtrack, the lookups are pure overhead.
+     * </p>
+     */
+    public PegParserBuilder tokenCache(boolean tokenCache)
+    {
+        this.tokenCache = tokenCache;
+        return this;
+    }
+
+    /**
+     * Whether the generated parser interns String values of regex rules.
+     * Default to false.
+     * <p>
+     *     Normally every match of a `String` regex rule creates a new String.
+     *     In many inputs, e.g. keys of Json objects, the same few strings
+     *     repeat many times; with this option, a repeated string within a parse
+     *     yields the same String instance, which reduces memory of big parse trees.
+     *     The lookup hashes the matched range without creating a String first.
+     *     The table is per parse, with a bounded size; strings longer than 64 chars
+     *     are not interned.
+     * </p>
+     */
+    public PegParserBuilder internStrings(boolean internStrings)
+    {
+        this.internStrings = internStrings;
+        return this;
+    }
+
+    /**
+     * Whether the generated parser shares one instance among identical subtrees.
+     * Default to false.
+     * <p>
+     *     Applies to rules of record datatypes instantiated by the canonical constructor,
+     *     except records with array components, since arrays are mutable.
+     *     Before creating a record, the parser looks up an instance with the same
+     *     components in a bounded table of the parse; if found, it's reused.
+     *     This reduces memory of parse trees with many repeated subtrees.
+     * </p>
+     * <p>
+     *     The constructor must be pure: it must store the args as the components unchanged,
+     *     and have no side effects; it may validate the args.
+     *     The results of lookups are reported in {@link PegParser#stats()}.
+     * </p>
+     */
+    public PegParserBuilder hashCons(boolean hashCons)
+    {
+        this.hashCons = hashCons;
+        return this;
+    }
+
+    /**
+     * Build a {@link StructuralIndex} of the input before each parse in the generated parser.
+     * Default to null, i.e. no index.
+     * <p>
+     *     With the index, a `Lazy<T>` where `T` is enclosed in a pair of brackets of the `syntax`,
+     *     e.g. `record Arr(@Ch("[")Void l, List<E> elements, @Ch("]")Void r)`,
+     *     skips over `T` in constant time by the matching bracket, instead of recognizing it;
+     *     the content of `T` is only checked when the value is requested.
+     *     The index costs one pass over the input, which pays off if
+     *     large lazy regions are never requested.
+     * </p>
+     */
+    public PegParserBuilder structuralIndex(StructuralIndex.Syntax syntax)
+    {
+        this.structuralSyntax = syntax;
+        return this;
+    }
+
+    /**
+     * Whether the generated parser supports {@link PegParser#parseTape(CharSequence, int, int)}.
+     * Default to false.
+     * <p>
+     *     A tape is a flat array of nodes of the parse tree, see {@link ParseTape};
+     *     no datatype values are created, unless requested for a node.
+     *     This adds a recognizer and a tape method for every rule to the generated parser.
+     * </p>
+     */
+    public PegParserBuilder tape(boolean tape)
+    {
+        this.tape = tape;
+        return this;
+    }
+
+    /**
+     * Whether the generated parser supports {@link PegParser#parse(CharSequence, int, int, SourceMap)}.
+     * Default to false.
+     * <p>
+     *     The positions of values of sequence rules are recorded in a {@link SourceMap},
+     *     instead of `ParseInfo` in ctors.
+     *     Parses without a SourceMap pay a null check per value.
+     * </p>
+     */
+    public PegParserBuilder sourceMap(boolean sourceMap)
+    {
+        this.sourceMap = sourceMap;
+        return this;
+    }
+
+    /**
+     * Whether the generated parser counts, for each rule, invocations, successes, failures,
+     * invocations at a position where the rule was invoked before, and chars consumed.
+     * Default to false.
+     * <p>
+     *     The counts are reported in {@link PegParser#stats()}, see {@link ParseStats#rules()}
+     *     and {@link ParseStats#toText()}. They show which rules are hot, or backtracked over,
+     *     and may be worth memoizing or restructuring.
+     *     Every call of a rule is instrumented; this is meant for diagnosis, not production.
+     * </p>
+     */
+    public PegParserBuilder ruleStats(boolean ruleStats)
+    {
+        this.ruleStats = ruleStats;
+        return this;
+    }
+
+    /**
+     * Whether the generated parser also measures the time spent in each rule,
+     * with and without subrules, by `System.nanoTime()`. Default to false.
+     * It implies {@link #ruleStats(boolean) ruleStats(true)}.
+     */
+    public PegParserBuilder ruleTiming(boolean ruleTiming)
+    {
+        this.ruleTiming = ruleTiming;
+        return this;
+    }
+
+    /**
+     * Whether the generated parser supports {@link PegParser#parse(CharSequence, int, int, ParseTrace)}.
+     * Default to false.
+     * <p>
+     *     Every rule invocation is recorded in a {@link ParseTrace}, which can be exported
+     *     for Chrome's trace viewer, or as collapsed stacks for flame graphs,
+     *     to see where the parser backtracks over the same input.
+     *     Every call of a rule is instrumented; parses without a trace pay a null check per call.
+     * </p>
+     */
+    public PegParserBuilder trace(boolean trace)
+    {
+        this.trace = trace;
+        return this;
+    }
+
+    /**
+     * The estimated bytecode size above which a rule, or the dispatch method,
+     * is split into several methods in the generated parser.
+     * Default to 8000, which is HotSpot's HugeMethodLimit; bigger methods are not JIT-compiled.
+     */
+    public PegParserBuilder methodSizeLimit(int methodSizeLimit)
+    {
+        this.methodSizeLimit = methodSizeLimit;
+        return this;
+    }
+
+    /**
+     * The estimated bytecode size above which rules are spread over
+     * several nested classes in the generated parser,
+     * to stay under the constant pool limit of a class file.
+     * Default to 64000.
+     */
+    public PegParserBuilder classSizeLimit(int classSizeLimit)
+    {
+        this.classSizeLimit = classSizeLimit;
+        return this;
+    }
+
     /**
      * Send the grammar in textual form to `out`
      */
@@ -201,6 +413,38 @@ public class PegParserBuilder
         return this;
     }
 
+    /**
+     * Send the estimated bytecode size of each rule in the generated parser to `out`.
+     * <p>
+     *     Big rules are split into smaller methods, and a big grammar is spread over
+     *     several nested classes, to stay under JIT and class file limits.
+     *     This report shows the estimates that drive such decisions.
+     * </p>
+     */
+    public PegParserBuilder logRuleSizes(Consumer<CharSequence> out)
+    {
+        out.accept(codeGen().sizeReport());
+        return this;
+    }
+
+    PegParserCodeGen codeGen()
+    {
+        var codeGen = new PegParserCodeGen(rootType(), grammar());
+        codeGen.parseStack = parseStack();
+        codeGen.tokenCache = tokenCache;
+        codeGen.internStrings = internStrings;
+        codeGen.hashCons = hashCons;
+        codeGen.structuralSyntax = structuralSyntax;
+        codeGen.tape = tape;
+        codeGen.sourceMap = sourceMap;
+        codeGen.ruleStats = ruleStats || ruleTiming;
+        codeGen.ruleTiming = ruleTiming;
+        codeGen.trace = trace;
+        codeGen.methodSizeLimit = methodSizeLimit;
+        codeGen.classSizeLimit = classSizeLimit;
+        return codeGen;
+    }
+
 
     // terminal actions -------------------------------------------------
 
@@ -210,32 +454,65 @@ public class PegParserBuilder
     public Grammar grammar()
     {
         if(grammar==null)
+        {
+            var event = beginPhase(BuildEvent.DERIVE);
             grammar = Grammar.deriveFrom(List.of(rootType()), catalogClass());
+            endPhase(event);
+        }
         return grammar;
     }
+
+    // JFR events of the build phases; fields are only computed if the event is recorded.
+    BuildEvent beginPhase(String phase)
+    {
+        var event = new BuildEvent();
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+    void endPhase(BuildEvent event)
+    {
+        event.end();
+        if(!event.shouldCommit())
+            return;
+        event.rootType = rootType().toString(false);
+        event.fingerprint = grammarFingerprint();
+        event.rules = grammar.idToRule().size();
+        event.commit();
+    }
+    // MD5 of the whole grammar text, for BuildEvent
+    String grammarFingerprint()
+    {
+        if(grammarFingerprint==null)
+            grammarFingerprint = HexFormat.of().formatHex(md5(grammar().toText()));
+        return grammarFingerprint;
+    }
     String grammarMd5()
     {
         if(grammarMd5==null)
         {
-            try
-            {
-                MessageDigest md = MessageDigest.getInstance("MD5");
-                // just the root datatype, which is stable during dev.
-                String str = grammar().idToRule().get(0).datatype().toString(true);
-                md.update(str.getBytes(StandardCharsets.UTF_8));
-                byte[] bytes = md.digest(); // 16 bytes
-                char[] chars = new char[bytes.length];
-                for(int i=0; i<bytes.length; i++)
-                    chars[i] = "0123456789ABCDEF".charAt(bytes[i]&0x0f);
-                grammarMd5 = new String(chars);
-            }
-            catch (Exception exception)
-            {
-                throw new RuntimeException(exception);
-            }
+            // just the root datatype, which is stable during dev.
+            String str = grammar().idToRule().get(0).datatype().toString(true);
+            byte[] bytes = md5(str); // 16 bytes
+            char[] chars = new char[bytes.length];
+            for(int i=0; i<bytes.length; i++)
+                chars[i] = "0123456789ABCDEF".charAt(bytes[i]&0x0f);
+            grammarMd5 = new String(chars);
         }
         return grammarMd5;
     }
+    static byte[] md5(String str)
+    {
+        try
+        {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            return md.digest(str.getBytes(StandardCharsets.UTF_8));
+        }
+        catch (Exception exception)
+        {
+            throw new RuntimeException(exception);
+        }
+    }
 
     /**
      * Return generated source code in String.
@@ -245,7 +522,10 @@ public class PegParserBuilder
         StringBuilder sb = new StringBuilder();
         try
         {
-            PegParserCodeGen.generate(rootType(), grammar(), packageName(), className(), sb);
+            var codeGen = codeGen();
+            var event = beginPhase(BuildEvent.CODEGEN);
+            codeGen.generate(packageName(), className(), sb);
+            endPhase(event);
         }
         catch (Exception exception)
         {
@@ -319,7 +599,9 @@ public class PegParserBuilder
 
         // javac is very slow. show some message
         logger().accept("javac compiling ... "+javaFilePath.toAbsolutePath());
+        var compileEvent = beginPhase(BuildEvent.COMPILE);
         PkgUtil.jc_compile(List.of(javaFilePath), outDirForClass(), javacOptions());
+        endPhase(compileEvent);
         logger().accept("javac done.");
         // apparently javac is slow on first invocation; but faster afterwards in the same VM.
         // so at least we don't worry too much about invoking it many times in our unittests.
@@ -330,23 +612,27 @@ public class PegParserBuilder
         // we advise the client to use this builder during development of the parser,
         // then merge the generated .java file to their code base, `new` the parser class directly.
 
+        var loadEvent = beginPhase(BuildEvent.LOAD);
         var clazz = PkgUtil.loadClass(packageName()+"."+className(), parentClassLoader(), outDirForClass());
 
+        PegParser<T> parser;
         if(catalogClass !=null)
         {
             // the constructor requires an instance;
             // but we can pass a null if all ctors are static (don't document this "feature")
             var constructor = clazz.getConstructor(catalogClass);
             @SuppressWarnings("unchecked")
-            PegParser<T> parser = (PegParser<T>)constructor.newInstance(catalog);
-            return parser;
+            PegParser<T> p = (PegParser<T>)constructor.newInstance(catalog);
+            parser = p;
         }
         else
         {
             var constructor = clazz.getConstructor();
             @SuppressWarnings("unchecked")
-            PegParser<T> parser = (PegParser<T>)constructor.newInstance();
-            return parser;
+            PegParser<T> p = (PegParser<T>)constructor.newInstance();
+            parser = p;
         }
+        endPhase(loadEvent);
+        return parser;
     }
 }
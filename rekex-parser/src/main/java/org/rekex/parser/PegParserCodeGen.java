@@ -10,11 +10,11 @@ import org.rekex.common_util.SwitchOnType;
 import org.rekex.grammar.*;
 import org.rekex.spec.Not;
 import org.rekex.spec.Peek;
+import org.rekex.spec.Text;
+import org.rekex.spec.TextSlice;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.math.BigDecimal;
+import java.util.*;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -33,22 +33,50 @@ class PegParserCodeGen
     AnnoType rootType;
     Grammar grammar;
 
+    // options
+    boolean parseStack = true;
+    boolean tokenCache = false;
+    boolean internStrings = false;
+    boolean hashCons = false;
+    StructuralIndex.Syntax structuralSyntax = null;
+    boolean tape = false;
+    boolean sourceMap = false;
+    boolean ruleStats = false;
+    boolean ruleTiming = false;
+    boolean trace = false;
+
+    // HotSpot doesn't JIT-compile a method larger than HugeMethodLimit,
+    // and doesn't inline a hot method larger than FreqInlineSize (bytes of bytecode).
+    static final int HUGE_METHOD_LIMIT = 8000;
+    static final int FREQ_INLINE_SIZE = 325;
+
+    // concat rules and the match() dispatch larger than this are split into several methods.
+    int methodSizeLimit = HUGE_METHOD_LIMIT;
+    // if the code is larger than this in total, rules are spread over nested classes,
+    // to stay well under the 64K constant pool limit of a class file.
+    static final int CLASS_SIZE_LIMIT = 64_000;
+    int classSizeLimit = CLASS_SIZE_LIMIT;
+
     PegParserCodeGen(AnnoType rootType, Grammar grammar)
     {
         this.rootType = rootType;
         this.grammar = grammar;
     }
 
-    boolean match_repeat_list;
     boolean match_repeat_obj_array;
-    boolean match_repeat_prim_array;
     boolean regexToStr;
+    boolean regexToSlice;
     boolean regexToChar;
     boolean regexToInt;
+    boolean regexToLong;
+    boolean regexToDouble;
+    boolean regexToBigDecimal;
     boolean regexToField;
 
     void generate(String packageName, String className, Appendable out) throws Exception
     {
+        plan();
+
         Object typeArg = typeStr( (rootType instanceof PrimitiveType pt) ? pt.boxed() : rootType );
 
         maker.fileHeader1(packageName, lazy(this::importLines), className, typeArg,
@@ -63,12 +91,80 @@ class PegParserCodeGen
         else
             maker.fileHeader2B(className, catalogClass);
 
-        maker.fileHeader3(typeArg, catalogClass);
+        boolean anyHashConsed = grammar.idToRule().stream()
+            .anyMatch(r->r instanceof ConcatRule c && hashConsed(c));
+        maker.fileHeader3(typeArg);
+        if(structuralSyntax!=null)
+            maker.parseIndex();
+        if(ruleStats)
+            maker.parseRuleStats();
+        maker.parseRun();
+        if(anyHashConsed)
+            maker.parseCollectHashCons();
+        if(ruleStats)
+            maker.parseCollectRuleStats();
+        maker.fileHeader4(typeArg, pickValue(rootType));
+        if(anyHashConsed)
+            maker.parserStatsHashCons();
+        if(ruleStats)
+            maker.parserRuleStats(grammar.idToRule().size(), ruleTiming);
+        if(anyHashConsed || ruleStats)
+            maker.parserStats(
+                anyHashConsed ? "hashConsLookups.sum()" : "0",
+                anyHashConsed ? "hashConsHits.sum()" : "0",
+                ruleStats ? "ruleCounters.snapshot(_DatatypeList.list)" : "java.util.List.of()");
+        if(structuralSyntax!=null)
+            maker.parserIndexSyntax(syntaxStr(structuralSyntax));
+        if(sourceMap)
+            maker.parseWithSourceMap(typeArg);
+        if(trace)
+            maker.parseWithTrace(typeArg);
+        if(tape)
+        {
+            maker.parseTapeHeader();
+            if(structuralSyntax!=null)
+                maker.parseIndex();
+            maker.parseTapeRun(recog(grammar.typeToId().get(rootType), "start", -1));
+        }
+        boolean anyObjBuffer = grammar.idToRule().stream().anyMatch(r->r instanceof RepeatRule rr && !isText(rr.datatype())
+            && !(grammar.idToRule().get(rr.subRuleId()).datatype() instanceof PrimitiveType));
+        boolean anyText = grammar.idToRule().stream().anyMatch(r->isText(r.datatype()));
+        maker.stateHeader(catalogClass);
+        for(var prim : primSlots())
+            maker.stateValueSlot(prim.getName());
+        for(var prim : primBuffers())
+            maker.stateBuffer(prim.getName());
+        if(anyObjBuffer)
+            maker.stateObjBuffer();
+        if(anyText)
+            maker.stateText();
+        if(grammar.idToRule().stream().anyMatch(r->r instanceof RegexRule
+            && isClass(r.datatype(), double.class, Double.class, BigDecimal.class)))
+            maker.stateDecimal();
+        if(internStrings && grammar.idToRule().stream().anyMatch(r->r instanceof RegexRule
+            && isClass(r.datatype(), String.class)))
+            maker.stateInterned();
+        if(anyHashConsed)
+            maker.stateHashCons();
+        if(sourceMap)
+            maker.stateSourceMap();
+        if(tape)
+            maker.stateTape();
+        if(ruleStats || trace)
+            maker.stateRuleHooks();
+        maker.stateResetHeader();
+        for(var prim : primBuffers())
+            maker.stateResetBuffer(prim.getName());
+        if(anyObjBuffer)
+            maker.stateResetObjBuffer();
+        if(anyText)
+            maker.stateResetText();
+        if(anyHashConsed)
+            maker.stateResetHashCons();
+        maker.stateResetFooter();
+        maker.stateFooter();
 
-        maker.matchAnyRuleIdHeader();
-        for(var rule : grammar.idToRule())
-            maker.matchAnyRuleIdCase(rule.id(), annoTypeStr(rule.datatype()));
-        maker.matchAnyRuleIdFooter();
+        genDispatch();
 
         var f = new SwitchOnType<GrammarRule, Void>()
             .on(AltRule.class, this::genAlt)
@@ -76,18 +172,39 @@ class PegParserCodeGen
             .on(RepeatRule.class, this::genRepeat)
             .on(PeekRule.class, this::genPeek)
             .on(NegRule.class, this::genNeg)
+            .on(LazyRule.class, this::genLazy)
             .on(RegexRule.class, this::genRegex)
             .complete(GrammarRule.class);
 
+        int currClass = -1;
         for(var rule : grammar.idToRule())
+        {
+            int ruleClass = ruleClasses[rule.id()];
+            if(ruleClass!=currClass)
+            {
+                if(currClass!=-1)
+                    maker.rulesClassFooter();
+                currClass = ruleClass;
+                maker.rulesClassHeader(currClass);
+            }
             f.apply(rule);
+            if(recognizedRules.contains(rule.id()))
+                genRecog(rule);
+            if(taped(rule))
+                genTape(rule);
+        }
+        if(currClass!=-1)
+            maker.rulesClassFooter();
 
         maker.helperMethodsHeader();
 
         if(match_repeat_obj_array)
             maker.generic_array();
-        if(match_repeat_list || match_repeat_obj_array || match_repeat_prim_array)
-            maker.match_repeat();
+        boolean anyLazy = grammar.idToRule().stream().anyMatch(r->r instanceof LazyRule);
+        if(anyLazy || tape)
+            maker.regionHelper(catalogClass);
+        if(anyLazy)
+            maker.lazyHelper();
 
 
         maker.match_regex(); // always needed
@@ -95,10 +212,22 @@ class PegParserCodeGen
             maker.match_regex_char();
         if(regexToChar || regexToInt)
             maker.match_regex_int();
-        if(regexToStr)
+        if(regexToStr && !internStrings)
             maker.match_regex_str();
+        if(regexToStr && internStrings)
+            maker.match_regex_str_interned();
+        if(regexToSlice)
+            maker.match_regex_slice();
         if(regexToField)
             maker.match_regex_obj();
+        if(regexToLong)
+            maker.match_regex_long();
+        if(regexToDouble)
+            maker.match_regex_double();
+        if(regexToBigDecimal)
+            maker.match_regex_BigDecimal();
+        if(regexToDouble || regexToBigDecimal)
+            maker.scan_decimal();
 
         maker.datatypeListHeader();
         for(var rule : grammar.idToRule())
@@ -120,6 +249,325 @@ class PegParserCodeGen
         maker.writeTo(out);
     }
 
+    // primitive types that need a `val_X` slot in _State
+    Set<Class<?>> primSlots()
+    {
+        var set = new TreeSet<Class<?>>(Comparator.comparing(Class::getName));
+        for(var rule : grammar.idToRule())
+        {
+            if(rule.datatype() instanceof PrimitiveType pt)
+                set.add(pt.clazz());
+            if(rule instanceof RegexRule && rule.datatype() instanceof ClassType ct)
+            {
+                if(ct.clazz()==Character.class)
+                    set.add(char.class);
+                if(ct.clazz()==Integer.class)
+                    set.add(int.class);
+                if(ct.clazz()==Long.class)
+                    set.add(long.class);
+                if(ct.clazz()==Double.class)
+                    set.add(double.class);
+            }
+        }
+        if(set.contains(char.class)) // match_regex_char() is built on match_regex_int()
+            set.add(int.class);
+        return set;
+    }
+    // primitive types that need a buffer in _State for repetitions
+    Set<Class<?>> primBuffers()
+    {
+        var set = new TreeSet<Class<?>>(Comparator.comparing(Class::getName));
+        for(var rule : grammar.idToRule())
+            if(rule instanceof RepeatRule r && r.datatype() instanceof ArrayType at
+                && at.componentType() instanceof PrimitiveType pt)
+                set.add(pt.clazz());
+        return set;
+    }
+
+    // the field in _State where the value of a rule of type `t` is stored
+    static String resultSlot(AnnoType t)
+    {
+        if(t instanceof PrimitiveType pt)
+            return "val_"+pt.clazz().getName();
+        return "obj";
+    }
+    static String pickValue(AnnoType t)
+    {
+        if(t instanceof PrimitiveType pt)
+            return "state.val_"+pt.clazz().getName();
+        return "state.pickObj()";
+    }
+
+    // a direct call to the rule method, with path bookkeeping if parseStack is enabled,
+    // and hooks for counting and tracing if ruleStats or trace is enabled
+    String call(int ruleId, String start, Object subIndex)
+    {
+        return call("rule_", ruleId, start, subIndex);
+    }
+    // e.g. prefix="regex_" to call the matcher of a regex rule
+    String call(String prefix, int ruleId, String start, Object subIndex)
+    {
+        String method = method(prefix, ruleId);
+        boolean hooks = ruleStats || trace;
+        if(hooks)
+            start = "state.statEnter(%d, %s)".formatted(ruleId, start);
+        String call = !parseStack
+            ? "%s(state, %s)".formatted(method, start)
+            : "state.pathPop(%s(state, state.pathPush(%d, %s, %s)))".formatted(method, ruleId, start, subIndex);
+        return hooks ? "state.statExit(%s)".formatted(call) : call;
+    }
+
+    // with sourceMap, a call of a subrule where the parse may backtrack on failure;
+    // nodes recorded by the failed subrule are removed.
+    String backtrack(String call)
+    {
+        if(!sourceMap)
+            return call;
+        return "state.smKeep(state.smMark(), %s)".formatted(call);
+    }
+
+    // name of a method of a rule, qualified by its nested class if any
+    String method(String prefix, int ruleId)
+    {
+        return ruleClasses[ruleId]==-1 ? prefix+ruleId : "_Rules"+ruleClasses[ruleId]+"."+prefix+ruleId;
+    }
+
+    // bytecode size estimates -----------------------------------------------------------
+    // rough per-construct counts of the generated code, without running javac.
+
+    int[] ruleSizes;      // estimated size of each rule, summed over its methods
+    int[] ruleClasses;    // nested class of each rule; -1 if rules are in the parser class
+    int dispatchChunk;    // cases per match() chunk; 0 if not split
+    Set<Integer> scannedRules; // char rules scanned in bulk by repeat rules
+    Set<Integer> recognizedRules; // rules under Lazy<T>, or all with tape, which also get a recognizer; except regex rules
+
+    void plan()
+    {
+        if(ruleSizes!=null)
+            return;
+        var rules = grammar.idToRule();
+        int N = rules.size();
+        ruleSizes = new int[N];
+        ruleClasses = new int[N];
+        int total = 0;
+        for(var rule : rules)
+            total += ruleSizes[rule.id()] = estimateSize(rule);
+
+        recognizedRules = new HashSet<>();
+        for(var rule : rules)
+            if(rule instanceof LazyRule r)
+                addRecognized(r.subRuleId());
+            else if(tape)
+                addRecognized(rule.id());
+        for(var id : recognizedRules)
+            total += ruleSizes[id] += estimateSize(rules.get(id));
+        if(tape)
+            for(var rule : rules)
+                if(taped(rule))
+                    total += ruleSizes[rule.id()] += 20 + callSize();
+
+        int currClass = total>classSizeLimit ? 0 : -1;
+        int currSize = 0;
+        for(var rule : rules)
+        {
+            int size = ruleSizes[rule.id()];
+            if(currClass!=-1 && currSize>0 && currSize+size>classSizeLimit)
+            {
+                currClass++;
+                currSize = 0;
+            }
+            ruleClasses[rule.id()] = currClass;
+            currSize += size;
+        }
+
+        // not with ruleStats or trace, which record every element; a bulk scan bypasses statEnter/statExit.
+        scannedRules = new HashSet<>();
+        for(var rule : rules)
+            if(!(ruleStats || trace) && rule instanceof RepeatRule r && scanChar(rules.get(r.subRuleId()))!=null)
+                if(isText(r.datatype()) || r.datatype() instanceof ArrayType at && isClass(at.componentType(), char.class))
+                    scannedRules.add(r.subRuleId());
+
+        int casesPerMethod = Math.max(1, methodSizeLimit/ (callSize()+8));
+        dispatchChunk = N>casesPerMethod ? casesPerMethod : 0;
+    }
+
+    int callSize()
+    {
+        // invokestatic; plus pathPush/pathPop; plus statEnter/statExit
+        return (parseStack ? 19 : 6) + (ruleStats || trace ? 12 : 0);
+    }
+
+    int estimateSize(GrammarRule rule)
+    {
+        if(rule instanceof AltRule r)
+            return 2 + r.subRuleIds().size() * (callSize()+7);
+        if(rule instanceof ConcatRule r)
+        {
+            int size = 40 + 2*r.subRuleIds().size(); // instantiate and catch
+            for(int i=0; i<r.subRuleIds().size(); i++)
+                size += concatSubSize(r, i);
+            return size;
+        }
+        if(rule instanceof RepeatRule)
+            return 70 + callSize();
+        if(rule instanceof PeekRule)
+            return 80 + callSize();
+        if(rule instanceof NegRule)
+            return 85 + callSize();
+        if(rule instanceof LazyRule)
+            return 20 + callSize();
+        if(rule instanceof RegexRule)
+            return 20;
+        throw new AssertionError();
+    }
+
+    int concatSubSize(ConcatRule rule, int subIndex)
+    {
+        int size = callSize()+17;
+        if(requireParseInfo(rule))
+            size += 12;
+        return size;
+    }
+
+    // char test of a regex rule to `char` or `Character`, or null
+    static String scanChar(GrammarRule rule)
+    {
+        if(rule instanceof RegexRule r && isClass(r.datatype(), char.class, Character.class)
+            && !(r.instantiator() instanceof Instantiator.StaticField) && r.regex().flags()==0 && r.regex().group()==0)
+            return SimpleRegex.charTest(r.regex().value());
+        return null;
+    }
+
+    static boolean isClass(AnnoType type, Class<?>... classes)
+    {
+        Class<?> clazz;
+        if(type instanceof PrimitiveType pt)
+            clazz = pt.clazz();
+        else if(type instanceof ClassType ct)
+            clazz = ct.clazz();
+        else
+            return false;
+        return Arrays.asList(classes).contains(clazz);
+    }
+    static boolean isText(AnnoType type)
+    {
+        return isClass(type, Text.class);
+    }
+
+    // whether the matcher of a regex rule is wrapped by a token cache lookup
+    boolean tokenCached(RegexRule rule)
+    {
+        if(!tokenCache)
+            return false;
+        // char tests and literals are cheaper than a cache lookup
+        var regex = rule.regex();
+        boolean simple = regex.flags()==0 && regex.group()==0
+            && (SimpleRegex.charTest(regex.value())!=null || SimpleRegex.literals(regex.value())!=null);
+        return !simple;
+    }
+
+    boolean requireParseInfo(ConcatRule rule)
+    {
+        return rule.subRuleIds().stream().map(id->grammar.idToRule().get(id).datatype())
+            .anyMatch(type->type.equals(typeParseInfo));
+    }
+
+    // a record instantiated by its canonical ctor, whose components are the args.
+    boolean hashConsed(ConcatRule rule)
+    {
+        if(!hashCons || requireParseInfo(rule))
+            return false;
+        if(!(rule.datatype() instanceof ClassType ct && ct.clazz().isRecord()))
+            return false;
+        if(!(rule.instantiator() instanceof Instantiator.NewInstance ni))
+            return false;
+        var componentTypes = Stream.of(ct.clazz().getRecordComponents())
+            .map(java.lang.reflect.RecordComponent::getType).toArray(Class<?>[]::new);
+        // arrays are mutable; a shared one would be changed through every record that has it
+        if(Stream.of(componentTypes).anyMatch(Class::isArray))
+            return false;
+        return Arrays.equals(componentTypes, ni.constructor().getParameterTypes());
+    }
+
+    // if a concat rule is too big, split its subrules into parts, each small enough to be inlined.
+    // return [start,end) of each part; or null if not split.
+    List<int[]> concatParts(ConcatRule rule)
+    {
+        if(ruleSizes[rule.id()]<=methodSizeLimit)
+            return null;
+        int partLimit = Math.min(FREQ_INLINE_SIZE, methodSizeLimit);
+        ArrayList<int[]> parts = new ArrayList<>();
+        int N = rule.subRuleIds().size();
+        int start = 0;
+        int size = 0;
+        for(int i=0; i<N; i++)
+        {
+            int subSize = concatSubSize(rule, i);
+            if(i>start && size+subSize>partLimit)
+            {
+                parts.add(new int[]{start, i});
+                start = i;
+                size = 0;
+            }
+            size += subSize;
+        }
+        parts.add(new int[]{start, N});
+        return parts;
+    }
+
+    String sizeReport()
+    {
+        plan();
+        var sb = new StringBuilder();
+        sb.append("estimated bytecode size of rules:\n");
+        int total = 0;
+        for(var rule : grammar.idToRule())
+        {
+            int id = rule.id();
+            int size = ruleSizes[id];
+            total += size;
+            sb.append("[%d] %d bytes".formatted(id, size));
+            var parts = rule instanceof ConcatRule r ? concatParts(r) : null;
+            if(parts!=null)
+                sb.append(", split into %d parts".formatted(parts.size()));
+            else if(size>FREQ_INLINE_SIZE)
+                sb.append(", over FreqInlineSize");
+            if(ruleClasses[id]!=-1)
+                sb.append(", in _Rules").append(ruleClasses[id]);
+            sb.append("; ").append(rule.datatype().toString(false)).append("\n");
+        }
+        sb.append("total: %d bytes".formatted(total));
+        if(dispatchChunk>0)
+            sb.append(", match() dispatch split into chunks of %d".formatted(dispatchChunk));
+        sb.append("\n");
+        return sb.toString();
+    }
+
+    void genDispatch()
+    {
+        var rules = grammar.idToRule();
+        if(dispatchChunk==0)
+        {
+            maker.matchAnyRuleIdHeader();
+            for(var rule : rules)
+                maker.matchAnyRuleIdCase(rule.id(), annoTypeStr(rule.datatype()), call(rule.id(), "start", "subIndex"));
+            maker.matchAnyRuleIdFooter();
+            return;
+        }
+        int chunks = (rules.size()+dispatchChunk-1)/dispatchChunk;
+        maker.matchDispatchHeader(dispatchChunk);
+        for(int k=0; k<chunks; k++)
+            maker.matchDispatchCase(k);
+        maker.matchAnyRuleIdFooter();
+        for(int k=0; k<chunks; k++)
+        {
+            maker.matchChunkHeader(k);
+            for(var rule : rules.subList(k*dispatchChunk, Math.min(rules.size(), (k+1)*dispatchChunk)))
+                maker.matchAnyRuleIdCase(rule.id(), annoTypeStr(rule.datatype()), call(rule.id(), "start", "subIndex"));
+            maker.matchAnyRuleIdFooter();
+        }
+    }
+
     Object annoTypeStr(AnnoType t)
     {
         return t.toString(false);
@@ -187,7 +635,7 @@ class PegParserCodeGen
             var subId = rule.subRuleIds().get(i);
             var subRule = grammar.idToRule().get(subId);
             var datatype = subRule.datatype();
-            maker.matchAltSubRule(subId, i, annoTypeStr(datatype));
+            maker.matchAltSubRule(annoTypeStr(datatype), backtrack(call(subId, "start", i)));
         }
 
         maker.matchAltFooter();
@@ -214,32 +662,47 @@ class PegParserCodeGen
             subRules.add(subRule);
         }
 
-        boolean requireParseInfo = subRules.stream().map(GrammarRule::datatype)
-            .anyMatch(type->type.equals(typeParseInfo));
+        boolean requireParseInfo = requireParseInfo(rule);
+        var parts = concatParts(rule);
 
-        if(requireParseInfo)
+        if(requireParseInfo || parts!=null)
             maker.initParseInfo(N);
 
-        for(int i=0; i<N; i++)
+        if(parts==null)
         {
-            var subRule = subRules.get(i);
-            var datatype = subRule.datatype();
-            if(datatype.equals(typeParseInfo))
-                maker.matchParseInfo(i, classStr(ParseInfo.class));
-            else
-                maker.matchConcatSubRule(i, subRule.id(), typeStr(datatype), annoTypeStr(datatype));
-
-            if(requireParseInfo)
-                maker.concatSubRuleParseInfo(i);
+            genConcatSubRules(subRules, 0, N, requireParseInfo);
+        }
+        else
+        {
+            for(int p=0; p<parts.size(); p++)
+                maker.matchConcatPartCall(rule.id(), p);
+            for(int i=0; i<N; i++)
+                maker.matchConcatArgFromArr(i, typeStr(subRules.get(i).datatype()));
         }
 
 
         String args = IntStream.range(0,N).mapToObj(i->"arg_"+i).collect(Collectors.joining(", "));
 
+        boolean hashConsed = hashConsed(rule);
+        if(hashConsed)
+        {
+            var recordClass = ((ClassType)rule.datatype()).clazz();
+            maker.hashConsLookupHeader(rule.id());
+            for(int i=0; i<N; i++)
+                maker.hashConsLookupArg(i);
+            maker.hashConsLookupTest(classStr(recordClass));
+            var components = recordClass.getRecordComponents();
+            for(int i=0; i<N; i++)
+                maker.hashConsLookupSame(components[i].getName(), i);
+            maker.hashConsLookupFooter();
+        }
+
         maker.instantiateHeader(typeStr(rule.datatype()));
         if(rule.instantiator() instanceof Instantiator.NewInstance)
         {
             maker.instantiateNewInstance(typeStr(rule.datatype()), args);
+            if(hashConsed)
+                maker.hashConsPut();
         }
         else if(rule.instantiator() instanceof Instantiator.StaticMethod m)
         {
@@ -272,9 +735,39 @@ class PegParserCodeGen
         }
 
         maker.matchConcatFooter();
+        if(sourceMap && !(rule.datatype() instanceof PrimitiveType))
+            maker.concatSourceMap();
+        maker.matchConcatFooter2(resultSlot(rule.datatype()));
+
+        if(parts!=null)
+        {
+            for(int p=0; p<parts.size(); p++)
+            {
+                maker.matchConcatPartHeader(rule.id(), p);
+                genConcatSubRules(subRules, parts.get(p)[0], parts.get(p)[1], true);
+                maker.matchConcatPartFooter();
+            }
+        }
         return null;
     }
 
+    void genConcatSubRules(List<GrammarRule> subRules, int start, int end, boolean saveToArr)
+    {
+        for(int i=start; i<end; i++)
+        {
+            var subRule = subRules.get(i);
+            var datatype = subRule.datatype();
+            if(datatype.equals(typeParseInfo))
+                maker.matchParseInfo(i, classStr(ParseInfo.class));
+            else
+                maker.matchConcatSubRule(i, typeStr(datatype), annoTypeStr(datatype), pickValue(datatype),
+                    call(subRule.id(), "pos", i));
+
+            if(saveToArr)
+                maker.concatSubRuleParseInfo(i);
+        }
+    }
+
     Void genRepeat(RepeatRule rule)
     {
         Object datatypeStr = annoTypeStr(rule.datatype());
@@ -282,30 +775,66 @@ class PegParserCodeGen
         var compoTypeStr = typeStr(compoType);
         Object min = rule.min();
         Object max = rule.max()==Integer.MAX_VALUE ? "Integer.MAX_VALUE" : rule.max();
+        var callSub = backtrack(call(rule.subRuleId(), "pos", "i"));
+        if(isText(rule.datatype()))
+        {
+            genRepeatText(rule, min, max);
+            return null;
+        }
+        if(compoType instanceof PrimitiveType)
+        {
+            maker.match_repeat_prim_array(rule.id(), datatypeStr, compoTypeStr);
+            if(scannedRules.contains(rule.subRuleId()))
+                maker.match_repeat_prim_scan(max, method("scan_", rule.subRuleId()));
+            maker.match_repeat_prim_loop(compoTypeStr, min, max, callSub);
+            return null;
+        }
+
+        maker.match_repeat_obj(rule.id(), datatypeStr, min, max, callSub);
         if(rule.datatype() instanceof ArrayType)
         {
-            if(compoType instanceof PrimitiveType pt)
-            {
-                match_repeat_prim_array =true;
-                maker.match_repeat_prim_array(rule.id(), rule.id(), datatypeStr,
-                    rule.subRuleId(), compoTypeStr, min, max, typeStr(pt.boxed()));
-            }
-            else
-            {
-                match_repeat_obj_array =true;
-                maker.match_repeat_obj_array(rule.id(), rule.id(), datatypeStr,
-                    rule.subRuleId(), compoTypeStr, min, max);
-            }
+            match_repeat_obj_array =true;
+            maker.match_repeat_obj_array(compoTypeStr);
         }
         else // List
         {
-            match_repeat_list = true;
-            maker.match_repeat_list(rule.id(), rule.id(), datatypeStr,
-                rule.subRuleId(), compoTypeStr, min, max);
+            maker.match_repeat_obj_list();
         }
+        maker.match_repeat_obj_footer();
         return null;
     }
 
+    // elements are appended to a StringBuilder; regex elements without creating values
+    void genRepeatText(RepeatRule rule, Object min, Object max)
+    {
+        var subRule = grammar.idToRule().get(rule.subRuleId());
+        var compoType = subRule.datatype();
+        maker.match_repeat_text(rule.id(), annoTypeStr(rule.datatype()));
+        if(scannedRules.contains(subRule.id()))
+            maker.match_repeat_text_scan(max, method("scan_", subRule.id()));
+        if(subRule instanceof RegexRule r && isClass(compoType, String.class))
+        {
+            String prefix = tokenCached(r) ? "token_" : "regex_";
+            maker.match_repeat_text_loop(min, max, call(prefix, subRule.id(), "pos", "i"));
+            maker.match_repeat_text_group();
+        }
+        else
+        {
+            maker.match_repeat_text_loop(min, max, backtrack(call(subRule.id(), "pos", "i")));
+            if(subRule instanceof RegexRule && isClass(compoType, Character.class))
+                maker.match_repeat_text_char();
+            else if(subRule instanceof RegexRule && isClass(compoType, Integer.class))
+                maker.match_repeat_text_int();
+            else if(isClass(compoType, Character.class))
+                maker.match_repeat_text_boxed_char();
+            else if(isClass(compoType, Integer.class))
+                maker.match_repeat_text_boxed_int();
+            else
+                maker.match_repeat_text_obj();
+        }
+        maker.match_repeat_text_footer();
+    }
+
     Void genPeek(PeekRule rule)
     {
         referencedClasses.add(Peek.class);
@@ -313,16 +842,166 @@ class PegParserCodeGen
         Object datatypeStr = annoTypeStr(rule.datatype());
         var compoType = grammar.idToRule().get(rule.subRuleId()).datatype();
         var compoTypeStr = typeStr(compoType);
-        maker.match_peek(rule.id(), datatypeStr, rule.subRuleId(), compoTypeStr);
+        maker.match_peek(rule.id(), datatypeStr, compoTypeStr, call(rule.subRuleId(), "start", -1));
+        return null;
+    }
+
+    void addRecognized(int ruleId)
+    {
+        var rule = grammar.idToRule().get(ruleId);
+        if(rule instanceof RegexRule || typeParseInfo.equals(rule.datatype()) || !recognizedRules.add(ruleId))
+            return;
+        var subIds = rule instanceof AltRule r ? r.subRuleIds()
+            : rule instanceof ConcatRule r ? r.subRuleIds()
+            : rule instanceof RepeatRule r ? List.of(r.subRuleId())
+            : rule instanceof PeekRule r ? List.of(r.subRuleId())
+            : rule instanceof NegRule r ? List.of(r.subRuleId())
+            : rule instanceof LazyRule r ? List.of(r.subRuleId())
+            : List.<Integer>of();
+        for(var subId : subIds)
+            addRecognized(subId);
+    }
+
+    // a call to the recognizer of a rule; with tape, through the tape method
+    String recog(int ruleId, String start, Object subIndex)
+    {
+        if(taped(grammar.idToRule().get(ruleId)))
+            return call("tape_", ruleId, start, subIndex);
+        if(grammar.idToRule().get(ruleId) instanceof RegexRule r)
+            return method(tokenCached(r) ? "token_" : "regex_", ruleId) + "(state, " + start + ")";
+        return call("recog_", ruleId, start, subIndex);
+    }
+
+    Void genLazy(LazyRule rule)
+    {
+        var skip = bracketSkip(rule);
+        if(skip!=null)
+        {
+            maker.match_lazy_skip(rule.id(), annoTypeStr(rule.datatype()), rule.subRuleId(),
+                SimpleRegex.lit(skip.open()), skip.wsTest(), recog(rule.subRuleId(), "start", -1));
+            return null;
+        }
+        maker.match_lazy(rule.id(), annoTypeStr(rule.datatype()), rule.subRuleId(),
+            recog(rule.subRuleId(), "start", -1));
         return null;
     }
 
+    record BracketSkip(char open, String wsTest){}
+
+    // with a structural index, a Lazy<T> can skip T in O(1), if T is a sequence
+    // that starts with an open bracket literal, and ends with the matching close bracket,
+    // optionally followed by whitespaces as by @StrWs. return null if not applicable.
+    BracketSkip bracketSkip(LazyRule rule)
+    {
+        if(structuralSyntax==null || !(grammar.idToRule().get(rule.subRuleId()) instanceof ConcatRule concat))
+            return null;
+        var subs = concat.subRuleIds().stream().map(id->grammar.idToRule().get(id))
+            .filter(r->!typeParseInfo.equals(r.datatype())).toList();
+        if(subs.size()<2)
+            return null;
+        var open = bracketLiteral(subs.get(0));
+        var close = bracketLiteral(subs.get(subs.size()-1));
+        if(open==null || close==null || structuralSyntax.closeOf(open.open())!=close.open())
+            return null;
+        return new BracketSkip(open.open(), close.wsTest());
+    }
+    // a regex of a single char literal, optionally followed by whitespaces; returned in a BracketSkip.
+    static BracketSkip bracketLiteral(GrammarRule rule)
+    {
+        if(!(rule instanceof RegexRule r) || r.regex().flags()!=0)
+            return null;
+        String regex = r.regex().value();
+        if(r.regex().group()==0)
+        {
+            var literals = SimpleRegex.literals(regex);
+            if(literals!=null && literals.size()==1 && literals.get(0).length()==1)
+                return new BracketSkip(literals.get(0).charAt(0), "false");
+        }
+        else if(r.regex().group()==1)
+        {
+            var literalsWs = SimpleRegex.literalsWs(regex);
+            if(literalsWs!=null && literalsWs.literals().size()==1 && literalsWs.literals().get(0).length()==1)
+                return new BracketSkip(literalsWs.literals().get(0).charAt(0), literalsWs.wsTest());
+        }
+        return null;
+    }
+
+    static String syntaxStr(StructuralIndex.Syntax syntax)
+    {
+        var sb = new StringBuilder("new org.rekex.parser.StructuralIndex.Syntax(");
+        EscapeJavaChar.appendQ(sb, syntax.brackets());
+        sb.append(", ");
+        EscapeJavaChar.appendQ(sb, syntax.separators());
+        sb.append(", ");
+        EscapeJavaChar.appendQ(sb, syntax.quotes());
+        sb.append(", ");
+        EscapeJavaChar.appendQ(sb, syntax.escape());
+        return sb.append(")").toString();
+    }
+
+    boolean taped(GrammarRule rule)
+    {
+        return tape && !typeParseInfo.equals(rule.datatype());
+    }
+
+    void genTape(GrammarRule rule)
+    {
+        Object datatypeStr = annoTypeStr(rule.datatype());
+        // the recognizer is called directly; the path was pushed by the caller of the tape method
+        String callRecog = method(rule instanceof RegexRule r && tokenCached(r) ? "token_"
+            : rule instanceof RegexRule ? "regex_" : "recog_", rule.id()) + "(state, start)";
+        if(rule instanceof PeekRule || rule instanceof NegRule)
+            maker.tapeLookahead(rule.id(), rule.id(), datatypeStr, callRecog);
+        else
+            maker.tapeNode(rule.id(), rule.id(), datatypeStr, callRecog);
+    }
+
+    void genRecog(GrammarRule rule)
+    {
+        int id = rule.id();
+        Object datatypeStr = annoTypeStr(rule.datatype());
+        if(rule instanceof ConcatRule r)
+        {
+            maker.recogConcatHeader(id, datatypeStr);
+            for(int i=0; i<r.subRuleIds().size(); i++)
+            {
+                int subId = r.subRuleIds().get(i);
+                if(!typeParseInfo.equals(grammar.idToRule().get(subId).datatype()))
+                    maker.recogConcatSub(recog(subId, "pos", i));
+            }
+            maker.recogConcatFooter();
+        }
+        else if(rule instanceof AltRule r)
+        {
+            maker.recogAltHeader(id, datatypeStr);
+            for(int i=0; i<r.subRuleIds().size(); i++)
+                maker.recogAltSub(recog(r.subRuleIds().get(i), "start", i));
+            maker.recogAltFooter();
+        }
+        else if(rule instanceof RepeatRule r)
+        {
+            Object max = r.max()==Integer.MAX_VALUE ? "Integer.MAX_VALUE" : r.max();
+            if(tape)
+                maker.recogRepeatTape(id, datatypeStr, r.min(), max, recog(r.subRuleId(), "pos", "i"));
+            else
+                maker.recogRepeat(id, datatypeStr, r.min(), max, recog(r.subRuleId(), "pos", "i"));
+        }
+        else if(rule instanceof PeekRule r)
+            maker.recogPeek(id, datatypeStr, recog(r.subRuleId(), "start", -1));
+        else if(rule instanceof NegRule r)
+            maker.recogNeg(id, id, datatypeStr, recog(r.subRuleId(), "start", -1));
+        else if(rule instanceof LazyRule r)
+            maker.recogLazy(id, datatypeStr, recog(r.subRuleId(), "start", -1));
+        else
+            throw new AssertionError();
+    }
+
     Void genNeg(NegRule rule)
     {
         referencedClasses.add(Not.class);
 
         Object datatypeStr = annoTypeStr(rule.datatype());
-        maker.match_neg(rule.id(), rule.id(), datatypeStr, typeStr(rule.datatype()), rule.subRuleId());
+        maker.match_neg(rule.id(), rule.id(), datatypeStr, typeStr(rule.datatype()), backtrack(call(rule.subRuleId(), "start", -1)));
         return null;
     }
 
@@ -331,44 +1010,139 @@ class PegParserCodeGen
         int ruleId = rule.id();
         Object datatypeStr = annoTypeStr(rule.datatype());
         int group = rule.regex().group();
-        String regexStr = EscapeJavaChar.asInJavaSource(rule.regex().value());
+
+        // simple regexes are matched by plain code. the pattern is still needed for surrogates in char tests.
+        String regex = rule.regex().value();
+        int flags = rule.regex().flags();
+        String charTest = null;
+        List<String> literals = null;
+        SimpleRegex.LiteralsWs literalsWs = null;
+        SimpleRegex.CharRun charRun = null;
+        if(flags==0 && group==0)
+            charTest = SimpleRegex.charTest(regex);
+        if(flags==0 && group==0 && charTest==null)
+            literals = SimpleRegex.literals(regex);
+        if(flags==0 && group==0 && charTest==null && literals==null)
+            charRun = SimpleRegex.charRun(regex);
+        if(flags==0 && group==1)
+            literalsWs = SimpleRegex.literalsWs(regex);
+
+        boolean cached = tokenCached(rule);
+        String callRegex = (cached ? "token_" : "regex_") + ruleId + "(state, start)";
 
         if(rule.instantiator()!=null && rule.instantiator() instanceof Instantiator.StaticField sf)
         {
             regexToField=true;
             var field = sf.field();
-            maker.matchRegexToField(ruleId, ruleId, datatypeStr, group,
-                classStr(field.getDeclaringClass()), field.getName());
+            maker.matchRegexToField(ruleId, datatypeStr,
+                classStr(field.getDeclaringClass()), field.getName(), callRegex);
+        }
+        else if(rule.datatype() instanceof PrimitiveType pt && pt.clazz()==char.class)
+        {
+            regexToChar=true;
+            maker.matchRegexToChar(ruleId, datatypeStr, callRegex);
         }
-        else if(rule.datatype() instanceof PrimitiveType pt && pt.clazz()==char.class
-            ||  rule.datatype() instanceof ClassType ct && ct.clazz()==Character.class)
+        else if(rule.datatype() instanceof ClassType ct && ct.clazz()==Character.class)
         {
             regexToChar=true;
-            maker.matchRegexToChar(ruleId, ruleId, datatypeStr, group);
+            maker.matchRegexToBoxed(ruleId, datatypeStr, "match_regex_char", "val_char", callRegex);
         }
-        else if(rule.datatype() instanceof PrimitiveType pt && pt.clazz()==int.class
-            ||  rule.datatype() instanceof ClassType ct && ct.clazz()==Integer.class)
+        else if(rule.datatype() instanceof PrimitiveType pt && pt.clazz()==int.class)
         {
             regexToInt=true;
-            maker.matchRegexToInt(ruleId, ruleId, datatypeStr, group);
+            maker.matchRegexToInt(ruleId, datatypeStr, callRegex);
+        }
+        else if(rule.datatype() instanceof ClassType ct && ct.clazz()==Integer.class)
+        {
+            regexToInt=true;
+            maker.matchRegexToBoxed(ruleId, datatypeStr, "match_regex_int", "val_int", callRegex);
+        }
+        else if(isClass(rule.datatype(), long.class, double.class, BigDecimal.class))
+        {
+            var clazz = isClass(rule.datatype(), long.class) ? long.class
+                : isClass(rule.datatype(), double.class) ? double.class : BigDecimal.class;
+            flagRegexToNum(clazz);
+            maker.matchRegexToNum(ruleId, datatypeStr, "match_regex_"+clazz.getSimpleName(), callRegex);
+        }
+        else if(isClass(rule.datatype(), Long.class, Double.class))
+        {
+            var prim = isClass(rule.datatype(), Long.class) ? long.class : double.class;
+            flagRegexToNum(prim);
+            maker.matchRegexToBoxedNum(ruleId, datatypeStr, "match_regex_"+prim, "val_"+prim, callRegex);
         }
         else if(rule.datatype() instanceof ClassType ct && ct.clazz()==String.class)
         {
             regexToStr=true;
-            maker.matchRegexToStr(ruleId, ruleId, datatypeStr, group);
+            maker.matchRegexToStr(ruleId, datatypeStr,
+                internStrings ? "match_regex_str_interned" : "match_regex_str", callRegex);
+        }
+        else if(isClass(rule.datatype(), TextSlice.class))
+        {
+            regexToSlice=true;
+            maker.matchRegexToStr(ruleId, datatypeStr, "match_regex_slice", callRegex);
         }
         else if(rule.datatype() instanceof ClassType ct && ct.clazz()==Void.class)
         {
-            maker.matchRegexToVoid(ruleId, ruleId, datatypeStr, group);
-            // it simply invokes match_regex() which produces `null`
+            maker.matchRegexToVoid(ruleId, datatypeStr, callRegex);
         }
         else
         {
             throw new AssertionError("unexpected rule datatype: "+rule.datatype());
         }
-        maker.patternField(ruleId, regexStr, rule.regex().flags());
+
+        if(cached)
+            maker.tokenCached(ruleId);
+
+        if(charTest!=null)
+        {
+            maker.regexByCharTest(ruleId, charTest);
+            if(scannedRules.contains(ruleId))
+                maker.charScan(ruleId, charTest);
+        }
+        else if(charRun!=null)
+        {
+            if(charRun.excluded()!=-1)
+                maker.charScanIndexOf(ruleId, SimpleRegex.lit(charRun.excluded()));
+            else
+                maker.charScan(ruleId, charRun.test());
+            maker.regexByCharRun(ruleId, charRun.min());
+        }
+        else if(literals!=null)
+        {
+            genLiterals(ruleId, literals);
+            maker.regexByLiteralsFooter(ruleId);
+            return null; // no pattern
+        }
+        else if(literalsWs!=null)
+        {
+            genLiterals(ruleId, literalsWs.literals());
+            maker.regexByLiteralsWsFooter(ruleId, literalsWs.wsTest());
+        }
+        else
+        {
+            maker.regexByPattern(ruleId, group);
+        }
+        String regexStr = EscapeJavaChar.asInJavaSource(regex);
+        maker.patternField(ruleId, regexStr, flags);
 
         return null;
     }
 
+    void flagRegexToNum(Class<?> clazz)
+    {
+        if(clazz==long.class)
+            regexToLong = true;
+        else if(clazz==double.class)
+            regexToDouble = true;
+        else
+            regexToBigDecimal = true;
+    }
+
+    void genLiterals(int ruleId, List<String> literals)
+    {
+        maker.regexByLiteralsHeader(ruleId);
+        for(var literal : literals)
+            maker.regexByLiteral(EscapeJavaChar.asInJavaSource(literal), literal.length());
+    }
+
 }
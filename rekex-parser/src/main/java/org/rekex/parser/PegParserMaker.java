@@ -117,31 +117,162 @@ public class {className} implements PegParser<{typeArg}>
 
 
 
-    public void fileHeader3(Object typeArg, Object catalogClass)
+    public void fileHeader3(Object typeArg)
     {
         add(this._fileHeader3, 0, 38);
         add(typeArg);
-        add(this._fileHeader3, 47, 671);
+        add(this._fileHeader3, 47, 475);
         add(typeArg);
-        add(this._fileHeader3, 680, 1284);
-        add(catalogClass);
-        add(this._fileHeader3, 1298, 5204);
+        add(this._fileHeader3, 484, 755);
+        add(typeArg);
+        add(this._fileHeader3, 764, 889);
+        add(typeArg);
+        add(this._fileHeader3, 898, 995);
+        add(typeArg);
+        add(this._fileHeader3, 1004, 1282);
+        add(typeArg);
+        add(this._fileHeader3, 1291, 1552);
+        add(typeArg);
+        add(this._fileHeader3, 1561, 1985);
     }
     final String _fileHeader3 = """
 
     @Override
     public ParseResult<{typeArg}> parse(CharSequence chars, int start, int end)
     {
-        _State state = new _State();
+        String str = asString(chars, end);
+        return parse(str, start, end, new org.rekex.parser.InputInfo(chars, str, start, end), null);
+    }
+
+    static String asString(CharSequence chars, int end)
+    {
+        if(chars instanceof String str)
+            return str;
+        return chars.subSequence(0, end).toString();
+    }
+
+    @Override
+    public ParseResult<{typeArg}> parse(char[] buf, int start, int end)
+    {
+        String str = new String(buf, 0, end); // keep positions
+        return parse(str, start, end, new org.rekex.parser.InputInfo(str, str, start, end), null);
+    }
+
+    @Override
+    public org.rekex.parser.ParseSession<{typeArg}> newSession()
+    {
+        return new _Session();
+    }
+
+    final class _Session implements org.rekex.parser.ParseSession<{typeArg}>
+    {
+        final _State state = new _State();
+
+        @Override
+        public ParseResult<{typeArg}> parse(CharSequence chars, int start, int end)
+        {
+            state.reset(end);
+            String str = asString(chars, end);
+            return run(state, str, start, end, new org.rekex.parser.InputInfo(chars, str, start, end), null);
+        }
+    }
+
+    ParseResult<{typeArg}> parse(String chars, int start, int end, org.rekex.parser.InputInfo inputInfo,
+                                       org.rekex.parser.SourceMap sourceMap)
+    {
+        return run(new _State(), chars, start, end, inputInfo, sourceMap);
+    }
+
+    ParseResult<{typeArg}> run(_State state, String chars, int start, int end, org.rekex.parser.InputInfo inputInfo,
+                                     org.rekex.parser.SourceMap sourceMap)
+    {
+        var event = new org.rekex.parser.ParseEvent(); // JFR
+        event.begin();
         state.catalog = this.catalog;
         state.chars = chars;
-        state.start = start;
         state.end = end;
-        state.inputInfo = new org.rekex.parser.InputInfo(chars, start, end);
+        state.inputInfo = inputInfo;
+        state.sourceMap = sourceMap;
+""";
+
+
+
+    public void parseIndex()
+    {
+        add(this._parseIndex, 0, 100);
+    }
+    final String _parseIndex = """
+        state.index = org.rekex.parser.StructuralIndex.build(chars, start, end, STRUCTURAL_SYNTAX);
+""";
+
+
+
+    public void parseRuleStats()
+    {
+        add(this._parseRuleStats, 0, 54);
+    }
+    final String _parseRuleStats = """
+        state.ruleCounters = ruleCounters.forParse();
+""";
+
+
+
+    public void parseRun()
+    {
+        add(this._parseRun, 0, 48);
+    }
+    final String _parseRun = """
+
+        var result = parse(state, start, end);
+""";
+
+
+
+    public void parseCollectHashCons()
+    {
+        add(this._parseCollectHashCons, 0, 165);
+    }
+    final String _parseCollectHashCons = """
+        if(state.hashCons!=null)
+        {
+            hashConsLookups.add(state.hashCons.lookups());
+            hashConsHits.add(state.hashCons.hits());
+        }
+""";
+
+
+
+    public void parseCollectRuleStats()
+    {
+        add(this._parseCollectRuleStats, 0, 46);
+    }
+    final String _parseCollectRuleStats = """
+        ruleCounters.add(state.ruleCounters);
+""";
 
+
+
+    public void fileHeader4(Object typeArg, Object rootValue)
+    {
+        add(this._fileHeader4, 0, 100);
+        add(typeArg);
+        add(this._fileHeader4, 109, 508);
+        add(typeArg);
+        add(this._fileHeader4, 517, 524);
+        add(rootValue);
+        add(this._fileHeader4, 535, 1030);
+    }
+    final String _fileHeader4 = """
+        event.finish(getClass(), start, end, result);
+        return result;
+    }
+
+    ParseResult<{typeArg}> parse(_State state, int start, int end)
+    {
+        int pos;
         try
         {
-            state = match(rootTypeRuleId, state, -1);
+            pos = match(rootTypeRuleId, state, start, -1);
         }
         catch (_FatalEx fatalEx)
         {
@@ -149,877 +280,2827 @@ public class {className} implements PegParser<{typeArg}>
             return new ParseResult.Fatal<>(fatalEx.position, fatalEx.cause, stack);
         }
 
-        if(!state.fail)
+        if(pos>=0)
         {
-            {typeArg} obj = state.pickObj();
-            if(state.start==state.end)
+            {typeArg} obj = {rootValue};
+            if(pos==end)
                 return new ParseResult.Full<>(obj);
             else
-                return new ParseResult.Partial<>(obj, state.start);
+                return new ParseResult.Partial<>(obj, pos);
+        }
+        else
+        {
+            var stack = pathToStack(state.maxFailPath, state.maxFailPath.length);
+            String msg = failMsg(state.maxFailReason, state.maxFailEx, _DatatypeList.list.get(state.maxFailRuleId));
+            return new ParseResult.Fail<>(state.maxFailPos, msg, state.maxFailEx, stack);
+        }
+    }
+
+""";
+
+
+
+    public void parserStatsHashCons()
+    {
+        add(this._parserStatsHashCons, 0, 220);
+    }
+    final String _parserStatsHashCons = """
+
+    final java.util.concurrent.atomic.LongAdder hashConsLookups = new java.util.concurrent.atomic.LongAdder();
+    final java.util.concurrent.atomic.LongAdder hashConsHits = new java.util.concurrent.atomic.LongAdder();
+""";
+
+
+
+    public void parserRuleStats(Object rules, Object timing)
+    {
+        add(this._parserRuleStats, 0, 179);
+        add(rules);
+        add(this._parserRuleStats, 186, 188);
+        add(timing);
+        add(this._parserRuleStats, 196, 199);
+    }
+    final String _parserRuleStats = """
+
+    // per-rule counts of all parses; each parse counts into its own RuleCounters first.
+    final org.rekex.parser.RuleCounters ruleCounters = new org.rekex.parser.RuleCounters({rules}, {timing});
+""";
+
+
+
+    public void parserStats(Object lookups, Object hits, Object ruleList)
+    {
+        add(this._parserStats, 0, 115);
+        add(lookups);
+        add(this._parserStats, 124, 126);
+        add(hits);
+        add(this._parserStats, 132, 134);
+        add(ruleList);
+        add(this._parserStats, 144, 153);
+    }
+    final String _parserStats = """
+
+    @Override
+    public org.rekex.parser.ParseStats stats()
+    {
+        return new org.rekex.parser.ParseStats({lookups}, {hits}, {ruleList});
+    }
+""";
+
+
+
+    public void parserIndexSyntax(Object syntax)
+    {
+        add(this._parserIndexSyntax, 0, 78);
+        add(syntax);
+        add(this._parserIndexSyntax, 86, 88);
+    }
+    final String _parserIndexSyntax = """
+
+    static final org.rekex.parser.StructuralIndex.Syntax STRUCTURAL_SYNTAX = {syntax};
+""";
+
+
+
+    public void parseWithSourceMap(Object typeArg)
+    {
+        add(this._parseWithSourceMap, 0, 38);
+        add(typeArg);
+        add(this._parseWithSourceMap, 47, 472);
+    }
+    final String _parseWithSourceMap = """
+
+    @Override
+    public ParseResult<{typeArg}> parse(CharSequence chars, int start, int end, org.rekex.parser.SourceMap sourceMap)
+    {
+        sourceMap.clear();
+        String str = asString(chars, end);
+        var result = parse(str, start, end, new org.rekex.parser.InputInfo(chars, str, start, end), sourceMap);
+        if(!(result instanceof ParseResult.Full || result instanceof ParseResult.Partial))
+            sourceMap.clear();
+        return result;
+    }
+""";
+
+
+
+    public void parseWithTrace(Object typeArg)
+    {
+        add(this._parseWithTrace, 0, 38);
+        add(typeArg);
+        add(this._parseWithTrace, 47, 398);
+    }
+    final String _parseWithTrace = """
+
+    @Override
+    public ParseResult<{typeArg}> parse(CharSequence chars, int start, int end, org.rekex.parser.ParseTrace trace)
+    {
+        trace.reset(_DatatypeList.list);
+        _State state = new _State();
+        state.trace = trace;
+        String str = asString(chars, end);
+        return run(state, str, start, end, new org.rekex.parser.InputInfo(chars, str, start, end), null);
+    }
+""";
+
+
+
+    public void parseTapeHeader()
+    {
+        add(this._parseTapeHeader, 0, 380);
+    }
+    final String _parseTapeHeader = """
+
+    @Override
+    public ParseResult<org.rekex.parser.ParseTape> parseTape(CharSequence input, int start, int end)
+    {
+        String chars = asString(input, end);
+        _State state = new _State();
+        state.catalog = this.catalog;
+        state.chars = chars;
+        state.end = end;
+        state.inputInfo = new org.rekex.parser.InputInfo(input, chars, start, end);
+""";
+
+
+
+    public void parseTapeRun(Object rootTape)
+    {
+        add(this._parseTapeRun, 0, 94);
+        add(rootTape);
+        add(this._parseTapeRun, 104, 1139);
+    }
+    final String _parseTapeRun = """
+        state.tape = new int[5*64];
+
+        int pos;
+        try
+        {
+            pos = {rootTape};
+        }
+        catch (_FatalEx fatalEx)
+        {
+            var stack = pathToStack(state.path, state.pathLen);
+            return new ParseResult.Fatal<>(fatalEx.position, fatalEx.cause, stack);
+        }
+        if(pos<0)
+        {
+            var stack = pathToStack(state.maxFailPath, state.maxFailPath.length);
+            String msg = failMsg(state.maxFailReason, state.maxFailEx, _DatatypeList.list.get(state.maxFailRuleId));
+            return new ParseResult.Fail<>(state.maxFailPos, msg, state.maxFailEx, stack);
         }
+
+        var catalog = state.catalog;
+        var inputInfo = state.inputInfo;
+        var index = state.index;
+        var tape = new org.rekex.parser.ParseTape(chars, java.util.Arrays.copyOf(state.tape, state.tapeLen),
+            _DatatypeList.list, (ruleId, s, e)->parseRegion(catalog, chars, end, inputInfo, index, ruleId, s, e, "ParseTape"));
+        if(pos==end)
+            return new ParseResult.Full<>(tape);
         else
+            return new ParseResult.Partial<>(tape, pos);
+    }
+""";
+
+
+
+    public void stateHeader(Object catalogClass)
+    {
+        add(this._stateHeader, 0, 44);
+        add(catalogClass);
+        add(this._stateHeader, 58, 2869);
+    }
+    final String _stateHeader = """
+    final static class _State
+    {
+        {catalogClass} catalog;
+        String chars;
+        int end;
+
+        org.rekex.parser.InputInfo inputInfo;
+        org.rekex.parser.StructuralIndex index; // see PegParserBuilder.structuralIndex()
+        org.rekex.parser.SourceMap sourceMap; // see PegParserBuilder.sourceMap()
+
+        Object obj;
+
+        int[] path = new int[64];
+        int pathLen = 0;
+
+        int maxFailPos = -1;
+        int[] maxFailPath;
+        int maxFailReason;
+        Exception maxFailEx;
+        int maxFailRuleId;
+
+        int gStart, gEnd; // tmp data buffer for regex
+        int lastFailReason;
+
+        int pathPush(int ruleId, int start, int subIndex)
+        {
+            if(pathLen+3 > path.length)
+                path = java.util.Arrays.copyOf(path, path.length+64);
+            path[pathLen++] = ruleId;
+            path[pathLen++] = start;
+            path[pathLen++] = subIndex;
+            return start;
+        }
+        int pathPop(int end)
+        {
+            pathLen -= 3;
+            return end;
+        }
+
+        <T> T pickObj()
+        {
+            T t = (T)obj;
+            obj = null;
+            return t;
+        }
+
+        int fail(int position, int reason, Exception ex, int ruleId)
+        {
+            lastFailReason = reason;
+            if(position>maxFailPos)
+            {
+                maxFailPos = position;
+                maxFailPath = java.util.Arrays.copyOf(path, pathLen);
+                maxFailReason = reason;
+                maxFailEx = ex;
+                maxFailRuleId = ruleId;
+            }
+            return -1;
+        }
+
+        int[] tokens;
+        int tokenMask;
+        int tokenSlot(int ruleId, int start)
+        {
+            if(tokens==null)
+            {
+                int slots = tokenSlots(end);
+                tokens = new int[5*slots];
+                tokenMask = slots-1;
+            }
+            int h = start*0x9E3779B1 + ruleId;
+            return 5*((h^(h>>>16)) & tokenMask);
+        }
+        static int tokenSlots(int end)
+        {
+            return Math.min(1<<14, Integer.highestOneBit(Math.max(16, end))*2);
+        }
+        int tokenLookup(int ruleId, int start)
+        {
+            int i = tokenSlot(ruleId, start);
+            if(tokens[i]!=ruleId+1 || tokens[i+1]!=start)
+                return TOKEN_MISS;
+            int e = tokens[i+2];
+            if(e<0)
+                return fail(start, ~e, null, ruleId);
+            gStart = tokens[i+3];
+            gEnd = tokens[i+4];
+            return e;
+        }
+        int tokenSave(int ruleId, int start, int e)
+        {
+            int i = tokenSlot(ruleId, start);
+            tokens[i] = ruleId+1;
+            tokens[i+1] = start;
+            tokens[i+2] = e>=0 ? e : ~lastFailReason;
+            tokens[i+3] = gStart;
+            tokens[i+4] = gEnd;
+            return e;
+        }
+
+""";
+
+
+
+    public void stateValueSlot(Object CompoType)
+    {
+        add(this._stateValueSlot, 0, 8);
+        add(CompoType);
+        add(this._stateValueSlot, 19, 24);
+        add(CompoType);
+        add(this._stateValueSlot, 35, 37);
+    }
+    final String _stateValueSlot = """
+        {CompoType} val_{CompoType};
+""";
+
+
+
+    public void stateBuffer(Object CompoType)
+    {
+        add(this._stateBuffer, 0, 32);
+        add(CompoType);
+        add(this._stateBuffer, 43, 95);
+        add(CompoType);
+        add(this._stateBuffer, 106, 113);
+        add(CompoType);
+        add(this._stateBuffer, 124, 131);
+        add(CompoType);
+        add(this._stateBuffer, 142, 167);
+        add(CompoType);
+        add(this._stateBuffer, 178, 198);
+        add(CompoType);
+        add(this._stateBuffer, 209, 210);
+        add(CompoType);
+        add(this._stateBuffer, 221, 261);
+        add(CompoType);
+        add(this._stateBuffer, 272, 278);
+        add(CompoType);
+        add(this._stateBuffer, 289, 318);
+        add(CompoType);
+        add(this._stateBuffer, 329, 360);
+        add(CompoType);
+        add(this._stateBuffer, 371, 380);
+        add(CompoType);
+        add(this._stateBuffer, 391, 412);
+        add(CompoType);
+        add(this._stateBuffer, 423, 431);
+        add(CompoType);
+        add(this._stateBuffer, 442, 473);
+        add(CompoType);
+        add(this._stateBuffer, 484, 491);
+        add(CompoType);
+        add(this._stateBuffer, 502, 535);
+        add(CompoType);
+        add(this._stateBuffer, 546, 590);
+        add(CompoType);
+        add(this._stateBuffer, 601, 616);
+        add(CompoType);
+        add(this._stateBuffer, 627, 649);
+        add(CompoType);
+        add(this._stateBuffer, 660, 705);
+    }
+    final String _stateBuffer = """
+
+        // growable buffer for {CompoType}[], shared by nested repetitions as a stack
+        {CompoType}[] buf_{CompoType} = new {CompoType}[16];
+        int bufLen_{CompoType};
+        void push_{CompoType}({CompoType} value)
+        {
+            if(bufLen_{CompoType}==buf_{CompoType}.length)
+                buf_{CompoType} = java.util.Arrays.copyOf(buf_{CompoType}, bufLen_{CompoType}*2);
+            buf_{CompoType}[bufLen_{CompoType}++] = value;
+        }
+        {CompoType}[] pop_{CompoType}(int base)
+        {
+            {CompoType}[] array = java.util.Arrays.copyOfRange(buf_{CompoType}, base, bufLen_{CompoType});
+            bufLen_{CompoType} = base;
+            return array;
+        }
+""";
+
+
+
+    public void stateObjBuffer()
+    {
+        add(this._stateObjBuffer, 0, 464);
+    }
+    final String _stateObjBuffer = """
+
+        // growable buffer for elements of List and arrays, shared by nested repetitions as a stack;
+        // each repetition copies its elements out once, into a value of the exact size.
+        Object[] objBuf = new Object[16];
+        int objBufLen;
+        void pushObj(Object value)
+        {
+            if(objBufLen==objBuf.length)
+                objBuf = java.util.Arrays.copyOf(objBuf, objBufLen*2);
+            objBuf[objBufLen++] = value;
+        }
+""";
+
+
+
+    public void stateText()
+    {
+        add(this._stateText, 0, 134);
+    }
+    final String _stateText = """
+
+        // growable buffer for Text, shared by nested repetitions as a stack
+        final StringBuilder text = new StringBuilder();
+""";
+
+
+
+    public void stateDecimal()
+    {
+        add(this._stateDecimal, 0, 114);
+    }
+    final String _stateDecimal = """
+
+        // result of scan_decimal()
+        long decUnscaled;
+        int decScale;
+        boolean decNegative;
+""";
+
+
+
+    public void stateInterned()
+    {
+        add(this._stateInterned, 0, 1105);
+    }
+    final String _stateInterned = """
+
+        // intern table for String values, so that a repeated token yields the same String.
+        // direct-mapped, keyed by String.hashCode() of the range; a colliding entry is replaced.
+        static final int INTERN_MAX_LENGTH = 64; // longer strings are rarely repeated
+        String[] interned;
+        String intern(int start, int end)
+        {
+            int length = end-start;
+            if(length>INTERN_MAX_LENGTH)
+                return chars.substring(start, end);
+            if(interned==null)
+                interned = new String[Math.min(1<<12, Integer.highestOneBit(Math.max(256, this.end)))];
+            int h = 0;
+            for(int i=start; i<end; i++)
+                h = 31*h + chars.charAt(i);
+            int x = h*0x9E3779B1;
+            int slot = (x^(x>>>16)) & (interned.length-1);
+            String s = interned[slot];
+            if(s!=null && s.hashCode()==h && s.length()==length && chars.regionMatches(start, s, 0, length))
+                return s;
+            s = chars.substring(start, end);
+            interned[slot] = s;
+            return s;
+        }
+""";
+
+
+
+    public void stateHashCons()
+    {
+        add(this._stateHashCons, 0, 309);
+    }
+    final String _stateHashCons = """
+
+        // hash-consing table, created on first use
+        org.rekex.parser.HashCons hashCons;
+        org.rekex.parser.HashCons hashCons()
+        {
+            var hc = hashCons;
+            if(hc==null)
+                hashCons = hc = new org.rekex.parser.HashCons(end);
+            return hc;
+        }
+""";
+
+
+
+    public void stateSourceMap()
+    {
+        add(this._stateSourceMap, 0, 365);
+    }
+    final String _stateSourceMap = """
+
+        // nodes recorded in sourceMap by a failed subrule are removed, where the parse backtracks
+        int smMark()
+        {
+            return sourceMap==null ? 0 : sourceMap.size();
+        }
+        int smKeep(int mark, int end)
+        {
+            if(end<0 && sourceMap!=null)
+                sourceMap.truncate(mark);
+            return end;
+        }
+""";
+
+
+
+    public void stateTape()
+    {
+        add(this._stateTape, 0, 1705);
+    }
+    final String _stateTape = """
+
+        // the tape of parseTape(), see ParseTape; null in parse().
+        // while a node is open, its `end` slot holds its parent.
+        int[] tape;
+        int tapeLen;
+        int tapeParent = -1;
+        int tapeOpen(int ruleId, int start)
+        {
+            if(tape==null)
+                return -1;
+            if(tapeLen+5 > tape.length)
+                tape = java.util.Arrays.copyOf(tape, tape.length*2);
+            int node = tapeLen;
+            tape[node] = ruleId;
+            tape[node+1] = start;
+            tape[node+2] = tapeParent;
+            tape[node+3] = 0;
+            if(tapeParent>=0)
+                tape[tapeParent+3]++;
+            tapeParent = node;
+            tapeLen += 5;
+            return node;
+        }
+        int tapeClose(int node, int end)
+        {
+            if(node<0)
+                return end;
+            if(end<0)
+                return tapeDrop(node, end);
+            tapeParent = tape[node+2];
+            tape[node+2] = end;
+            tape[node+4] = tapeLen;
+            return end;
+        }
+        // remove the node and its descendants
+        int tapeDrop(int node, int end)
+        {
+            if(node<0)
+                return end;
+            tapeParent = tape[node+2];
+            if(tapeParent>=0)
+                tape[tapeParent+3]--;
+            tapeLen = node;
+            return end;
+        }
+        // remove the closed nodes from `mark` on, which are children of the open node, and their descendants
+        void tapeCut(int mark)
+        {
+            for(int node=mark; node<tapeLen; node=tape[node+4])
+                if(tapeParent>=0)
+                    tape[tapeParent+3]--;
+            tapeLen = mark;
+        }
+""";
+
+
+
+    public void stateRuleHooks()
+    {
+        add(this._stateRuleHooks, 0, 843);
+    }
+    final String _stateRuleHooks = """
+
+        // every call of a rule method is wrapped in statExit(rule_N(state, statEnter(N, start)))
+        // counters of this parse, see PegParserBuilder.ruleStats(); null in parseTape() and Lazy.get().
+        org.rekex.parser.RuleCounters ruleCounters;
+        // see PegParserBuilder.trace(); only set by parse(chars, start, end, trace)
+        org.rekex.parser.ParseTrace trace;
+        int statEnter(int ruleId, int start)
+        {
+            if(ruleCounters!=null)
+                ruleCounters.enter(ruleId, start);
+            if(trace!=null)
+                trace.enter(ruleId, start);
+            return start;
+        }
+        int statExit(int end)
+        {
+            if(ruleCounters!=null)
+                ruleCounters.exit(end);
+            if(trace!=null)
+                trace.exit(end);
+            return end;
+        }
+""";
+
+
+
+    public void stateResetHeader()
+    {
+        add(this._stateResetHeader, 0, 641);
+    }
+    final String _stateResetHeader = """
+
+        // before each parse of a ParseSession. buffers are kept; so is the intern table,
+        // since Strings are immutable, and a repeated token across inputs can still be shared.
+        void reset(int end)
+        {
+            obj = null;
+            pathLen = 0;
+            maxFailPos = -1;
+            maxFailPath = null;
+            maxFailEx = null;
+            index = null;
+            sourceMap = null;
+            if(tokens!=null)
+            {
+                if(tokens.length==5*tokenSlots(end))
+                    java.util.Arrays.fill(tokens, 0);
+                else
+                    tokens = null;
+            }
+""";
+
+
+
+    public void stateResetBuffer(Object CompoType)
+    {
+        add(this._stateResetBuffer, 0, 19);
+        add(CompoType);
+        add(this._stateResetBuffer, 30, 36);
+    }
+    final String _stateResetBuffer = """
+            bufLen_{CompoType} = 0;
+""";
+
+
+
+    public void stateResetObjBuffer()
+    {
+        add(this._stateResetObjBuffer, 0, 272);
+    }
+    final String _stateResetObjBuffer = """
+            // not to retain values of a previous input; a buffer grown by a large input is dropped
+            if(objBuf.length>256)
+                objBuf = new Object[16];
+            else
+                java.util.Arrays.fill(objBuf, null);
+            objBufLen = 0;
+""";
+
+
+
+    public void stateResetText()
+    {
+        add(this._stateResetText, 0, 31);
+    }
+    final String _stateResetText = """
+            text.setLength(0);
+""";
+
+
+
+    public void stateResetHashCons()
+    {
+        add(this._stateResetHashCons, 0, 29);
+    }
+    final String _stateResetHashCons = """
+            hashCons = null;
+""";
+
+
+
+    public void stateResetFooter()
+    {
+        add(this._stateResetFooter, 0, 10);
+    }
+    final String _stateResetFooter = """
+        }
+""";
+
+
+
+    public void stateFooter()
+    {
+        add(this._stateFooter, 0, 1997);
+    }
+    final String _stateFooter = """
+
+    }
+    static final int failReason_predicate = 0;   // info: Exception
+    static final int failReason_neg = 1;         // info: subrule ID
+    static final int failReason_regex = 2;
+    static final int failReason_regex_group = 3;
+
+    static final int TOKEN_MISS = -2;
+
+    static String failMsg(int reason, Exception ex, org.rekex.annotype.AnnoType type)
+    {
+        String typeStr = type.toString(false);
+        return switch (reason){
+            case failReason_predicate
+                -> ex.getMessage()!=null ? ex.getMessage() : ex.toString();
+            case failReason_neg
+                -> typeStr + " failed; input matched subrule";
+            case failReason_regex
+                -> "Input does not match regex: "+typeStr;
+            case failReason_regex_group
+                -> "Input does not match regex group: "+typeStr;
+            default -> throw new AssertionError("unexpected reason: "+reason);
+        };
+    }
+
+    static java.util.ArrayList<ParseResult.Node> pathToStack(int[] path, int pathLen)
+    {
+        java.util.ArrayList<ParseResult.Node> stack = new java.util.ArrayList<>(pathLen/2);
+        for(int i=pathLen-1; i>=0;)
+        {
+            int _subIndex = path[i--];
+            int _start = path[i--];
+            int _ruleId = path[i--];
+            var datatype = _DatatypeList.list.get(_ruleId);
+            stack.add(new ParseResult.Node(datatype, _start, _subIndex));
+        }
+        return stack;
+    }
+
+    static class _FatalEx extends Exception
+    {
+        final int position;
+        final Exception cause;
+        _FatalEx(int position, Exception cause)
+        {
+            super(null, null, false, false);
+            this.position = position;
+            this.cause = cause;
+        }
+    }
+
+    // = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+    // rules
+    // = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
+
+""";
+
+
+
+    public void matchAnyRuleIdHeader()
+    {
+        add(this._matchAnyRuleIdHeader, 0, 125);
+    }
+    final String _matchAnyRuleIdHeader = """
+    static int match(int ruleId, _State state, int start, int subIndex) throws _FatalEx
+    {
+        return switch(ruleId){
+""";
+
+
+
+    public void matchAnyRuleIdCase(Object RULE_ID, Object ruleDesc, Object callRule)
+    {
+        add(this._matchAnyRuleIdCase, 0, 17);
+        add(RULE_ID);
+        add(this._matchAnyRuleIdCase, 26, 30);
+        add(callRule);
+        add(this._matchAnyRuleIdCase, 40, 45);
+        add(ruleDesc);
+        add(this._matchAnyRuleIdCase, 55, 56);
+    }
+    final String _matchAnyRuleIdCase = """
+            case {RULE_ID} -> {callRule}; // {ruleDesc}
+""";
+
+
+
+    public void matchAnyRuleIdFooter()
+    {
+        add(this._matchAnyRuleIdFooter, 0, 94);
+    }
+    final String _matchAnyRuleIdFooter = """
+            default -> throw new AssertionError("unknown ruleId: "+ruleId);
+        };
+    }
+
+""";
+
+
+
+    public void matchDispatchHeader(Object chunkSize)
+    {
+        add(this._matchDispatchHeader, 0, 123);
+        add(chunkSize);
+        add(this._matchDispatchHeader, 134, 137);
+    }
+    final String _matchDispatchHeader = """
+    static int match(int ruleId, _State state, int start, int subIndex) throws _FatalEx
+    {
+        return switch(ruleId/{chunkSize}){
+""";
+
+
+
+    public void matchDispatchCase(Object chunkId)
+    {
+        add(this._matchDispatchCase, 0, 17);
+        add(chunkId);
+        add(this._matchDispatchCase, 26, 36);
+        add(chunkId);
+        add(this._matchDispatchCase, 45, 79);
+    }
+    final String _matchDispatchCase = """
+            case {chunkId} -> match_{chunkId}(ruleId, state, start, subIndex);
+""";
+
+
+
+    public void matchChunkHeader(Object chunkId)
+    {
+        add(this._matchChunkHeader, 0, 21);
+        add(chunkId);
+        add(this._matchChunkHeader, 30, 136);
+    }
+    final String _matchChunkHeader = """
+    static int match_{chunkId}(int ruleId, _State state, int start, int subIndex) throws _FatalEx
+    {
+        return switch(ruleId){
+
+""";
+
+
+
+    public void rulesClassHeader(Object classId)
+    {
+        add(this._rulesClassHeader, 0, 30);
+        add(classId);
+        add(this._rulesClassHeader, 39, 46);
+    }
+    final String _rulesClassHeader = """
+
+    static final class _Rules{classId}
+    {
+""";
+
+
+
+    public void rulesClassFooter()
+    {
+        add(this._rulesClassFooter, 0, 7);
+    }
+    final String _rulesClassFooter = """
+    }
+
+""";
+
+
+
+    public void matchAltHeader(Object altId, Object datatypeStr)
+    {
+        add(this._matchAltHeader, 0, 21);
+        add(datatypeStr);
+        add(this._matchAltHeader, 34, 55);
+        add(altId);
+        add(this._matchAltHeader, 62, 127);
+    }
+    final String _matchAltHeader = """
+    // alt rule for: {datatypeStr}
+    static int rule_{altId}(_State state, int start) throws _FatalEx
+    {
+        int end;
+""";
+
+
+
+    public void matchAltSubRule(Object subDesc, Object callSub)
+    {
+        add(this._matchAltSubRule, 0, 14);
+        add(callSub);
+        add(this._matchAltSubRule, 23, 28);
+        add(subDesc);
+        add(this._matchAltSubRule, 37, 82);
+    }
+    final String _matchAltSubRule = """
+        end = {callSub}; // {subDesc}
+        if(end>=0)
+            return end;
+
+""";
+
+
+
+    public void matchAltFooter()
+    {
+        add(this._matchAltFooter, 0, 27);
+    }
+    final String _matchAltFooter = """
+        return -1;
+    }
+
+
+""";
+
+
+
+    public void matchConcatHeader(Object concatId, Object datatypeStr)
+    {
+        add(this._matchConcatHeader, 0, 24);
+        add(datatypeStr);
+        add(this._matchConcatHeader, 37, 58);
+        add(concatId);
+        add(this._matchConcatHeader, 68, 143);
+    }
+    final String _matchConcatHeader = """
+    // concat rule for: {datatypeStr}
+    static int rule_{concatId}(_State state, int start0) throws _FatalEx
+    {
+        int pos = start0;
+""";
+
+
+
+    public void initParseInfo(Object subCount)
+    {
+        add(this._initParseInfo, 0, 37);
+        add(subCount);
+        add(this._initParseInfo, 47, 81);
+        add(subCount);
+        add(this._initParseInfo, 91, 124);
+    }
+    final String _initParseInfo = """
+        Object[] argArr = new Object[{subCount}];
+        int[] posArr = new int[{subCount}+1];
+        posArr[0] = start0;
+""";
+
+
+
+    public void matchConcatSubRule(Object subIndex, Object subType, Object subDesc, Object subValue, Object callSub)
+    {
+        add(this._matchConcatSubRule, 0, 15);
+        add(callSub);
+        add(this._matchConcatSubRule, 24, 33);
+        add(subIndex);
+        add(this._matchConcatSubRule, 43, 45);
+        add(subDesc);
+        add(this._matchConcatSubRule, 54, 104);
+        add(subType);
+        add(this._matchConcatSubRule, 113, 118);
+        add(subIndex);
+        add(this._matchConcatSubRule, 128, 131);
+        add(subValue);
+        add(this._matchConcatSubRule, 141, 143);
+    }
+    final String _matchConcatSubRule = """
+
+        pos = {callSub}; // arg_{subIndex}: {subDesc}
+        if(pos<0)
+            return -1;
+        {subType} arg_{subIndex} = {subValue};
+""";
+
+
+
+    public void matchParseInfo(Object subIndex2, Object ParseInfo)
+    {
+        add(this._matchParseInfo, 0, 9);
+        add(ParseInfo);
+        add(this._matchParseInfo, 20, 25);
+        add(subIndex2);
+        add(this._matchParseInfo, 36, 43);
+        add(ParseInfo);
+        add(this._matchParseInfo, 54, 89);
+    }
+    final String _matchParseInfo = """
+
+        {ParseInfo} arg_{subIndex2} = new {ParseInfo}(state.inputInfo, argArr, posArr);
+""";
+
+
+
+    public void concatSubRuleParseInfo(Object subIndex)
+    {
+        add(this._concatSubRuleParseInfo, 0, 15);
+        add(subIndex);
+        add(this._concatSubRuleParseInfo, 25, 33);
+        add(subIndex);
+        add(this._concatSubRuleParseInfo, 43, 60);
+        add(subIndex);
+        add(this._concatSubRuleParseInfo, 70, 81);
+    }
+    final String _concatSubRuleParseInfo = """
+        argArr[{subIndex}] = arg_{subIndex};
+        posArr[{subIndex}+1] = pos;
+""";
+
+
+
+    public void hashConsLookupHeader(Object hashSeed)
+    {
+        add(this._hashConsLookupHeader, 0, 100);
+        add(hashSeed);
+        add(this._hashConsLookupHeader, 110, 112);
+    }
+    final String _hashConsLookupHeader = """
+
+        // hash-consing: reuse an existing instance with the same components
+        int hc_hash = {hashSeed};
+""";
+
+
+
+    public void hashConsLookupArg(Object subIndex)
+    {
+        add(this._hashConsLookupArg, 0, 66);
+        add(subIndex);
+        add(this._hashConsLookupArg, 76, 79);
+    }
+    final String _hashConsLookupArg = """
+        hc_hash = 31*hc_hash + org.rekex.parser.HashCons.hash(arg_{subIndex});
+""";
+
+
+
+    public void hashConsLookupTest(Object TypeName)
+    {
+        add(this._hashConsLookupTest, 0, 115);
+        add(TypeName);
+        add(this._hashConsLookupTest, 125, 135);
+    }
+    final String _hashConsLookupTest = """
+        int hc_slot = state.hashCons().slot(hc_hash);
+        if(state.hashCons().get(hc_slot, hc_hash) instanceof {TypeName} hc_value
+""";
+
+
+
+    public void hashConsLookupSame(Object accessor, Object subIndex)
+    {
+        add(this._hashConsLookupSame, 0, 55);
+        add(accessor);
+        add(this._hashConsLookupSame, 65, 73);
+        add(subIndex);
+        add(this._hashConsLookupSame, 83, 85);
+    }
+    final String _hashConsLookupSame = """
+            && org.rekex.parser.HashCons.same(hc_value.{accessor}(), arg_{subIndex})
+""";
+
+
+
+    public void hashConsLookupFooter()
+    {
+        add(this._hashConsLookupFooter, 0, 110);
+    }
+    final String _hashConsLookupFooter = """
+        )
+        {
+            state.obj = state.hashCons().hit(hc_value);
+            return pos;
+        }
+""";
+
+
+
+    public void instantiateHeader(Object TypeName)
+    {
+        add(this._instantiateHeader, 0, 9);
+        add(TypeName);
+        add(this._instantiateHeader, 19, 40);
+    }
+    final String _instantiateHeader = """
+
+        {TypeName} value;
+        try{
+""";
+
+
+
+    public void instantiateNewInstance(Object TypeName, Object args)
+    {
+        add(this._instantiateNewInstance, 0, 24);
+        add(TypeName);
+        add(this._instantiateNewInstance, 34, 35);
+        add(args);
+        add(this._instantiateNewInstance, 41, 44);
+    }
+    final String _instantiateNewInstance = """
+            value = new {TypeName}({args});
+""";
+
+
+
+    public void hashConsPut()
+    {
+        add(this._hashConsPut, 0, 59);
+    }
+    final String _hashConsPut = """
+            state.hashCons().put(hc_slot, hc_hash, value);
+""";
+
+
+
+    public void instantiateStaticMethod(Object TypeName, Object methodName, Object args)
+    {
+        add(this._instantiateStaticMethod, 0, 20);
+        add(TypeName);
+        add(this._instantiateStaticMethod, 30, 31);
+        add(methodName);
+        add(this._instantiateStaticMethod, 43, 44);
+        add(args);
+        add(this._instantiateStaticMethod, 50, 53);
+    }
+    final String _instantiateStaticMethod = """
+            value = {TypeName}.{methodName}({args});
+""";
+
+
+
+    public void instantiateInstanceMethod(Object methodName, Object args)
+    {
+        add(this._instantiateInstanceMethod, 0, 34);
+        add(methodName);
+        add(this._instantiateInstanceMethod, 46, 47);
+        add(args);
+        add(this._instantiateInstanceMethod, 53, 56);
+    }
+    final String _instantiateInstanceMethod = """
+            value = state.catalog.{methodName}({args});
+""";
+
+
+
+    public void instantiateEx1(Object RuntimeException, Object ruleId)
+    {
+        add(this._instantiateEx1, 0, 16);
+        add(RuntimeException);
+        add(this._instantiateEx1, 34, 104);
+        add(ruleId);
+        add(this._instantiateEx1, 112, 115);
+    }
+    final String _instantiateEx1 = """
+        }catch ({RuntimeException} ex){
+            return state.fail(start0, failReason_predicate, ex, {ruleId});
+""";
+
+
+
+    public void instantiateEx2()
+    {
+        add(this._instantiateEx2, 0, 74);
+    }
+    final String _instantiateEx2 = """
+        }catch(Exception ex){
+            throw new _FatalEx(start0, ex);
+""";
+
+
+
+    public void matchConcatFooter()
+    {
+        add(this._matchConcatFooter, 0, 10);
+    }
+    final String _matchConcatFooter = """
+        }
+""";
+
+
+
+    public void concatSourceMap()
+    {
+        add(this._concatSourceMap, 0, 87);
+    }
+    final String _concatSourceMap = """
+        if(state.sourceMap!=null)
+            state.sourceMap.put(value, start0, pos);
+""";
+
+
+
+    public void matchConcatFooter2(Object resultSlot)
+    {
+        add(this._matchConcatFooter2, 0, 14);
+        add(resultSlot);
+        add(this._matchConcatFooter2, 26, 63);
+    }
+    final String _matchConcatFooter2 = """
+        state.{resultSlot} = value;
+        return pos;
+    }
+
+""";
+
+
+
+    public void matchConcatPartCall(Object concatId, Object partId)
+    {
+        add(this._matchConcatPartCall, 0, 19);
+        add(concatId);
+        add(this._matchConcatPartCall, 29, 34);
+        add(partId);
+        add(this._matchConcatPartCall, 42, 113);
+    }
+    final String _matchConcatPartCall = """
+        pos = rule_{concatId}_part{partId}(state, pos, argArr, posArr);
+        if(pos<0)
+            return -1;
+""";
+
+
+
+    public void matchConcatArgFromArr(Object subIndex, Object subType)
+    {
+        add(this._matchConcatArgFromArr, 0, 8);
+        add(subType);
+        add(this._matchConcatArgFromArr, 17, 22);
+        add(subIndex);
+        add(this._matchConcatArgFromArr, 32, 36);
+        add(subType);
+        add(this._matchConcatArgFromArr, 45, 53);
+        add(subIndex);
+        add(this._matchConcatArgFromArr, 63, 66);
+    }
+    final String _matchConcatArgFromArr = """
+        {subType} arg_{subIndex} = ({subType})argArr[{subIndex}];
+""";
+
+
+
+    public void matchConcatPartHeader(Object concatId, Object partId)
+    {
+        add(this._matchConcatPartHeader, 0, 20);
+        add(concatId);
+        add(this._matchConcatPartHeader, 30, 35);
+        add(partId);
+        add(this._matchConcatPartHeader, 43, 120);
+    }
+    final String _matchConcatPartHeader = """
+    static int rule_{concatId}_part{partId}(_State state, int pos, Object[] argArr, int[] posArr) throws _FatalEx
+    {
+""";
+
+
+
+    public void matchConcatPartFooter()
+    {
+        add(this._matchConcatPartFooter, 0, 27);
+    }
+    final String _matchConcatPartFooter = """
+        return pos;
+    }
+
+""";
+
+
+
+    public void generic_array()
+    {
+        add(this._generic_array, 0, 80);
+    }
+    final String _generic_array = """
+    static <T> T[] generic_array(T... array)
+    {
+        return array;
+    }
+
+""";
+
+
+
+    public void match_repeat_obj(Object L1RuleId, Object datatypeStr, Object min, Object max, Object callSub)
+    {
+        add(this._match_repeat_obj, 0, 24);
+        add(datatypeStr);
+        add(this._match_repeat_obj, 37, 58);
+        add(L1RuleId);
+        add(this._match_repeat_obj, 68, 200);
+        add(max);
+        add(this._match_repeat_obj, 205, 244);
+        add(callSub);
+        add(this._match_repeat_obj, 253, 312);
+        add(min);
+        add(this._match_repeat_obj, 317, 504);
+        add(min);
+        add(this._match_repeat_obj, 509, 655);
+    }
+    final String _match_repeat_obj = """
+    // repeat rule for: {datatypeStr}
+    static int rule_{L1RuleId}(_State state, int start) throws _FatalEx
+    {
+        int base = state.objBufLen;
+        int pos = start;
+        for(int i=0; i<{max}; i++)
+        {
+            int end = {callSub};
+            if(end<0)
+            {
+                if(i<{min})
+                {
+                    state.objBufLen = base;
+                    return -1;
+                }
+                break; // enough elements
+            }
+            if(i>={min} && end==pos) // no progress, enough elements
+                break;
+            state.pushObj(state.pickObj());
+            pos = end;
+        }
+""";
+
+
+
+    public void match_repeat_obj_list()
+    {
+        add(this._match_repeat_obj_list, 0, 90);
+    }
+    final String _match_repeat_obj_list = """
+        state.obj = org.rekex.parser.CompactList.of(state.objBuf, base, state.objBufLen);
+""";
+
+
+
+    public void match_repeat_obj_array(Object CompoType)
+    {
+        add(this._match_repeat_obj_array, 0, 8);
+        add(CompoType);
+        add(this._match_repeat_obj_array, 19, 191);
+    }
+    final String _match_repeat_obj_array = """
+        {CompoType}[] array = java.util.Arrays.copyOf(generic_array(), state.objBufLen-base);
+        System.arraycopy(state.objBuf, base, array, 0, array.length);
+        state.obj = array;
+""";
+
+
+
+    public void match_repeat_obj_footer()
+    {
+        add(this._match_repeat_obj_footer, 0, 59);
+    }
+    final String _match_repeat_obj_footer = """
+        state.objBufLen = base;
+        return pos;
+    }
+
+""";
+
+
+
+    public void match_repeat_prim_array(Object L3RuleId, Object datatypeStr, Object CompoType)
+    {
+        add(this._match_repeat_prim_array, 0, 24);
+        add(datatypeStr);
+        add(this._match_repeat_prim_array, 37, 58);
+        add(L3RuleId);
+        add(this._match_repeat_prim_array, 68, 154);
+        add(CompoType);
+        add(this._match_repeat_prim_array, 165, 211);
+    }
+    final String _match_repeat_prim_array = """
+    // repeat rule for: {datatypeStr}
+    static int rule_{L3RuleId}(_State state, int start) throws _FatalEx
+    {
+        final int base = state.bufLen_{CompoType};
+        int pos = start;
+        int i = 0;
+""";
+
+
+
+    public void match_repeat_prim_scan(Object max, Object scan)
+    {
+        add(this._match_repeat_prim_scan, 0, 19);
+        add(scan);
+        add(this._match_repeat_prim_scan, 25, 79);
+        add(max);
+        add(this._match_repeat_prim_scan, 84, 218);
+    }
+    final String _match_repeat_prim_scan = """
+        int stop = {scan}(state.chars, pos, (int)Math.min(state.end, (long)pos+{max}));
+        for(int p=pos; p<stop; p++)
+            state.push_char(state.chars.charAt(p));
+        i = stop-pos;
+        pos = stop;
+""";
+
+
+
+    public void match_repeat_prim_loop(Object CompoType, Object min, Object max, Object callSub)
+    {
+        add(this._match_repeat_prim_loop, 0, 16);
+        add(max);
+        add(this._match_repeat_prim_loop, 21, 60);
+        add(callSub);
+        add(this._match_repeat_prim_loop, 69, 128);
+        add(min);
+        add(this._match_repeat_prim_loop, 133, 186);
+        add(CompoType);
+        add(this._match_repeat_prim_loop, 197, 329);
+        add(min);
+        add(this._match_repeat_prim_loop, 334, 426);
+        add(CompoType);
+        add(this._match_repeat_prim_loop, 437, 448);
+        add(CompoType);
+        add(this._match_repeat_prim_loop, 459, 525);
+        add(CompoType);
+        add(this._match_repeat_prim_loop, 536, 571);
+    }
+    final String _match_repeat_prim_loop = """
+        for(; i<{max}; i++)
+        {
+            int end = {callSub};
+            if(end<0)
+            {
+                if(i<{min})
+                {
+                    state.bufLen_{CompoType} = base;
+                    return -1;
+                }
+                break; // enough elements
+            }
+            if(i>={min} && end==pos) // no progress, enough elements
+                break;
+            state.push_{CompoType}(state.val_{CompoType});
+            pos = end;
+        }
+        state.obj = state.pop_{CompoType}(base);
+        return pos;
+    }
+
+""";
+
+
+
+    public void match_repeat_text(Object L4RuleId, Object datatypeStr)
+    {
+        add(this._match_repeat_text, 0, 24);
+        add(datatypeStr);
+        add(this._match_repeat_text, 37, 58);
+        add(L4RuleId);
+        add(this._match_repeat_text, 68, 247);
+    }
+    final String _match_repeat_text = """
+    // repeat rule for: {datatypeStr}
+    static int rule_{L4RuleId}(_State state, int start) throws _FatalEx
+    {
+        final StringBuilder text = state.text;
+        final int base = text.length();
+        int pos = start;
+        int i = 0;
+""";
+
+
+
+    public void match_repeat_text_scan(Object max, Object scan)
+    {
+        add(this._match_repeat_text_scan, 0, 19);
+        add(scan);
+        add(this._match_repeat_text_scan, 25, 79);
+        add(max);
+        add(this._match_repeat_text_scan, 84, 175);
+    }
+    final String _match_repeat_text_scan = """
+        int stop = {scan}(state.chars, pos, (int)Math.min(state.end, (long)pos+{max}));
+        text.append(state.chars, pos, stop);
+        i = stop-pos;
+        pos = stop;
+""";
+
+
+
+    public void match_repeat_text_loop(Object min, Object max, Object callSub)
+    {
+        add(this._match_repeat_text_loop, 0, 16);
+        add(max);
+        add(this._match_repeat_text_loop, 21, 60);
+        add(callSub);
+        add(this._match_repeat_text_loop, 69, 128);
+        add(min);
+        add(this._match_repeat_text_loop, 133, 318);
+        add(min);
+        add(this._match_repeat_text_loop, 323, 392);
+    }
+    final String _match_repeat_text_loop = """
+        for(; i<{max}; i++)
+        {
+            int end = {callSub};
+            if(end<0)
+            {
+                if(i<{min})
+                {
+                    text.setLength(base);
+                    return -1;
+                }
+                break; // enough elements
+            }
+            if(i>={min} && end==pos) // no progress, enough elements
+                break;
+""";
+
+
+
+    public void match_repeat_text_char()
+    {
+        add(this._match_repeat_text_char, 0, 41);
+    }
+    final String _match_repeat_text_char = """
+            text.append(state.val_char);
+""";
+
+
+
+    public void match_repeat_text_int()
+    {
+        add(this._match_repeat_text_int, 0, 49);
+    }
+    final String _match_repeat_text_int = """
+            text.appendCodePoint(state.val_int);
+""";
+
+
+
+    public void match_repeat_text_group()
+    {
+        add(this._match_repeat_text_group, 0, 64);
+    }
+    final String _match_repeat_text_group = """
+            text.append(state.chars, state.gStart, state.gEnd);
+""";
+
+
+
+    public void match_repeat_text_boxed_char()
+    {
+        add(this._match_repeat_text_boxed_char, 0, 65);
+    }
+    final String _match_repeat_text_boxed_char = """
+            text.append(state.<Character>pickObj().charValue());
+""";
+
+
+
+    public void match_repeat_text_boxed_int()
+    {
+        add(this._match_repeat_text_boxed_int, 0, 60);
+    }
+    final String _match_repeat_text_boxed_int = """
+            text.appendCodePoint(state.<Integer>pickObj());
+""";
+
+
+
+    public void match_repeat_text_obj()
+    {
+        add(this._match_repeat_text_obj, 0, 56);
+    }
+    final String _match_repeat_text_obj = """
+            text.append(state.<CharSequence>pickObj());
+""";
+
+
+
+    public void match_repeat_text_footer()
+    {
+        add(this._match_repeat_text_footer, 0, 159);
+    }
+    final String _match_repeat_text_footer = """
+            pos = end;
+        }
+        state.obj = new org.rekex.spec.Text<>(text.substring(base));
+        text.setLength(base);
+        return pos;
+    }
+
+""";
+
+
+
+    public void match_peek(Object peekId, Object datatypeStr, Object CompoType, Object callSub)
+    {
+        add(this._match_peek, 0, 22);
+        add(datatypeStr);
+        add(this._match_peek, 35, 56);
+        add(peekId);
+        add(this._match_peek, 64, 365);
+        add(callSub);
+        add(this._match_peek, 374, 633);
+        add(CompoType);
+        add(this._match_peek, 644, 738);
+    }
+    final String _match_peek = """
+    // peek rule for: {datatypeStr}
+    static int rule_{peekId}(_State state, int start) throws _FatalEx
+    {
+        int maxFailPos = state.maxFailPos;
+        int[] maxFailPath = state.maxFailPath;
+        int maxFailReason = state.maxFailReason;
+        Exception maxFailEx = state.maxFailEx;
+        int maxFailRuleId = state.maxFailRuleId;
+        int end = {callSub};
+        if(end<0)
+            return -1;
+        state.maxFailPos = maxFailPos;
+        state.maxFailPath = maxFailPath;
+        state.maxFailReason = maxFailReason;
+        state.maxFailEx = maxFailEx;
+        state.maxFailRuleId = maxFailRuleId;
+
+        {CompoType} value = state.pickObj();
+        state.obj = new Peek<>(value);
+        return start;
+    }
+
+""";
+
+
+
+    public void match_neg(Object negId, Object ruleId, Object datatypeStr, Object TypeName, Object callSub)
+    {
+        add(this._match_neg, 0, 21);
+        add(datatypeStr);
+        add(this._match_neg, 34, 55);
+        add(negId);
+        add(this._match_neg, 62, 363);
+        add(callSub);
+        add(this._match_neg, 372, 663);
+        add(TypeName);
+        add(this._match_neg, 673, 768);
+        add(ruleId);
+        add(this._match_neg, 776, 787);
+    }
+    final String _match_neg = """
+    // neg rule for: {datatypeStr}
+    static int rule_{negId}(_State state, int start) throws _FatalEx
+    {
+        int maxFailPos = state.maxFailPos;
+        int[] maxFailPath = state.maxFailPath;
+        int maxFailReason = state.maxFailReason;
+        Exception maxFailEx = state.maxFailEx;
+        int maxFailRuleId = state.maxFailRuleId;
+        int end = {callSub};
+        state.maxFailPos = maxFailPos;
+        state.maxFailPath = maxFailPath;
+        state.maxFailReason = maxFailReason;
+        state.maxFailEx = maxFailEx;
+        state.maxFailRuleId = maxFailRuleId;
+        state.obj = null;
+        if(end<0)
         {
-            var stack = pathToStack(state.maxFailPath, state.maxFailPath.length);
-            String msg = failMsg(state.maxFailReason, state.maxFailEx, _DatatypeList.list.get(state.maxFailRuleId));
-            return new ParseResult.Fail<>(state.maxFailPos, msg, state.maxFailEx, stack);
+            state.obj = new {TypeName}();
+            return start;
         }
+        return state.fail(start, failReason_neg, null, {ruleId});
     }
 
-    final static class _State implements Cloneable
-    {
-        {catalogClass} catalog;
-        CharSequence chars;
-        int start;
-        int end;
-
-        org.rekex.parser.InputInfo inputInfo;
 
-        boolean fail;
-        // if fail==false, match is success, obj is set (null is allowed)
-        Object obj;
+""";
 
-        int[] path = new int[64];
-        int pathLen = 0;
 
-        int maxFailPos = -1;
-        int[] maxFailPath;
-        int maxFailReason;
-        Exception maxFailEx;
-        int maxFailRuleId;
 
-        public _State clone()
-        {
-            try {
-                return (_State)super.clone();
-            } catch (CloneNotSupportedException e) {
-                throw new AssertionError(e);
-            }
-        }
+    public void match_lazy(Object lazyId, Object datatypeStr, Object subId, Object callRecog)
+    {
+        add(this._match_lazy, 0, 22);
+        add(datatypeStr);
+        add(this._match_lazy, 35, 56);
+        add(lazyId);
+        add(this._match_lazy, 64, 130);
+        add(callRecog);
+        add(this._match_lazy, 141, 216);
+        add(subId);
+        add(this._match_lazy, 223, 265);
+    }
+    final String _match_lazy = """
+    // lazy rule for: {datatypeStr}
+    static int rule_{lazyId}(_State state, int start) throws _FatalEx
+    {
+        int end = {callRecog};
+        if(end<0)
+            return -1;
+        state.obj = lazy(state, {subId}, start, end);
+        return end;
+    }
 
-        int gStart, gEnd; // tmp data buffer for regex
+""";
 
-        void pathPush(int ruleId, int subIndex)
-        {
-            if(pathLen+3 > path.length)
-                path = java.util.Arrays.copyOf(path, path.length+64);
-            path[pathLen++] = ruleId;
-            path[pathLen++] = this.start;
-            path[pathLen++] = subIndex;
-        }
-        void pathPop()
-        {
-            pathLen -= 3;
-        }
 
-        _State ok(Object obj)
-        {
-            this.fail = false;
-            this.obj = obj;
-            return this;
-        }
-        <T> T pickObj()
-        {
-            T t = (T)obj;
-            obj = null;
-            return t;
-        }
 
-        _State fail(int position, int reason, Exception ex, int ruleId, int startReset)
+    public void match_lazy_skip(Object lazyId2, Object datatypeStr, Object subId, Object openChar, Object wsTest, Object callRecog)
+    {
+        add(this._match_lazy_skip, 0, 22);
+        add(datatypeStr);
+        add(this._match_lazy_skip, 35, 163);
+        add(lazyId2);
+        add(this._match_lazy_skip, 172, 262);
+        add(openChar);
+        add(this._match_lazy_skip, 272, 422);
+        add(wsTest);
+        add(this._match_lazy_skip, 430, 611);
+        add(callRecog);
+        add(this._match_lazy_skip, 622, 715);
+        add(subId);
+        add(this._match_lazy_skip, 722, 764);
+    }
+    final String _match_lazy_skip = """
+    // lazy rule for: {datatypeStr}
+    // the region is a balanced bracket, skipped by the structural index; the content is checked on get().
+    static int rule_{lazyId2}(_State state, int start) throws _FatalEx
+    {
+        int end = state.index.skip(start, {openChar});
+        if(end>=0)
         {
-            if(position>maxFailPos)
+            while(end<state.end)
             {
-                maxFailPos = position;
-                maxFailPath = java.util.Arrays.copyOf(path, pathLen);
-                maxFailReason = reason;
-                maxFailEx = ex;
-                maxFailRuleId = ruleId;
+                char c = state.chars.charAt(end);
+                if(!({wsTest}))
+                    break;
+                end++;
             }
-            return fail(startReset);
         }
-        _State fail(int startReset)
+        else // not a balanced bracket by the index; the recognizer decides
         {
-            this.fail = true;
-            this.obj = null;
-            this.start = startReset;
-            return this;
+            end = {callRecog};
+            if(end<0)
+                return -1;
         }
-
+        state.obj = lazy(state, {subId}, start, end);
+        return end;
     }
-    static final int failReason_predicate = 0;   // info: Exception
-    static final int failReason_neg = 1;         // info: subrule ID
-    static final int failReason_regex = 2;
-    static final int failReason_regex_group = 3;
 
-    static String failMsg(int reason, Exception ex, org.rekex.annotype.AnnoType type)
+""";
+
+
+
+    public void regionHelper(Object catalogClass)
     {
-        String typeStr = type.toString(false);
-        return switch (reason){
-            case failReason_predicate
-                -> ex.getMessage()!=null ? ex.getMessage() : ex.toString();
-            case failReason_neg
-                -> typeStr + " failed; input matched subrule";
-            case failReason_regex
-                -> "Input does not match regex: "+typeStr;
-            case failReason_regex_group
-                -> "Input does not match regex group: "+typeStr;
-            default -> throw new AssertionError("unexpected reason: "+reason);
-        };
+        add(this._regionHelper, 0, 135);
+        add(catalogClass);
+        add(this._regionHelper, 149, 1303);
     }
-
-    static java.util.ArrayList<ParseResult.Node> pathToStack(int[] path, int pathLen)
+    final String _regionHelper = """
+    // parse a region recognized before into the value of the rule, on demand; for Lazy<T> and ParseTape
+    static Object parseRegion({catalogClass} catalog, String chars, int inputEnd, org.rekex.parser.InputInfo inputInfo,
+                              org.rekex.parser.StructuralIndex index, int ruleId, int start, int end, String what)
     {
-        java.util.ArrayList<ParseResult.Node> stack = new java.util.ArrayList<>(pathLen/2);
-        for(int i=pathLen-1; i>=0;)
+        _State state = new _State();
+        state.catalog = catalog;
+        state.chars = chars;
+        state.end = inputEnd; // lookaheads may go beyond the region
+        state.inputInfo = inputInfo;
+        state.index = index;
+        int pos;
+        try
         {
-            int _subIndex = path[i--];
-            int _start = path[i--];
-            int _ruleId = path[i--];
-            var datatype = _DatatypeList.list.get(_ruleId);
-            stack.add(new ParseResult.Node(datatype, _start, _subIndex));
+            pos = match(ruleId, state, start, -1);
         }
-        return stack;
+        catch (_FatalEx fatalEx)
+        {
+            throw new IllegalStateException(what+": fatal error at position "+fatalEx.position, fatalEx.cause);
+        }
+        if(pos<0)
+            throw new IllegalStateException("%s: failed at position %d: %s".formatted(what, state.maxFailPos,
+                failMsg(state.maxFailReason, state.maxFailEx, _DatatypeList.list.get(state.maxFailRuleId))),
+                state.maxFailEx);
+        if(pos!=end)
+            throw new IllegalStateException("%s: matched [%d,%d) instead of [%d,%d)".formatted(what, start, pos, start, end));
+        return state.pickObj();
     }
 
-    static class _FatalEx extends Exception
+""";
+
+
+
+    public void lazyHelper()
     {
-        final int position;
-        final Exception cause;
-        _FatalEx(int position, Exception cause)
-        {
-            super(null, null, false, false);
-            this.position = position;
-            this.cause = cause;
-        }
+        add(this._lazyHelper, 0, 489);
+    }
+    final String _lazyHelper = """
+    // parse the region recognized by a Lazy rule, on demand
+    static <T> org.rekex.spec.Lazy<T> lazy(_State state, int ruleId, int start, int end)
+    {
+        var catalog = state.catalog;
+        var chars = state.chars;
+        var inputEnd = state.end;
+        var inputInfo = state.inputInfo;
+        var index = state.index;
+        return new org.rekex.spec.Lazy<>(()->
+            (T)parseRegion(catalog, chars, inputEnd, inputInfo, index, ruleId, start, end, "Lazy"));
     }
 
-    // = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
-    // rules
-    // = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
 
 """;
 
 
 
-    public void matchAnyRuleIdHeader()
+    public void recogConcatHeader(Object recogId, Object datatypeStr)
     {
-        add(this._matchAnyRuleIdHeader, 0, 160);
+        add(this._recogConcatHeader, 0, 23);
+        add(datatypeStr);
+        add(this._recogConcatHeader, 36, 58);
+        add(recogId);
+        add(this._recogConcatHeader, 67, 140);
     }
-    final String _matchAnyRuleIdHeader = """
-    static _State match(int ruleId, _State state, int subIndex) throws _FatalEx
+    final String _recogConcatHeader = """
+    // recognizer for: {datatypeStr}
+    static int recog_{recogId}(_State state, int start) throws _FatalEx
     {
-        state.pathPush(ruleId, subIndex);
-        state = switch(ruleId){
+        int pos = start;
 """;
 
 
 
-    public void matchAnyRuleIdCase(Object RULE_ID, Object ruleDesc)
+    public void recogConcatSub(Object callRecog)
     {
-        add(this._matchAnyRuleIdCase, 0, 17);
-        add(RULE_ID);
-        add(this._matchAnyRuleIdCase, 26, 35);
-        add(RULE_ID);
-        add(this._matchAnyRuleIdCase, 44, 56);
-        add(ruleDesc);
-        add(this._matchAnyRuleIdCase, 66, 67);
+        add(this._recogConcatSub, 0, 14);
+        add(callRecog);
+        add(this._recogConcatSub, 25, 68);
     }
-    final String _matchAnyRuleIdCase = """
-            case {RULE_ID} -> rule_{RULE_ID}(state); // {ruleDesc}
+    final String _recogConcatSub = """
+        pos = {callRecog};
+        if(pos<0)
+            return -1;
 """;
 
 
 
-    public void matchAnyRuleIdFooter()
+    public void recogConcatFooter()
     {
-        add(this._matchAnyRuleIdFooter, 0, 141);
+        add(this._recogConcatFooter, 0, 27);
     }
-    final String _matchAnyRuleIdFooter = """
-            default -> throw new AssertionError("unknown ruleId: "+ruleId);
-        };
-        state.pathPop();
-        return state;
+    final String _recogConcatFooter = """
+        return pos;
     }
 
 """;
 
 
 
-    public void matchAltHeader(Object altId, Object datatypeStr)
+    public void recogAltHeader(Object recogId2, Object datatypeStr)
     {
-        add(this._matchAltHeader, 0, 21);
+        add(this._recogAltHeader, 0, 23);
         add(datatypeStr);
-        add(this._matchAltHeader, 34, 58);
-        add(altId);
-        add(this._matchAltHeader, 65, 102);
+        add(this._recogAltHeader, 36, 58);
+        add(recogId2);
+        add(this._recogAltHeader, 68, 133);
     }
-    final String _matchAltHeader = """
-    // alt rule for: {datatypeStr}
-    static _State rule_{altId}(_State state) throws _FatalEx
+    final String _recogAltHeader = """
+    // recognizer for: {datatypeStr}
+    static int recog_{recogId2}(_State state, int start) throws _FatalEx
     {
+        int end;
 """;
 
 
 
-    public void matchAltSubRule(Object subId, Object subIndex, Object subDesc)
+    public void recogAltSub(Object callRecog)
     {
-        add(this._matchAltSubRule, 0, 22);
-        add(subId);
-        add(this._matchAltSubRule, 29, 38);
-        add(subIndex);
-        add(this._matchAltSubRule, 48, 54);
-        add(subDesc);
-        add(this._matchAltSubRule, 63, 115);
+        add(this._recogAltSub, 0, 16);
+        add(callRecog);
+        add(this._recogAltSub, 27, 57);
     }
-    final String _matchAltSubRule = """
-        state = match({subId}, state, {subIndex}); // {subDesc}
-        if(!state.fail)
-            return state;
-
+    final String _recogAltSub = """
+        if((end={callRecog})>=0)
+            return end;
 """;
 
 
 
-    public void matchAltFooter()
+    public void recogAltFooter()
     {
-        add(this._matchAltFooter, 0, 30);
+        add(this._recogAltFooter, 0, 26);
     }
-    final String _matchAltFooter = """
-        return state;
+    final String _recogAltFooter = """
+        return -1;
     }
 
-
 """;
 
 
 
-    public void matchConcatHeader(Object concatId, Object datatypeStr)
+    public void recogRepeat(Object recogId3, Object datatypeStr, Object min, Object max, Object callRecog)
     {
-        add(this._matchConcatHeader, 0, 24);
+        add(this._recogRepeat, 0, 23);
         add(datatypeStr);
-        add(this._matchConcatHeader, 37, 61);
-        add(concatId);
-        add(this._matchConcatHeader, 71, 148);
+        add(this._recogRepeat, 36, 58);
+        add(recogId3);
+        add(this._recogRepeat, 68, 164);
+        add(max);
+        add(this._recogRepeat, 169, 208);
+        add(callRecog);
+        add(this._recogRepeat, 219, 278);
+        add(min);
+        add(this._recogRepeat, 283, 390);
+        add(min);
+        add(this._recogRepeat, 395, 524);
     }
-    final String _matchConcatHeader = """
-    // concat rule for: {datatypeStr}
-    static _State rule_{concatId}(_State state) throws _FatalEx
+    final String _recogRepeat = """
+    // recognizer for: {datatypeStr}
+    static int recog_{recogId3}(_State state, int start) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start;
+        for(int i=0; i<{max}; i++)
+        {
+            int end = {callRecog};
+            if(end<0)
+            {
+                if(i<{min})
+                    return -1;
+                break; // enough elements
+            }
+            if(i>={min} && end==pos) // no progress, enough elements
+                break;
+            pos = end;
+        }
+        return pos;
+    }
+
 """;
 
 
 
-    public void initParseInfo(Object subCount)
+    public void recogRepeatTape(Object recogId7, Object datatypeStr, Object min, Object max, Object callRecog)
     {
-        add(this._initParseInfo, 0, 37);
-        add(subCount);
-        add(this._initParseInfo, 47, 81);
-        add(subCount);
-        add(this._initParseInfo, 91, 124);
+        add(this._recogRepeatTape, 0, 23);
+        add(datatypeStr);
+        add(this._recogRepeatTape, 36, 135);
+        add(recogId7);
+        add(this._recogRepeatTape, 145, 241);
+        add(max);
+        add(this._recogRepeatTape, 246, 323);
+        add(callRecog);
+        add(this._recogRepeatTape, 334, 393);
+        add(min);
+        add(this._recogRepeatTape, 398, 505);
+        add(min);
+        add(this._recogRepeatTape, 510, 704);
     }
-    final String _initParseInfo = """
-        Object[] argArr = new Object[{subCount}];
-        int[] posArr = new int[{subCount}+1];
-        posArr[0] = start0;
+    final String _recogRepeatTape = """
+    // recognizer for: {datatypeStr}; the node of an element without progress is removed, as it's not in the list
+    static int recog_{recogId7}(_State state, int start) throws _FatalEx
+    {
+        int pos = start;
+        for(int i=0; i<{max}; i++)
+        {
+            int mark = state.tapeLen;
+            int end = {callRecog};
+            if(end<0)
+            {
+                if(i<{min})
+                    return -1;
+                break; // enough elements
+            }
+            if(i>={min} && end==pos) // no progress, enough elements
+            {
+                state.tapeCut(mark);
+                break;
+            }
+            pos = end;
+        }
+        return pos;
+    }
+
 """;
 
 
 
-    public void matchConcatSubRule(Object subIndex, Object subId, Object subType, Object subDesc)
+    public void recogPeek(Object recogId4, Object datatypeStr, Object callRecog)
     {
-        add(this._matchConcatSubRule, 0, 23);
-        add(subId);
-        add(this._matchConcatSubRule, 30, 39);
-        add(subIndex);
-        add(this._matchConcatSubRule, 49, 59);
-        add(subIndex);
-        add(this._matchConcatSubRule, 69, 71);
-        add(subDesc);
-        add(this._matchConcatSubRule, 80, 151);
-        add(subType);
-        add(this._matchConcatSubRule, 160, 165);
-        add(subIndex);
-        add(this._matchConcatSubRule, 175, 195);
+        add(this._recogPeek, 0, 23);
+        add(datatypeStr);
+        add(this._recogPeek, 36, 58);
+        add(recogId4);
+        add(this._recogPeek, 68, 369);
+        add(callRecog);
+        add(this._recogPeek, 380, 659);
+    }
+    final String _recogPeek = """
+    // recognizer for: {datatypeStr}
+    static int recog_{recogId4}(_State state, int start) throws _FatalEx
+    {
+        int maxFailPos = state.maxFailPos;
+        int[] maxFailPath = state.maxFailPath;
+        int maxFailReason = state.maxFailReason;
+        Exception maxFailEx = state.maxFailEx;
+        int maxFailRuleId = state.maxFailRuleId;
+        int end = {callRecog};
+        if(end<0)
+            return -1;
+        state.maxFailPos = maxFailPos;
+        state.maxFailPath = maxFailPath;
+        state.maxFailReason = maxFailReason;
+        state.maxFailEx = maxFailEx;
+        state.maxFailRuleId = maxFailRuleId;
+        return start;
     }
-    final String _matchConcatSubRule = """
 
-        state = match({subId}, state, {subIndex}); // arg_{subIndex}: {subDesc}
-        if(state.fail)
-            return state.fail(start0);
-        {subType} arg_{subIndex} = state.pickObj();
 """;
 
 
 
-    public void matchParseInfo(Object subIndex2, Object ParseInfo)
+    public void recogNeg(Object recogId5, Object ruleId, Object datatypeStr, Object callRecog)
     {
-        add(this._matchParseInfo, 0, 9);
-        add(ParseInfo);
-        add(this._matchParseInfo, 20, 25);
-        add(subIndex2);
-        add(this._matchParseInfo, 36, 43);
-        add(ParseInfo);
-        add(this._matchParseInfo, 54, 89);
+        add(this._recogNeg, 0, 23);
+        add(datatypeStr);
+        add(this._recogNeg, 36, 58);
+        add(recogId5);
+        add(this._recogNeg, 68, 369);
+        add(callRecog);
+        add(this._recogNeg, 380, 688);
+        add(ruleId);
+        add(this._recogNeg, 696, 706);
+    }
+    final String _recogNeg = """
+    // recognizer for: {datatypeStr}
+    static int recog_{recogId5}(_State state, int start) throws _FatalEx
+    {
+        int maxFailPos = state.maxFailPos;
+        int[] maxFailPath = state.maxFailPath;
+        int maxFailReason = state.maxFailReason;
+        Exception maxFailEx = state.maxFailEx;
+        int maxFailRuleId = state.maxFailRuleId;
+        int end = {callRecog};
+        state.maxFailPos = maxFailPos;
+        state.maxFailPath = maxFailPath;
+        state.maxFailReason = maxFailReason;
+        state.maxFailEx = maxFailEx;
+        state.maxFailRuleId = maxFailRuleId;
+        if(end<0)
+            return start;
+        return state.fail(start, failReason_neg, null, {ruleId});
     }
-    final String _matchParseInfo = """
 
-        {ParseInfo} arg_{subIndex2} = new {ParseInfo}(state.inputInfo, argArr, posArr);
 """;
 
 
 
-    public void concatSubRuleParseInfo(Object subIndex)
+    public void recogLazy(Object recogId6, Object datatypeStr, Object callRecog)
     {
-        add(this._concatSubRuleParseInfo, 0, 15);
-        add(subIndex);
-        add(this._concatSubRuleParseInfo, 25, 33);
-        add(subIndex);
-        add(this._concatSubRuleParseInfo, 43, 60);
-        add(subIndex);
-        add(this._concatSubRuleParseInfo, 70, 89);
+        add(this._recogLazy, 0, 23);
+        add(datatypeStr);
+        add(this._recogLazy, 36, 58);
+        add(recogId6);
+        add(this._recogLazy, 68, 131);
+        add(callRecog);
+        add(this._recogLazy, 142, 152);
     }
-    final String _concatSubRuleParseInfo = """
-        argArr[{subIndex}] = arg_{subIndex};
-        posArr[{subIndex}+1] = state.start;
+    final String _recogLazy = """
+    // recognizer for: {datatypeStr}
+    static int recog_{recogId6}(_State state, int start) throws _FatalEx
+    {
+        return {callRecog};
+    }
+
+
 """;
 
 
 
-    public void instantiateHeader(Object TypeName)
+    public void tapeNode(Object tapeId, Object ruleId, Object datatypeStr, Object callRecog)
     {
-        add(this._instantiateHeader, 0, 9);
-        add(TypeName);
-        add(this._instantiateHeader, 19, 40);
+        add(this._tapeNode, 0, 22);
+        add(datatypeStr);
+        add(this._tapeNode, 35, 56);
+        add(tapeId);
+        add(this._tapeNode, 64, 146);
+        add(ruleId);
+        add(this._tapeNode, 154, 201);
+        add(callRecog);
+        add(this._tapeNode, 212, 222);
+    }
+    final String _tapeNode = """
+    // tape node for: {datatypeStr}
+    static int tape_{tapeId}(_State state, int start) throws _FatalEx
+    {
+        int node = state.tapeOpen({ruleId}, start);
+        return state.tapeClose(node, {callRecog});
     }
-    final String _instantiateHeader = """
 
-        {TypeName} value;
-        try{
 """;
 
 
 
-    public void instantiateNewInstance(Object TypeName, Object args)
+    public void tapeLookahead(Object tapeId2, Object ruleId, Object datatypeStr, Object callRecog)
     {
-        add(this._instantiateNewInstance, 0, 24);
-        add(TypeName);
-        add(this._instantiateNewInstance, 34, 35);
-        add(args);
-        add(this._instantiateNewInstance, 41, 44);
+        add(this._tapeLookahead, 0, 22);
+        add(datatypeStr);
+        add(this._tapeLookahead, 35, 83);
+        add(tapeId2);
+        add(this._tapeLookahead, 92, 174);
+        add(ruleId);
+        add(this._tapeLookahead, 182, 228);
+        add(callRecog);
+        add(this._tapeLookahead, 239, 248);
+    }
+    final String _tapeLookahead = """
+    // tape node for: {datatypeStr}; lookaheads leave no nodes
+    static int tape_{tapeId2}(_State state, int start) throws _FatalEx
+    {
+        int node = state.tapeOpen({ruleId}, start);
+        return state.tapeDrop(node, {callRecog});
     }
-    final String _instantiateNewInstance = """
-            value = new {TypeName}({args});
 """;
 
 
 
-    public void instantiateStaticMethod(Object TypeName, Object methodName, Object args)
+    public void match_regex()
     {
-        add(this._instantiateStaticMethod, 0, 20);
-        add(TypeName);
-        add(this._instantiateStaticMethod, 30, 31);
-        add(methodName);
-        add(this._instantiateStaticMethod, 43, 44);
-        add(args);
-        add(this._instantiateStaticMethod, 50, 53);
+        add(this._match_regex, 0, 595);
+    }
+    final String _match_regex = """
+    static int match_regex(_State state, int start, int ruleId, java.util.regex.Pattern pattern, int group)
+    {
+        var matcher = pattern.matcher(state.chars);
+        matcher.region(start, state.end);
+        boolean matched = matcher.lookingAt();
+        if(!matched)
+            return state.fail(start, failReason_regex, null, ruleId);
+
+        state.gStart = matcher.start(group);
+        state.gEnd = matcher.end(group);
+        if(state.gStart==-1)
+            return state.fail(start, failReason_regex_group, null, ruleId);
+
+        return matcher.end(0); // consume group 0
     }
-    final String _instantiateStaticMethod = """
-            value = {TypeName}.{methodName}({args});
 """;
 
 
 
-    public void instantiateInstanceMethod(Object methodName, Object args)
+    public void match_regex_str()
     {
-        add(this._instantiateInstanceMethod, 0, 34);
-        add(methodName);
-        add(this._instantiateInstanceMethod, 46, 47);
-        add(args);
-        add(this._instantiateInstanceMethod, 53, 56);
+        add(this._match_regex_str, 0, 196);
+    }
+    final String _match_regex_str = """
+    static int match_regex_str(_State state, int end)
+    {
+        if(end<0)
+            return -1;
+        state.obj = state.chars.substring(state.gStart, state.gEnd);
+        return end;
     }
-    final String _instantiateInstanceMethod = """
-            value = state.catalog.{methodName}({args});
 """;
 
 
 
-    public void instantiateEx1(Object RuntimeException, Object ruleId)
+    public void match_regex_str_interned()
     {
-        add(this._instantiateEx1, 0, 16);
-        add(RuntimeException);
-        add(this._instantiateEx1, 34, 104);
-        add(ruleId);
-        add(this._instantiateEx1, 112, 123);
+        add(this._match_regex_str_interned, 0, 196);
+    }
+    final String _match_regex_str_interned = """
+    static int match_regex_str_interned(_State state, int end)
+    {
+        if(end<0)
+            return -1;
+        state.obj = state.intern(state.gStart, state.gEnd);
+        return end;
     }
-    final String _instantiateEx1 = """
-        }catch ({RuntimeException} ex){
-            return state.fail(start0, failReason_predicate, ex, {ruleId}, start0);
 """;
 
 
 
-    public void instantiateEx2()
+    public void match_regex_slice()
     {
-        add(this._instantiateEx2, 0, 74);
+        add(this._match_regex_slice, 0, 218);
+    }
+    final String _match_regex_slice = """
+    static int match_regex_slice(_State state, int end)
+    {
+        if(end<0)
+            return -1;
+        state.obj = new org.rekex.spec.TextSlice(state.chars, state.gStart, state.gEnd);
+        return end;
     }
-    final String _instantiateEx2 = """
-        }catch(Exception ex){
-            throw new _FatalEx(start0, ex);
 """;
 
 
 
-    public void matchConcatFooter()
+    public void match_regex_char()
     {
-        add(this._matchConcatFooter, 0, 49);
+        add(this._match_regex_char, 0, 660);
     }
-    final String _matchConcatFooter = """
+    final String _match_regex_char = """
+    static int match_regex_char(_State state, int end, int ruleId) throws _FatalEx
+    {
+        end = match_regex_int(state, end, ruleId);
+        if(end<0)
+            return -1;
+        int x = state.val_int;
+        if(x>0xFFFF)
+        {
+            // programming mistake in the regex, or an unexpected input
+            String msg = "expected to match exactly 1 char; matched=%s, start=%s, end=%s, rule=%s"
+                .formatted(Integer.toHexString(x), state.gStart, state.gEnd, _DatatypeList.list.get(ruleId));
+            throw new _FatalEx(state.gStart, new Exception(msg));
         }
-        return state.ok(value);
+        state.val_char = (char)x;
+        return end;
     }
-
 """;
 
 
 
-    public void generic_array()
+    public void match_regex_int()
     {
-        add(this._generic_array, 0, 80);
+        add(this._match_regex_int, 0, 1006);
     }
-    final String _generic_array = """
-    static <T> T[] generic_array(T... array)
+    final String _match_regex_int = """
+    static int match_regex_int(_State state, int end, int ruleId) throws _FatalEx
     {
-        return array;
+        if(end<0)
+            return -1;
+        String chars = state.chars;
+        int gStart = state.gStart, gEnd = state.gEnd;
+        if(gEnd-gStart==1 && !Character.isSurrogate(chars.charAt(gStart))) // common case
+        {
+            state.val_int = chars.charAt(gStart);
+            return end;
+        }
+        int count = chars.codePointCount(gStart, gEnd);
+        if(count==1)
+        {
+            int code = chars.codePointAt(gStart);
+            if(Character.charCount(code)==gEnd-gStart) // could it fail?
+            {
+                state.val_int = code;
+                return end;
+            }
+        }
+        // programming mistake in the regex, or an unexpected input
+        String msg = "expected to match exactly 1 code point; start=%s, end=%s, rule=%s"
+            .formatted(gStart, gEnd, _DatatypeList.list.get(ruleId));
+        throw new _FatalEx(gStart, new Exception(msg));
     }
-
 """;
 
 
 
-    public void match_repeat()
+    public void match_regex_long()
     {
-        add(this._match_repeat, 0, 737);
+        add(this._match_regex_long, 0, 447);
     }
-    final String _match_repeat = """
-    static _State match_repeat(_State state, int ruleId, int subRuleId, int min, int max) throws _FatalEx
+    final String _match_regex_long = """
+    static int match_regex_long(_State state, int end) throws _FatalEx
     {
-        final int start0 = state.start;
-        java.util.ArrayList<Object> list = new java.util.ArrayList<>(Math.max(min, Math.min(10, max)));
-        for(int i=0; i<max; i++)
+        if(end<0)
+            return -1;
+        try
         {
-            final int start1 = state.start;
-            state = match(subRuleId, state, i);
-            if(i<min && state.fail)
-                return state.fail(start0);
-            if(i>=min && state.fail) // enough elements
-                break;
-            if(i>=min && start1==state.start) // no progress, enough elements
-                break;
-            list.add(state.pickObj());
+            state.val_long = Long.parseLong(state.chars, state.gStart, state.gEnd, 10);
+        }
+        catch (NumberFormatException ex)
+        {
+            // programming mistake in the regex, or an unexpected input
+            throw new _FatalEx(state.gStart, ex);
         }
-        return state.ok(list);
+        return end;
     }
-
 """;
 
 
 
-    public void match_repeat_list(Object ruleId, Object L1RuleId, Object datatypeStr, Object subId, Object CompoType, Object min, Object max)
+    public void match_regex_double()
     {
-        add(this._match_repeat_list, 0, 24);
-        add(datatypeStr);
-        add(this._match_repeat_list, 37, 61);
-        add(L1RuleId);
-        add(this._match_repeat_list, 71, 144);
-        add(ruleId);
-        add(this._match_repeat_list, 152, 154);
-        add(subId);
-        add(this._match_repeat_list, 161, 163);
-        add(min);
-        add(this._match_repeat_list, 168, 170);
-        add(max);
-        add(this._match_repeat_list, 175, 255);
-        add(CompoType);
-        add(this._match_repeat_list, 266, 357);
+        add(this._match_regex_double, 0, 1044);
     }
-    final String _match_repeat_list = """
-    // repeat rule for: {datatypeStr}
-    static _State rule_{L1RuleId}(_State state) throws _FatalEx
+    final String _match_regex_double = """
+    static final double[] DOUBLE_POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    static int match_regex_double(_State state, int end) throws _FatalEx
     {
-        state = match_repeat(state, {ruleId}, {subId}, {min}, {max});
-        if(state.fail)
-            return state;
-        java.util.ArrayList<{CompoType}> list = state.pickObj();
-        list.trimToSize();
-        return state.ok(list);
+        if(end<0)
+            return -1;
+        if(scan_decimal(state, state.gStart, state.gEnd)
+            && state.decUnscaled < (1L<<53) && state.decScale>=-22 && state.decScale<=22)
+        {
+            double x = state.decUnscaled;
+            x = state.decScale<=0 ? x*DOUBLE_POW10[-state.decScale] : x/DOUBLE_POW10[state.decScale];
+            state.val_double = state.decNegative ? -x : x;
+            return end;
+        }
+        try
+        {
+            state.val_double = Double.parseDouble(state.chars.substring(state.gStart, state.gEnd));
+        }
+        catch (NumberFormatException ex)
+        {
+            // programming mistake in the regex, or an unexpected input
+            throw new _FatalEx(state.gStart, ex);
+        }
+        return end;
     }
-
 """;
 
 
 
-    public void match_repeat_obj_array(Object ruleId, Object L2RuleId, Object datatypeStr, Object subId, Object CompoType, Object min, Object max)
+    public void match_regex_BigDecimal()
     {
-        add(this._match_repeat_obj_array, 0, 24);
-        add(datatypeStr);
-        add(this._match_repeat_obj_array, 37, 61);
-        add(L2RuleId);
-        add(this._match_repeat_obj_array, 71, 144);
-        add(ruleId);
-        add(this._match_repeat_obj_array, 152, 154);
-        add(subId);
-        add(this._match_repeat_obj_array, 161, 163);
-        add(min);
-        add(this._match_repeat_obj_array, 168, 170);
-        add(max);
-        add(this._match_repeat_obj_array, 175, 255);
-        add(CompoType);
-        add(this._match_repeat_obj_array, 266, 300);
-        add(CompoType);
-        add(this._match_repeat_obj_array, 311, 392);
+        add(this._match_regex_BigDecimal, 0, 704);
     }
-    final String _match_repeat_obj_array = """
-    // repeat rule for: {datatypeStr}
-    static _State rule_{L2RuleId}(_State state) throws _FatalEx
+    final String _match_regex_BigDecimal = """
+    static int match_regex_BigDecimal(_State state, int end) throws _FatalEx
     {
-        state = match_repeat(state, {ruleId}, {subId}, {min}, {max});
-        if(state.fail)
-            return state;
-        java.util.ArrayList<{CompoType}> list = state.pickObj();
-        {CompoType}[] array = list.toArray(generic_array());
-        return state.ok(array);
+        if(end<0)
+            return -1;
+        if(scan_decimal(state, state.gStart, state.gEnd))
+        {
+            long m = state.decUnscaled;
+            state.obj = java.math.BigDecimal.valueOf(state.decNegative ? -m : m, state.decScale);
+            return end;
+        }
+        try
+        {
+            state.obj = new java.math.BigDecimal(state.chars.substring(state.gStart, state.gEnd));
+        }
+        catch (NumberFormatException ex)
+        {
+            // programming mistake in the regex, or an unexpected input
+            throw new _FatalEx(state.gStart, ex);
+        }
+        return end;
     }
-
 """;
 
 
 
-    public void match_repeat_prim_array(Object ruleId, Object L3RuleId, Object datatypeStr, Object subId, Object CompoType, Object min, Object max, Object BoxedCompoType)
+    public void scan_decimal()
     {
-        add(this._match_repeat_prim_array, 0, 24);
-        add(datatypeStr);
-        add(this._match_repeat_prim_array, 37, 61);
-        add(L3RuleId);
-        add(this._match_repeat_prim_array, 71, 144);
-        add(ruleId);
-        add(this._match_repeat_prim_array, 152, 154);
-        add(subId);
-        add(this._match_repeat_prim_array, 161, 163);
-        add(min);
-        add(this._match_repeat_prim_array, 168, 170);
-        add(max);
-        add(this._match_repeat_prim_array, 175, 255);
-        add(BoxedCompoType);
-        add(this._match_repeat_prim_array, 271, 305);
-        add(CompoType);
-        add(this._match_repeat_prim_array, 316, 331);
-        add(CompoType);
-        add(this._match_repeat_prim_array, 342, 473);
+        add(this._scan_decimal, 0, 1772);
     }
-    final String _match_repeat_prim_array = """
-    // repeat rule for: {datatypeStr}
-    static _State rule_{L3RuleId}(_State state) throws _FatalEx
+    final String _scan_decimal = """
+    static boolean scan_decimal(_State state, int start, int end)
     {
-        state = match_repeat(state, {ruleId}, {subId}, {min}, {max});
-        if(state.fail)
-            return state;
-        java.util.ArrayList<{BoxedCompoType}> list = state.pickObj();
-        {CompoType}[] array = new {CompoType}[list.size()];
-        for(int i=0; i<list.size(); i++)
-            array[i] = list.get(i);
-        return state.ok(array);
+        String chars = state.chars;
+        int i = start;
+        boolean negative = false;
+        if(i<end && (chars.charAt(i)=='-' || chars.charAt(i)=='+'))
+            negative = chars.charAt(i++)=='-';
+        long m = 0;
+        int digits = 0, sigDigits = 0, scale = 0;
+        boolean dot = false;
+        for(; i<end; i++)
+        {
+            char c = chars.charAt(i);
+            if(c=='.' && !dot)
+            {
+                dot = true;
+                continue;
+            }
+            if(c<'0' || c>'9')
+                break;
+            digits++;
+            if(dot)
+                scale++;
+            if(m==0 && c=='0') // leading zero
+                continue;
+            if(++sigDigits>18)
+                return false;
+            m = m*10 + (c-'0');
+        }
+        if(digits==0)
+            return false;
+        if(i<end && (chars.charAt(i)=='e' || chars.charAt(i)=='E'))
+        {
+            i++;
+            boolean expNegative = false;
+            if(i<end && (chars.charAt(i)=='-' || chars.charAt(i)=='+'))
+                expNegative = chars.charAt(i++)=='-';
+            int exp = 0, expDigits = 0;
+            for(; i<end; i++)
+            {
+                char c = chars.charAt(i);
+                if(c<'0' || c>'9')
+                    break;
+                if(++expDigits>9)
+                    return false;
+                exp = exp*10 + (c-'0');
+            }
+            if(expDigits==0)
+                return false;
+            scale += expNegative ? exp : -exp;
+        }
+        if(i!=end)
+            return false;
+        state.decUnscaled = m;
+        state.decScale = scale;
+        state.decNegative = negative;
+        return true;
     }
-
 """;
 
 
 
-    public void match_peek(Object peekId, Object datatypeStr, Object subId, Object CompoType)
+    public void match_regex_obj()
     {
-        add(this._match_peek, 0, 22);
-        add(datatypeStr);
-        add(this._match_peek, 35, 59);
-        add(peekId);
-        add(this._match_peek, 67, 168);
-        add(subId);
-        add(this._match_peek, 175, 250);
-        add(CompoType);
-        add(this._match_peek, 261, 340);
+        add(this._match_regex_obj, 0, 165);
     }
-    final String _match_peek = """
-    // peek rule for: {datatypeStr}
-    static _State rule_{peekId}(_State state1) throws _FatalEx
+    final String _match_regex_obj = """
+    static int match_regex_obj(_State state, int end, Object obj)
     {
-        _State state2 = state1.clone();
-        state2 = match({subId}, state2, -1);
-        if(state2.fail)
-            return state2;
-
-        {CompoType} value = state1.pickObj();
-        return state1.ok(new Peek<>(value));
+        if(end<0)
+            return -1;
+        state.obj = obj;
+        return end;
     }
 
 """;
 
 
 
-    public void match_neg(Object negId, Object ruleId, Object datatypeStr, Object TypeName, Object subId)
+    public void regexByPattern(Object P0ruleId, Object group)
     {
-        add(this._match_neg, 0, 21);
-        add(datatypeStr);
-        add(this._match_neg, 34, 58);
-        add(negId);
-        add(this._match_neg, 65, 166);
-        add(subId);
-        add(this._match_neg, 173, 245);
-        add(TypeName);
-        add(this._match_neg, 255, 323);
-        add(ruleId);
-        add(this._match_neg, 331, 356);
+        add(this._regexByPattern, 0, 21);
+        add(P0ruleId);
+        add(this._regexByPattern, 31, 104);
+        add(P0ruleId);
+        add(this._regexByPattern, 114, 124);
+        add(P0ruleId);
+        add(this._regexByPattern, 134, 136);
+        add(group);
+        add(this._regexByPattern, 143, 152);
     }
-    final String _match_neg = """
-    // neg rule for: {datatypeStr}
-    static _State rule_{negId}(_State state1) throws _FatalEx
+    final String _regexByPattern = """
+    static int regex_{P0ruleId}(_State state, int start)
     {
-        _State state2 = state1.clone();
-        state2 = match({subId}, state2, -1);
-        if(state2.fail)
-            return state1.ok(new {TypeName}());
-        return state1.fail(state1.start, failReason_neg, null, {ruleId}, state1.start);
+        return match_regex(state, start, {P0ruleId}, pattern_{P0ruleId}, {group});
     }
-
-
 """;
 
 
 
-    public void match_regex()
+    public void regexByCharTest(Object P1ruleId, Object test)
     {
-        add(this._match_regex, 0, 669);
+        add(this._regexByCharTest, 0, 21);
+        add(P1ruleId);
+        add(this._regexByCharTest, 31, 282);
+        add(P1ruleId);
+        add(this._regexByCharTest, 292, 302);
+        add(P1ruleId);
+        add(this._regexByCharTest, 312, 333);
+        add(test);
+        add(this._regexByCharTest, 339, 544);
+        add(P1ruleId);
+        add(this._regexByCharTest, 554, 563);
     }
-    final String _match_regex = """
-    static _State match_regex(_State state, int ruleId, java.util.regex.Pattern pattern, int group)
+    final String _regexByCharTest = """
+    static int regex_{P1ruleId}(_State state, int start)
     {
-        var matcher = pattern.matcher(state.chars);
-        matcher.region(state.start, state.end);
-        boolean matched = matcher.lookingAt();
-        if(!matched)
-            return state.fail(state.start, failReason_regex, null, ruleId, state.start);
-
-        state.gStart = matcher.start(group);
-        state.gEnd = matcher.end(group);
-        if(state.gStart==-1)
-            return state.fail(state.start, failReason_regex_group, null, ruleId, state.start);
-
-        state.start = matcher.end(0); // consume group 0
-        return state.ok(null);
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, {P1ruleId}, pattern_{P1ruleId}, 0);
+            if({test})
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, {P1ruleId});
     }
 """;
 
 
 
-    public void match_regex_str()
+    public void regexByLiteralsHeader(Object P2ruleId)
     {
-        add(this._match_regex_str, 0, 338);
+        add(this._regexByLiteralsHeader, 0, 21);
+        add(P2ruleId);
+        add(this._regexByLiteralsHeader, 31, 85);
     }
-    final String _match_regex_str = """
-    static _State match_regex_str(_State state, int ruleId, java.util.regex.Pattern pattern, int group)
+    final String _regexByLiteralsHeader = """
+    static int regex_{P2ruleId}(_State state, int start)
     {
-        state = match_regex(state, ruleId, pattern, group);
-        if(state.fail)
-            return state;
-        String str = state.chars.subSequence(state.gStart, state.gEnd).toString();
-        return state.ok(str);
-    }
+        int pos = -1;
 """;
 
 
 
-    public void match_regex_char()
+    public void regexByLiteral(Object literal, Object length)
     {
-        add(this._match_regex_char, 0, 723);
+        add(this._regexByLiteral, 0, 37);
+        add(length);
+        add(this._regexByLiteral, 45, 72);
+        add(literal);
+        add(this._regexByLiteral, 81, 115);
+        add(length);
+        add(this._regexByLiteral, 123, 125);
     }
-    final String _match_regex_char = """
-    static _State match_regex_char(_State state, int ruleId, java.util.regex.Pattern pattern, int group) throws _FatalEx
+    final String _regexByLiteral = """
+        if(pos<0 && state.end-start>={length} && state.chars.startsWith({literal}, start))
+            pos = start+{length};
+""";
+
+
+
+    public void regexByLiteralsFooter(Object P3ruleId)
     {
-        state = match_regex_int(state, ruleId, pattern, group);
-        if(state.fail)
-            return state;
-        Integer x = state.pickObj();
-        if(x>0xFFFF)
-        {
-            // programming mistake in the regex, or an unexpected input
-            String msg = "expected to match exactly 1 char; matched=%s, start=%s, end=%s, regex=%s"
-                .formatted(Integer.toHexString(x), state.gStart, state.gEnd, pattern.pattern());
-            throw new _FatalEx(state.gStart, new Exception(msg));
-        }
-        return state.ok(Character.valueOf((char)x.intValue()));
+        add(this._regexByLiteralsFooter, 0, 79);
+        add(P3ruleId);
+        add(this._regexByLiteralsFooter, 89, 174);
+    }
+    final String _regexByLiteralsFooter = """
+        if(pos<0)
+            return state.fail(start, failReason_regex, null, {P3ruleId});
+        state.gStart = start;
+        state.gEnd = pos;
+        return pos;
     }
 """;
 
 
 
-    public void match_regex_int()
+    public void regexByLiteralsWsFooter(Object P4ruleId, Object test)
     {
-        add(this._match_regex_int, 0, 853);
+        add(this._regexByLiteralsWsFooter, 0, 79);
+        add(P4ruleId);
+        add(this._regexByLiteralsWsFooter, 89, 373);
+        add(P4ruleId);
+        add(this._regexByLiteralsWsFooter, 383, 393);
+        add(P4ruleId);
+        add(this._regexByLiteralsWsFooter, 403, 426);
+        add(test);
+        add(this._regexByLiteralsWsFooter, 432, 494);
     }
-    final String _match_regex_int = """
-    static _State match_regex_int(_State state, int ruleId, java.util.regex.Pattern pattern, int group) throws _FatalEx
-    {
-        state = match_regex(state, ruleId, pattern, group);
-        if(state.fail)
-            return state;
-        int count = Character.codePointCount(state.chars, state.gStart, state.gEnd);
-        if(count==1)
+    final String _regexByLiteralsWsFooter = """
+        if(pos<0)
+            return state.fail(start, failReason_regex, null, {P4ruleId});
+        state.gStart = start;
+        state.gEnd = pos;
+        for(; pos<state.end; pos++)
         {
-            int code = Character.codePointAt(state.chars, state.gStart);
-            if(Character.charCount(code)==state.gEnd-state.gStart) // could it fail?
-                return state.ok(code);
+            char c = state.chars.charAt(pos);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, {P4ruleId}, pattern_{P4ruleId}, 1);
+            if(!({test}))
+                break;
         }
-        // programming mistake in the regex, or an unexpected input
-        String msg = "expected to match exactly 1 code point; start=%s, end=%s, regex=%s"
-            .formatted(state.gStart, state.gEnd, pattern.pattern());
-        throw new _FatalEx(state.gStart, new Exception(msg));
+        return pos;
     }
 """;
 
 
 
-    public void match_regex_obj()
+    public void tokenCached(Object T0ruleId)
     {
-        add(this._match_regex_obj, 0, 267);
+        add(this._tokenCached, 0, 21);
+        add(T0ruleId);
+        add(this._tokenCached, 31, 99);
+        add(T0ruleId);
+        add(this._tokenCached, 109, 181);
+        add(T0ruleId);
+        add(this._tokenCached, 191, 206);
+        add(T0ruleId);
+        add(this._tokenCached, 216, 259);
     }
-    final String _match_regex_obj = """
-    static _State match_regex_obj(_State state, int ruleId, java.util.regex.Pattern pattern, int group, Object obj)
+    final String _tokenCached = """
+    static int token_{T0ruleId}(_State state, int start)
     {
-        state = match_regex(state, ruleId, pattern, group);
-        if(state.fail)
-            return state;
-        return state.ok(obj);
+        int end = state.tokenLookup({T0ruleId}, start);
+        if(end==TOKEN_MISS)
+            end = state.tokenSave({T0ruleId}, start, regex_{T0ruleId}(state, start));
+        return end;
     }
 """;
 
 
 
-    public void matchRegexToVoid(Object ruleId, Object R0ruleId, Object datatypeStr, Object group)
+    public void matchRegexToVoid(Object R0ruleId, Object datatypeStr, Object callRegex)
     {
         add(this._matchRegexToVoid, 0, 23);
         add(datatypeStr);
-        add(this._matchRegexToVoid, 36, 60);
+        add(this._matchRegexToVoid, 36, 57);
         add(R0ruleId);
-        add(this._matchRegexToVoid, 70, 125);
-        add(ruleId);
-        add(this._matchRegexToVoid, 133, 143);
-        add(ruleId);
-        add(this._matchRegexToVoid, 151, 153);
-        add(group);
-        add(this._matchRegexToVoid, 160, 169);
+        add(this._matchRegexToVoid, 67, 140);
+        add(callRegex);
+        add(this._matchRegexToVoid, 151, 159);
     }
     final String _matchRegexToVoid = """
     // regex rule for: {datatypeStr}
-    static _State rule_{R0ruleId}(_State state)
+    static int rule_{R0ruleId}(_State state, int start)
     {
-        return match_regex(state, {ruleId}, pattern_{ruleId}, {group});
+        state.obj = null;
+        return {callRegex};
     }
 """;
 
 
 
-    public void matchRegexToStr(Object ruleId, Object R1ruleId, Object datatypeStr, Object group)
+    public void matchRegexToStr(Object R1ruleId, Object datatypeStr, Object regexToStr, Object callRegex)
     {
         add(this._matchRegexToStr, 0, 23);
         add(datatypeStr);
-        add(this._matchRegexToStr, 36, 60);
+        add(this._matchRegexToStr, 36, 57);
         add(R1ruleId);
-        add(this._matchRegexToStr, 70, 129);
-        add(ruleId);
-        add(this._matchRegexToStr, 137, 147);
-        add(ruleId);
-        add(this._matchRegexToStr, 155, 157);
-        add(group);
-        add(this._matchRegexToStr, 164, 173);
+        add(this._matchRegexToStr, 67, 114);
+        add(regexToStr);
+        add(this._matchRegexToStr, 126, 134);
+        add(callRegex);
+        add(this._matchRegexToStr, 145, 154);
     }
     final String _matchRegexToStr = """
     // regex rule for: {datatypeStr}
-    static _State rule_{R1ruleId}(_State state)
+    static int rule_{R1ruleId}(_State state, int start)
     {
-        return match_regex_str(state, {ruleId}, pattern_{ruleId}, {group});
+        return {regexToStr}(state, {callRegex});
     }
 """;
 
 
 
-    public void matchRegexToChar(Object ruleId, Object R2ruleId, Object datatypeStr, Object group)
+    public void matchRegexToChar(Object R2ruleId, Object datatypeStr, Object callRegex)
     {
         add(this._matchRegexToChar, 0, 23);
         add(datatypeStr);
-        add(this._matchRegexToChar, 36, 60);
+        add(this._matchRegexToChar, 36, 57);
         add(R2ruleId);
-        add(this._matchRegexToChar, 70, 146);
-        add(ruleId);
-        add(this._matchRegexToChar, 154, 164);
-        add(ruleId);
-        add(this._matchRegexToChar, 172, 174);
-        add(group);
-        add(this._matchRegexToChar, 181, 190);
+        add(this._matchRegexToChar, 67, 154);
+        add(callRegex);
+        add(this._matchRegexToChar, 165, 167);
+        add(R2ruleId);
+        add(this._matchRegexToChar, 177, 186);
     }
     final String _matchRegexToChar = """
     // regex rule for: {datatypeStr}
-    static _State rule_{R2ruleId}(_State state) throws _FatalEx
+    static int rule_{R2ruleId}(_State state, int start) throws _FatalEx
     {
-        return match_regex_char(state, {ruleId}, pattern_{ruleId}, {group});
+        return match_regex_char(state, {callRegex}, {R2ruleId});
     }
 """;
 
 
 
-    public void matchRegexToInt(Object ruleId, Object R3ruleId, Object datatypeStr, Object group)
+    public void matchRegexToInt(Object R3ruleId, Object datatypeStr, Object callRegex)
     {
         add(this._matchRegexToInt, 0, 23);
         add(datatypeStr);
-        add(this._matchRegexToInt, 36, 60);
+        add(this._matchRegexToInt, 36, 57);
         add(R3ruleId);
-        add(this._matchRegexToInt, 70, 145);
-        add(ruleId);
-        add(this._matchRegexToInt, 153, 163);
-        add(ruleId);
-        add(this._matchRegexToInt, 171, 173);
-        add(group);
-        add(this._matchRegexToInt, 180, 189);
+        add(this._matchRegexToInt, 67, 153);
+        add(callRegex);
+        add(this._matchRegexToInt, 164, 166);
+        add(R3ruleId);
+        add(this._matchRegexToInt, 176, 185);
     }
     final String _matchRegexToInt = """
     // regex rule for: {datatypeStr}
-    static _State rule_{R3ruleId}(_State state) throws _FatalEx
+    static int rule_{R3ruleId}(_State state, int start) throws _FatalEx
+    {
+        return match_regex_int(state, {callRegex}, {R3ruleId});
+    }
+""";
+
+
+
+    public void matchRegexToBoxed(Object R5ruleId, Object datatypeStr, Object regexToPrim, Object val_int, Object callRegex)
+    {
+        add(this._matchRegexToBoxed, 0, 23);
+        add(datatypeStr);
+        add(this._matchRegexToBoxed, 36, 57);
+        add(R5ruleId);
+        add(this._matchRegexToBoxed, 67, 133);
+        add(regexToPrim);
+        add(this._matchRegexToBoxed, 146, 154);
+        add(callRegex);
+        add(this._matchRegexToBoxed, 165, 167);
+        add(R5ruleId);
+        add(this._matchRegexToBoxed, 177, 229);
+        add(val_int);
+        add(this._matchRegexToBoxed, 238, 266);
+    }
+    final String _matchRegexToBoxed = """
+    // regex rule for: {datatypeStr}
+    static int rule_{R5ruleId}(_State state, int start) throws _FatalEx
+    {
+        int end = {regexToPrim}(state, {callRegex}, {R5ruleId});
+        if(end>=0)
+            state.obj = state.{val_int};
+        return end;
+    }
+""";
+
+
+
+    public void matchRegexToNum(Object R6ruleId, Object datatypeStr, Object regexToNum, Object callRegex)
+    {
+        add(this._matchRegexToNum, 0, 23);
+        add(datatypeStr);
+        add(this._matchRegexToNum, 36, 57);
+        add(R6ruleId);
+        add(this._matchRegexToNum, 67, 130);
+        add(regexToNum);
+        add(this._matchRegexToNum, 142, 150);
+        add(callRegex);
+        add(this._matchRegexToNum, 161, 170);
+    }
+    final String _matchRegexToNum = """
+    // regex rule for: {datatypeStr}
+    static int rule_{R6ruleId}(_State state, int start) throws _FatalEx
+    {
+        return {regexToNum}(state, {callRegex});
+    }
+""";
+
+
+
+    public void matchRegexToBoxedNum(Object R7ruleId, Object datatypeStr, Object regexToNum, Object val_long, Object callRegex)
+    {
+        add(this._matchRegexToBoxedNum, 0, 23);
+        add(datatypeStr);
+        add(this._matchRegexToBoxedNum, 36, 57);
+        add(R7ruleId);
+        add(this._matchRegexToBoxedNum, 67, 133);
+        add(regexToNum);
+        add(this._matchRegexToBoxedNum, 145, 153);
+        add(callRegex);
+        add(this._matchRegexToBoxedNum, 164, 216);
+        add(val_long);
+        add(this._matchRegexToBoxedNum, 226, 254);
+    }
+    final String _matchRegexToBoxedNum = """
+    // regex rule for: {datatypeStr}
+    static int rule_{R7ruleId}(_State state, int start) throws _FatalEx
     {
-        return match_regex_int(state, {ruleId}, pattern_{ruleId}, {group});
+        int end = {regexToNum}(state, {callRegex});
+        if(end>=0)
+            state.obj = state.{val_long};
+        return end;
     }
 """;
 
 
 
-    public void matchRegexToField(Object ruleId, Object R4ruleId, Object datatypeStr, Object group, Object TypeName, Object fieldName)
+    public void matchRegexToField(Object R4ruleId, Object datatypeStr, Object TypeName, Object fieldName, Object callRegex)
     {
         add(this._matchRegexToField, 0, 23);
         add(datatypeStr);
-        add(this._matchRegexToField, 36, 60);
+        add(this._matchRegexToField, 36, 57);
         add(R4ruleId);
-        add(this._matchRegexToField, 70, 129);
-        add(ruleId);
-        add(this._matchRegexToField, 137, 147);
-        add(ruleId);
-        add(this._matchRegexToField, 155, 157);
-        add(group);
-        add(this._matchRegexToField, 164, 166);
+        add(this._matchRegexToField, 67, 137);
+        add(callRegex);
+        add(this._matchRegexToField, 148, 150);
         add(TypeName);
-        add(this._matchRegexToField, 176, 177);
+        add(this._matchRegexToField, 160, 161);
         add(fieldName);
-        add(this._matchRegexToField, 188, 197);
+        add(this._matchRegexToField, 172, 181);
     }
     final String _matchRegexToField = """
     // regex rule for: {datatypeStr}
-    static _State rule_{R4ruleId}(_State state)
+    static int rule_{R4ruleId}(_State state, int start)
+    {
+        return match_regex_obj(state, {callRegex}, {TypeName}.{fieldName});
+    }
+""";
+
+
+
+    public void charScan(Object S1ruleId, Object test)
+    {
+        add(this._charScan, 0, 20);
+        add(S1ruleId);
+        add(this._charScan, 30, 194);
+        add(test);
+        add(this._charScan, 200, 300);
+    }
+    final String _charScan = """
+    static int scan_{S1ruleId}(String chars, int pos, int end)
+    {
+        for(; pos<end; pos++)
+        {
+            char c = chars.charAt(pos);
+            if(Character.isSurrogate(c) || !({test})) // code points are left to the caller
+                break;
+        }
+        return pos;
+    }
+""";
+
+
+
+    public void charScanIndexOf(Object S2ruleId, Object excluded)
+    {
+        add(this._charScanIndexOf, 0, 20);
+        add(S2ruleId);
+        add(this._charScanIndexOf, 30, 145);
+        add(excluded);
+        add(this._charScanIndexOf, 155, 271);
+        add(excluded);
+        add(this._charScanIndexOf, 281, 332);
+    }
+    final String _charScanIndexOf = """
+    static int scan_{S2ruleId}(String chars, int pos, int end)
+    {
+        if(end==chars.length())
+        {
+            int i = chars.indexOf({excluded}, pos);
+            return i<0 ? end : i;
+        }
+        for(; pos<end; pos++)
+            if(chars.charAt(pos)=={excluded})
+                break;
+        return pos;
+    }
+""";
+
+
+
+    public void regexByCharRun(Object P5ruleId, Object min)
     {
-        return match_regex_obj(state, {ruleId}, pattern_{ruleId}, {group}, {TypeName}.{fieldName});
+        add(this._regexByCharRun, 0, 21);
+        add(P5ruleId);
+        add(this._regexByCharRun, 31, 86);
+        add(P5ruleId);
+        add(this._regexByCharRun, 96, 293);
+        add(P5ruleId);
+        add(this._regexByCharRun, 303, 313);
+        add(P5ruleId);
+        add(this._regexByCharRun, 323, 350);
+        add(min);
+        add(this._regexByCharRun, 355, 418);
+        add(P5ruleId);
+        add(this._regexByCharRun, 428, 513);
+    }
+    final String _regexByCharRun = """
+    static int regex_{P5ruleId}(_State state, int start)
+    {
+        int pos = scan_{P5ruleId}(state.chars, start, state.end);
+        if(pos<state.end && Character.isSurrogate(state.chars.charAt(pos))) // code points are left to java.util.regex
+            return match_regex(state, start, {P5ruleId}, pattern_{P5ruleId}, 0);
+        if(pos-start<{min})
+            return state.fail(start, failReason_regex, null, {P5ruleId});
+        state.gStart = start;
+        state.gEnd = pos;
+        return pos;
     }
 """;
 
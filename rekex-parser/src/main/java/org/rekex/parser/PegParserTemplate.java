@@ -40,21 +40,94 @@ public class PegParserTemplate implements PegParser</*typeArg*/Void>
     {
         this.catalog = catalog;
     }
-    //** template fileHeader3(typeArg`/*typeArg*/Void`, catalogClass`TypeName`) + + + + + + + + + +
+    //** template fileHeader3(typeArg`/*typeArg*/Void`) + + + + + + + + + +
 
+    //** comment: input is always read as a String, so that charAt() and the regex engine
+    //** comment: see a single CharSequence class, regardless of what the callers pass in.
     @Override
     public ParseResult</*typeArg*/Void> parse(CharSequence chars, int start, int end)
     {
-        _State state = new _State();
+        String str = asString(chars, end);
+        return parse(str, start, end, new org.rekex.parser.InputInfo(chars, str, start, end), null);
+    }
+
+    //** comment: a String is used as is; otherwise only chars before `end` are copied, keeping positions.
+    static String asString(CharSequence chars, int end)
+    {
+        if(chars instanceof String str)
+            return str;
+        return chars.subSequence(0, end).toString();
+    }
+
+    @Override
+    public ParseResult</*typeArg*/Void> parse(char[] buf, int start, int end)
+    {
+        String str = new String(buf, 0, end); // keep positions
+        return parse(str, start, end, new org.rekex.parser.InputInfo(str, str, start, end), null);
+    }
+
+    @Override
+    public org.rekex.parser.ParseSession</*typeArg*/Void> newSession()
+    {
+        return new _Session();
+    }
+
+    //** comment: a session keeps one _State, and resets it before each parse.
+    final class _Session implements org.rekex.parser.ParseSession</*typeArg*/Void>
+    {
+        final _State state = new _State();
+
+        @Override
+        public ParseResult</*typeArg*/Void> parse(CharSequence chars, int start, int end)
+        {
+            state.reset(end);
+            String str = asString(chars, end);
+            return run(state, str, start, end, new org.rekex.parser.InputInfo(chars, str, start, end), null);
+        }
+    }
+
+    ParseResult</*typeArg*/Void> parse(String chars, int start, int end, org.rekex.parser.InputInfo inputInfo,
+                                       org.rekex.parser.SourceMap sourceMap)
+    {
+        return run(new _State(), chars, start, end, inputInfo, sourceMap);
+    }
+
+    ParseResult</*typeArg*/Void> run(_State state, String chars, int start, int end, org.rekex.parser.InputInfo inputInfo,
+                                     org.rekex.parser.SourceMap sourceMap)
+    {
+        var event = new org.rekex.parser.ParseEvent(); // JFR
+        event.begin();
         state.catalog = this.catalog;
         state.chars = chars;
-        state.start = start;
         state.end = end;
-        state.inputInfo = new org.rekex.parser.InputInfo(chars, start, end);
+        state.inputInfo = inputInfo;
+        state.sourceMap = sourceMap;
+        //** template parseIndex() + + + + + + + + + +
+        state.index = org.rekex.parser.StructuralIndex.build(chars, start, end, STRUCTURAL_SYNTAX);
+        //** template parseRuleStats() + + + + + + + + + +
+        state.ruleCounters = ruleCounters.forParse();
+        //** template parseRun() + + + + + + + + + +
+
+        var result = parse(state, start, end);
+        //** template parseCollectHashCons() + + + + + + + + + +
+        if(state.hashCons!=null)
+        {
+            hashConsLookups.add(state.hashCons.lookups());
+            hashConsHits.add(state.hashCons.hits());
+        }
+        //** template parseCollectRuleStats() + + + + + + + + + +
+        ruleCounters.add(state.ruleCounters);
+        //** template fileHeader4(typeArg`/*typeArg*/Void`, rootValue`state.pickObj()`) + + + + + + + + + +
+        event.finish(getClass(), start, end, result);
+        return result;
+    }
 
+    ParseResult</*typeArg*/Void> parse(_State state, int start, int end)
+    {
+        int pos;
         try
         {
-            state = match(rootTypeRuleId, state, -1);
+            pos = match(rootTypeRuleId, state, start, -1);
         }
         catch (_FatalEx fatalEx)
         {
@@ -62,13 +135,13 @@ public class PegParserTemplate implements PegParser</*typeArg*/Void>
             return new ParseResult.Fatal<>(fatalEx.position, fatalEx.cause, stack);
         }
 
-        if(!state.fail)
+        if(pos>=0)
         {
             /*typeArg*/Void obj = state.pickObj();
-            if(state.start==state.end)
+            if(pos==end)
                 return new ParseResult.Full<>(obj);
             else
-                return new ParseResult.Partial<>(obj, state.start);
+                return new ParseResult.Partial<>(obj, pos);
         }
         else
         {
@@ -78,20 +151,103 @@ public class PegParserTemplate implements PegParser</*typeArg*/Void>
         }
     }
 
+    //** template parserStatsHashCons() + + + + + + + + + +
+
+    final java.util.concurrent.atomic.LongAdder hashConsLookups = new java.util.concurrent.atomic.LongAdder();
+    final java.util.concurrent.atomic.LongAdder hashConsHits = new java.util.concurrent.atomic.LongAdder();
+    //** template parserRuleStats(rules`0001`, timing`false`) + + + + + + + + + +
+
+    // per-rule counts of all parses; each parse counts into its own RuleCounters first.
+    final org.rekex.parser.RuleCounters ruleCounters = new org.rekex.parser.RuleCounters(0001, false);
+    //** template parserStats(lookups`hashConsLookups.sum()`, hits`hashConsHits.sum()`, ruleList`ruleCounters.snapshot(_DatatypeList.list)`) + + + + + + + + + +
+
+    @Override
+    public org.rekex.parser.ParseStats stats()
+    {
+        return new org.rekex.parser.ParseStats(hashConsLookups.sum(), hashConsHits.sum(), ruleCounters.snapshot(_DatatypeList.list));
+    }
+    //** template parserIndexSyntax(syntax`null`) + + + + + + + + + +
+
+    static final org.rekex.parser.StructuralIndex.Syntax STRUCTURAL_SYNTAX = null;
+    //** template parseWithSourceMap(typeArg`/*typeArg*/Void`) + + + + + + + + + +
+
+    @Override
+    public ParseResult</*typeArg*/Void> parse(CharSequence chars, int start, int end, org.rekex.parser.SourceMap sourceMap)
+    {
+        sourceMap.clear();
+        String str = asString(chars, end);
+        var result = parse(str, start, end, new org.rekex.parser.InputInfo(chars, str, start, end), sourceMap);
+        if(!(result instanceof ParseResult.Full || result instanceof ParseResult.Partial))
+            sourceMap.clear();
+        return result;
+    }
+    //** template parseWithTrace(typeArg`/*typeArg*/Void`) + + + + + + + + + +
+
+    @Override
+    public ParseResult</*typeArg*/Void> parse(CharSequence chars, int start, int end, org.rekex.parser.ParseTrace trace)
+    {
+        trace.reset(_DatatypeList.list);
+        _State state = new _State();
+        state.trace = trace;
+        String str = asString(chars, end);
+        return run(state, str, start, end, new org.rekex.parser.InputInfo(chars, str, start, end), null);
+    }
+    //** template parseTapeHeader() + + + + + + + + + +
+
+    @Override
+    public ParseResult<org.rekex.parser.ParseTape> parseTape(CharSequence input, int start, int end)
+    {
+        String chars = asString(input, end);
+        _State state = new _State();
+        state.catalog = this.catalog;
+        state.chars = chars;
+        state.end = end;
+        state.inputInfo = new org.rekex.parser.InputInfo(input, chars, start, end);
+        //** template parseTapeRun(rootTape`tape_RULE_ID(state, start)`) + + + + + + + + + +
+        state.tape = new int[5*64];
+
+        int pos;
+        try
+        {
+            pos = tape_RULE_ID(state, start);
+        }
+        catch (_FatalEx fatalEx)
+        {
+            var stack = pathToStack(state.path, state.pathLen);
+            return new ParseResult.Fatal<>(fatalEx.position, fatalEx.cause, stack);
+        }
+        if(pos<0)
+        {
+            var stack = pathToStack(state.maxFailPath, state.maxFailPath.length);
+            String msg = failMsg(state.maxFailReason, state.maxFailEx, _DatatypeList.list.get(state.maxFailRuleId));
+            return new ParseResult.Fail<>(state.maxFailPos, msg, state.maxFailEx, stack);
+        }
+
+        var catalog = state.catalog;
+        var inputInfo = state.inputInfo;
+        var index = state.index;
+        var tape = new org.rekex.parser.ParseTape(chars, java.util.Arrays.copyOf(state.tape, state.tapeLen),
+            _DatatypeList.list, (ruleId, s, e)->parseRegion(catalog, chars, end, inputInfo, index, ruleId, s, e, "ParseTape"));
+        if(pos==end)
+            return new ParseResult.Full<>(tape);
+        else
+            return new ParseResult.Partial<>(tape, pos);
+    }
+    //** template stateHeader(catalogClass`TypeName`) + + + + + + + + + +
     //** comment "State" may collide with user type names; underscore ours.
-    final static class _State implements Cloneable
+    //** comment rule methods take a start position, and return the end position, or -1 for failure.
+    //** comment the value of a successful match is stored in `obj`, or in `val_X` if X is primitive.
+    final static class _State
     {
         TypeName catalog;
-        CharSequence chars;
-        int start;
+        String chars;
         int end;
 
         org.rekex.parser.InputInfo inputInfo;
+        org.rekex.parser.StructuralIndex index; // see PegParserBuilder.structuralIndex()
+        org.rekex.parser.SourceMap sourceMap; // see PegParserBuilder.sourceMap()
 
-        boolean fail;
-        // if fail==false, match is success, obj is set (null is allowed)
         Object obj;
-        //** comment: boxed/unboxed for primitive types; could be optimized for such cases
 
         int[] path = new int[64];
         int pathLen = 0;
@@ -102,38 +258,25 @@ public class PegParserTemplate implements PegParser</*typeArg*/Void>
         Exception maxFailEx;
         int maxFailRuleId;
 
-        public _State clone()
-        {
-            //** comment: mutable path is shared ! caller beware !
-            //** comment: maxFailPath is readonly; ok to share.
-            try {
-                return (_State)super.clone();
-            } catch (CloneNotSupportedException e) {
-                throw new AssertionError(e);
-            }
-        }
-
         int gStart, gEnd; // tmp data buffer for regex
+        int lastFailReason;
 
-        void pathPush(int ruleId, int subIndex)
+        //** comment: a call with path bookkeeping: pathPop(rule_N(state, pathPush(N, start, subIndex)))
+        int pathPush(int ruleId, int start, int subIndex)
         {
             if(pathLen+3 > path.length)
                 path = java.util.Arrays.copyOf(path, path.length+64);
             path[pathLen++] = ruleId;
-            path[pathLen++] = this.start;
+            path[pathLen++] = start;
             path[pathLen++] = subIndex;
+            return start;
         }
-        void pathPop()
+        int pathPop(int end)
         {
             pathLen -= 3;
+            return end;
         }
 
-        _State ok(Object obj)
-        {
-            this.fail = false;
-            this.obj = obj;
-            return this;
-        }
         <T> T pickObj()
         {
             T t = (T)obj;
@@ -141,8 +284,9 @@ public class PegParserTemplate implements PegParser</*typeArg*/Void>
             return t;
         }
 
-        _State fail(int position, int reason, Exception ex, int ruleId, int startReset)
+        int fail(int position, int reason, Exception ex, int ruleId)
         {
+            lastFailReason = reason;
             if(position>maxFailPos)
             {
                 maxFailPos = position;
@@ -151,15 +295,262 @@ public class PegParserTemplate implements PegParser</*typeArg*/Void>
                 maxFailEx = ex;
                 maxFailRuleId = ruleId;
             }
-            return fail(startReset);
+            return -1;
+        }
+
+        //** comment: token cache. results of terminal rules, keyed by (ruleId, start), so that
+        //** comment: terminals are not matched again when alternatives backtrack over the same input.
+        //** comment: direct-mapped; a colliding entry is simply replaced.
+        //** comment: each entry is [ruleId+1, start, end or ~failReason, gStart, gEnd]
+        int[] tokens;
+        int tokenMask;
+        int tokenSlot(int ruleId, int start)
+        {
+            if(tokens==null)
+            {
+                int slots = tokenSlots(end);
+                tokens = new int[5*slots];
+                tokenMask = slots-1;
+            }
+            int h = start*0x9E3779B1 + ruleId;
+            return 5*((h^(h>>>16)) & tokenMask);
         }
-        _State fail(int startReset)
+        static int tokenSlots(int end)
         {
-            this.fail = true;
-            this.obj = null;
-            this.start = startReset;
-            return this;
+            return Math.min(1<<14, Integer.highestOneBit(Math.max(16, end))*2);
         }
+        int tokenLookup(int ruleId, int start)
+        {
+            int i = tokenSlot(ruleId, start);
+            if(tokens[i]!=ruleId+1 || tokens[i+1]!=start)
+                return TOKEN_MISS;
+            int e = tokens[i+2];
+            if(e<0)
+                return fail(start, ~e, null, ruleId);
+            gStart = tokens[i+3];
+            gEnd = tokens[i+4];
+            return e;
+        }
+        int tokenSave(int ruleId, int start, int e)
+        {
+            int i = tokenSlot(ruleId, start);
+            tokens[i] = ruleId+1;
+            tokens[i+1] = start;
+            tokens[i+2] = e>=0 ? e : ~lastFailReason;
+            tokens[i+3] = gStart;
+            tokens[i+4] = gEnd;
+            return e;
+        }
+
+        //** template stateValueSlot(CompoType) + + + + + + + + + +
+        CompoType val_CompoType;
+        //** end
+        int val_int; // for this template to compile
+        char val_char;
+        long val_long;
+        double val_double;
+        void push_char(char value){}
+        //** template stateBuffer(CompoType) + + + + + + + + + +
+
+        // growable buffer for CompoType[], shared by nested repetitions as a stack
+        CompoType[] buf_CompoType = new CompoType[16];
+        int bufLen_CompoType;
+        void push_CompoType(CompoType value)
+        {
+            if(bufLen_CompoType==buf_CompoType.length)
+                buf_CompoType = java.util.Arrays.copyOf(buf_CompoType, bufLen_CompoType*2);
+            buf_CompoType[bufLen_CompoType++] = value;
+        }
+        CompoType[] pop_CompoType(int base)
+        {
+            CompoType[] array = java.util.Arrays.copyOfRange(buf_CompoType, base, bufLen_CompoType);
+            bufLen_CompoType = base;
+            return array;
+        }
+        //** template stateObjBuffer() + + + + + + + + + +
+
+        // growable buffer for elements of List and arrays, shared by nested repetitions as a stack;
+        // each repetition copies its elements out once, into a value of the exact size.
+        Object[] objBuf = new Object[16];
+        int objBufLen;
+        void pushObj(Object value)
+        {
+            if(objBufLen==objBuf.length)
+                objBuf = java.util.Arrays.copyOf(objBuf, objBufLen*2);
+            objBuf[objBufLen++] = value;
+        }
+        //** template stateText() + + + + + + + + + +
+
+        // growable buffer for Text, shared by nested repetitions as a stack
+        final StringBuilder text = new StringBuilder();
+        //** template stateDecimal() + + + + + + + + + +
+
+        // result of scan_decimal()
+        long decUnscaled;
+        int decScale;
+        boolean decNegative;
+        //** template stateInterned() + + + + + + + + + +
+
+        // intern table for String values, so that a repeated token yields the same String.
+        // direct-mapped, keyed by String.hashCode() of the range; a colliding entry is replaced.
+        static final int INTERN_MAX_LENGTH = 64; // longer strings are rarely repeated
+        String[] interned;
+        String intern(int start, int end)
+        {
+            int length = end-start;
+            if(length>INTERN_MAX_LENGTH)
+                return chars.substring(start, end);
+            if(interned==null)
+                interned = new String[Math.min(1<<12, Integer.highestOneBit(Math.max(256, this.end)))];
+            int h = 0;
+            for(int i=start; i<end; i++)
+                h = 31*h + chars.charAt(i);
+            int x = h*0x9E3779B1;
+            int slot = (x^(x>>>16)) & (interned.length-1);
+            String s = interned[slot];
+            if(s!=null && s.hashCode()==h && s.length()==length && chars.regionMatches(start, s, 0, length))
+                return s;
+            s = chars.substring(start, end);
+            interned[slot] = s;
+            return s;
+        }
+        //** template stateHashCons() + + + + + + + + + +
+
+        // hash-consing table, created on first use
+        org.rekex.parser.HashCons hashCons;
+        org.rekex.parser.HashCons hashCons()
+        {
+            var hc = hashCons;
+            if(hc==null)
+                hashCons = hc = new org.rekex.parser.HashCons(end);
+            return hc;
+        }
+        //** template stateSourceMap() + + + + + + + + + +
+
+        // nodes recorded in sourceMap by a failed subrule are removed, where the parse backtracks
+        int smMark()
+        {
+            return sourceMap==null ? 0 : sourceMap.size();
+        }
+        int smKeep(int mark, int end)
+        {
+            if(end<0 && sourceMap!=null)
+                sourceMap.truncate(mark);
+            return end;
+        }
+        //** template stateTape() + + + + + + + + + +
+
+        // the tape of parseTape(), see ParseTape; null in parse().
+        // while a node is open, its `end` slot holds its parent.
+        int[] tape;
+        int tapeLen;
+        int tapeParent = -1;
+        int tapeOpen(int ruleId, int start)
+        {
+            if(tape==null)
+                return -1;
+            if(tapeLen+5 > tape.length)
+                tape = java.util.Arrays.copyOf(tape, tape.length*2);
+            int node = tapeLen;
+            tape[node] = ruleId;
+            tape[node+1] = start;
+            tape[node+2] = tapeParent;
+            tape[node+3] = 0;
+            if(tapeParent>=0)
+                tape[tapeParent+3]++;
+            tapeParent = node;
+            tapeLen += 5;
+            return node;
+        }
+        int tapeClose(int node, int end)
+        {
+            if(node<0)
+                return end;
+            if(end<0)
+                return tapeDrop(node, end);
+            tapeParent = tape[node+2];
+            tape[node+2] = end;
+            tape[node+4] = tapeLen;
+            return end;
+        }
+        // remove the node and its descendants
+        int tapeDrop(int node, int end)
+        {
+            if(node<0)
+                return end;
+            tapeParent = tape[node+2];
+            if(tapeParent>=0)
+                tape[tapeParent+3]--;
+            tapeLen = node;
+            return end;
+        }
+        // remove the closed nodes from `mark` on, which are children of the open node, and their descendants
+        void tapeCut(int mark)
+        {
+            for(int node=mark; node<tapeLen; node=tape[node+4])
+                if(tapeParent>=0)
+                    tape[tapeParent+3]--;
+            tapeLen = mark;
+        }
+        //** template stateRuleHooks() + + + + + + + + + +
+
+        // every call of a rule method is wrapped in statExit(rule_N(state, statEnter(N, start)))
+        // counters of this parse, see PegParserBuilder.ruleStats(); null in parseTape() and Lazy.get().
+        org.rekex.parser.RuleCounters ruleCounters;
+        // see PegParserBuilder.trace(); only set by parse(chars, start, end, trace)
+        org.rekex.parser.ParseTrace trace;
+        int statEnter(int ruleId, int start)
+        {
+            if(ruleCounters!=null)
+                ruleCounters.enter(ruleId, start);
+            if(trace!=null)
+                trace.enter(ruleId, start);
+            return start;
+        }
+        int statExit(int end)
+        {
+            if(ruleCounters!=null)
+                ruleCounters.exit(end);
+            if(trace!=null)
+                trace.exit(end);
+            return end;
+        }
+        //** template stateResetHeader() + + + + + + + + + +
+
+        // before each parse of a ParseSession. buffers are kept; so is the intern table,
+        // since Strings are immutable, and a repeated token across inputs can still be shared.
+        void reset(int end)
+        {
+            obj = null;
+            pathLen = 0;
+            maxFailPos = -1;
+            maxFailPath = null;
+            maxFailEx = null;
+            index = null;
+            sourceMap = null;
+            if(tokens!=null)
+            {
+                if(tokens.length==5*tokenSlots(end))
+                    java.util.Arrays.fill(tokens, 0);
+                else
+                    tokens = null;
+            }
+        //** template stateResetBuffer(CompoType) + + + + + + + + + +
+            bufLen_CompoType = 0;
+        //** template stateResetObjBuffer() + + + + + + + + + +
+            // not to retain values of a previous input; a buffer grown by a large input is dropped
+            if(objBuf.length>256)
+                objBuf = new Object[16];
+            else
+                java.util.Arrays.fill(objBuf, null);
+            objBufLen = 0;
+        //** template stateResetText() + + + + + + + + + +
+            text.setLength(0);
+        //** template stateResetHashCons() + + + + + + + + + +
+            hashCons = null;
+        //** template stateResetFooter() + + + + + + + + + +
+        }
+        //** template stateFooter() + + + + + + + + + +
 
     }
     static final int failReason_predicate = 0;   // info: Exception
@@ -167,6 +558,8 @@ public class PegParserTemplate implements PegParser</*typeArg*/Void>
     static final int failReason_regex = 2;
     static final int failReason_regex_group = 3;
 
+    static final int TOKEN_MISS = -2;
+
     static String failMsg(int reason, Exception ex, org.rekex.annotype.AnnoType type)
     {
         String typeStr = type.toString(false);
@@ -213,18 +606,38 @@ public class PegParserTemplate implements PegParser</*typeArg*/Void>
     // rules
     // = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = = =
 
+    //** comment: rules call subrules directly; match(ruleId) is only for dynamic entry points.
     //** template matchAnyRuleIdHeader() + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
-    static _State match(int ruleId, _State state, int subIndex) throws _FatalEx
+    static int match(int ruleId, _State state, int start, int subIndex) throws _FatalEx
     {
-        state.pathPush(ruleId, subIndex);
-        state = switch(ruleId){
-            //** template matchAnyRuleIdCase(RULE_ID, ruleDesc)
-            case RULE_ID -> rule_RULE_ID(state); // ruleDesc
+        return switch(ruleId){
+            //** template matchAnyRuleIdCase(RULE_ID, ruleDesc, callRule`rule_RULE_ID(state, start)`)
+            case RULE_ID -> rule_RULE_ID(state, start); // ruleDesc
             //** template matchAnyRuleIdFooter() + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
             default -> throw new AssertionError("unknown ruleId: "+ruleId);
         };
-        state.pathPop();
-        return state;
+    }
+
+    //** comment: for a big grammar, match() dispatches to chunks of cases, each chunk in its own method,
+    //** comment: to stay under HugeMethodLimit. each chunk is followed by cases and matchAnyRuleIdFooter().
+    //** template matchDispatchHeader(chunkSize`1111`) + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    //** line static int match(int ruleId, _State state, int start, int subIndex) throws _FatalEx
+    //** line {
+    //** line     return switch(ruleId/1111){
+    //** template matchDispatchCase(chunkId)
+    //** line         case chunkId -> match_chunkId(ruleId, state, start, subIndex);
+    //** template matchChunkHeader(chunkId) + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    //** line static int match_chunkId(int ruleId, _State state, int start, int subIndex) throws _FatalEx
+    //** line {
+    //** line     return switch(ruleId){
+
+    //** comment: for a big grammar, rule methods are spread over nested classes,
+    //** comment: to stay under the constant pool limit of a class file.
+    //** template rulesClassHeader(classId`0000`) + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
+
+    static final class _Rules0000
+    {
+    //** template rulesClassFooter() + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
     }
 
     //** end - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
@@ -255,38 +668,53 @@ public class PegParserTemplate implements PegParser</*typeArg*/Void>
 
         static Object fieldName;
 
+        Object accessor(){ return null; }
+
         static TypeName methodName(Object args) throws Exception{ return null; }
     }
     static class CompoType
     {}
-    static class BoxedCompoType extends CompoType
-    {}
 
     final static int RULE_ID=0;
-    static _State rule_RULE_ID(_State state) throws _FatalEx
+    static int rule_RULE_ID(_State state, int start) throws _FatalEx
     {
-        return state;
+        return start;
     }
 
     static int ruleId;
-    static int subId;
     static int subIndex;
     static int subCount;
 
+    // for regex rules
+    static final int P0ruleId=0, P1ruleId=0, P3ruleId=0, P4ruleId=0, R2ruleId=0, R3ruleId=0, R5ruleId=0, T0ruleId=0, P5ruleId=0, R6ruleId=0, R7ruleId=0;
+    static java.util.regex.Pattern pattern_P0ruleId, pattern_P1ruleId, pattern_P4ruleId, pattern_P5ruleId;
+    static int regex_R0ruleId(_State state, int start){ return start; }
+    static int regex_R1ruleId(_State state, int start){ return start; }
+    static int regex_R2ruleId(_State state, int start){ return start; }
+    static int regex_R3ruleId(_State state, int start){ return start; }
+    static int regex_R4ruleId(_State state, int start){ return start; }
+    static int regex_R5ruleId(_State state, int start){ return start; }
+    static int regex_T0ruleId(_State state, int start){ return start; }
+    static int regex_R6ruleId(_State state, int start){ return start; }
+    static int regex_R7ruleId(_State state, int start){ return start; }
+    static int scan_S0ruleId(String chars, int pos, int end){ return pos; }
+    static int scan_P5ruleId(String chars, int pos, int end){ return pos; }
+
     //** comment  # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # #  alt
 
     //** template matchAltHeader(altId, datatypeStr) + + + + + + + + + + + + + + + + + + +
     // alt rule for: datatypeStr
-    static _State rule_altId(_State state) throws _FatalEx
+    static int rule_altId(_State state, int start) throws _FatalEx
     {
-        //** template matchAltSubRule(subId, subIndex, subDesc)
-        state = match(subId, state, subIndex); // subDesc
-        if(!state.fail)
-            return state;
+        int end;
+        //** template matchAltSubRule(subDesc, callSub`rule_RULE_ID(state, start)`)
+        end = rule_RULE_ID(state, start); // subDesc
+        if(end>=0)
+            return end;
 
         //** template matchAltFooter() + + + + + + + + + + + + + + + + + + + + + + + + + + +
         //** comment: failed all alternatives; *assuming* subrules are not empty
-        return state;
+        return -1;
     }
 
     //** comment  # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # #  concat
@@ -294,44 +722,90 @@ public class PegParserTemplate implements PegParser</*typeArg*/Void>
     //** template matchConcatHeader(concatId, datatypeStr)
     //** comment  + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
     // concat rule for: datatypeStr
-    static _State rule_concatId(_State state) throws _FatalEx
+    static int rule_concatId(_State state, int start0) throws _FatalEx
     {
-        final int start0 = state.start;
+        int pos = start0;
         //** template initParseInfo(subCount) + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
         Object[] argArr = new Object[subCount];
         int[] posArr = new int[subCount+1];
         posArr[0] = start0;
-        //** template matchConcatSubRule(subIndex, subId, subType`TypeName`, subDesc) + + + + + + + + + + + + + +
+        //** template matchConcatSubRule(subIndex, subType`TypeName`, subDesc, subValue`state.pickObj()`, callSub`rule_RULE_ID(state, pos)`) + + + + + + + + + + + + + +
 
-        state = match(subId, state, subIndex); // arg_subIndex: subDesc
-        if(state.fail)
-            return state.fail(start0);
+        pos = rule_RULE_ID(state, pos); // arg_subIndex: subDesc
+        if(pos<0)
+            return -1;
         TypeName arg_subIndex = state.pickObj();
         //** template matchParseInfo(subIndex2, ParseInfo) + + + + + + + + + + + + + + + + + + + + + + + + + +
 
         ParseInfo arg_subIndex2 = new ParseInfo(state.inputInfo, argArr, posArr);
         //** template concatSubRuleParseInfo(subIndex) + + + + + + + + + + + + + +
         argArr[subIndex] = arg_subIndex;
-        posArr[subIndex+1] = state.start;
+        posArr[subIndex+1] = pos;
+        //** template hashConsLookupHeader(hashSeed`0000`) + + + + + + + + + + + + + + + + + + + +
+
+        // hash-consing: reuse an existing instance with the same components
+        int hc_hash = 0000;
+        //** template hashConsLookupArg(subIndex)
+        hc_hash = 31*hc_hash + org.rekex.parser.HashCons.hash(arg_subIndex);
+        //** template hashConsLookupTest(TypeName)
+        int hc_slot = state.hashCons().slot(hc_hash);
+        if(state.hashCons().get(hc_slot, hc_hash) instanceof TypeName hc_value
+            //** template hashConsLookupSame(accessor, subIndex)
+            && org.rekex.parser.HashCons.same(hc_value.accessor(), arg_subIndex)
+            //** template hashConsLookupFooter()
+        )
+        {
+            state.obj = state.hashCons().hit(hc_value);
+            return pos;
+        }
         //** template instantiateHeader(TypeName) + + + + + + + + + + + + + + + + + + + +
 
         TypeName value;
         try{
             //** template instantiateNewInstance(TypeName, args) + + + + + + + + + + + + + + + + + + + +
             value = new TypeName(args);
+            //** template hashConsPut() + + + + + + + + + + + + + + + + + + + +
+            state.hashCons().put(hc_slot, hc_hash, value);
             //** template instantiateStaticMethod(TypeName, methodName, args) + + + + + + + + + + + + + + + +
             value = TypeName.methodName(args);
             //** template instantiateInstanceMethod(methodName, args) + + + + + + + + + + + + + + + +
             value = state.catalog.methodName(args);
             //** template instantiateEx1(RuntimeException, ruleId) + + + + + + + + + + + + + + + + + + + +
         }catch (RuntimeException ex){
-            return state.fail(start0, failReason_predicate, ex, ruleId, start0);
+            return state.fail(start0, failReason_predicate, ex, ruleId);
             //** template instantiateEx2() + + + + + + + + + + + + + + + + + + + +
         }catch(Exception ex){
             throw new _FatalEx(start0, ex);
             //** template matchConcatFooter() + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
         }
-        return state.ok(value);
+        //** template concatSourceMap() + + + + + + + + + + + + + + + + + + + +
+        if(state.sourceMap!=null)
+            state.sourceMap.put(value, start0, pos);
+        //** template matchConcatFooter2(resultSlot`obj`) + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
+        state.obj = value;
+        return pos;
+    }
+
+    //** comment: a big concat rule is split; subrules are matched in part methods,
+    //** comment: which save values in argArr; the concat method unpacks them after all parts succeed.
+    //** end
+    static int splitConcat(_State state, int pos, Object[] argArr, int[] posArr) throws _FatalEx
+    {
+        //** template matchConcatPartCall(concatId, partId) + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
+        pos = rule_concatId_partpartId(state, pos, argArr, posArr);
+        if(pos<0)
+            return -1;
+        //** template matchConcatArgFromArr(subIndex, subType`TypeName`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+        TypeName arg_subIndex = (TypeName)argArr[subIndex];
+        //** end
+        return pos;
+    }
+
+    //** template matchConcatPartHeader(concatId, partId) + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    static int rule_concatId_partpartId(_State state, int pos, Object[] argArr, int[] posArr) throws _FatalEx
+    {
+        //** template matchConcatPartFooter() + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
+        return pos;
     }
 
     //** end
@@ -344,193 +818,787 @@ public class PegParserTemplate implements PegParser</*typeArg*/Void>
         return array;
     }
 
-    //** template match_repeat() + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
-    static _State match_repeat(_State state, int ruleId, int subRuleId, int min, int max) throws _FatalEx
+    //** template match_repeat_obj(L1RuleId, datatypeStr, min`0000`, max`1111`, callSub`rule_RULE_ID(state, pos)`)
+    // repeat rule for: datatypeStr
+    static int rule_L1RuleId(_State state, int start) throws _FatalEx
     {
-        final int start0 = state.start;
-        java.util.ArrayList<Object> list = new java.util.ArrayList<>(Math.max(min, Math.min(10, max)));
-        for(int i=0; i<max; i++)
+        int base = state.objBufLen;
+        int pos = start;
+        for(int i=0; i<1111; i++)
         {
-            final int start1 = state.start;
-            state = match(subRuleId, state, i);
-            if(i<min && state.fail)
-                return state.fail(start0);
-            if(i>=min && state.fail) // enough elements
-                break;
-            if(i>=min && start1==state.start) // no progress, enough elements
+            int end = rule_RULE_ID(state, pos);
+            if(end<0)
+            {
+                if(i<0000)
+                {
+                    state.objBufLen = base;
+                    return -1;
+                }
+                break; // enough elements
+            }
+            if(i>=0000 && end==pos) // no progress, enough elements
                 break;
-            list.add(state.pickObj());
+            state.pushObj(state.pickObj());
+            pos = end;
         }
-        return state.ok(list);
-    }
-
-    //** template match_repeat_list(ruleId, L1RuleId, datatypeStr, subId, CompoType, min`0000`, max`1111`)
-    // repeat rule for: datatypeStr
-    static _State rule_L1RuleId(_State state) throws _FatalEx
-    {
-        state = match_repeat(state, ruleId, subId, 0000, 1111);
-        if(state.fail)
-            return state;
-        java.util.ArrayList<CompoType> list = state.pickObj();
-        list.trimToSize();
-        return state.ok(list);
+        //** template match_repeat_obj_list()
+        state.obj = org.rekex.parser.CompactList.of(state.objBuf, base, state.objBufLen);
+        //** template match_repeat_obj_array(CompoType)
+        CompoType[] array = java.util.Arrays.copyOf(generic_array(), state.objBufLen-base);
+        System.arraycopy(state.objBuf, base, array, 0, array.length);
+        state.obj = array;
+        //** template match_repeat_obj_footer()
+        state.objBufLen = base;
+        return pos;
     }
 
-    //** template match_repeat_obj_array(ruleId, L2RuleId, datatypeStr, subId, CompoType, min`0000`, max`1111`)
+    //** template match_repeat_prim_array(L3RuleId, datatypeStr, CompoType)
     // repeat rule for: datatypeStr
-    static _State rule_L2RuleId(_State state) throws _FatalEx
+    static int rule_L3RuleId(_State state, int start) throws _FatalEx
     {
-        state = match_repeat(state, ruleId, subId, 0000, 1111);
-        if(state.fail)
-            return state;
-        java.util.ArrayList<CompoType> list = state.pickObj();
-        CompoType[] array = list.toArray(generic_array());
-        return state.ok(array);
+        //** comment: elements are pushed to a buffer in `state`, popped as an array in the end
+        final int base = state.bufLen_CompoType;
+        int pos = start;
+        int i = 0;
+        //** template match_repeat_prim_scan(max`1111`, scan`scan_S0ruleId`)
+        //** comment: chars matched by a plain char test are scanned in bulk; the loop continues where the scan stops
+        int stop = scan_S0ruleId(state.chars, pos, (int)Math.min(state.end, (long)pos+1111));
+        for(int p=pos; p<stop; p++)
+            state.push_char(state.chars.charAt(p));
+        i = stop-pos;
+        pos = stop;
+        //** template match_repeat_prim_loop(CompoType, min`0000`, max`1111`, callSub`rule_RULE_ID(state, pos)`)
+        for(; i<1111; i++)
+        {
+            int end = rule_RULE_ID(state, pos);
+            if(end<0)
+            {
+                if(i<0000)
+                {
+                    state.bufLen_CompoType = base;
+                    return -1;
+                }
+                break; // enough elements
+            }
+            if(i>=0000 && end==pos) // no progress, enough elements
+                break;
+            state.push_CompoType(state.val_CompoType);
+            pos = end;
+        }
+        state.obj = state.pop_CompoType(base);
+        return pos;
     }
 
-    //** template match_repeat_prim_array(ruleId, L3RuleId, datatypeStr, subId, CompoType, min`0000`, max`1111`, BoxedCompoType)
+    //** template match_repeat_text(L4RuleId, datatypeStr)
     // repeat rule for: datatypeStr
-    static _State rule_L3RuleId(_State state) throws _FatalEx
+    static int rule_L4RuleId(_State state, int start) throws _FatalEx
     {
-        state = match_repeat(state, ruleId, subId, 0000, 1111);
-        if(state.fail)
-            return state;
-        java.util.ArrayList<BoxedCompoType> list = state.pickObj();
-        CompoType[] array = new CompoType[list.size()];
-        for(int i=0; i<list.size(); i++)
-            array[i] = list.get(i);
-        return state.ok(array);
+        //** comment: elements are appended to a buffer in `state`; the text is taken out in the end
+        final StringBuilder text = state.text;
+        final int base = text.length();
+        int pos = start;
+        int i = 0;
+        //** template match_repeat_text_scan(max`1111`, scan`scan_S0ruleId`)
+        int stop = scan_S0ruleId(state.chars, pos, (int)Math.min(state.end, (long)pos+1111));
+        text.append(state.chars, pos, stop);
+        i = stop-pos;
+        pos = stop;
+        //** template match_repeat_text_loop(min`0000`, max`1111`, callSub`rule_RULE_ID(state, pos)`)
+        for(; i<1111; i++)
+        {
+            int end = rule_RULE_ID(state, pos);
+            if(end<0)
+            {
+                if(i<0000)
+                {
+                    text.setLength(base);
+                    return -1;
+                }
+                break; // enough elements
+            }
+            if(i>=0000 && end==pos) // no progress, enough elements
+                break;
+            //** template match_repeat_text_char()
+            text.append(state.val_char);
+            //** template match_repeat_text_int()
+            text.appendCodePoint(state.val_int);
+            //** template match_repeat_text_group()
+            text.append(state.chars, state.gStart, state.gEnd);
+            //** template match_repeat_text_boxed_char()
+            text.append(state.<Character>pickObj().charValue());
+            //** template match_repeat_text_boxed_int()
+            text.appendCodePoint(state.<Integer>pickObj());
+            //** template match_repeat_text_obj()
+            text.append(state.<CharSequence>pickObj());
+            //** template match_repeat_text_footer()
+            pos = end;
+        }
+        state.obj = new org.rekex.spec.Text<>(text.substring(base));
+        text.setLength(base);
+        return pos;
     }
 
     //** end
 
-    //** comment  # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # peek/not
+    //** comment  # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # peek/not
 
-    //** template match_peek(peekId, datatypeStr, subId, CompoType)
+    //** template match_peek(peekId, datatypeStr, CompoType, callSub`rule_RULE_ID(state, start)`)
     // peek rule for: datatypeStr
-    static _State rule_peekId(_State state1) throws _FatalEx
+    static int rule_peekId(_State state, int start) throws _FatalEx
     {
         //** comment: in case subrule succeeds, clear its fail info
-        _State state2 = state1.clone();
-        state2 = match(subId, state2, -1);
-        if(state2.fail)
-            return state2;
-
-        CompoType value = state1.pickObj();
-        return state1.ok(new Peek<>(value));
+        int maxFailPos = state.maxFailPos;
+        int[] maxFailPath = state.maxFailPath;
+        int maxFailReason = state.maxFailReason;
+        Exception maxFailEx = state.maxFailEx;
+        int maxFailRuleId = state.maxFailRuleId;
+        int end = rule_RULE_ID(state, start);
+        if(end<0)
+            return -1;
+        state.maxFailPos = maxFailPos;
+        state.maxFailPath = maxFailPath;
+        state.maxFailReason = maxFailReason;
+        state.maxFailEx = maxFailEx;
+        state.maxFailRuleId = maxFailRuleId;
+
+        CompoType value = state.pickObj();
+        state.obj = new Peek<>(value);
+        return start;
     }
 
-    //** template match_neg(negId, ruleId, datatypeStr, TypeName, subId)
+    //** template match_neg(negId, ruleId, datatypeStr, TypeName, callSub`rule_RULE_ID(state, start)`)
     // neg rule for: datatypeStr
-    static _State rule_negId(_State state1) throws _FatalEx
+    static int rule_negId(_State state, int start) throws _FatalEx
     {
         //** comment: fail info in subrule are discarded in any case
-        _State state2 = state1.clone();
-        state2 = match(subId, state2, -1);
-        if(state2.fail)
-            return state1.ok(new TypeName());
-        return state1.fail(state1.start, failReason_neg, null, ruleId, state1.start);
+        int maxFailPos = state.maxFailPos;
+        int[] maxFailPath = state.maxFailPath;
+        int maxFailReason = state.maxFailReason;
+        Exception maxFailEx = state.maxFailEx;
+        int maxFailRuleId = state.maxFailRuleId;
+        int end = rule_RULE_ID(state, start);
+        state.maxFailPos = maxFailPos;
+        state.maxFailPath = maxFailPath;
+        state.maxFailReason = maxFailReason;
+        state.maxFailEx = maxFailEx;
+        state.maxFailRuleId = maxFailRuleId;
+        state.obj = null;
+        if(end<0)
+        {
+            state.obj = new TypeName();
+            return start;
+        }
+        return state.fail(start, failReason_neg, null, ruleId);
     }
 
+    //** comment  # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # #   lazy
+
+    //** template match_lazy(lazyId, datatypeStr, subId`0000`, callRecog`recog_RULE_ID(state, start)`)
+    // lazy rule for: datatypeStr
+    static int rule_lazyId(_State state, int start) throws _FatalEx
+    {
+        int end = recog_RULE_ID(state, start);
+        if(end<0)
+            return -1;
+        state.obj = lazy(state, 0000, start, end);
+        return end;
+    }
+
+    //** template match_lazy_skip(lazyId2, datatypeStr, subId`0000`, openChar`'['`, wsTest`c==' '`, callRecog`recog_RULE_ID(state, start)`)
+    // lazy rule for: datatypeStr
+    // the region is a balanced bracket, skipped by the structural index; the content is checked on get().
+    static int rule_lazyId2(_State state, int start) throws _FatalEx
+    {
+        int end = state.index.skip(start, '[');
+        if(end>=0)
+        {
+            while(end<state.end)
+            {
+                char c = state.chars.charAt(end);
+                if(!(c==' '))
+                    break;
+                end++;
+            }
+        }
+        else // not a balanced bracket by the index; the recognizer decides
+        {
+            end = recog_RULE_ID(state, start);
+            if(end<0)
+                return -1;
+        }
+        state.obj = lazy(state, 0000, start, end);
+        return end;
+    }
+
+    //** template regionHelper(catalogClass`TypeName`) + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    // parse a region recognized before into the value of the rule, on demand; for Lazy<T> and ParseTape
+    static Object parseRegion(TypeName catalog, String chars, int inputEnd, org.rekex.parser.InputInfo inputInfo,
+                              org.rekex.parser.StructuralIndex index, int ruleId, int start, int end, String what)
+    {
+        _State state = new _State();
+        state.catalog = catalog;
+        state.chars = chars;
+        state.end = inputEnd; // lookaheads may go beyond the region
+        state.inputInfo = inputInfo;
+        state.index = index;
+        int pos;
+        try
+        {
+            pos = match(ruleId, state, start, -1);
+        }
+        catch (_FatalEx fatalEx)
+        {
+            throw new IllegalStateException(what+": fatal error at position "+fatalEx.position, fatalEx.cause);
+        }
+        if(pos<0)
+            throw new IllegalStateException("%s: failed at position %d: %s".formatted(what, state.maxFailPos,
+                failMsg(state.maxFailReason, state.maxFailEx, _DatatypeList.list.get(state.maxFailRuleId))),
+                state.maxFailEx);
+        if(pos!=end)
+            throw new IllegalStateException("%s: matched [%d,%d) instead of [%d,%d)".formatted(what, start, pos, start, end));
+        return state.pickObj();
+    }
+
+    //** template lazyHelper() + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    // parse the region recognized by a Lazy rule, on demand
+    static <T> org.rekex.spec.Lazy<T> lazy(_State state, int ruleId, int start, int end)
+    {
+        var catalog = state.catalog;
+        var chars = state.chars;
+        var inputEnd = state.end;
+        var inputInfo = state.inputInfo;
+        var index = state.index;
+        return new org.rekex.spec.Lazy<>(()->
+            (T)parseRegion(catalog, chars, inputEnd, inputInfo, index, ruleId, start, end, "Lazy"));
+    }
+
+    //** comment: recognizers match like the rules, without creating values; for Lazy<T>.
+    //** comment: semantic predicates are not tested, since ctors are not invoked.
+    //** comment: a regex rule is recognized by its matcher regex_N.
+
+    //** template recogConcatHeader(recogId, datatypeStr) + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    // recognizer for: datatypeStr
+    static int recog_recogId(_State state, int start) throws _FatalEx
+    {
+        int pos = start;
+        //** template recogConcatSub(callRecog`recog_RULE_ID(state, pos)`)
+        pos = recog_RULE_ID(state, pos);
+        if(pos<0)
+            return -1;
+        //** template recogConcatFooter()
+        return pos;
+    }
+
+    //** template recogAltHeader(recogId2, datatypeStr) + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    // recognizer for: datatypeStr
+    static int recog_recogId2(_State state, int start) throws _FatalEx
+    {
+        int end;
+        //** template recogAltSub(callRecog`recog_RULE_ID(state, start)`)
+        if((end=recog_RULE_ID(state, start))>=0)
+            return end;
+        //** template recogAltFooter()
+        return -1;
+    }
+
+    //** template recogRepeat(recogId3, datatypeStr, min`0000`, max`1111`, callRecog`recog_RULE_ID(state, pos)`)
+    // recognizer for: datatypeStr
+    static int recog_recogId3(_State state, int start) throws _FatalEx
+    {
+        int pos = start;
+        for(int i=0; i<1111; i++)
+        {
+            int end = recog_RULE_ID(state, pos);
+            if(end<0)
+            {
+                if(i<0000)
+                    return -1;
+                break; // enough elements
+            }
+            if(i>=0000 && end==pos) // no progress, enough elements
+                break;
+            pos = end;
+        }
+        return pos;
+    }
+
+    //** template recogRepeatTape(recogId7, datatypeStr, min`0000`, max`1111`, callRecog`recog_RULE_ID(state, pos)`)
+    // recognizer for: datatypeStr; the node of an element without progress is removed, as it's not in the list
+    static int recog_recogId7(_State state, int start) throws _FatalEx
+    {
+        int pos = start;
+        for(int i=0; i<1111; i++)
+        {
+            int mark = state.tapeLen;
+            int end = recog_RULE_ID(state, pos);
+            if(end<0)
+            {
+                if(i<0000)
+                    return -1;
+                break; // enough elements
+            }
+            if(i>=0000 && end==pos) // no progress, enough elements
+            {
+                state.tapeCut(mark);
+                break;
+            }
+            pos = end;
+        }
+        return pos;
+    }
+
+    //** template recogPeek(recogId4, datatypeStr, callRecog`recog_RULE_ID(state, start)`)
+    // recognizer for: datatypeStr
+    static int recog_recogId4(_State state, int start) throws _FatalEx
+    {
+        int maxFailPos = state.maxFailPos;
+        int[] maxFailPath = state.maxFailPath;
+        int maxFailReason = state.maxFailReason;
+        Exception maxFailEx = state.maxFailEx;
+        int maxFailRuleId = state.maxFailRuleId;
+        int end = recog_RULE_ID(state, start);
+        if(end<0)
+            return -1;
+        state.maxFailPos = maxFailPos;
+        state.maxFailPath = maxFailPath;
+        state.maxFailReason = maxFailReason;
+        state.maxFailEx = maxFailEx;
+        state.maxFailRuleId = maxFailRuleId;
+        return start;
+    }
+
+    //** template recogNeg(recogId5, ruleId, datatypeStr, callRecog`recog_RULE_ID(state, start)`)
+    // recognizer for: datatypeStr
+    static int recog_recogId5(_State state, int start) throws _FatalEx
+    {
+        int maxFailPos = state.maxFailPos;
+        int[] maxFailPath = state.maxFailPath;
+        int maxFailReason = state.maxFailReason;
+        Exception maxFailEx = state.maxFailEx;
+        int maxFailRuleId = state.maxFailRuleId;
+        int end = recog_RULE_ID(state, start);
+        state.maxFailPos = maxFailPos;
+        state.maxFailPath = maxFailPath;
+        state.maxFailReason = maxFailReason;
+        state.maxFailEx = maxFailEx;
+        state.maxFailRuleId = maxFailRuleId;
+        if(end<0)
+            return start;
+        return state.fail(start, failReason_neg, null, ruleId);
+    }
+
+    //** template recogLazy(recogId6, datatypeStr, callRecog`recog_RULE_ID(state, start)`)
+    // recognizer for: datatypeStr
+    static int recog_recogId6(_State state, int start) throws _FatalEx
+    {
+        return recog_RULE_ID(state, start);
+    }
+
+    //** comment: with tape(true), every rule but ParseInfo has a tape method, which records a node
+    //** comment: around its recognizer; the recognizers call the tape methods of subrules.
+
+    //** template tapeNode(tapeId, ruleId, datatypeStr, callRecog`recog_RULE_ID(state, start)`)
+    // tape node for: datatypeStr
+    static int tape_tapeId(_State state, int start) throws _FatalEx
+    {
+        int node = state.tapeOpen(ruleId, start);
+        return state.tapeClose(node, recog_RULE_ID(state, start));
+    }
+
+    //** template tapeLookahead(tapeId2, ruleId, datatypeStr, callRecog`recog_RULE_ID(state, start)`)
+    // tape node for: datatypeStr; lookaheads leave no nodes
+    static int tape_tapeId2(_State state, int start) throws _FatalEx
+    {
+        int node = state.tapeOpen(ruleId, start);
+        return state.tapeDrop(node, recog_RULE_ID(state, start));
+    }
+    //** end
+    static int recog_RULE_ID(_State state, int start){ return 0; }
+    static int tape_RULE_ID(_State state, int start) throws _FatalEx { return 0; }
+
     //** comment  # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # # #   regex
 
     //** template match_regex() + + + + + + + + + + + + + + + + +
-    static _State match_regex(_State state, int ruleId, java.util.regex.Pattern pattern, int group)
+    static int match_regex(_State state, int start, int ruleId, java.util.regex.Pattern pattern, int group)
     {
         var matcher = pattern.matcher(state.chars);
-        matcher.region(state.start, state.end);
+        matcher.region(start, state.end);
         boolean matched = matcher.lookingAt();
         if(!matched)
-            return state.fail(state.start, failReason_regex, null, ruleId, state.start);
+            return state.fail(start, failReason_regex, null, ruleId);
 
         state.gStart = matcher.start(group);
         state.gEnd = matcher.end(group);
         if(state.gStart==-1)
-            return state.fail(state.start, failReason_regex_group, null, ruleId, state.start);
+            return state.fail(start, failReason_regex_group, null, ruleId);
 
-        state.start = matcher.end(0); // consume group 0
-        return state.ok(null);
+        return matcher.end(0); // consume group 0
     }
     //** template match_regex_str() + + + + + + + + + + + + + + + + +
-    static _State match_regex_str(_State state, int ruleId, java.util.regex.Pattern pattern, int group)
+    static int match_regex_str(_State state, int end)
     {
-        state = match_regex(state, ruleId, pattern, group);
-        if(state.fail)
-            return state;
-        String str = state.chars.subSequence(state.gStart, state.gEnd).toString();
-        return state.ok(str);
+        if(end<0)
+            return -1;
+        state.obj = state.chars.substring(state.gStart, state.gEnd);
+        return end;
+    }
+    //** template match_regex_str_interned() + + + + + + + + + + + + + + + + +
+    static int match_regex_str_interned(_State state, int end)
+    {
+        if(end<0)
+            return -1;
+        state.obj = state.intern(state.gStart, state.gEnd);
+        return end;
+    }
+    //** template match_regex_slice() + + + + + + + + + + + + + + + + +
+    static int match_regex_slice(_State state, int end)
+    {
+        if(end<0)
+            return -1;
+        state.obj = new org.rekex.spec.TextSlice(state.chars, state.gStart, state.gEnd);
+        return end;
     }
     //** template match_regex_char() + + + + + + + + + + + + + + + + +
-    static _State match_regex_char(_State state, int ruleId, java.util.regex.Pattern pattern, int group) throws _FatalEx
+    static int match_regex_char(_State state, int end, int ruleId) throws _FatalEx
     {
-        state = match_regex_int(state, ruleId, pattern, group);
-        if(state.fail)
-            return state;
-        Integer x = state.pickObj();
+        end = match_regex_int(state, end, ruleId);
+        if(end<0)
+            return -1;
+        int x = state.val_int;
         if(x>0xFFFF)
         {
             // programming mistake in the regex, or an unexpected input
-            String msg = "expected to match exactly 1 char; matched=%s, start=%s, end=%s, regex=%s"
-                .formatted(Integer.toHexString(x), state.gStart, state.gEnd, pattern.pattern());
+            String msg = "expected to match exactly 1 char; matched=%s, start=%s, end=%s, rule=%s"
+                .formatted(Integer.toHexString(x), state.gStart, state.gEnd, _DatatypeList.list.get(ruleId));
             throw new _FatalEx(state.gStart, new Exception(msg));
         }
-        return state.ok(Character.valueOf((char)x.intValue()));
+        state.val_char = (char)x;
+        return end;
     }
     //** template match_regex_int() + + + + + + + + + + + + + + + + +
-    static _State match_regex_int(_State state, int ruleId, java.util.regex.Pattern pattern, int group) throws _FatalEx
+    static int match_regex_int(_State state, int end, int ruleId) throws _FatalEx
     {
-        state = match_regex(state, ruleId, pattern, group);
-        if(state.fail)
-            return state;
-        int count = Character.codePointCount(state.chars, state.gStart, state.gEnd);
+        if(end<0)
+            return -1;
+        String chars = state.chars;
+        int gStart = state.gStart, gEnd = state.gEnd;
+        if(gEnd-gStart==1 && !Character.isSurrogate(chars.charAt(gStart))) // common case
+        {
+            state.val_int = chars.charAt(gStart);
+            return end;
+        }
+        int count = chars.codePointCount(gStart, gEnd);
         if(count==1)
         {
-            int code = Character.codePointAt(state.chars, state.gStart);
-            if(Character.charCount(code)==state.gEnd-state.gStart) // could it fail?
-                return state.ok(code);
+            int code = chars.codePointAt(gStart);
+            if(Character.charCount(code)==gEnd-gStart) // could it fail?
+            {
+                state.val_int = code;
+                return end;
+            }
         }
         // programming mistake in the regex, or an unexpected input
-        String msg = "expected to match exactly 1 code point; start=%s, end=%s, regex=%s"
-            .formatted(state.gStart, state.gEnd, pattern.pattern());
-        throw new _FatalEx(state.gStart, new Exception(msg));
+        String msg = "expected to match exactly 1 code point; start=%s, end=%s, rule=%s"
+            .formatted(gStart, gEnd, _DatatypeList.list.get(ruleId));
+        throw new _FatalEx(gStart, new Exception(msg));
+    }
+    //** comment: numbers are parsed from the matched range; a String is only created in uncommon cases.
+    //** comment: the result is the same as Long.parseLong(), Double.parseDouble(), or new BigDecimal() on the matched text.
+    //** template match_regex_long() + + + + + + + + + + + + + + + + +
+    static int match_regex_long(_State state, int end) throws _FatalEx
+    {
+        if(end<0)
+            return -1;
+        try
+        {
+            state.val_long = Long.parseLong(state.chars, state.gStart, state.gEnd, 10);
+        }
+        catch (NumberFormatException ex)
+        {
+            // programming mistake in the regex, or an unexpected input
+            throw new _FatalEx(state.gStart, ex);
+        }
+        return end;
+    }
+    //** template match_regex_double() + + + + + + + + + + + + + + + + +
+    static final double[] DOUBLE_POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    static int match_regex_double(_State state, int end) throws _FatalEx
+    {
+        if(end<0)
+            return -1;
+        //** comment: both the digits and the power of 10 are exact doubles; one multiplication/division is correctly rounded.
+        if(scan_decimal(state, state.gStart, state.gEnd)
+            && state.decUnscaled < (1L<<53) && state.decScale>=-22 && state.decScale<=22)
+        {
+            double x = state.decUnscaled;
+            x = state.decScale<=0 ? x*DOUBLE_POW10[-state.decScale] : x/DOUBLE_POW10[state.decScale];
+            state.val_double = state.decNegative ? -x : x;
+            return end;
+        }
+        try
+        {
+            state.val_double = Double.parseDouble(state.chars.substring(state.gStart, state.gEnd));
+        }
+        catch (NumberFormatException ex)
+        {
+            // programming mistake in the regex, or an unexpected input
+            throw new _FatalEx(state.gStart, ex);
+        }
+        return end;
+    }
+    //** template match_regex_BigDecimal() + + + + + + + + + + + + + + + + +
+    static int match_regex_BigDecimal(_State state, int end) throws _FatalEx
+    {
+        if(end<0)
+            return -1;
+        if(scan_decimal(state, state.gStart, state.gEnd))
+        {
+            long m = state.decUnscaled;
+            state.obj = java.math.BigDecimal.valueOf(state.decNegative ? -m : m, state.decScale);
+            return end;
+        }
+        try
+        {
+            state.obj = new java.math.BigDecimal(state.chars.substring(state.gStart, state.gEnd));
+        }
+        catch (NumberFormatException ex)
+        {
+            // programming mistake in the regex, or an unexpected input
+            throw new _FatalEx(state.gStart, ex);
+        }
+        return end;
+    }
+    //** template scan_decimal() + + + + + + + + + + + + + + + + +
+    //** comment: scan `[+-]?d*(.d*)?([eE][+-]?d+)?` with at most 18 significant digits into decUnscaled/decScale/decNegative.
+    //** comment: return false for any other form, which is left to the JDK parsers.
+    static boolean scan_decimal(_State state, int start, int end)
+    {
+        String chars = state.chars;
+        int i = start;
+        boolean negative = false;
+        if(i<end && (chars.charAt(i)=='-' || chars.charAt(i)=='+'))
+            negative = chars.charAt(i++)=='-';
+        long m = 0;
+        int digits = 0, sigDigits = 0, scale = 0;
+        boolean dot = false;
+        for(; i<end; i++)
+        {
+            char c = chars.charAt(i);
+            if(c=='.' && !dot)
+            {
+                dot = true;
+                continue;
+            }
+            if(c<'0' || c>'9')
+                break;
+            digits++;
+            if(dot)
+                scale++;
+            if(m==0 && c=='0') // leading zero
+                continue;
+            if(++sigDigits>18)
+                return false;
+            m = m*10 + (c-'0');
+        }
+        if(digits==0)
+            return false;
+        if(i<end && (chars.charAt(i)=='e' || chars.charAt(i)=='E'))
+        {
+            i++;
+            boolean expNegative = false;
+            if(i<end && (chars.charAt(i)=='-' || chars.charAt(i)=='+'))
+                expNegative = chars.charAt(i++)=='-';
+            int exp = 0, expDigits = 0;
+            for(; i<end; i++)
+            {
+                char c = chars.charAt(i);
+                if(c<'0' || c>'9')
+                    break;
+                if(++expDigits>9)
+                    return false;
+                exp = exp*10 + (c-'0');
+            }
+            if(expDigits==0)
+                return false;
+            scale += expNegative ? exp : -exp;
+        }
+        if(i!=end)
+            return false;
+        state.decUnscaled = m;
+        state.decScale = scale;
+        state.decNegative = negative;
+        return true;
     }
     //** template match_regex_obj() + + + + + + + + + + + + + + + + +
-    static _State match_regex_obj(_State state, int ruleId, java.util.regex.Pattern pattern, int group, Object obj)
+    static int match_regex_obj(_State state, int end, Object obj)
+    {
+        if(end<0)
+            return -1;
+        state.obj = obj;
+        return end;
+    }
+
+    //** comment: each regex rule has a regex_N() method that matches the input and sets gStart/gEnd,
+    //** comment: and a rule_N() method that converts the matched group to the datatype.
+    //** comment: simple regexes are matched by plain code; others by java.util.regex.
+    //** template regexByPattern(P0ruleId, group`0000`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    static int regex_P0ruleId(_State state, int start)
+    {
+        return match_regex(state, start, P0ruleId, pattern_P0ruleId, 0000);
+    }
+    //** template regexByCharTest(P1ruleId, test`c=='x'`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    static int regex_P1ruleId(_State state, int start)
+    {
+        if(start<state.end)
+        {
+            char c = state.chars.charAt(start);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, P1ruleId, pattern_P1ruleId, 0);
+            if(c=='x')
+            {
+                state.gStart = start;
+                state.gEnd = start+1;
+                return start+1;
+            }
+        }
+        return state.fail(start, failReason_regex, null, P1ruleId);
+    }
+    //** template regexByLiteralsHeader(P2ruleId) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    static int regex_P2ruleId(_State state, int start)
     {
-        state = match_regex(state, ruleId, pattern, group);
-        if(state.fail)
-            return state;
-        return state.ok(obj);
+        int pos = -1;
+        //** template regexByLiteral(literal`"lit"`, length`1111`)
+        if(pos<0 && state.end-start>=1111 && state.chars.startsWith("lit", start))
+            pos = start+1111;
+        //** template regexByLiteralsFooter(P3ruleId) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+        if(pos<0)
+            return state.fail(start, failReason_regex, null, P3ruleId);
+        state.gStart = start;
+        state.gEnd = pos;
+        return pos;
     }
-    //** template matchRegexToVoid(ruleId, R0ruleId, datatypeStr, group`0000`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    //** end
+    static int regexByLiteralsWs(_State state, int start, int pos)
+    {
+        //** template regexByLiteralsWsFooter(P4ruleId, test`c==' '`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+        if(pos<0)
+            return state.fail(start, failReason_regex, null, P4ruleId);
+        state.gStart = start;
+        state.gEnd = pos;
+        for(; pos<state.end; pos++)
+        {
+            char c = state.chars.charAt(pos);
+            if(Character.isSurrogate(c)) // code points are left to java.util.regex
+                return match_regex(state, start, P4ruleId, pattern_P4ruleId, 1);
+            if(!(c==' '))
+                break;
+        }
+        return pos;
+    }
+    //** template tokenCached(T0ruleId) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    static int token_T0ruleId(_State state, int start)
+    {
+        int end = state.tokenLookup(T0ruleId, start);
+        if(end==TOKEN_MISS)
+            end = state.tokenSave(T0ruleId, start, regex_T0ruleId(state, start));
+        return end;
+    }
+    //** comment: rule_N() calls regex_N(), or token_N() if the token cache is enabled.
+    //** template matchRegexToVoid(R0ruleId, datatypeStr, callRegex`regex_R0ruleId(state, start)`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
     // regex rule for: datatypeStr
-    static _State rule_R0ruleId(_State state)
+    static int rule_R0ruleId(_State state, int start)
     {
-        return match_regex(state, ruleId, pattern_ruleId, 0000);
+        state.obj = null;
+        return regex_R0ruleId(state, start);
     }
-    //** template matchRegexToStr(ruleId, R1ruleId, datatypeStr, group`0000`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    //** template matchRegexToStr(R1ruleId, datatypeStr, regexToStr`match_regex_str`, callRegex`regex_R1ruleId(state, start)`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
     // regex rule for: datatypeStr
-    static _State rule_R1ruleId(_State state)
+    static int rule_R1ruleId(_State state, int start)
     {
-        return match_regex_str(state, ruleId, pattern_ruleId, 0000);
+        return match_regex_str(state, regex_R1ruleId(state, start));
     }
-    //** template matchRegexToChar(ruleId, R2ruleId, datatypeStr, group`0000`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    //** template matchRegexToChar(R2ruleId, datatypeStr, callRegex`regex_R2ruleId(state, start)`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
     // regex rule for: datatypeStr
-    static _State rule_R2ruleId(_State state) throws _FatalEx
+    static int rule_R2ruleId(_State state, int start) throws _FatalEx
     {
-        return match_regex_char(state, ruleId, pattern_ruleId, 0000);
+        return match_regex_char(state, regex_R2ruleId(state, start), R2ruleId);
     }
-    //** template matchRegexToInt(ruleId, R3ruleId, datatypeStr, group`0000`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    //** template matchRegexToInt(R3ruleId, datatypeStr, callRegex`regex_R3ruleId(state, start)`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
     // regex rule for: datatypeStr
-    static _State rule_R3ruleId(_State state) throws _FatalEx
+    static int rule_R3ruleId(_State state, int start) throws _FatalEx
     {
-        return match_regex_int(state, ruleId, pattern_ruleId, 0000);
+        return match_regex_int(state, regex_R3ruleId(state, start), R3ruleId);
     }
-    //** template matchRegexToField(ruleId, R4ruleId, datatypeStr, group`0000`, TypeName, fieldName) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    //** template matchRegexToBoxed(R5ruleId, datatypeStr, regexToPrim`match_regex_int`, val_int, callRegex`regex_R5ruleId(state, start)`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
     // regex rule for: datatypeStr
-    static _State rule_R4ruleId(_State state)
+    static int rule_R5ruleId(_State state, int start) throws _FatalEx
+    {
+        int end = match_regex_int(state, regex_R5ruleId(state, start), R5ruleId);
+        if(end>=0)
+            state.obj = state.val_int;
+        return end;
+    }
+    //** template matchRegexToNum(R6ruleId, datatypeStr, regexToNum`match_regex_long`, callRegex`regex_R6ruleId(state, start)`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    // regex rule for: datatypeStr
+    static int rule_R6ruleId(_State state, int start) throws _FatalEx
+    {
+        return match_regex_long(state, regex_R6ruleId(state, start));
+    }
+    //** template matchRegexToBoxedNum(R7ruleId, datatypeStr, regexToNum`match_regex_long`, val_long, callRegex`regex_R7ruleId(state, start)`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    // regex rule for: datatypeStr
+    static int rule_R7ruleId(_State state, int start) throws _FatalEx
+    {
+        int end = match_regex_long(state, regex_R7ruleId(state, start));
+        if(end>=0)
+            state.obj = state.val_long;
+        return end;
+    }
+    //** template matchRegexToField(R4ruleId, datatypeStr, TypeName, fieldName, callRegex`regex_R4ruleId(state, start)`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    // regex rule for: datatypeStr
+    static int rule_R4ruleId(_State state, int start)
+    {
+        return match_regex_obj(state, regex_R4ruleId(state, start), TypeName.fieldName);
+    }
+    //** comment: a bulk scan; return the first position in [pos, end) whose char is not in the class.
+    //** template charScan(S1ruleId, test`c=='x'`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    static int scan_S1ruleId(String chars, int pos, int end)
+    {
+        for(; pos<end; pos++)
+        {
+            char c = chars.charAt(pos);
+            if(Character.isSurrogate(c) || !(c=='x')) // code points are left to the caller
+                break;
+        }
+        return pos;
+    }
+    //** comment: for a class of all chars except one, String.indexOf() is a vectorized intrinsic in HotSpot.
+    //** comment: it searches to the end of the String, so it's only used if the region ends there.
+    //** template charScanIndexOf(S2ruleId, excluded`'x'`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    static int scan_S2ruleId(String chars, int pos, int end)
+    {
+        if(end==chars.length())
+        {
+            int i = chars.indexOf('x', pos);
+            return i<0 ? end : i;
+        }
+        for(; pos<end; pos++)
+            if(chars.charAt(pos)=='x')
+                break;
+        return pos;
+    }
+    //** template regexByCharRun(P5ruleId, min`0000`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
+    static int regex_P5ruleId(_State state, int start)
     {
-        return match_regex_obj(state, ruleId, pattern_ruleId, 0000, TypeName.fieldName);
+        int pos = scan_P5ruleId(state.chars, start, state.end);
+        if(pos<state.end && Character.isSurrogate(state.chars.charAt(pos))) // code points are left to java.util.regex
+            return match_regex(state, start, P5ruleId, pattern_P5ruleId, 0);
+        if(pos-start<0000)
+            return state.fail(start, failReason_regex, null, P5ruleId);
+        state.gStart = start;
+        state.gEnd = pos;
+        return pos;
     }
     //** template patternField(ruleId, regex`"regex"`, flags`0000`) + + + + + + + + + + + + + + + + + + + + + + + + + + +
     static final java.util.regex.Pattern pattern_ruleId = java.util.regex.Pattern.compile("regex", 0000);
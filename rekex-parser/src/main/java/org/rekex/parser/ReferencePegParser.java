@@ -7,11 +7,15 @@ import org.rekex.annotype.PrimitiveType;
 import org.rekex.common_util.SwitchOnType;
 import org.rekex.grammar.*;
 import org.rekex.parser.ParseResult.Node;
+import org.rekex.spec.Lazy;
 import org.rekex.spec.Not;
 import org.rekex.spec.Peek;
+import org.rekex.spec.Text;
+import org.rekex.spec.TextSlice;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
 import java.util.*;
 import java.util.function.Function;
 import java.util.regex.Pattern;
@@ -55,7 +59,9 @@ public class ReferencePegParser<T> implements PegParser<T>
     public ParseResult<T> parse(CharSequence chars, int start, int end)
     {
         Integer ruleId = grammar.typeToId().get(rootType);
-        Input input = new Input(chars, start, end, new Path(List.of()), new InputInfo(chars, start, end));
+        // like generated parsers, parse a String, so that TextSlice values are snapshots
+        String str = chars.toString();
+        Input input = new Input(str, start, end, new Path(List.of()), new InputInfo(chars, str, start, end));
 
         Result result;
         try
@@ -177,6 +183,9 @@ public class ReferencePegParser<T> implements PegParser<T>
             .on(NegRule.class,
                 rule -> input -> matchNeg(rule, input)
             )
+            .on(LazyRule.class,
+                rule -> input -> matchLazy(rule, input)
+            )
             .on(RegexRule.class,
                 rule -> input -> matchRegex(rule, input)
             )
@@ -310,7 +319,11 @@ public class ReferencePegParser<T> implements PegParser<T>
             }
         }
 
-        if(rule.datatype() instanceof ClassType classType)
+        if(rule.datatype() instanceof ClassType classType && classType.clazz()==Text.class)
+        {
+            return new OK(createText(args), inputX.start, maxFail);
+        }
+        else if(rule.datatype() instanceof ClassType classType)
         {
             assert classType.clazz()==List.class;
             return new OK(args, inputX.start, maxFail);
@@ -352,6 +365,15 @@ public class ReferencePegParser<T> implements PegParser<T>
     }
 
 
+    Result matchLazy(LazyRule rule, Input input) throws FatalEx
+    {
+        // this parser is not for performance; the value is created eagerly.
+        var result = match(rule.subRuleId(), input, -1);
+        if(result instanceof OK ok)
+            return new OK(Lazy.of(ok.obj), ok.pos, ok.maxFail);
+        return result;
+    }
+
     Result matchRegex(RegexRule rule, Input input) throws FatalEx
     {
         var regex = rule.regex();
@@ -482,6 +504,21 @@ public class ReferencePegParser<T> implements PegParser<T>
         return array;
     }
 
+    static Text<?> createText(ArrayList<Object> args)
+    {
+        StringBuilder sb = new StringBuilder();
+        for(var arg : args)
+        {
+            if(arg instanceof Character c)
+                sb.append(c.charValue());
+            else if(arg instanceof Integer i)
+                sb.appendCodePoint(i);
+            else
+                sb.append((CharSequence)arg);
+        }
+        return new Text<>(sb.toString());
+    }
+
     static OK tryGetCharOrStr(RegexRule rule, CharSequence chars,
                                   int start, int end, int g0End, Path path) throws FatalEx
     {
@@ -491,6 +528,8 @@ public class ReferencePegParser<T> implements PegParser<T>
                 return tryGetSingleChar(rule, chars, start, end, g0End, path);
             else if(pt.clazz()==int.class)
                 return tryGetSingleCodePoint(rule, chars, start, end, g0End, path);
+            else if(pt.clazz()==long.class || pt.clazz()==double.class)
+                return tryGetNumber(pt.boxed().clazz(), chars, start, end, g0End, path);
             else
                 throw new AssertionError();
         }
@@ -502,8 +541,12 @@ public class ReferencePegParser<T> implements PegParser<T>
                 return tryGetSingleCodePoint(rule, chars, start, end, g0End, path);
             else if(ct.clazz()==String.class)
                 return new OK(chars.subSequence(start, end).toString(), g0End, null);
+            else if(ct.clazz()==TextSlice.class)
+                return new OK(new TextSlice(chars, start, end), g0End, null);
             else if(ct.clazz()==Void.class)
                 return new OK((Void)null, g0End, null);
+            else if(ct.clazz()==Long.class || ct.clazz()==Double.class || ct.clazz()==BigDecimal.class)
+                return tryGetNumber(ct.clazz(), chars, start, end, g0End, path);
             else
                 throw new AssertionError();
         }
@@ -513,6 +556,28 @@ public class ReferencePegParser<T> implements PegParser<T>
         }
     }
 
+    static OK tryGetNumber(Class<?> clazz, CharSequence chars,
+                           int start, int end, int g0End, Path path) throws FatalEx
+    {
+        String str = chars.subSequence(start, end).toString();
+        try
+        {
+            Object value;
+            if(clazz==Long.class)
+                value = Long.parseLong(str);
+            else if(clazz==Double.class)
+                value = Double.parseDouble(str);
+            else
+                value = new BigDecimal(str);
+            return new OK(value, g0End, null);
+        }
+        catch (NumberFormatException ex)
+        {
+            // programming mistake in the regex, or an unexpected input
+            throw new FatalEx(start, ex, path);
+        }
+    }
+
     static OK tryGetSingleChar(RegexRule rule, CharSequence chars,
                                    int start, int end, int g0End, Path path) throws FatalEx
     {
@@ -0,0 +1,199 @@
+package org.rekex.parser;
+
+import org.rekex.annotype.AnnoType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// used by generated parsers with PegParserBuilder.ruleStats(true); not meant for application code.
+// each parse counts into its own instance, confined to the parsing thread, without contention;
+// at the end of the parse, the counts are added to the parser's instance under its lock.
+//
+// invocations are tracked on a stack, for the start positions, and for the time of subrules,
+// which is subtracted from the parent's self time.
+// (ruleId, start) pairs invoked in the parse are kept in an open-addressing set of longs.
+
+/**
+ * Per-rule counters; see {@link PegParserBuilder#ruleStats(boolean)}.
+ */
+public final class RuleCounters
+{
+    final boolean timing;
+
+    final long[] invocations;
+    final long[] successes;
+    final long[] failures;
+    final long[] reinvocations;
+    final long[] chars;
+    final long[] nanos;
+    final long[] selfNanos;
+
+    int[] stackRules = new int[64];
+    int[] stackStarts = new int[64];
+    long[] stackTimes;  // start time
+    long[] stackChildren; // time in subrules
+    int top;
+
+    long[] seen; // key+1; 0 for empty slots
+    int seenSize;
+
+    /**
+     * Counters for a grammar of `rules` rules; with timing if `timing` is true.
+     */
+    public RuleCounters(int rules, boolean timing)
+    {
+        this.timing = timing;
+        invocations = new long[rules];
+        successes = new long[rules];
+        failures = new long[rules];
+        reinvocations = new long[rules];
+        chars = new long[rules];
+        nanos = new long[rules];
+        selfNanos = new long[rules];
+        if(timing)
+        {
+            stackTimes = new long[64];
+            stackChildren = new long[64];
+        }
+    }
+
+    /**
+     * New counters for a parse, of the same shape as this.
+     */
+    public RuleCounters forParse()
+    {
+        return new RuleCounters(invocations.length, timing);
+    }
+
+    /**
+     * Before the rule is invoked at `start`; returns `start`.
+     */
+    public int enter(int ruleId, int start)
+    {
+        invocations[ruleId]++;
+        if(!addSeen(((long)ruleId<<32)|start))
+            reinvocations[ruleId]++;
+
+        if(top==stackRules.length)
+        {
+            stackRules = Arrays.copyOf(stackRules, top*2);
+            stackStarts = Arrays.copyOf(stackStarts, top*2);
+            if(timing)
+            {
+                stackTimes = Arrays.copyOf(stackTimes, top*2);
+                stackChildren = Arrays.copyOf(stackChildren, top*2);
+            }
+        }
+        stackRules[top] = ruleId;
+        stackStarts[top] = start;
+        if(timing)
+        {
+            stackChildren[top] = 0;
+            stackTimes[top] = System.nanoTime();
+        }
+        top++;
+        return start;
+    }
+
+    /**
+     * After the last entered rule returns `end`, or -1 for failure; returns `end`.
+     */
+    public int exit(int end)
+    {
+        if(timing)
+        {
+            long elapsed = System.nanoTime()-stackTimes[top-1];
+            int ruleId = stackRules[top-1];
+            nanos[ruleId] += elapsed;
+            selfNanos[ruleId] += elapsed-stackChildren[top-1];
+            if(top>1)
+                stackChildren[top-2] += elapsed;
+        }
+        top--;
+        int ruleId = stackRules[top];
+        if(end>=0)
+        {
+            successes[ruleId]++;
+            chars[ruleId] += end-stackStarts[top];
+        }
+        else
+        {
+            failures[ruleId]++;
+        }
+        return end;
+    }
+
+    // return false if the key is already in the set
+    boolean addSeen(long key)
+    {
+        if(seen==null)
+            seen = new long[256];
+        else if(seenSize*2>=seen.length)
+            rehash();
+        key++;
+        int mask = seen.length-1;
+        for(int slot=hash(key)&mask; ; slot=(slot+1)&mask)
+        {
+            if(seen[slot]==key)
+                return false;
+            if(seen[slot]==0)
+            {
+                seen[slot] = key;
+                seenSize++;
+                return true;
+            }
+        }
+    }
+
+    void rehash()
+    {
+        long[] old = seen;
+        seen = new long[old.length*2];
+        int mask = seen.length-1;
+        for(long key : old)
+        {
+            if(key==0)
+                continue;
+            int slot = hash(key)&mask;
+            while(seen[slot]!=0)
+                slot = (slot+1)&mask;
+            seen[slot] = key;
+        }
+    }
+
+    static int hash(long key)
+    {
+        long h = key*0x9E3779B97F4A7C15L;
+        return (int)(h^(h>>>32));
+    }
+
+    /**
+     * Add the counts of a parse to this.
+     */
+    public synchronized void add(RuleCounters parse)
+    {
+        for(int i=0; i<invocations.length; i++)
+        {
+            invocations[i] += parse.invocations[i];
+            successes[i] += parse.successes[i];
+            failures[i] += parse.failures[i];
+            reinvocations[i] += parse.reinvocations[i];
+            chars[i] += parse.chars[i];
+            nanos[i] += parse.nanos[i];
+            selfNanos[i] += parse.selfNanos[i];
+        }
+    }
+
+    /**
+     * Statistics of the rules, by rule id.
+     */
+    public synchronized List<RuleStats> snapshot(List<AnnoType> datatypes)
+    {
+        var list = new ArrayList<RuleStats>(invocations.length);
+        for(int i=0; i<invocations.length; i++)
+            list.add(new RuleStats(i, datatypes.get(i), invocations[i], successes[i], failures[i],
+                reinvocations[i], chars[i], nanos[i], selfNanos[i]));
+        return List.copyOf(list);
+    }
+}
@@ -0,0 +1,25 @@
+package org.rekex.parser;
+
+import org.rekex.annotype.AnnoType;
+
+/**
+ * Statistics of a rule over the parses by a parser; see {@link ParseStats#rules()}.
+ * Collected by generated parsers with {@link PegParserBuilder#ruleStats(boolean)}.
+ *
+ * @param ruleId id of the rule in the grammar
+ * @param datatype datatype of the rule
+ * @param invocations number of times the rule was invoked
+ * @param successes number of invocations that matched
+ * @param failures number of invocations that failed
+ * @param reinvocations number of invocations at a position where the rule
+ *                      had been invoked before in the same parse; candidates for memoization
+ * @param charsConsumed total number of chars matched by the successful invocations
+ * @param nanos total time in the rule, including subrules;
+ *              0 unless {@link PegParserBuilder#ruleTiming(boolean)}
+ * @param selfNanos total time in the rule, excluding subrules
+ */
+public record RuleStats(int ruleId, AnnoType datatype,
+                        long invocations, long successes, long failures, long reinvocations,
+                        long charsConsumed, long nanos, long selfNanos)
+{
+}
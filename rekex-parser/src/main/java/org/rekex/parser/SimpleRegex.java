@@ -0,0 +1,303 @@
+package org.rekex.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// recognizes regexes simple enough to be matched by plain Java code, without java.util.regex.
+//     a char class that matches one char, e.g. `x`, `[a-z_]`, `[^"\\]`, `[0-9&&[^5]]`, `\d`
+//     alternation of literals, e.g. `true|false`, `\{`
+//     a run of a char class, e.g. `[^\n]*`, `[0-9]+`
+//     a group of literals followed by whitespaces, e.g. `(true|false)[\ \t]*`, as from @StrWs
+// regex strings from @Ch, @Str and @StrWs are usually of these forms.
+// char tests only see BMP non-surrogate chars; the generated matcher leaves surrogates to java.util.regex.
+class SimpleRegex
+{
+    final String regex;
+    int pos;
+
+    SimpleRegex(String regex)
+    {
+        this.regex = regex;
+    }
+
+    static final Object UNSUPPORTED = new Object();
+
+    // return a Java boolean expression testing char `c`, or null.
+    static String charTest(String regex)
+    {
+        var p = new SimpleRegex(regex);
+        String test = p.classOrAtom();
+        if(test==null || p.pos!=regex.length())
+            return null;
+        return test;
+    }
+
+    // return the alternatives, or null.
+    static List<String> literals(String regex)
+    {
+        var p = new SimpleRegex(regex);
+        var list = p.literals();
+        if(list==null || p.pos!=regex.length())
+            return null;
+        return list;
+    }
+
+    record LiteralsWs(List<String> literals, String wsTest){}
+
+    // `(literals)ws*`, with group 1 being the literal. return null if not of this form.
+    static LiteralsWs literalsWs(String regex)
+    {
+        var p = new SimpleRegex(regex);
+        if(!regex.startsWith("("))
+            return null;
+        p.pos++;
+        var list = p.literals();
+        if(list==null || !regex.startsWith(")", p.pos))
+            return null;
+        p.pos++;
+        String wsTest = p.classOrAtom();
+        if(wsTest==null || !regex.startsWith("*", p.pos) || p.pos+1!=regex.length())
+            return null;
+        return new LiteralsWs(list, wsTest);
+    }
+
+    // `excluded` is the only char not in the class, e.g. `\n` in `[^\n]*`; or -1.
+    record CharRun(String test, int min, int excluded){}
+
+    // `class*` or `class+`. return null if not of this form.
+    static CharRun charRun(String regex)
+    {
+        var p = new SimpleRegex(regex);
+        String test = p.classOrAtom();
+        if(test==null || p.pos+1!=regex.length())
+            return null;
+        char q = regex.charAt(p.pos);
+        if(q!='*' && q!='+')
+            return null;
+        int min = q=='+' ? 1 : 0;
+
+        int excluded = -1;
+        var p2 = new SimpleRegex(regex);
+        if(regex.startsWith("[^"))
+        {
+            p2.pos = 2;
+            if(p2.atom() instanceof Integer x && x<=0xFFFF && !Character.isSurrogate((char)(int)x)
+                && p2.pos+2==regex.length() && regex.charAt(p2.pos)==']')
+                excluded = x;
+        }
+        return new CharRun(test, min, excluded);
+    }
+
+    // until `)` or the end
+    List<String> literals()
+    {
+        var list = new ArrayList<String>();
+        var sb = new StringBuilder();
+        while(pos<regex.length() && regex.charAt(pos)!=')')
+        {
+            if(regex.charAt(pos)=='|')
+            {
+                pos++;
+                list.add(sb.toString());
+                sb.setLength(0);
+                continue;
+            }
+            if(!(atom() instanceof Integer x) || x>0xFFFF || Character.isSurrogate((char)(int)x))
+                return null;
+            sb.append((char)(int)x);
+        }
+        list.add(sb.toString());
+        return list;
+    }
+
+    String classOrAtom()
+    {
+        if(pos<regex.length() && regex.charAt(pos)=='[')
+            return charClass();
+        Object x = atom();
+        if(x instanceof Integer ch)
+            return is(ch);
+        if(x instanceof String test)
+            return test;
+        return null;
+    }
+
+    // [^? union (&& union)* ]
+    String charClass()
+    {
+        pos++; // [
+        boolean negate = false;
+        if(pos<regex.length() && regex.charAt(pos)=='^')
+        {
+            negate = true;
+            pos++;
+        }
+        var intersection = new ArrayList<String>();
+        var union = new ArrayList<String>();
+        while(true)
+        {
+            if(pos>=regex.length())
+                return null;
+            char ch = regex.charAt(pos);
+            if(ch==']')
+            {
+                pos++;
+                break;
+            }
+            if(regex.startsWith("&&", pos))
+            {
+                pos += 2;
+                intersection.add(join(union, " || "));
+                union.clear();
+                continue;
+            }
+            if(ch=='[')
+            {
+                String nested = charClass();
+                if(nested==null)
+                    return null;
+                union.add(nested);
+                continue;
+            }
+            Object x = atom();
+            if(x instanceof String test)
+            {
+                union.add(test);
+                continue;
+            }
+            if(!(x instanceof Integer from))
+                return null;
+            if(pos<regex.length() && regex.charAt(pos)=='-')
+            {
+                pos++;
+                if(!(atom() instanceof Integer to))
+                    return null;
+                union.add(inRange(from, to));
+            }
+            else
+            {
+                union.add(is(from));
+            }
+        }
+        intersection.add(join(union, " || "));
+        if(negate && intersection.size()>1) // precedence of ^ and && is confusing; skip
+            return null;
+        if(negate)
+            return "!(" + intersection.get(0) + ")";
+        return join(intersection, " && ");
+    }
+
+    // `c` is a BMP char; code points above 0xFFFF never equal it.
+    static String is(int ch)
+    {
+        if(ch>0xFFFF)
+            return "false";
+        return "c==" + lit(ch);
+    }
+    static String inRange(int from, int to)
+    {
+        if(from>0xFFFF)
+            return "false";
+        if(to>=0xFFFF)
+            return "c>=" + lit(from);
+        return "c>=" + lit(from) + " && c<=" + lit(to);
+    }
+
+    // && binds tighter than ||; add parens only where needed
+    static String join(List<String> tests, String op)
+    {
+        if(tests.isEmpty())
+            return "false";
+        if(tests.size()==1 || op.contains("||"))
+            return String.join(op, tests);
+        return String.join(op, tests.stream().map(t->hasTopLevelOr(t) ? "("+t+")" : t).toList());
+    }
+    static boolean hasTopLevelOr(String test)
+    {
+        int depth = 0;
+        for(int i=0; i<test.length(); i++)
+        {
+            char ch = test.charAt(i);
+            if(ch=='\'') // skip char literal, which may contain parens
+                i = test.indexOf('\'', i+2);
+            else if(ch=='(')
+                depth++;
+            else if(ch==')')
+                depth--;
+            else if(depth==0 && test.startsWith("||", i))
+                return true;
+        }
+        return false;
+    }
+
+    // Integer for a single code point; String for a predefined class; UNSUPPORTED otherwise.
+    Object atom()
+    {
+        if(pos>=regex.length())
+            return UNSUPPORTED;
+        char ch = regex.charAt(pos++);
+        if(ch!='\\')
+        {
+            if("^$.|?*+()[]{}-&".indexOf(ch)!=-1 || Character.isSurrogate(ch))
+                return UNSUPPORTED;
+            return (int)ch;
+        }
+        if(pos>=regex.length())
+            return UNSUPPORTED;
+        ch = regex.charAt(pos++);
+        switch(ch)
+        {
+            case 't': return (int)'\t';
+            case 'n': return (int)'\n';
+            case 'r': return (int)'\r';
+            case 'f': return (int)'\f';
+            case 'a': return 0x07;
+            case 'e': return 0x1B;
+            case 'd': return "c>='0' && c<='9'";
+            case 's': return "c==' ' || c=='\\t' || c=='\\n' || c==0x000B || c=='\\f' || c=='\\r'";
+            case 'w': return "c>='a' && c<='z' || c>='A' && c<='Z' || c=='_' || c>='0' && c<='9'";
+            case 'u': return hex(4);
+            case 'x': return hexX();
+        }
+        if(Character.isLetterOrDigit(ch)) // other escapes, e.g. \p, \b, \Q, \0, \1
+            return UNSUPPORTED;
+        return (int)ch;
+    }
+    // \xhh or \x{h...h}
+    Object hexX()
+    {
+        if(!regex.startsWith("{", pos))
+            return hex(2);
+        int close = regex.indexOf('}', pos);
+        if(close==-1)
+            return UNSUPPORTED;
+        pos++;
+        Object x = hex(close-pos);
+        pos++;
+        return x;
+    }
+    Object hex(int n)
+    {
+        if(n<1 || n>6 || pos+n>regex.length())
+            return UNSUPPORTED;
+        int x = 0;
+        for(int i=0; i<n; i++)
+        {
+            int d = Character.digit(regex.charAt(pos++), 16);
+            if(d==-1)
+                return UNSUPPORTED;
+            x = x*16 + d;
+        }
+        if(x>Character.MAX_CODE_POINT)
+            return UNSUPPORTED;
+        return x;
+    }
+
+    // char literal in Java source
+    static String lit(int c)
+    {
+        if(c>=0x20 && c<0x7F && c!='\'' && c!='\\')
+            return "'" + (char)c + "'";
+        return "0x%04X".formatted(c);
+    }
+}
@@ -0,0 +1,242 @@
+package org.rekex.parser;
+
+import java.util.Arrays;
+
+// during a parse, entries are only appended, in post-order of the parse tree, and truncated on backtracking.
+// lookup structures are built on the first lookup after a change:
+//   an identity hash table from node to entry;
+//   the tree of entries, by a stack: in post-order, the entries recorded after a node's start
+//   and before the node are its descendants. children of a node are stored contiguously in `kids`.
+
+/**
+ * Positions of datatype values created by a parse, in a side table;
+ * see {@link PegParser#parse(CharSequence, int, int, SourceMap)}.
+ * <p>
+ *     Values of sequence rules, e.g. records, are recorded with their start and end positions
+ *     in the input. This is an alternative to `ParseInfo` in ctors: datatypes don't need
+ *     any extra field, and the positions are kept in a few primitive arrays for the whole parse.
+ * </p>
+ * <p>
+ *     The position of a value is looked up by identity, in O(1) time.
+ *     The innermost value at a position is found by descending the tree of values,
+ *     with a binary search among the children at each level.
+ *     If a value is created once but used several times, e.g. with
+ *     {@link PegParserBuilder#hashCons(boolean)}, the first position is recorded.
+ *     Values created in {@link org.rekex.spec.Lazy#get()} are not recorded.
+ * </p>
+ * <p>
+ *     A SourceMap can be reused for several parses; each parse clears it first.
+ *     It is not thread-safe.
+ * </p>
+ */
+public final class SourceMap
+{
+    Object[] nodes = new Object[64];
+    int[] starts = new int[64];
+    int[] ends = new int[64];
+    int size;
+
+    // built on demand
+    int[] table;     // entry+1, by identity hash; 0 for empty slots
+    int[] kidsFrom;  // for each entry, its children in `kids`
+    int[] kidsCount;
+    int[] kids;
+    int rootsFrom;
+    int rootsCount;
+    boolean built;
+
+    public SourceMap()
+    {
+    }
+
+    /**
+     * Record a node; used by generated parsers.
+     */
+    public void put(Object node, int start, int end)
+    {
+        if(size==nodes.length)
+        {
+            nodes = Arrays.copyOf(nodes, size*2);
+            starts = Arrays.copyOf(starts, size*2);
+            ends = Arrays.copyOf(ends, size*2);
+        }
+        nodes[size] = node;
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+        built = false;
+    }
+
+    /**
+     * Remove the nodes recorded after the first `size` nodes; used by generated parsers on backtracking.
+     */
+    public void truncate(int size)
+    {
+        if(size>this.size)
+            throw new IllegalArgumentException("size=%d > %d".formatted(size, this.size));
+        Arrays.fill(nodes, size, this.size, null);
+        this.size = size;
+        built = false;
+    }
+
+    /**
+     * Remove all nodes.
+     */
+    public void clear()
+    {
+        truncate(0);
+    }
+
+    /**
+     * Number of nodes recorded.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Whether the node is recorded; by identity.
+     */
+    public boolean contains(Object node)
+    {
+        return entry(node)>=0;
+    }
+
+    /**
+     * The start position of the node; or -1 if the node is not recorded.
+     */
+    public int start(Object node)
+    {
+        int i = entry(node);
+        return i<0 ? -1 : starts[i];
+    }
+
+    /**
+     * The end position of the node; or -1 if the node is not recorded.
+     */
+    public int end(Object node)
+    {
+        int i = entry(node);
+        return i<0 ? -1 : ends[i];
+    }
+
+    /**
+     * The innermost node whose region contains the char at `position`; or null if none.
+     */
+    public Object nodeAt(int position)
+    {
+        return nodeAt(position, Object.class);
+    }
+
+    /**
+     * The innermost node of `type` whose region contains the char at `position`; or null if none.
+     */
+    public <T> T nodeAt(int position, Class<T> type)
+    {
+        build();
+        T found = null;
+        int from = rootsFrom, count = rootsCount;
+        while(true)
+        {
+            int i = search(position, from, count);
+            if(i<0)
+                return found;
+            if(type.isInstance(nodes[i]))
+                found = type.cast(nodes[i]);
+            from = kidsFrom[i];
+            count = kidsCount[i];
+        }
+    }
+
+    // among kids[from, from+count), sorted by start, the entry containing `position`; or -1.
+    int search(int position, int from, int count)
+    {
+        int lo = from, hi = from+count-1, last = -1;
+        while(lo<=hi)
+        {
+            int mid = (lo+hi)>>>1;
+            if(starts[kids[mid]]<=position)
+            {
+                last = mid;
+                lo = mid+1;
+            }
+            else
+                hi = mid-1;
+        }
+        // zero-width nodes before a covering sibling at the same start
+        for(int k=last; k>=from && starts[kids[k]]==starts[kids[last]]; k--)
+            if(ends[kids[k]]>position)
+                return kids[k];
+        return -1;
+    }
+
+    int entry(Object node)
+    {
+        if(node==null)
+            return -1;
+        build();
+        int mask = table.length-1;
+        for(int slot=hash(node)&mask; ; slot=(slot+1)&mask)
+        {
+            int e = table[slot];
+            if(e==0)
+                return -1;
+            if(nodes[e-1]==node)
+                return e-1;
+        }
+    }
+
+    static int hash(Object node)
+    {
+        int h = System.identityHashCode(node)*0x9E3779B1;
+        return h^(h>>>16);
+    }
+
+    void build()
+    {
+        if(built)
+            return;
+
+        table = new int[Integer.highestOneBit(Math.max(4, size)*2)*2];
+        int mask = table.length-1;
+        for(int i=0; i<size; i++)
+        {
+            int slot = hash(nodes[i])&mask;
+            while(table[slot]!=0)
+            {
+                if(nodes[table[slot]-1]==nodes[i]) // recorded before; keep the first
+                    break;
+                slot = (slot+1)&mask;
+            }
+            if(table[slot]==0)
+                table[slot] = i+1;
+        }
+
+        // roots of the subtrees recorded so far are on the stack; a node adopts those after its start.
+        kidsFrom = new int[size];
+        kidsCount = new int[size];
+        kids = new int[size];
+        int kidsLen = 0;
+        int[] stack = new int[size];
+        int top = 0;
+        for(int i=0; i<size; i++)
+        {
+            int bottom = top;
+            while(bottom>0 && starts[stack[bottom-1]]>=starts[i])
+                bottom--;
+            kidsFrom[i] = kidsLen;
+            kidsCount[i] = top-bottom;
+            System.arraycopy(stack, bottom, kids, kidsLen, top-bottom);
+            kidsLen += top-bottom;
+            top = bottom;
+            stack[top++] = i;
+        }
+        // roots after all the children; `kids` has room since every entry is in it once
+        rootsFrom = kidsLen;
+        rootsCount = top;
+        System.arraycopy(stack, 0, kids, kidsLen, top);
+
+        built = true;
+    }
+}
@@ -0,0 +1,290 @@
+package org.rekex.parser;
+
+import java.util.Arrays;
+
+// a single pass over the input, before parsing, like stage 1 of simdjson.
+// positions of brackets and separators are recorded in order, skipping quoted strings;
+// each bracket is paired with its matching bracket by a stack.
+// a position is looked up through a table of the first entry in every 64-char block,
+// followed by a scan of at most the entries within the block; so a lookup is O(1).
+
+/**
+ * An index of the structural chars of an input: brackets and separators outside quoted strings,
+ * with each bracket paired to its matching bracket.
+ * <p>
+ *     It's built once in O(n) time; afterwards, the matching bracket of a position
+ *     is found in O(1), so that a balanced region can be skipped without parsing it.
+ *     A generated parser builds it for each parse
+ *     with {@link PegParserBuilder#structuralIndex(Syntax)}.
+ *     It can also be built by applications, e.g. to reject unbalanced input early
+ *     with {@link #firstError()}, or to split the elements of a big array
+ *     with {@link #separators(int, char)}, to be parsed in parallel.
+ * </p>
+ * <p>
+ *     The index only considers the chars of the {@link Syntax}; it does not know about comments
+ *     or other constructs of the grammar, in which brackets and quotes would be taken literally.
+ * </p>
+ */
+public final class StructuralIndex
+{
+    /**
+     * The structural chars of a grammar.
+     * All chars must be ASCII and distinct.
+     *
+     * @param brackets pairs of open and close brackets, e.g. "[]{}"
+     * @param separators e.g. ",:"
+     * @param quotes chars that start and end a string, e.g. "\""
+     * @param escape the char that escapes the next char in a string, e.g. '\\'
+     */
+    public record Syntax(String brackets, String separators, String quotes, char escape)
+    {
+        public Syntax
+        {
+            if(brackets.length()%2!=0)
+                throw new IllegalArgumentException("brackets must be in pairs: "+brackets);
+            String all = brackets + separators + quotes + escape;
+            for(int i=0; i<all.length(); i++)
+            {
+                char c = all.charAt(i);
+                if(c>=0x80)
+                    throw new IllegalArgumentException("not an ASCII char: "+c);
+                if(all.indexOf(c)!=i)
+                    throw new IllegalArgumentException("duplicate char: "+c);
+            }
+        }
+
+        /**
+         * The syntax of Json.
+         */
+        public static Syntax json()
+        {
+            return new Syntax("[]{}", ",:", "\"", '\\');
+        }
+
+        /**
+         * The close bracket of an open bracket; or -1 if `c` is not an open bracket.
+         */
+        public int closeOf(char c)
+        {
+            int i = brackets.indexOf(c);
+            return i>=0 && i%2==0 ? brackets.charAt(i+1) : -1;
+        }
+    }
+
+    static final byte OPEN=1, CLOSE=2, SEPARATOR=3, QUOTE=4;
+    static final int BLOCK_SHIFT = 6;
+
+    final CharSequence chars;
+    final int start;
+    final int end;
+
+    int size;
+    int[] positions; // positions of structural chars, ascending
+    int[] partners;  // for a bracket, the entry of its matching bracket; otherwise -1
+    int[] blocks;    // for each block, the first entry at or after the block start
+    int firstError = -1;
+
+    StructuralIndex(CharSequence chars, int start, int end)
+    {
+        this.chars = chars;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Build the index of `chars[start, end)`.
+     */
+    public static StructuralIndex build(CharSequence chars, int start, int end, Syntax syntax)
+    {
+        var index = new StructuralIndex(chars, start, end);
+        index.scan(syntax);
+        return index;
+    }
+
+    void scan(Syntax syntax)
+    {
+        byte[] kinds = new byte[128];
+        for(int i=0; i<syntax.brackets().length(); i++)
+            kinds[syntax.brackets().charAt(i)] = i%2==0 ? OPEN : CLOSE;
+        for(char c : syntax.separators().toCharArray())
+            kinds[c] = SEPARATOR;
+        for(char c : syntax.quotes().toCharArray())
+            kinds[c] = QUOTE;
+        String brackets = syntax.brackets();
+        char escape = syntax.escape();
+
+        positions = new int[16];
+        partners = new int[16];
+        blocks = new int[((end-start)>>BLOCK_SHIFT)+1];
+        int nextBlock = 0;
+        int[] stack = new int[16];
+        int depth = 0;
+
+        for(int pos=start; pos<end; pos++)
+        {
+            char c = chars.charAt(pos);
+            if(c>=0x80 || kinds[c]==0)
+                continue;
+            if(kinds[c]==QUOTE)
+            {
+                int q = pos;
+                for(pos++; pos<end; pos++)
+                {
+                    char c2 = chars.charAt(pos);
+                    if(c2==escape)
+                        pos++;
+                    else if(c2==c)
+                        break;
+                }
+                if(pos>=end)
+                    error(q);
+                continue;
+            }
+
+            while(nextBlock <= (pos-start)>>BLOCK_SHIFT)
+                blocks[nextBlock++] = size;
+            int entry = add(pos);
+            if(kinds[c]==OPEN)
+            {
+                if(depth==stack.length)
+                    stack = Arrays.copyOf(stack, depth*2);
+                stack[depth++] = entry;
+            }
+            else if(kinds[c]==CLOSE)
+            {
+                if(depth==0)
+                {
+                    error(pos);
+                    continue;
+                }
+                int open = stack[--depth];
+                char openChar = chars.charAt(positions[open]);
+                if(brackets.indexOf(openChar)+1!=brackets.indexOf(c))
+                {
+                    error(positions[open]);
+                    continue;
+                }
+                partners[open] = entry;
+                partners[entry] = open;
+            }
+        }
+        while(nextBlock<blocks.length)
+            blocks[nextBlock++] = size;
+        if(depth>0)
+            error(positions[stack[0]]);
+    }
+
+    int add(int pos)
+    {
+        if(size==positions.length)
+        {
+            positions = Arrays.copyOf(positions, size*2);
+            partners = Arrays.copyOf(partners, size*2);
+        }
+        positions[size] = pos;
+        partners[size] = -1;
+        return size++;
+    }
+
+    void error(int pos)
+    {
+        if(firstError==-1 || pos<firstError)
+            firstError = pos;
+    }
+
+    // the entry of the structural char at `pos`, or -1
+    int entryAt(int pos)
+    {
+        if(pos<start || pos>=end)
+            return -1;
+        int i = blocks[(pos-start)>>BLOCK_SHIFT];
+        while(i<size && positions[i]<pos)
+            i++;
+        return i<size && positions[i]==pos ? i : -1;
+    }
+
+    /**
+     * Number of structural chars outside quoted strings.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * The position of the i-th structural char.
+     */
+    public int position(int i)
+    {
+        if(i<0 || i>=size)
+            throw new IndexOutOfBoundsException("index=%d, size=%d".formatted(i, size));
+        return positions[i];
+    }
+
+    /**
+     * The position of the first unbalanced or mismatched bracket, or unterminated string;
+     * or -1 if there's none.
+     */
+    public int firstError()
+    {
+        return firstError;
+    }
+
+    /**
+     * The position of the bracket matching the bracket at `pos`;
+     * or -1 if there's no bracket at `pos`, or it's unbalanced.
+     */
+    public int matching(int pos)
+    {
+        int i = entryAt(pos);
+        if(i==-1 || partners[i]==-1)
+            return -1;
+        return positions[partners[i]];
+    }
+
+    /**
+     * The position after the close bracket matching the open bracket `open` at `pos`;
+     * or -1 if `open` is not at `pos`, or it's unbalanced.
+     * This is for a generated parser to skip a balanced region.
+     */
+    public int skip(int pos, char open)
+    {
+        if(pos<start || pos>=end || chars.charAt(pos)!=open)
+            return -1;
+        int close = matching(pos);
+        return close==-1 || close<pos ? -1 : close+1;
+    }
+
+    /**
+     * Positions of the `separator` chars directly inside the brackets at `open`,
+     * not in nested brackets; or an empty array if there's no balanced open bracket at `open`.
+     * <p>
+     *     For example, for a Json array at `open`, the elements are in the regions between
+     *     `open+1`, the separators, and the close bracket.
+     * </p>
+     */
+    public int[] separators(int open, char separator)
+    {
+        int i = entryAt(open);
+        if(i==-1 || partners[i]<=i)
+            return new int[0];
+        int close = partners[i];
+        int[] result = new int[16];
+        int n = 0;
+        for(i++; i<close; i++)
+        {
+            if(partners[i]>i) // nested open bracket
+            {
+                i = partners[i];
+                continue;
+            }
+            if(chars.charAt(positions[i])==separator)
+            {
+                if(n==result.length)
+                    result = Arrays.copyOf(result, n*2);
+                result[n++] = positions[i];
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+}
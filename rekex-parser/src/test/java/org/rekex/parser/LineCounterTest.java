@@ -19,6 +19,42 @@ class LineCounterTest
         check("\n\r", 0,0, 1,1, 2,2);
     }
 
+    @Test
+    void test2()
+    {
+        // the index is built in chunks; a CR LF split at a chunk boundary is one linebreak
+        var sb = new StringBuilder();
+        var random = new java.util.Random(42);
+        while(sb.length()<LineCounter.CHUNK*3)
+            sb.append("abc\r\n\n\r".charAt(random.nextInt(7)));
+        sb.setCharAt(LineCounter.CHUNK-1, '\r');
+        sb.setCharAt(LineCounter.CHUNK, '\n');
+        String text = sb.toString();
+
+        var regex = new LineCounter(LineCounter.defaultLinebreak(), text, 0, text.length());
+        var lc = new LineCounter(text);
+        var lcSb = new LineCounter(null, sb, 1, text.length()-1); // not a String; a sub region
+        assertEquals(regex.line(LineCounter.CHUNK), lc.line(LineCounter.CHUNK));
+        assertEquals(regex.column(LineCounter.CHUNK), lc.column(LineCounter.CHUNK));
+        // the rest is indexed on demand, backwards
+        for(int pos=text.length(); pos>=0; pos-=7)
+        {
+            assertEquals(regex.line(pos), lc.line(pos));
+            assertEquals(regex.column(pos), lc.column(pos));
+        }
+        assertEquals(regex.lines(), lc.lines());
+        for(int l=0; l<lc.lines(); l++)
+        {
+            assertEquals(regex.lineStart(l), lc.lineStart(l));
+            assertEquals(regex.lineEnd(l), lc.lineEnd(l));
+        }
+
+        var regexSb = new LineCounter(LineCounter.defaultLinebreak(), sb, 1, text.length()-1);
+        assertEquals(regexSb.lines(), lcSb.lines());
+        assertEquals(regexSb.lineEnd(5), lcSb.lineEnd(5));
+        assertEquals(regexSb.line(text.length()-1), lcSb.line(text.length()-1));
+    }
+
     void check(String text, int... startAndEnds)
     {
         LineCounter lc = new LineCounter(text);
@@ -8,6 +8,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -19,6 +20,9 @@ public class PegParserTestBase
     protected boolean dumpResult = false;
     protected boolean dumpGrammar = false;
 
+    // extra options for the generated parser
+    protected Consumer<PegParserBuilder> builderOptions = builder->{};
+
     protected List<PegParser<?>> parsers;
 
     protected void initParsers(Class<?> rootClass)
@@ -31,6 +35,7 @@ public class PegParserTestBase
             .logger(msg->{})
             .rootType(rootType)
             .catalogClass(catalogClass);
+        builderOptions.accept(builder);
 
         if(generateJavaHere) // for dev time only
         {
@@ -0,0 +1,118 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.ParseResult;
+import org.rekex.parser.PegParser;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Regex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserBatchTest extends PegParserTestBase
+{
+    // parseAll() and processor(): many inputs parsed on an executor, results in input order.
+
+    public record Sum(@Regex("[0-9]+")String a, @Ch("+")Void plus, @Regex("[0-9]+")String b){}
+
+    {
+        initParsers(Sum.class);
+    }
+
+    List<String> inputs()
+    {
+        var inputs = new ArrayList<String>();
+        for(int i=0; i<1000; i++)
+            inputs.add(i%10==9 ? i+"+" : i+"+"+i);
+        return inputs;
+    }
+
+    static int value(ParseResult<?> result)
+    {
+        if(result instanceof ParseResult.Full<?> full && full.value() instanceof Sum sum)
+            return Integer.parseInt(sum.a())+Integer.parseInt(sum.b());
+        return -1;
+    }
+
+    static void checkOrder(List<? extends ParseResult<?>> results)
+    {
+        assertEquals(1000, results.size());
+        for(int i=0; i<1000; i++)
+            assertEquals(i%10==9 ? -1 : 2*i, value(results.get(i)));
+    }
+
+    @Test
+    void testParseAll()
+    {
+        for(var parser : parsers)
+        {
+            checkOrder(parser.parseAll(inputs(), ForkJoinPool.commonPool()));
+            checkOrder(parser.parseAll(inputs(), Runnable::run));
+            assertEquals(List.of(), parser.parseAll(List.of(), ForkJoinPool.commonPool()));
+        }
+    }
+
+    @Test
+    void testProcessor() throws Exception
+    {
+        var executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            for(var parser : parsers)
+                checkOrder(process(parser, executor));
+        }
+        finally
+        {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    List<ParseResult<?>> process(PegParser<?> parser, Executor executor) throws Exception
+    {
+        var results = new ArrayList<ParseResult<?>>();
+        var done = new CompletableFuture<Void>();
+        var processor = parser.processor(executor, 8);
+        // requests one at a time
+        processor.subscribe(new Flow.Subscriber<ParseResult<?>>()
+        {
+            Flow.Subscription subscription;
+            public void onSubscribe(Flow.Subscription subscription)
+            {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+            public void onNext(ParseResult<?> item)
+            {
+                results.add(item);
+                subscription.request(1);
+            }
+            public void onError(Throwable throwable)
+            {
+                done.completeExceptionally(throwable);
+            }
+            public void onComplete()
+            {
+                done.complete(null);
+            }
+        });
+        try(var upstream = new SubmissionPublisher<CharSequence>())
+        {
+            upstream.subscribe(processor);
+            for(var input : inputs())
+                upstream.submit(input);
+        }
+        done.get(10, TimeUnit.SECONDS);
+        return results;
+    }
+}
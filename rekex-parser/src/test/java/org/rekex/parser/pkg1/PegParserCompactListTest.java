@@ -0,0 +1,69 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Regex;
+import org.rekex.spec.SizeLimit;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserCompactListTest extends PegParserTestBase
+{
+    // repetitions share one element buffer in the parse;
+    // nested and failed repetitions must leave it as they found it.
+
+    public record Word(@Regex("[a-z]")String s){}
+
+    public sealed interface Group permits Three, Any {}
+    // fails after collecting 1 or 2 words, if fewer than 3
+    public record Three(@Ch("(")Void l, @SizeLimit(min=3) List<Word> words, @Ch(")")Void r) implements Group {}
+    public record Any(@Ch("(")Void l, Word[] words, List<@Ch("-")Void> dashes, @Ch(")")Void r) implements Group
+    {
+        @Override
+        public boolean equals(Object obj)
+        {
+            return obj instanceof Any that && Arrays.equals(this.words, that.words) && this.dashes.equals(that.dashes);
+        }
+        @Override
+        public int hashCode()
+        {
+            return Arrays.hashCode(words);
+        }
+    }
+
+    public record Groups(List<Group> groups){}
+
+    {
+        initParsers(Groups.class);
+    }
+
+    static List<Word> words(String s)
+    {
+        return s.chars().mapToObj(c->new Word(Character.toString(c))).toList();
+    }
+
+    @Test
+    void test() throws Exception
+    {
+        matchFull("", new Groups(List.of()));
+        matchFull("(abc)(ab--)(a)(abcd)()", new Groups(List.of(
+            new Three(null, words("abc"), null),
+            new Any(null, words("ab").toArray(new Word[0]), Arrays.asList(null, null), null),
+            new Any(null, words("a").toArray(new Word[0]), List.of(), null),
+            new Three(null, words("abcd"), null),
+            new Any(null, new Word[0], List.of(), null)
+        )));
+
+        var groups = ((Groups)parsers.get(1).matchFull("(ab-)(abcdef)")).groups();
+        assertThrows(UnsupportedOperationException.class, ()->groups.add(null));
+        var words = ((Three)groups.get(1)).words();
+        assertEquals(words("abcdef"), words);
+        assertThrows(UnsupportedOperationException.class, ()->words.set(0, null));
+        assertThrows(IndexOutOfBoundsException.class, ()->words.get(6));
+        assertEquals(words("abcdef").hashCode(), words.hashCode());
+    }
+}
@@ -0,0 +1,76 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Regex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserHashConsTest extends PegParserTestBase
+{
+    // hashCons(true): identical subtrees are the same instance
+
+    public sealed interface Val permits Num, Arr {}
+    public record Num(@Regex("[0-9]+")long n, @Ch(",")Void comma) implements Val {}
+    public record Arr(@Ch("[")Void l, List<Num> items, @Ch("]")Void r) implements Val {}
+
+    public record Pair(@Regex("[a-z]+")String key, @Ch("=")Void eq, Val val, @Ch(";")Void semi){}
+
+    public record Doc(List<Pair> pairs){}
+
+    public record Ints(@Ch(range={'0','9'})int[] xs, @Ch(";")Void semi){}
+    public record IntsList(List<Ints> list){}
+
+    {
+        builderOptions = builder -> builder.hashCons(true);
+        initParsers(Doc.class);
+    }
+
+    @Test
+    void test() throws Exception
+    {
+        var input = "a=1,;b=[1,2,];a=1,;b=[1,2,];b=[1,3,];";
+        var num1 = new Num(1, null);
+        var arr12 = new Arr(null, List.of(num1, new Num(2, null)), null);
+        matchFull(input, new Doc(List.of(
+            new Pair("a", null, num1, null),
+            new Pair("b", null, arr12, null),
+            new Pair("a", null, num1, null),
+            new Pair("b", null, arr12, null),
+            new Pair("b", null, new Arr(null, List.of(num1, new Num(3, null)), null), null)
+        )));
+
+        var parser = parsers.get(1);
+        var stats0 = parser.stats();
+        var pairs = ((Doc)parser.matchFull(input)).pairs();
+        assertSame(pairs.get(0), pairs.get(2));
+        assertSame(pairs.get(1), pairs.get(3));
+        assertNotSame(pairs.get(1), pairs.get(4));
+        var num = ((Arr)pairs.get(1).val()).items().get(0);
+        assertSame(pairs.get(0).val(), num);
+        assertSame(num, ((Arr)pairs.get(4).val()).items().get(0));
+
+        // Num x8, Arr x3, Pair x5, Doc x1
+        var stats = parser.stats();
+        assertEquals(17, stats.hashConsLookups()-stats0.hashConsLookups());
+        // Num x5, Arr x1, Pair x2
+        assertEquals(8, stats.hashConsHits()-stats0.hashConsHits());
+        assertTrue(stats.dedupRatio()>0);
+
+        assertEquals(0, parsers.get(0).stats().hashConsLookups());
+    }
+
+    @Test
+    void testArray() throws Exception
+    {
+        // arrays are mutable; records with array components are not shared
+        initParsers(IntsList.class);
+        var list = ((IntsList)parsers.get(1).matchFull("12;12;")).list();
+        assertArrayEquals(list.get(0).xs(), list.get(1).xs());
+        assertNotSame(list.get(0), list.get(1));
+        assertNotSame(list.get(0).xs(), list.get(1).xs());
+    }
+}
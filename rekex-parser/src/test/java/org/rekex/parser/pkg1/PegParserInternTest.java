@@ -0,0 +1,44 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Regex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserInternTest extends PegParserTestBase
+{
+    // internStrings(true): a repeated string within a parse is the same String instance.
+
+    public record Word(@Regex("[a-z]+")String s, @Ch(" ")Void sp){}
+
+    {
+        builderOptions = builder -> builder.internStrings(true);
+        initParsers(Words.class);
+    }
+
+    public record Words(List<Word> words){}
+
+    @Test
+    void test() throws Exception
+    {
+        matchFull("");
+        matchFull("ab cd ab ab ", new Words(List.of(
+            new Word("ab", null), new Word("cd", null), new Word("ab", null), new Word("ab", null)
+        )));
+
+        var words = ((Words)parsers.get(1).matchFull("ab cd ab ab ")).words();
+        assertSame(words.get(0).s(), words.get(2).s());
+        assertSame(words.get(0).s(), words.get(3).s());
+        assertNotSame(words.get(0).s(), words.get(1).s());
+
+        // strings too long to intern
+        var longWord = "x".repeat(100);
+        words = ((Words)parsers.get(1).matchFull(longWord+" "+longWord+" ")).words();
+        assertEquals(words.get(0), words.get(1));
+        assertNotSame(words.get(0).s(), words.get(1).s());
+    }
+}
@@ -0,0 +1,62 @@
+package org.rekex.parser.pkg1;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.PegParser;
+import org.rekex.parser.PegParserBuilder;
+import org.rekex.spec.Regex;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserJfrTest
+{
+    // JFR events of the build phases, and of parses over the threshold
+
+    public record Pair(@Regex("[a-z]+")String a, @Ch("=")Void eq, @Regex("[0-9]+")String b){}
+
+    @Test
+    void test() throws Exception
+    {
+        var file = Files.createTempFile("rekex", ".jfr");
+        PegParser<Pair> parser;
+        try(var recording = new Recording())
+        {
+            recording.enable("org.rekex.BuildPhase");
+            recording.enable("org.rekex.Parse").withThreshold(Duration.ZERO);
+            recording.start();
+
+            parser = new PegParserBuilder()
+                .rootType(Pair.class)
+                .logger(msg->{})
+                .build();
+            parser.parse("x=1");
+            parser.parse("x=1y");
+            parser.parse("x=");
+
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        var phases = events.stream().filter(e->e.getEventType().getName().equals("org.rekex.BuildPhase"))
+            .map(e->e.getString("phase")).toList();
+        assertEquals(List.of("derive", "codegen", "compile", "load"), phases);
+        var build = events.stream().filter(e->e.getEventType().getName().equals("org.rekex.BuildPhase")).findFirst().get();
+        assertEquals(4, build.getInt("rules")); // Pair, a, eq, b
+        assertEquals(32, build.getString("fingerprint").length());
+
+        var parses = events.stream().filter(e->e.getEventType().getName().equals("org.rekex.Parse")).toList();
+        assertEquals(List.of("Full", "Partial", "Fail"), parses.stream().map(e->e.getString("result")).toList());
+        assertEquals(List.of(3, 3, 2), parses.stream().map(e->e.getInt("position")).toList());
+        assertEquals(4, parses.get(1).getInt("inputLength"));
+        assertEquals(parser.getClass().getName(), parses.get(0).getClass("parser").getName());
+    }
+}
@@ -0,0 +1,82 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.ParseFail;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Ctor;
+import org.rekex.spec.Lazy;
+import org.rekex.spec.Not;
+import org.rekex.spec.Peek;
+import org.rekex.spec.Regex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserLazyTest extends PegParserTestBase
+{
+    // Lazy<T>: the generated parser only recognizes the extent of T; get() parses it on demand.
+
+    public sealed interface Elem permits Num, Arr {}
+    public record Num(Peek<Not<LeadingZero>> noLeadingZero, @Regex("[0-9]+")long n, @Ch(",")Void comma) implements Elem {}
+    public record LeadingZero(@Regex("0[0-9]")String s){}
+    public record Arr(@Ch("[")Void l, List<Elem> elems, @Ch("]")Void r) implements Elem {}
+
+    // a semantic predicate; not tested by recognition
+    public record Even(long n)
+    {
+        @Ctor public static Even of(@Regex("[0-9]+")long n) throws ParseFail
+        {
+            if(n%2!=0)
+                throw ParseFail.reject();
+            return new Even(n);
+        }
+    }
+    public record Evens(@Ch("<")Void l, List<EvenComma> evens, @Ch(">")Void r){}
+    public record EvenComma(Even even, @Ch(",")Void comma){}
+
+    public sealed interface Value permits Lazy1, Lazy2 {}
+    public record Lazy1(Lazy<Arr> arr) implements Value {}
+    public record Lazy2(Lazy<Evens> evens) implements Value {}
+
+    public record Item(@Regex("[a-z]+")String key, @Ch("=")Void eq, Value value, @Ch(";")Void semi){}
+
+    public record Items(List<Item> items){}
+
+    {
+        initParsers(Items.class);
+    }
+
+    static Num num(long n)
+    {
+        return new Num(new Peek<>(new Not<>()), n, null);
+    }
+
+    @Test
+    void test() throws Exception
+    {
+        matchFull("a=[1,[3,[]]];b=[];", new Items(List.of(
+            new Item("a", null, new Lazy1(Lazy.of(new Arr(null, List.of(
+                num(1), new Arr(null, List.of(num(3), new Arr(null, List.of(), null)), null)
+            ), null))), null),
+            new Item("b", null, new Lazy1(Lazy.of(new Arr(null, List.of(), null))), null)
+        )));
+
+        matchPartial("a=[1,];b=[3,05,];", 7);
+
+        var items = ((Items)parsers.get(1).matchFull("a=[1,];b=<2,4,>;")).items();
+        var lazy = ((Lazy1)items.get(0).value()).arr();
+        assertFalse(lazy.isDone());
+        assertEquals(List.of(num(1)), lazy.get().elems());
+        assertTrue(lazy.isDone());
+        assertSame(lazy.get(), lazy.get());
+
+        // semantic predicates are only tested by get()
+        items = ((Items)parsers.get(1).matchFull("b=<2,3,>;")).items();
+        var lazy2 = ((Lazy2)items.get(0).value()).evens();
+        var ex = assertThrows(IllegalStateException.class, lazy2::get);
+        assertTrue(ex.getMessage().contains("position 5"), ex.getMessage());
+        assertFalse(lazy2.isDone());
+    }
+}
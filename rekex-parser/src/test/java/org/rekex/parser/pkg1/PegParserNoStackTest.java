@@ -0,0 +1,49 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.ParseResult;
+import org.rekex.parser.PegParser;
+import org.rekex.parser.PegParserBuilder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserNoStackTest
+{
+    // parseStack(false): same results, but Fail/Fatal carry no stack
+
+    public record Foo(@Ch("ab")char c, Bar[] bars){}
+    public record Bar(@Ch("xy")String s){}
+
+    @Test
+    void test() throws Exception
+    {
+        PegParser<Foo> parser = new PegParserBuilder()
+            .logger(msg->{})
+            .rootType(Foo.class)
+            .parseStack(false)
+            .build();
+
+        var foo = parser.matchFull("axyx");
+        assertEquals('a', foo.c());
+        assertEquals(3, foo.bars().length);
+        assertEquals("y", foo.bars()[1].s());
+
+        var result = parser.parse("axz");
+        if(result instanceof ParseResult.Partial<Foo> partial)
+            assertEquals(2, partial.position());
+        else
+            fail("not Partial: "+result);
+
+        result = parser.parse("c");
+        if(result instanceof ParseResult.Fail<Foo> fail)
+        {
+            assertEquals(0, fail.position());
+            assertEquals(List.of(), fail.stack());
+        }
+        else
+            fail("not Fail: "+result);
+    }
+}
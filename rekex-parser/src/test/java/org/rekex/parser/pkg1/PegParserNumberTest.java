@@ -0,0 +1,69 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Regex;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class PegParserNumberTest extends PegParserTestBase
+{
+    // long, double, BigDecimal parsed from the matched text;
+    // same as Long.parseLong(), Double.parseDouble(), new BigDecimal()
+
+    static final String INT = "[+-]?[0-9]+";
+    static final String NUM = "[-+0-9.eE]+";
+
+    public record Item(@Regex(NUM)double d, @Ch("/")Void s1, @Regex(NUM)Double d2, @Ch("/")Void s2,
+                       @Regex(NUM)BigDecimal bd, @Ch(";")Void s3){}
+
+    public record Foo(@Regex(INT)long n, @Ch("/")Void s1, @Regex(INT)Long n2, @Ch(";")Void s2, List<Item> items){}
+
+    {
+        initParsers(Foo.class);
+    }
+
+    static void append(StringBuilder sb, List<Item> items, String num)
+    {
+        sb.append(num).append('/').append(num).append('/').append(num).append(';');
+        items.add(new Item(Double.parseDouble(num), null, Double.parseDouble(num), null, new BigDecimal(num), null));
+    }
+
+    @Test
+    void test()
+    {
+        var sb = new StringBuilder("-9223372036854775808/+42;");
+        var items = new ArrayList<Item>();
+        for(var num : List.of("0", "-0", "+0.0", "00012", "1.", ".5", "0.1", "-1.25e-3", "3.14159E+10",
+            "9007199254740993", "123456789012345678901234", "0.000000000000000000000000123",
+            "1e22", "1e23", "4.9e-324", "1e-400", "1e400", "1.7976931348623157e308"))
+            append(sb, items, num);
+
+        var random = new Random(1);
+        for(int i=0; i<500; i++)
+        {
+            var num = new StringBuilder();
+            if(random.nextBoolean())
+                num.append('-');
+            num.append(random.nextLong() >>> 1+random.nextInt(63));
+            if(random.nextBoolean())
+                num.insert(num.length()-random.nextInt(num.length()-(num.charAt(0)=='-'?1:0)), '.');
+            if(random.nextBoolean())
+                num.append('e').append(random.nextInt(60)-30);
+            append(sb, items, num.toString());
+        }
+
+        matchFull(sb.toString(), new Foo(Long.MIN_VALUE, null, 42L, null, items));
+    }
+
+    @Test
+    void testFatal()
+    {
+        matchFatal("9223372036854775808/1;", 0, 0,0);
+        matchFatal("1/1;1/1/1e;", 8, 8,4,4,0);
+    }
+}
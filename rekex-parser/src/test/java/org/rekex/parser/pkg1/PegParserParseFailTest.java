@@ -0,0 +1,64 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.ParseFail;
+import org.rekex.parser.ParseResult;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Ctor;
+import org.rekex.spec.Regex;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserParseFailTest extends PegParserTestBase
+{
+    // semantic predicates failing with ParseFail
+
+    static final Set<String> keywords = Set.of("if", "else");
+
+    public sealed interface Token permits Ident, Keyword {}
+    public record Ident(String name) implements Token
+    {
+        @Ctor public static Ident ctor(@Regex("[a-z]+")String name) throws ParseFail
+        {
+            if(keywords.contains(name))
+                throw ParseFail.reject("keyword %s is not an identifier", name);
+            return new Ident(name);
+        }
+    }
+    public record Keyword(String name) implements Token
+    {
+        @Ctor public static Keyword ctor(@Regex("[a-z]+")String name) throws ParseFail
+        {
+            if(!keywords.contains(name))
+                throw ParseFail.reject();
+            return new Keyword(name);
+        }
+    }
+    public record Pair(Token a, @Ch(" ")Void sp, Ident b){}
+
+    {
+        initParsers(Pair.class);
+    }
+
+    @Test
+    void test()
+    {
+        matchFull("if x", new Pair(new Keyword("if"), null, new Ident("x")));
+        matchFull("x y", new Pair(new Ident("x"), null, new Ident("y")));
+
+        matchFail("x if", 2, 2,0);
+        for(var parser : parsers)
+        {
+            if(parser.parse("x if") instanceof ParseResult.Fail<?> fail)
+            {
+                assertEquals("keyword if is not an identifier", fail.message());
+                assertTrue(fail.exception() instanceof ParseFail);
+            }
+            else
+                fail();
+        }
+    }
+}
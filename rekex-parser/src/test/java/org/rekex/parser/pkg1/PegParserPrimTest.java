@@ -0,0 +1,75 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.annotype.AnnoType;
+import org.rekex.annotype.ClassType;
+import org.rekex.annotype.PrimitiveType;
+import org.rekex.helper.anno.Ch;
+import org.rekex.helper.anno.AtMost;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Peek;
+
+import java.util.Arrays;
+import java.util.Set;
+
+public class PegParserPrimTest extends PegParserTestBase
+{
+    // primitive values and primitive arrays, including nested repetitions of the same type
+
+    public record Foo(String str){}
+
+    public static class CatalogClass
+    {
+        public Foo foo(Peek<@Ch("ab")Character> peek, Bar[] bars, @Ch("xyz")int @AtMost(2) [] ints)
+        {
+            var sb = new StringBuilder();
+            sb.append(peek.value()).append(':');
+            for(var bar : bars)
+                sb.append(bar.d).append(bar.chars).append(',');
+            sb.append(Arrays.toString(ints));
+            return new Foo(sb.toString());
+        }
+
+        public Bar bar(@Ch("ab")char c, Digit[] digits)
+        {
+            char[] chars = new char[digits.length+1];
+            chars[0] = c;
+            for(int i=0; i<digits.length; i++)
+                chars[i+1] = digits[i].c;
+            return new Bar(digits.length, new String(chars));
+        }
+
+        public Digit digit(@Ch("0123456789")char c, @Ch("_")char @AtMost(2) [] opt)
+        {
+            return new Digit(c);
+        }
+
+        public double half(@Ch("h")char c){ return 0.5; }
+    }
+
+    public record Bar(int d, String chars){}
+    public record Digit(char c){}
+
+    @Test
+    void test()
+    {
+        initParsers(ClassType.of(Foo.class), CatalogClass.class, new CatalogClass());
+
+        matchFull("a", new Foo("a:0a,[]"));
+        matchFull("a1_2b3xy", new Foo("a:2a12,1b3,[120, 121]"));
+        matchFull("bab", new Foo("b:0b,0a,0b,[]"));
+        matchPartial("a1xyz", 4);
+
+        matchFail("c", 0, 0, 0, 0);
+    }
+
+    @Test
+    void testPrimRoot()
+    {
+        AnnoType rootType = new PrimitiveType(Set.of(), double.class);
+        initParsers(rootType, CatalogClass.class, new CatalogClass());
+
+        matchFull("h", 0.5);
+        matchFail("x", 0, 0, 0);
+    }
+}
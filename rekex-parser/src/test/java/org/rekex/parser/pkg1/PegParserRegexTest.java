@@ -0,0 +1,64 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.helper.anno.Str;
+import org.rekex.parser.ParseResult;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Regex;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserRegexTest extends PegParserTestBase
+{
+    // simple regexes are matched by plain code instead of java.util.regex;
+    // results must be the same.
+
+    public enum Kw
+    {
+        @Str({"ifx", "if"}) IF,
+        @Str("el") ELSE,
+    }
+
+    public record Foo(@Ch("ab")char c, @Regex("[0-9&&[^5]]")String d, Kw kw,
+                      @Regex("[^x]")int any, @Regex("\\s")Void ws, @Str("end")String end){}
+
+    {
+        initParsers(Foo.class);
+    }
+
+    @Test
+    void test()
+    {
+        matchFull("a1if! end", new Foo('a', "1", Kw.IF, '!', null, "end"));
+        matchFull("b0ifx!\tend", new Foo('b', "0", Kw.IF, '!', null, "end"));
+        matchFull("a1el😀 end", new Foo('a', "1", Kw.ELSE, 0x1F600, null, "end"));
+
+        matchFail("c", 0, 0,0);
+        matchFail("a5", 1, 1,0);
+        matchFail("a1ix", 2, 2,2,0);
+        matchFail("a1ifx", 5, 5,0);
+        matchFail("a1ifxx", 5, 5,0);
+        matchPartial("a1if! endx", 9);
+    }
+
+    @Test
+    void testRegion()
+    {
+        for(var parser : parsers)
+        {
+            // "ifx" doesn't fit before `end`; "if" does.
+            var result = parser.parse("a1ifx end", 0, 4);
+            if(result instanceof ParseResult.Fail<?> fail)
+                assertEquals(4, fail.position());
+            else
+                fail("not Fail: "+result);
+
+            result = parser.parse("xxa1if! endxx".toCharArray(), 2, 11);
+            if(result instanceof ParseResult.Full<?> full)
+                assertEquals(new Foo('a', "1", Kw.IF, '!', null, "end"), full.value());
+            else
+                fail("not Full: "+result);
+        }
+    }
+}
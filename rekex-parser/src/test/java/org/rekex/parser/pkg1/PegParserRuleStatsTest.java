@@ -0,0 +1,85 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.annotype.ClassType;
+import org.rekex.helper.anno.Ch;
+import org.rekex.helper.anno.Str;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.parser.RuleStats;
+import org.rekex.spec.Regex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserRuleStatsTest extends PegParserTestBase
+{
+    // ruleStats(true): per-rule counts of invocations, successes, failures, reinvocations, chars
+
+    public sealed interface Stmt permits Assign, Call {}
+    public record Assign(Name name, @Ch("=")Void eq, Name value, @Ch(";")Void semi) implements Stmt {}
+    public record Call(Name name, @Str("()")Void parens, @Ch(";")Void semi) implements Stmt {}
+    public record Name(@Regex("[a-z]+")String s){}
+    public record Stmts(List<Stmt> stmts){}
+
+    public record Chars(@Ch(range={'a','z'})char[] cs){}
+
+    {
+        builderOptions = builder -> builder.ruleTiming(true);
+        initParsers(Stmts.class);
+    }
+
+    @Test
+    void test() throws Exception
+    {
+        matchFull("a=b;f();");
+
+        var parser = parsers.get(1);
+        var before = parser.stats();
+        // a=b;  f();  -- Call is tried after Assign fails at `(`
+        parser.parse("a=b;f();");
+        var stats = parser.stats();
+
+        RuleStats name = stats.byDatatype().get(ClassType.of(Name.class));
+        RuleStats nameBefore = before.byDatatype().get(ClassType.of(Name.class));
+        // a, b, f in Assign; f again in Call; at the end 8, in Assign and again in Call, failing
+        assertEquals(6, name.invocations()-nameBefore.invocations());
+        assertEquals(4, name.successes()-nameBefore.successes());
+        assertEquals(2, name.failures()-nameBefore.failures());
+        assertEquals(2, name.reinvocations()-nameBefore.reinvocations());
+        assertEquals(4, name.charsConsumed()-nameBefore.charsConsumed());
+
+        RuleStats call = stats.byDatatype().get(ClassType.of(Call.class));
+        assertEquals(call.successes()-before.byDatatype().get(ClassType.of(Call.class)).successes(), 1);
+        RuleStats root = stats.byDatatype().get(ClassType.of(Stmts.class));
+        assertTrue(root.nanos()>0);
+        assertTrue(root.selfNanos()<=root.nanos());
+
+        String text = stats.toText();
+        assertTrue(text.contains("] "+ClassType.of(Name.class).toString(false)));
+        assertTrue(text.contains("reinvocations: "+name.reinvocations()));
+        if(dumpResult)
+            System.out.println(text);
+
+        assertEquals(List.of(), parsers.get(0).stats().rules());
+    }
+
+    @Test
+    void testCharArray() throws Exception
+    {
+        // without stats, repetitions of a char are scanned in bulk; with stats, every char is counted
+        builderOptions = builder -> builder.ruleStats(true);
+        initParsers(Chars.class);
+        matchFull("abcdef");
+
+        var stats = parsers.get(1).stats();
+        RuleStats ch = stats.rules().stream()
+            .filter(rule->rule.datatype().toString(false).endsWith("char"))
+            .findFirst().orElseThrow();
+        // 6 chars, then a failure at the end
+        assertEquals(7, ch.invocations());
+        assertEquals(6, ch.successes());
+        assertEquals(1, ch.failures());
+        assertEquals(6, ch.charsConsumed());
+    }
+}
@@ -0,0 +1,36 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.AtMost;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Regex;
+
+public class PegParserScanTest extends PegParserTestBase
+{
+    // runs of a char class are scanned in bulk; results must be the same as one char at a time.
+
+    public record Comment(@Ch("#")Void h, @Regex("[^\\n]*")String text, @Ch("\n")Void nl){}
+
+    public record Foo(Comment comment, @Regex("[^ab]+")String s, @Ch("a")Void a,
+                      @Regex("[x-z]")char @AtMost(3)[] xyz, @Regex("[^b]")char[] rest){}
+
+    {
+        initParsers(Foo.class);
+    }
+
+    @Test
+    void test()
+    {
+        matchFull("#\nca");
+        matchFull("# 😀 c\n12😀3axyzxy");
+        matchPartial("#\ncaxyzxb", 8);
+
+        matchFail("#", 1, 1,0,0);
+        matchFail("#\na", 2, 2,0);
+        matchFail("#\n😀", 4, 4,0);
+
+        // a char rule matching a supplementary code point is a fatal error, with or without scanning
+        matchFatal("#\ncaxxx😀", 7, 7,7,0);
+    }
+}
@@ -0,0 +1,64 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.ParseResult;
+import org.rekex.parser.ParseSession;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Regex;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserSessionTest extends PegParserTestBase
+{
+    // newSession(): parse state is kept and reset across parses; results must be the same as parse().
+
+    public sealed interface Item permits Word, Group {}
+    public record Word(@Regex("[a-z]+")String s, @Ch(" ")Void sp) implements Item {}
+    public record Group(@Ch("(")Void lp, List<Item> items, @Ch(")")Void rp, @Ch(" ")Void sp) implements Item {}
+    public record Items(List<Item> items){}
+
+    {
+        builderOptions = builder -> builder.tokenCache(true).internStrings(true);
+        initParsers(Items.class);
+    }
+
+    static final List<String> inputs = List.of(
+        "a (b c ) d ",
+        "a (b c d ",    // fail, in a nested list
+        "",
+        "a (b (c ) ",   // fail, deeper
+        "x (y ) ",      // same length as the first; token cache is cleared, not replaced
+        "a (b c ) dd",  // partial
+        "(((((((((((((((((((((a ) ) ) ) ) ) ) ) ) ) ) ) ) ) ) ) ) ) ) ) ) "
+    );
+
+    @Test
+    void test() throws Exception
+    {
+        matchFull("a (b c ) d ");
+        for(var parser : parsers)
+        {
+            var session = parser.newSession();
+            for(int round=0; round<2; round++)
+                for(var input : inputs)
+                    assertEquals(parser.parse(input).toString(), session.parse(input).toString());
+
+            var pooled = ParseSession.pooled(parser);
+            var results = ForkJoinPool.commonPool().submit(()->
+                IntStream.range(0, 700).parallel().mapToObj(i->pooled.parse(inputs.get(i%7)).toString()).toList()
+            ).get();
+            for(int i=0; i<700; i++)
+                assertEquals(parser.parse(inputs.get(i%7)).toString(), results.get(i));
+        }
+
+        var session = parsers.get(1).newSession();
+        var word = ((ParseResult.Full<Items>)session.parse("ab ")).value().items().get(0);
+        var word2 = ((ParseResult.Full<Items>)session.parse("ab ")).value().items().get(0);
+        assertSame(((Word)word).s(), ((Word)word2).s()); // the intern table is kept across parses
+    }
+}
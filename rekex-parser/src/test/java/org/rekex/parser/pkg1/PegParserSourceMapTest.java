@@ -0,0 +1,71 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.ParseResult;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.parser.SourceMap;
+import org.rekex.spec.Regex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserSourceMapTest extends PegParserTestBase
+{
+    // sourceMap(true): positions of values are recorded in a SourceMap, without ParseInfo.
+
+    public sealed interface Expr permits Pair, Num {}
+    public record Pair(Num a, @Ch("+")Void plus, Num b) implements Expr {}
+    public record Num(@Regex("[0-9]+")String n) implements Expr {}
+    public record Stmt(Expr expr, @Ch(";")Void semi){}
+    public record Stmts(List<Stmt> stmts){}
+
+    {
+        builderOptions = builder -> builder.sourceMap(true);
+        initParsers(Stmts.class);
+    }
+
+    @Test
+    void test() throws Exception
+    {
+        matchFull("1+2;3;");
+
+        var parser = parsers.get(1);
+        var map = new SourceMap();
+        var stmts = ((ParseResult.Full<Stmts>)parser.parse("1+2;3;", 0, 6, map)).value();
+        // Num Num Pair Stmt Num Stmt Stmts; the Num of the failed Pair at 4 is removed
+        assertEquals(7, map.size());
+
+        var stmt1 = stmts.stmts().get(0);
+        var pair = (Pair)stmt1.expr();
+        var num3 = (Num)stmts.stmts().get(1).expr();
+        assertEquals(0, map.start(stmt1));
+        assertEquals(4, map.end(stmt1));
+        assertEquals(2, map.start(pair.b()));
+        assertEquals(3, map.end(pair.b()));
+        assertEquals(4, map.start(num3));
+        assertEquals(0, map.start(stmts));
+        assertEquals(6, map.end(stmts));
+        assertFalse(map.contains(new Num("3")));
+        assertEquals(-1, map.start(new Num("3")));
+
+        assertSame(pair.a(), map.nodeAt(0));
+        assertSame(pair, map.nodeAt(1));
+        assertSame(stmt1, map.nodeAt(3));
+        assertSame(stmt1, map.nodeAt(2, Stmt.class));
+        assertSame(num3, map.nodeAt(4));
+        assertSame(stmts, map.nodeAt(5, Stmts.class));
+        assertNull(map.nodeAt(5, Pair.class));
+        assertNull(map.nodeAt(6));
+
+        // reused; the Stmt that fails at 5 is removed with its Num
+        var partial = (ParseResult.Partial<Stmts>)parser.parse("1+2;3", 0, 5, map);
+        assertEquals(4, partial.position());
+        assertEquals(5, map.size());
+        assertSame(partial.value(), map.nodeAt(3, Stmts.class));
+        assertNull(map.nodeAt(4));
+
+        assertThrows(UnsupportedOperationException.class, ()->parsers.get(0).parse("1;", 0, 2, map));
+    }
+}
@@ -0,0 +1,77 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.annotype.ClassType;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.ParseInfo;
+import org.rekex.parser.PegParserBuilder;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.parser.ReferencePegParser;
+import org.rekex.spec.Not;
+import org.rekex.spec.Peek;
+import org.rekex.spec.Regex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserSplitTest extends PegParserTestBase
+{
+    // tiny size limits, so that concat rules are split into parts,
+    // match() dispatch is split into chunks, and rules are spread over nested classes.
+
+    public sealed interface Item permits Num, Word {}
+    public record Num(@Regex("[0-9]+")String digits, @Ch(";")Void semi) implements Item {}
+    public record Word(Not<@Ch("0123456789;")Void> not, @Regex("[a-z]+")String letters, @Ch(";")Void semi) implements Item {}
+
+    public record Foo(Peek<@Ch("<")Character> peek, @Ch("<")char open, List<Item> items,
+                      @Ch("xyz")int[] codes, ParseInfo info, @Ch(">")char close)
+    {
+        String str()
+        {
+            var sb = new StringBuilder();
+            sb.append(peek.value()).append(open);
+            for(var item : items)
+                sb.append(item instanceof Num n ? n.digits() : ((Word)item).letters()).append(',');
+            sb.append(codes.length).append(info.start()).append(info.end()).append(close);
+            return sb.toString();
+        }
+    }
+
+    void initSplitParsers()
+    {
+        var rootType = ClassType.of(Foo.class);
+        var builder = new PegParserBuilder()
+            .logger(msg->{})
+            .rootType(rootType)
+            .methodSizeLimit(40)
+            .classSizeLimit(150);
+
+        var source = builder.generateJavaSource();
+        assertTrue(source.contains("static final class _Rules1"));
+        assertTrue(source.contains("match_1(ruleId, state, start, subIndex)"));
+        assertTrue(source.contains("_part1(state, pos, argArr, posArr)"));
+
+        var report = new StringBuilder();
+        builder.logRuleSizes(report::append);
+        assertTrue(report.toString().contains("split into"));
+
+        this.parsers = List.of(ReferencePegParser.of(rootType, null, null), builder.build());
+    }
+
+    @Test
+    void test() throws Exception
+    {
+        initSplitParsers();
+
+        for(var parser : parsers)
+        {
+            var foo = (Foo)parser.matchFull("<12;ab;xy>");
+            assertEquals("<<12,ab,2010>", foo.str());
+        }
+        matchFull("<>");
+        matchPartial("<>>", 2);
+        matchFail("<1", 2, 2,1,1,1,0);
+        matchFail("x", 0, 0,0,0);
+    }
+}
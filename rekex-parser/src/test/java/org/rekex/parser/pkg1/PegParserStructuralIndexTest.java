@@ -0,0 +1,90 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.helper.anno.StrWs;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.parser.StructuralIndex;
+import org.rekex.spec.Lazy;
+import org.rekex.spec.Regex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserStructuralIndexTest extends PegParserTestBase
+{
+    // structuralIndex(syntax): a Lazy<T> of a bracketed T skips T by the matching bracket.
+
+    public sealed interface Elem permits Num, Str, Arr {}
+    public record Num(@Regex("[0-9]+")long n) implements Elem {}
+    public record Str(@Regex("\"[^\"]*\"")String s) implements Elem {}
+    public record Arr(@Ch("[")Void l, List<ElemComma> elems, @StrWs(value="]", wsChars=" ")Void r) implements Elem {}
+    public record ElemComma(Elem elem, @Ch(",")Void comma){}
+
+    public record Item(@Regex("[a-z]+")String key, @Ch("=")Void eq, Lazy<Arr> value, @Ch(";")Void semi){}
+
+    public record Items(List<Item> items){}
+
+    {
+        builderOptions = builder -> builder.structuralIndex(StructuralIndex.Syntax.json());
+        initParsers(Items.class);
+    }
+
+    static Arr arr(Elem... elems)
+    {
+        return new Arr(null, List.of(elems).stream().map(e->new ElemComma(e, null)).toList(), null);
+    }
+
+    @Test
+    void test() throws Exception
+    {
+        matchFull("a=[1,[],\"]\",]  ;b=[];", new Items(List.of(
+            new Item("a", null, Lazy.of(arr(new Num(1), arr(), new Str("\"]\""))), null),
+            new Item("b", null, Lazy.of(arr()), null)
+        )));
+
+        // unbalanced; the recognizer decides
+        matchPartial("a=[1,;", 0);
+
+        // the content is not checked until get()
+        var items = ((Items)parsers.get(1).matchFull("a=[1,x,];b=[2,];")).items();
+        var ex = assertThrows(IllegalStateException.class, ()->items.get(0).value().get());
+        assertTrue(ex.getMessage().contains("position 5"), ex.getMessage());
+        assertEquals(arr(new Num(2)), items.get(1).value().get());
+    }
+
+    @Test
+    void testIndex()
+    {
+        var syntax = StructuralIndex.Syntax.json();
+        String json = "{\"a\":[1,{\"x\":\"[,\\\"\"},[]],\"b\":2}";
+        var index = StructuralIndex.build(json, 0, json.length(), syntax);
+        assertEquals(-1, index.firstError());
+        assertEquals(json.length()-1, index.matching(0));
+        assertEquals(0, index.matching(json.length()-1));
+        int arr = json.indexOf('[');
+        int arrEnd = json.lastIndexOf(']');
+        assertEquals(arrEnd, index.matching(arr));
+        assertEquals(arrEnd+1, index.skip(arr, '['));
+        assertEquals(-1, index.skip(arr, '{'));
+        assertEquals(-1, index.matching(1)); // in a string
+        assertArrayEquals(new int[]{arr-1, arrEnd+5}, index.separators(0, ':'));
+        assertArrayEquals(new int[]{arr+2, json.indexOf(",[]")}, index.separators(arr, ','));
+
+        // a long input spans several blocks of the lookup table
+        String big = "[" + "[1,2],".repeat(1000) + "[]]";
+        index = StructuralIndex.build(big, 0, big.length(), syntax);
+        assertEquals(big.length()-1, index.matching(0));
+        assertEquals(1000, index.separators(0, ',').length);
+        assertEquals(big.length()-2, index.matching(big.length()-3));
+
+        assertEquals(4, StructuralIndex.build("[1,]]", 0, 5, syntax).firstError());
+        assertEquals(0, StructuralIndex.build("[1,[]", 0, 5, syntax).firstError());
+        assertEquals(0, StructuralIndex.build("[1,}", 0, 4, syntax).firstError());
+        assertEquals(2, StructuralIndex.build("[]\"1]", 0, 5, syntax).firstError());
+
+        assertThrows(IllegalArgumentException.class, ()->new StructuralIndex.Syntax("[]{", ",", "\"", '\\'));
+        assertThrows(IllegalArgumentException.class, ()->new StructuralIndex.Syntax("[]", "[", "\"", '\\'));
+    }
+}
@@ -0,0 +1,109 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.ParseResult;
+import org.rekex.parser.ParseTape;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Not;
+import org.rekex.spec.Peek;
+import org.rekex.spec.Regex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserTapeTest extends PegParserTestBase
+{
+    // tape(true): parseTape() records nodes of the parse tree in a flat int array.
+
+    public sealed interface Value permits Num, Arr {}
+    public record Num(Peek<Not<LeadingZero>> noLeadingZero, @Regex("[0-9]+")long n) implements Value {}
+    public record LeadingZero(@Regex("0[0-9]")String s){}
+    public record Arr(@Ch("[")Void l, List<ElemComma> elems, @Ch("]")Void r) implements Value {}
+    public record ElemComma(Value value, @Ch(",")Void comma){}
+
+    // the element can match empty; the repetition stops there, without it
+    public record Words(List<@Regex("[a-z]*")String> words, @Ch(";")Void semi){}
+
+    {
+        builderOptions = builder -> builder.tape(true);
+        initParsers(Arr.class);
+    }
+
+    static Num num(long n)
+    {
+        return new Num(new Peek<>(new Not<>()), n);
+    }
+
+    @Test
+    void test() throws Exception
+    {
+        matchFull("[1,[],]", new Arr(null, List.of(
+            new ElemComma(num(1), null), new ElemComma(new Arr(null, List.of(), null), null)
+        ), null));
+
+        var parser = parsers.get(1);
+        var tape = ((ParseResult.Full<ParseTape>)parser.parseTape("[1,[],]")).value();
+        // Arr [ List ElemComma Value Num long , ElemComma Value Arr [ List ] , ]
+        assertEquals(16, tape.size());
+        assertEquals(16*ParseTape.NODE_SIZE, tape.nodes().length);
+
+        var root = tape.root();
+        assertTrue(root.is(Arr.class));
+        assertEquals(0, root.start());
+        assertEquals(7, root.end());
+        assertEquals(3, root.childCount());
+
+        var elems = root.child(List.class);
+        assertEquals(elems, root.child(1));
+        assertEquals(2, elems.childCount());
+        var first = elems.firstChild();
+        assertEquals("1,", first.text().toString());
+        var n = first.child(0).unwrap(); // Value -> Num -> long; the lookahead has no node
+        assertTrue(n.is(long.class));
+        assertEquals(6, n.index());
+        assertEquals(1L, n.asLong());
+        assertThrows(UnsupportedOperationException.class, n::materialize);
+
+        var second = first.nextSibling();
+        assertNull(second.nextSibling());
+        var arr = second.child(0).firstChild();
+        assertTrue(arr.is(Arr.class));
+        assertEquals(0, arr.child(1).childCount());
+        assertEquals(new Arr(null, List.of(), null), arr.materialize());
+        assertEquals(new ElemComma(num(1), null), first.materialize());
+        assertEquals(List.of(first, second), elems.children());
+
+        // failed alternatives and lookaheads leave no nodes
+        tape = ((ParseResult.Full<ParseTape>)parser.parseTape("[10,1,]")).value();
+        assertEquals(14, tape.size());
+
+        var fail = (ParseResult.Fail<ParseTape>)parser.parseTape("[1,05,]");
+        assertEquals(3, fail.position());
+        var partial = (ParseResult.Partial<ParseTape>)parser.parseTape("[1,]x", 0, 5);
+        assertEquals(4, partial.position());
+        assertEquals(9, partial.value().size());
+
+        assertThrows(UnsupportedOperationException.class, ()->parsers.get(0).parseTape("[]"));
+    }
+
+    @Test
+    void testEmptyElement() throws Exception
+    {
+        initParsers(Words.class);
+        matchFull("ab;", new Words(List.of("ab"), null));
+
+        var tape = ((ParseResult.Full<ParseTape>)parsers.get(1).parseTape("ab;")).value();
+        // Words List String ;
+        assertEquals(4, tape.size());
+        var words = tape.root().child(0);
+        assertEquals(1, words.childCount());
+        assertEquals(List.of("ab"), words.materialize());
+        assertEquals(2, words.nextSibling().start());
+
+        tape = ((ParseResult.Full<ParseTape>)parsers.get(1).parseTape(";")).value();
+        assertEquals(0, tape.root().child(0).childCount());
+        assertEquals(3, tape.size());
+    }
+}
@@ -0,0 +1,95 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.ParseInfo;
+import org.rekex.parser.ParseResult;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Regex;
+import org.rekex.spec.TextSlice;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserTextSliceTest extends PegParserTestBase
+{
+    // TextSlice: a view of the matched text, without copying
+
+    public record Word(@Regex("[a-z]+")TextSlice s, @Ch(" ")Void sp, ParseInfo info){}
+
+    public record Words(List<Word> words){}
+
+    {
+        initParsers(Words.class);
+    }
+
+    @Test
+    void test() throws Exception
+    {
+        var input = "ab cd ab ";
+        for(var parser : parsers)
+        {
+            var words = ((Words)parser.matchFull(input)).words();
+            assertEquals(3, words.size());
+
+            var ab = words.get(0).s();
+            assertEquals("ab", ab.toString());
+            assertEquals(0, ab.start());
+            assertEquals(2, ab.end());
+            assertTrue(ab.contentEquals("ab"));
+            assertEquals("ab".hashCode(), ab.hashCode());
+            assertEquals(ab, words.get(2).s());
+            assertNotEquals(ab, words.get(1).s());
+            assertTrue(ab.compareTo(words.get(1).s())<0);
+            assertEquals("b", ab.subSequence(1, 2).toString());
+
+            var text = (TextSlice)words.get(1).info().text();
+            assertEquals("cd ", text.toString());
+            assertEquals(3, text.start());
+        }
+    }
+
+    @Test
+    void testMutableInput() throws Exception
+    {
+        // slices are of the String that is parsed; they don't change with the input buffer
+        for(var parser : parsers)
+        {
+            var input = new StringBuilder("ab cd ");
+            var words = ((Words)parser.matchFull(input)).words();
+            input.setLength(0);
+            input.append("xx yy ");
+            assertEquals("ab", words.get(0).s().toString());
+            assertEquals("cd ", words.get(1).info().text().toString());
+            assertEquals("cd ".hashCode(), words.get(1).info().text().hashCode());
+        }
+    }
+
+    @Test
+    void testRegion() throws Exception
+    {
+        // a region of a non-String input; positions are of the whole input
+        for(var parser : parsers)
+        {
+            var input = new StringBuilder("?? ab cd ##");
+            var result = parser.parse(input, 3, 9);
+            var words = ((Words)((ParseResult.Full<?>)result).value()).words();
+            assertEquals(3, words.get(0).s().start());
+            assertEquals(6, words.get(1).info().start());
+            assertEquals("cd ", words.get(1).info().text().toString());
+        }
+    }
+
+    @Test
+    void testSlice()
+    {
+        var slice = new TextSlice("xyz", 1, 3);
+        assertEquals("yz", slice.toString());
+        assertSame(slice.toString(), slice.toString());
+        assertEquals(new TextSlice("yz", 0, 2), slice);
+        assertEquals(0, new TextSlice("xyz", 1, 1).hashCode());
+        assertThrows(IndexOutOfBoundsException.class, ()->slice.charAt(2));
+        assertThrows(IndexOutOfBoundsException.class, ()->new TextSlice("xyz", 2, 4));
+    }
+}
@@ -0,0 +1,50 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.AtLeast;
+import org.rekex.helper.anno.Ch;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Regex;
+import org.rekex.spec.Text;
+
+public class PegParserTextTest extends PegParserTestBase
+{
+    // Text<T>: repetition of chars, code points or CharSequences, as one String
+
+    public record Quoted(@Ch("'")Void q1, Text<@Regex("[^']")Character> body, @Ch("'")Void q2)
+        implements CharSequence
+    {
+        public int length(){ return body.length(); }
+        public char charAt(int index){ return body.charAt(index); }
+        public CharSequence subSequence(int start, int end){ return body.subSequence(start, end); }
+        public String toString(){ return body.toString(); }
+    }
+
+    public record Foo(
+        Text<@Regex("[a-z]")Character> letters, @Ch(";")Void s1,
+        @AtLeast(1) Text<@Regex("[0-9]{2}")String> pairs, @Ch(";")Void s2,
+        Text<@Ch(range={0x20000, 0x200FF})Integer> cps, @Ch(";")Void s3,
+        Text<Quoted> quoted
+    ){}
+
+    {
+        initParsers(Foo.class);
+    }
+
+    static Foo foo(String letters, String pairs, String cps, String quoted)
+    {
+        return new Foo(new Text<>(letters), null, new Text<>(pairs), null, new Text<>(cps), null, new Text<>(quoted));
+    }
+
+    @Test
+    void test()
+    {
+        matchFull(";00;;", foo("", "00", "", ""));
+        matchFull("abc;1234;𠀐𠀠;'xy''z'''", foo("abc", "1234", "𠀐𠀠", "xyz"));
+        matchFull("a;12;;'a''b'", foo("a", "12", "", "ab"));
+
+        matchFail("abc;;", 4, 4,4,0);
+        matchFail("abc;123;", 6, 6,4,0);
+        matchPartial(";00;;'x", 5);
+    }
+}
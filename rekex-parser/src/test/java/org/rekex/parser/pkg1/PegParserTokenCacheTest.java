@@ -0,0 +1,56 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.annomacro.AnnoMacro;
+import org.rekex.helper.anno.StrWs;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Regex;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.List;
+
+public class PegParserTokenCacheTest extends PegParserTestBase
+{
+    // tokenCache(true): terminals are matched once per position, even as alternatives backtrack;
+    // results must be the same as the reference parser.
+
+    @Target(ElementType.TYPE_USE)@Retention(RetentionPolicy.RUNTIME)
+    public @interface Sym
+    {
+        String[] value();
+        AnnoMacro<Sym, StrWs> toStrWs = StrWs.Macro.of(Sym::value, " ");
+    }
+
+    public sealed interface Stmt permits Assign, Call, Label {}
+    public record Assign(Name name, @Sym("=")String eq, Num num) implements Stmt {}
+    public record Call(Name name, @Sym("(")String lp, @Sym(")")String rp) implements Stmt {}
+    public record Label(Name name, @Sym(":")String colon) implements Stmt {}
+
+    public record Name(@Regex(value="([a-z]+)\\s*", group=1)String s){}
+    public record Num(@Regex(value="([0-9]+)\\s*", group=1)String s){}
+
+    public record Block(@Sym("{")String lb, List<Stmt> stmts, @Sym("}")String rb){}
+
+    {
+        builderOptions = builder -> builder.tokenCache(true);
+        initParsers(Block.class);
+    }
+
+    @Test
+    void test()
+    {
+        matchFull("{}");
+        matchFull("{ foo = 12 bar() x : }", new Block("{", List.of(
+            new Assign(new Name("foo"), "=", new Num("12")),
+            new Call(new Name("bar"), "(", ")"),
+            new Label(new Name("x"), ":")
+        ), "}"));
+
+        matchFail("{ foo = }", 8, 8,8,2,2,2,0);
+        matchFail("{ foo ;", 6, 6,2,2,2,0);
+        matchPartial("{ x: }x", 6);
+    }
+}
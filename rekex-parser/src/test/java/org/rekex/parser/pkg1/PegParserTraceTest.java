@@ -0,0 +1,92 @@
+package org.rekex.parser.pkg1;
+
+import org.junit.jupiter.api.Test;
+import org.rekex.helper.anno.Ch;
+import org.rekex.helper.anno.Str;
+import org.rekex.parser.ParseResult;
+import org.rekex.parser.ParseTrace;
+import org.rekex.parser.PegParserTestBase;
+import org.rekex.spec.Regex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PegParserTraceTest extends PegParserTestBase
+{
+    // trace(true): every rule invocation is recorded in a ParseTrace
+
+    public sealed interface Stmt permits Assign, Call {}
+    public record Assign(Name name, @Ch("=")Void eq, Name value) implements Stmt {}
+    public record Call(Name name, @Str("()")Void parens) implements Stmt {}
+    public record Name(@Regex("[a-z]+")String s){}
+
+    public record Chars(@Ch(range={'a','z'})char[] cs){}
+
+    {
+        builderOptions = builder -> builder.trace(true);
+        initParsers(Stmt.class);
+    }
+
+    @Test
+    void test() throws Exception
+    {
+        matchFull("f()");
+
+        var parser = parsers.get(1);
+        var trace = new ParseTrace(1000);
+        var result = parser.parse("f()", 0, 3, trace);
+        assertTrue(result instanceof ParseResult.Full);
+        // Stmt( Assign( Name( regex ) =fail )fail Call( Name( regex ) () ) )
+        assertEquals(0, trace.dropped());
+        long events = trace.events();
+
+        String stacks = trace.toCollapsedStacks();
+        assertEquals(String.join("\n",
+            "Stmt;Assign;Name;@Regex(\"[a-z]+\")String 1",
+            "Stmt;Assign;Name 1",
+            "Stmt;Assign;@Ch(\"=\")Void (fail) 1",
+            "Stmt;Assign (fail) 1",
+            "Stmt;Call;Name;@Regex(\"[a-z]+\")String 1",
+            "Stmt;Call;Name 1",
+            "Stmt;Call;@Str(\"()\")Void 1",
+            "Stmt;Call 1",
+            "Stmt 1",
+            ""), stacks);
+        assertEquals(2*9, events);
+
+        String json = trace.toChromeTrace();
+        assertTrue(json.startsWith("{\"displayTimeUnit\":\"ns\",\"traceEvents\":["));
+        assertEquals(events/2, json.split("\"ph\":\"B\"").length-1);
+        assertTrue(json.contains("\"outcome\":\"fail\""));
+        assertTrue(json.contains("\\\"=\\\"")); // @Ch("=") escaped
+
+        // reused; only the last events are kept
+        var small = new ParseTrace(4);
+        parser.parse("f()", 0, 3, small);
+        assertEquals(events, small.events());
+        assertEquals(events-4, small.dropped());
+        assertEquals(4, small.toChromeTrace().split("\"ph\"").length-1);
+        small.toCollapsedStacks(); // exits without enters are skipped
+
+        assertThrows(UnsupportedOperationException.class, ()->parsers.get(0).parse("f()", 0, 3, trace));
+    }
+
+    @Test
+    void testCharArray() throws Exception
+    {
+        // without trace, repetitions of a char are scanned in bulk; with trace, every char is recorded
+        initParsers(Chars.class);
+        matchFull("abcdef");
+
+        var trace = new ParseTrace(1000);
+        parsers.get(1).parse("abcdef", 0, 6, trace);
+        // 6 chars, then a failure at the end
+        assertEquals(String.join("\n",
+            "Chars;@Ch(range={97,122})char[];@Ch(range={97,122})char 6",
+            "Chars;@Ch(range={97,122})char[];@Ch(range={97,122})char (fail) 1",
+            "Chars;@Ch(range={97,122})char[] 1",
+            "Chars 1",
+            ""), trace.toCollapsedStacks());
+    }
+}